@@ -0,0 +1,50 @@
+package dev.nikkune.paymybuddy.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.OptionalInt;
+
+/**
+ * AccessTokenFilter authenticates the requests carrying an {@code Authorization: Bearer} access token issued by
+ * {@code /auth/login}. The token is checked by the {@link AccessTokenService} alone, with neither a database query
+ * nor a password hash, and the request is then authenticated as the user ID of the token.
+ * <p>
+ * A request without a bearer token goes on to HTTP Basic; a request with an invalid or expired one stays
+ * unauthenticated and is rejected with {@code 401 Unauthorized} if the endpoint requires authentication.
+ */
+public class AccessTokenFilter extends OncePerRequestFilter {
+    private static final String BEARER = "Bearer ";
+    private static final List<SimpleGrantedAuthority> AUTHORITIES = List.of(new SimpleGrantedAuthority("ROLE_USER"));
+
+    private final AccessTokenService accessTokenService;
+
+    public AccessTokenFilter(AccessTokenService accessTokenService) {
+        this.accessTokenService = accessTokenService;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String authorization = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (authorization != null && authorization.regionMatches(true, 0, BEARER, 0, BEARER.length())) {
+            OptionalInt userId = accessTokenService.verify(authorization.substring(BEARER.length()).trim());
+            if (userId.isPresent()) {
+                SecurityContext context = SecurityContextHolder.createEmptyContext();
+                context.setAuthentication(new UsernamePasswordAuthenticationToken(String.valueOf(userId.getAsInt()), null, AUTHORITIES));
+                SecurityContextHolder.setContext(context);
+            }
+        }
+        filterChain.doFilter(request, response);
+    }
+}
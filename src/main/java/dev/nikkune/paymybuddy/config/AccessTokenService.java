@@ -0,0 +1,124 @@
+package dev.nikkune.paymybuddy.config;
+
+import dev.nikkune.paymybuddy.utils.HmacSha256;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.OptionalInt;
+
+/**
+ * AccessTokenService issues the access tokens returned by {@code /auth/login} and verifies them on every request,
+ * without reading the database nor hashing a password.
+ * <p>
+ * A token is {@code payload.signature}, both in unpadded base64url: the payload holds the user ID (4 bytes) and the
+ * expiry in epoch seconds (8 bytes), and the signature is the HMAC-SHA256 of the payload with the secret of the
+ * application. A token is valid until it expires, {@code ttl-ms} after the login: it cannot be revoked before, so
+ * the TTL should stay short. Every instance must share the same {@code secret}; without one, a random secret is
+ * drawn at startup and the tokens do not survive a restart.
+ */
+@Component
+public class AccessTokenService {
+    private static final Logger logger = LogManager.getLogger(AccessTokenService.class);
+    private static final int PAYLOAD_LENGTH = 4 + 8;
+    private static final int MIN_SECRET_LENGTH = 32;
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    /**
+     * An issued access token.
+     *
+     * @param value     the token, sent back as {@code Authorization: Bearer <value>}
+     * @param expiresAt when the token expires
+     */
+    public record AccessToken(String value, Instant expiresAt) {
+    }
+
+    private final HmacSha256 hmac;
+    private final Duration ttl;
+
+    /**
+     * Constructs an AccessTokenService.
+     *
+     * @param secret    the base64 secret signing the tokens, at least 32 bytes; empty to draw a random one
+     * @param ttlMillis how long a token is valid after it was issued, in milliseconds
+     */
+    public AccessTokenService(@Value("${paymybuddy.auth.token.secret:}") String secret,
+                              @Value("${paymybuddy.auth.token.ttl-ms:900000}") long ttlMillis) {
+        if (ttlMillis <= 0)
+            throw new IllegalArgumentException("Access token TTL must be positive");
+
+        byte[] secretBytes;
+        if (secret.isBlank()) {
+            secretBytes = new byte[MIN_SECRET_LENGTH];
+            new SecureRandom().nextBytes(secretBytes);
+            logger.warn("No paymybuddy.auth.token.secret set: the access tokens are signed with a random secret and only valid on this instance until it stops");
+        } else {
+            secretBytes = Base64.getDecoder().decode(secret.trim());
+            if (secretBytes.length < MIN_SECRET_LENGTH)
+                throw new IllegalArgumentException("Access token secret must be at least " + MIN_SECRET_LENGTH + " bytes");
+        }
+        this.hmac = new HmacSha256(new SecretKeySpec(secretBytes, HmacSha256.ALGORITHM));
+        this.ttl = Duration.ofMillis(ttlMillis);
+    }
+
+    /**
+     * Issues a token for a user who just proved their identity.
+     *
+     * @param userId the ID of the user
+     * @return the token and its expiry
+     */
+    public AccessToken issue(int userId) {
+        return issue(userId, Instant.now());
+    }
+
+    AccessToken issue(int userId, Instant now) {
+        Instant expiresAt = now.plus(ttl);
+        byte[] payload = ByteBuffer.allocate(PAYLOAD_LENGTH).putInt(userId).putLong(expiresAt.getEpochSecond()).array();
+        String value = ENCODER.encodeToString(payload) + "." + ENCODER.encodeToString(hmac.sign(payload));
+        return new AccessToken(value, Instant.ofEpochSecond(expiresAt.getEpochSecond()));
+    }
+
+    /**
+     * Verifies a token.
+     *
+     * @param token the token sent by the client
+     * @return the ID of the user the token was issued to, or an empty OptionalInt if the token is malformed,
+     * forged or expired
+     */
+    public OptionalInt verify(String token) {
+        return verify(token, Instant.now());
+    }
+
+    OptionalInt verify(String token, Instant now) {
+        int separator = token.indexOf('.');
+        if (separator < 0)
+            return OptionalInt.empty();
+
+        byte[] payload;
+        byte[] signature;
+        try {
+            payload = DECODER.decode(token.substring(0, separator));
+            signature = DECODER.decode(token.substring(separator + 1));
+        } catch (IllegalArgumentException e) {
+            return OptionalInt.empty();
+        }
+        // Compared in constant time, so that the signature cannot be guessed byte after byte
+        if (payload.length != PAYLOAD_LENGTH || !MessageDigest.isEqual(signature, hmac.sign(payload)))
+            return OptionalInt.empty();
+
+        ByteBuffer buffer = ByteBuffer.wrap(payload);
+        int userId = buffer.getInt();
+        if (!now.isBefore(Instant.ofEpochSecond(buffer.getLong())))
+            return OptionalInt.empty();
+        return OptionalInt.of(userId);
+    }
+}
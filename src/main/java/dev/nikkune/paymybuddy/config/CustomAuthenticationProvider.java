@@ -1,5 +1,8 @@
 package dev.nikkune.paymybuddy.config;
 
+import dev.nikkune.paymybuddy.exception.TooManyAttemptsException;
+import dev.nikkune.paymybuddy.service.CredentialCache;
+import dev.nikkune.paymybuddy.service.LoginThrottle;
 import dev.nikkune.paymybuddy.service.UserService;
 import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.authentication.BadCredentialsException;
@@ -7,21 +10,34 @@ import org.springframework.security.authentication.UsernamePasswordAuthenticatio
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.web.authentication.WebAuthenticationDetails;
 import org.springframework.stereotype.Component;
 
 import java.util.Collections;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * CustomAuthenticationProvider is a custom implementation of the {@link AuthenticationProvider} interface.
  * It provides authentication logic by verifying the user credentials against a user service.
+ * The credentials verified recently are remembered by the {@link CredentialCache}, so that the clients
+ * sending them with every request are not checked against the database each time.
+ * <p>
+ * The credentials sent with HTTP Basic that are not cached take an attempt from the {@link LoginThrottle}, like
+ * {@code /auth/login}, before the user is looked up. They are told apart by the {@link WebAuthenticationDetails} the
+ * Basic filter gives them: {@code /auth/login} takes its attempt itself, before the cache, and gives no details.
  * <p>
  * This class is annotated with {@code @Component}, allowing it to be discovered and registered as a Spring bean.
  */
 @Component
 public class CustomAuthenticationProvider implements AuthenticationProvider {
     private final UserService userService;
-    public CustomAuthenticationProvider(UserService userService) {
+    private final CredentialCache credentialCache;
+    private final LoginThrottle loginThrottle;
+
+    public CustomAuthenticationProvider(UserService userService, CredentialCache credentialCache, LoginThrottle loginThrottle) {
         this.userService = userService;
+        this.credentialCache = credentialCache;
+        this.loginThrottle = loginThrottle;
     }
 
     /**
@@ -29,7 +45,11 @@ public class CustomAuthenticationProvider implements AuthenticationProvider {
      *
      * @param authentication the authentication request object containing the user's credentials
      * @return an {@link Authentication} object containing the authenticated user's details and authorities
-     * @throws AuthenticationException if authentication fails due to invalid credentials or unexpected errors
+     * @throws AuthenticationException    if authentication fails due to invalid credentials or unexpected errors
+     * @throws RejectedExecutionException if the password cannot be checked for lack of capacity, the credentials
+     *                                    being neither accepted nor rejected
+     * @throws TooManyAttemptsException   if the credentials sent with HTTP Basic are not cached and too many attempts
+     *                                    were made for the email or from the client address
      */
     @Override
     public Authentication authenticate(Authentication authentication) throws AuthenticationException {
@@ -37,8 +57,15 @@ public class CustomAuthenticationProvider implements AuthenticationProvider {
         String password = authentication.getCredentials().toString();
 
         try {
-            // Use the existing login method from UserService
-            boolean isAuthenticated = userService.login(email, password);
+            // Use the existing login method from UserService, unless the credentials were verified recently
+            boolean isAuthenticated = credentialCache.verify(email, password, () -> {
+                if (authentication.getDetails() instanceof WebAuthenticationDetails details) {
+                    long retryAfter = loginThrottle.acquire(email, details.getRemoteAddress());
+                    if (retryAfter > 0)
+                        throw new TooManyAttemptsException(retryAfter);
+                }
+                return userService.login(email, password);
+            });
             
             if (isAuthenticated) {
                 // If authentication is successful, create a new authenticated token
@@ -50,6 +77,8 @@ public class CustomAuthenticationProvider implements AuthenticationProvider {
             } else {
                 throw new BadCredentialsException("Authentication failed");
             }
+        } catch (RejectedExecutionException | TooManyAttemptsException e) {
+            throw e;
         } catch (RuntimeException e) {
             throw new BadCredentialsException(e.getMessage());
         }
@@ -0,0 +1,38 @@
+package dev.nikkune.paymybuddy.config;
+
+import dev.nikkune.paymybuddy.exception.TooManyAttemptsException;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerExceptionResolver;
+
+import java.io.IOException;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * RejectedAuthenticationFilter answers the HTTP Basic requests whose password could not be checked the same way as the
+ * controllers do, rendered by the {@link dev.nikkune.paymybuddy.exception.GlobalExceptionHandler}: for lack of hashing
+ * capacity, {@code 503 Service Unavailable} with a {@code Retry-After} header, and beyond the limit of the login
+ * throttle, {@code 429 Too Many Requests} with a {@code Retry-After} header. Without it, the rejection would escape
+ * the security filters as a server error.
+ */
+public class RejectedAuthenticationFilter extends OncePerRequestFilter {
+    private final HandlerExceptionResolver handlerExceptionResolver;
+
+    public RejectedAuthenticationFilter(HandlerExceptionResolver handlerExceptionResolver) {
+        this.handlerExceptionResolver = handlerExceptionResolver;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        try {
+            filterChain.doFilter(request, response);
+        } catch (RejectedExecutionException | TooManyAttemptsException e) {
+            if (response.isCommitted() || handlerExceptionResolver.resolveException(request, response, null, e) == null)
+                throw e;
+        }
+    }
+}
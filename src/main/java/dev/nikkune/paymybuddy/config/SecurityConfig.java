@@ -1,5 +1,6 @@
 package dev.nikkune.paymybuddy.config;
 
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -10,9 +11,11 @@ import org.springframework.security.config.annotation.web.configuration.EnableWe
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
+import org.springframework.web.servlet.HandlerExceptionResolver;
 
 import java.util.Arrays;
 import java.util.List;
@@ -29,15 +32,20 @@ import java.util.List;
 @EnableWebSecurity
 public class SecurityConfig {
     private final CustomAuthenticationProvider authenticationProvider;
+    private final AccessTokenService accessTokenService;
+    private final HandlerExceptionResolver handlerExceptionResolver;
 
-    public SecurityConfig(CustomAuthenticationProvider authenticationProvider) {
+    public SecurityConfig(CustomAuthenticationProvider authenticationProvider, AccessTokenService accessTokenService,
+                          @Qualifier("handlerExceptionResolver") HandlerExceptionResolver handlerExceptionResolver) {
         this.authenticationProvider = authenticationProvider;
+        this.accessTokenService = accessTokenService;
+        this.handlerExceptionResolver = handlerExceptionResolver;
     }
 
     /**
      * Configures the Spring Security filter chain for the application.
      * This method sets up CSRF protection, CORS, session management,
-     * authorization rules, HTTP basic authentication, and logout behavior.
+     * authorization rules, bearer access tokens, HTTP basic authentication, and logout behavior.
      *
      * @param http the {@link HttpSecurity} object to configure the security settings
      * @return the configured {@link SecurityFilterChain} for the application
@@ -68,6 +76,12 @@ public class SecurityConfig {
                         .anyRequest().authenticated()
                 )
 
+                // Authenticate the bearer access tokens issued by /auth/login, without hashing the password
+                .addFilterBefore(new AccessTokenFilter(accessTokenService), BasicAuthenticationFilter.class)
+
+                // Answer 503 when HTTP Basic cannot check the password for lack of hashing capacity, 429 beyond the login throttle
+                .addFilterBefore(new RejectedAuthenticationFilter(handlerExceptionResolver), BasicAuthenticationFilter.class)
+
                 // Désactiver HTTP Basic
                 .httpBasic(basic -> {
                 });
@@ -90,10 +104,13 @@ public class SecurityConfig {
                 "Authorization",
                 "Content-Type",
                 "X-Requested-With",
-                "Accept"
+                "Accept",
+                "Idempotency-Key"
         ));
         configuration.setExposedHeaders(Arrays.asList(
-                "Authorization"
+                "Authorization",
+                "Location",
+                "Idempotent-Replayed"
         ));
         configuration.setAllowCredentials(true);
         configuration.setMaxAge(3600L);
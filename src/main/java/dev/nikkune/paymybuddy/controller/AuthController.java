@@ -1,13 +1,18 @@
 package dev.nikkune.paymybuddy.controller;
 
+import dev.nikkune.paymybuddy.config.AccessTokenService;
+import dev.nikkune.paymybuddy.config.AccessTokenService.AccessToken;
 import dev.nikkune.paymybuddy.dto.LoginDTO;
 import dev.nikkune.paymybuddy.dto.UserRegistrationDTO;
+import dev.nikkune.paymybuddy.model.Money;
 import dev.nikkune.paymybuddy.model.User;
+import dev.nikkune.paymybuddy.service.LoginThrottle;
 import dev.nikkune.paymybuddy.service.UserService;
 import dev.nikkune.paymybuddy.utils.Response;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -20,6 +25,8 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.concurrent.RejectedExecutionException;
+
 /**
  * AuthController is a REST controller that handles authentication and user-related operations.
  * It provides endpoints for user login, registration, and logout. The controller interacts with
@@ -42,6 +49,16 @@ public class AuthController {
      * to support login functionalities.
      */
     private final AuthenticationManager authenticationManager;
+    /**
+     * Issues the access tokens returned on login, which authenticate the next requests
+     * without checking the password again.
+     */
+    private final AccessTokenService accessTokenService;
+    /**
+     * Limits the login attempts per email and per client address, so that a burst of attempts
+     * is rejected before any password is checked.
+     */
+    private final LoginThrottle loginThrottle;
 
     /**
      * Constructs an instance of AuthController with the specified services
@@ -50,21 +67,41 @@ public class AuthController {
      * @param userService           the service responsible for user-related operations
      * @param authenticationManager the Spring Security authentication manager
      *                              responsible for managing user authentication
+     * @param accessTokenService    the service issuing the access tokens
+     * @param loginThrottle         the limiter of the login attempts
      */
-    public AuthController(UserService userService, AuthenticationManager authenticationManager) {
+    public AuthController(UserService userService, AuthenticationManager authenticationManager, AccessTokenService accessTokenService,
+                          LoginThrottle loginThrottle) {
         this.userService = userService;
         this.authenticationManager = authenticationManager;
+        this.accessTokenService = accessTokenService;
+        this.loginThrottle = loginThrottle;
     }
 
     /**
      * Handles user login by authenticating the provided credentials and returning a success or failure response.
+     * On success, the response carries an access token to send as {@code Authorization: Bearer <token>}
+     * on the next requests until it expires. Too many attempts for the same email or from the same client
+     * address are rejected with a too many requests status and a Retry-After header, without checking the password.
      *
      * @param loginDTO the DTO containing the login credentials (email and password)
+     * @param request  the {@code HttpServletRequest} object, giving the address of the client
      * @return a ResponseEntity containing a success message and user details if authentication succeeds,
      * or an error message with an unauthorized status if it fails
+     * @throws RejectedExecutionException if too many passwords are being checked, answered with a 503 status
      */
     @PostMapping("/login")
-    public ResponseEntity<?> login(@RequestBody @Valid LoginDTO loginDTO) {
+    public ResponseEntity<?> login(@RequestBody @Valid LoginDTO loginDTO, HttpServletRequest request) {
+        long retryAfter = loginThrottle.acquire(loginDTO.getEmail(), request.getRemoteAddr());
+        if (retryAfter > 0) {
+            Response responseBody = new Response("Too many login attempts", false)
+                    .error("Retry in " + retryAfter + " seconds");
+
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter))
+                    .body(responseBody);
+        }
+
         try {
             // Authenticate the user
             Authentication authentication = authenticationManager.authenticate(
@@ -76,14 +113,19 @@ public class AuthController {
 
             // Get user details
             User user = userService.getUserByEmail(loginDTO.getEmail());
+            AccessToken accessToken = accessTokenService.issue(user.getId());
 
             Response responseBody = new Response("Login successful", true)
                     .add("userId", user.getId())
                     .add("username", user.getUsername())
                     .add("email", user.getEmail())
-                    .add("balance", user.getBalance());
+                    .add("balance", userService.getBalance(user))
+                    .add("token", accessToken.value())
+                    .add("tokenExpiresAt", accessToken.expiresAt());
 
             return ResponseEntity.ok(responseBody);
+        } catch (RejectedExecutionException e) {
+            throw e;
         } catch (Exception e) {
             Response responseBody = new Response("Authentication failed", false).error(e.getMessage());
 
@@ -101,6 +143,7 @@ public class AuthController {
      * @return a ResponseEntity containing:
      * - HTTP status 201 (Created) and user details upon successful registration
      * - HTTP status 400 (Bad Request) and an error message in case of failure
+     * @throws RejectedExecutionException if too many passwords are being hashed, answered with a 503 status
      */
     @PostMapping("/register")
     public ResponseEntity<?> register(@RequestBody @Valid UserRegistrationDTO registrationDTO) {
@@ -110,7 +153,7 @@ public class AuthController {
             newUser.setUsername(registrationDTO.getUsername());
             newUser.setEmail(registrationDTO.getEmail());
             newUser.setPassword(registrationDTO.getPassword());
-            newUser.setBalance(200); // Initial balance is 200
+            newUser.setBalance(Money.ofCents(20_000)); // Initial balance is 200.00
 
             // Register the user
             User registeredUser = userService.register(newUser);
@@ -122,6 +165,8 @@ public class AuthController {
                     .add("balance", registeredUser.getBalance());
 
             return ResponseEntity.status(HttpStatus.CREATED).body(responseBody);
+        } catch (RejectedExecutionException e) {
+            throw e;
         } catch (Exception e) {
             Response responseBody = new Response("Registration failed", false).error(e.getMessage());
 
@@ -2,17 +2,34 @@ package dev.nikkune.paymybuddy.controller;
 
 import dev.nikkune.paymybuddy.dto.TransactionCreationDTO;
 import dev.nikkune.paymybuddy.dto.TransactionDTO;
+import dev.nikkune.paymybuddy.dto.TransactionPageDTO;
+import dev.nikkune.paymybuddy.dto.TransferResultDTO;
+import dev.nikkune.paymybuddy.dto.TransferStatusDTO;
 import dev.nikkune.paymybuddy.mapper.TransactionMapper;
 import dev.nikkune.paymybuddy.model.Transaction;
+import dev.nikkune.paymybuddy.service.AsyncTransferPipeline;
 import dev.nikkune.paymybuddy.service.ITransactionService;
+import dev.nikkune.paymybuddy.service.IdempotencyManager;
+import dev.nikkune.paymybuddy.service.IdempotentResponse;
+import dev.nikkune.paymybuddy.service.TransactionExporter;
+import dev.nikkune.paymybuddy.service.TransactionPage;
+import dev.nikkune.paymybuddy.service.TransferOutcome;
+import dev.nikkune.paymybuddy.service.TransferTicket;
+import dev.nikkune.paymybuddy.service.UserVersions;
+import dev.nikkune.paymybuddy.utils.ETagUtil;
 import dev.nikkune.paymybuddy.utils.Response;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.Instant;
 import java.util.List;
 
 /**
@@ -24,43 +41,169 @@ public class TransactionController {
     private static final Logger logger = LoggerFactory.getLogger(TransactionController.class);
     private final ITransactionService transactionService;
     private final TransactionMapper transactionMapper;
+    private final AsyncTransferPipeline asyncTransferPipeline;
+    private final IdempotencyManager idempotencyManager;
+    private final TransactionExporter transactionExporter;
+    private final UserVersions userVersions;
 
     /**
      * Constructor for TransactionController
      *
-     * @param transactionService the transaction service
-     * @param transactionMapper  the transaction mapper
+     * @param transactionService    the transaction service
+     * @param transactionMapper     the transaction mapper
+     * @param asyncTransferPipeline the pipeline applying transactions asynchronously, when enabled
+     * @param idempotencyManager    the manager replaying the transactions created with an idempotency key
+     * @param transactionExporter   the exporter streaming the full history of a user
+     * @param userVersions          the versions of the users, giving the ETags of their transactions
      */
-    public TransactionController(ITransactionService transactionService, TransactionMapper transactionMapper) {
+    public TransactionController(ITransactionService transactionService, TransactionMapper transactionMapper,
+                                 AsyncTransferPipeline asyncTransferPipeline, IdempotencyManager idempotencyManager,
+                                 TransactionExporter transactionExporter, UserVersions userVersions) {
         this.transactionService = transactionService;
         this.transactionMapper = transactionMapper;
+        this.asyncTransferPipeline = asyncTransferPipeline;
+        this.idempotencyManager = idempotencyManager;
+        this.transactionExporter = transactionExporter;
+        this.userVersions = userVersions;
     }
 
     /**
-     * Get transactions by user ID
+     * Get transactions by user ID, or 304 Not Modified if they did not change since the client got them
      *
-     * @param userId the user ID
-     * @return list of transactions for the user
+     * @param userId      the user ID
+     * @param ifNoneMatch the ETag of the transactions the client holds, if any
+     * @return list of transactions for the user, with their ETag
      */
     @GetMapping
-    public ResponseEntity<List<TransactionDTO>> getTransactionsByUserId(@RequestParam @Valid Integer userId) {
+    public ResponseEntity<List<TransactionDTO>> getTransactionsByUserId(@RequestParam @Valid Integer userId,
+                                                                        @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         logger.debug("Received request to get transactions for user with ID: {}", userId);
-        List<Transaction> transactions = transactionService.getTransactionsByUserId(userId);
-        List<TransactionDTO> transactionDTOs = transactionMapper.transactionsToTransactionDTOs(transactions);
+        // Read before the transactions, so that a transaction committed meanwhile gives another ETag
+        String eTag = userVersions.transactionsETag(userId);
+        if (ETagUtil.matches(ifNoneMatch, eTag)) {
+            logger.info("Transactions not modified for user with ID: {}", userId);
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).cacheControl(ETagUtil.REVALIDATE).build();
+        }
+        List<TransactionDTO> transactionDTOs = transactionService.getTransactionsByUserId(userId);
         logger.info("Returning {} transactions for user with ID: {}", transactionDTOs.size(), userId);
+        return ResponseEntity.ok().eTag(eTag).cacheControl(ETagUtil.REVALIDATE).body(transactionDTOs);
+    }
+
+    /**
+     * Get one page of the transactions of a user, newest first
+     *
+     * @param userId the user ID
+     * @param after  the cursor returned with the previous page, absent for the first page
+     * @param limit  the maximum number of transactions of the page
+     * @param from   the ISO-8601 instant the transactions are created from, inclusive, absent for no lower bound
+     * @param to     the ISO-8601 instant the transactions are created before, exclusive, absent for no upper bound
+     * @return the page of transactions, with the cursor of the next page
+     */
+    @GetMapping("/history")
+    public ResponseEntity<TransactionPageDTO> getTransactionHistory(@RequestParam Integer userId,
+                                                                    @RequestParam(required = false) Integer after,
+                                                                    @RequestParam(required = false) Integer limit,
+                                                                    @RequestParam(required = false) Instant from,
+                                                                    @RequestParam(required = false) Instant to) {
+        logger.debug("Received request to get transactions for user with ID: {} after: {} from: {} to: {}", userId, after, from, to);
+        TransactionPage transactionPage = transactionService.getTransactionHistory(userId, after, limit, from, to);
+        TransactionPageDTO transactionPageDTO = transactionMapper.transactionPageToTransactionPageDTO(transactionPage);
+        logger.info("Returning {} transactions for user with ID: {}", transactionPageDTO.getTransactions().size(), userId);
+        return ResponseEntity.ok(transactionPageDTO);
+    }
+
+    /**
+     * Search the transactions of a user by description, newest first
+     *
+     * @param userId the user ID
+     * @param q      the searched terms, each matching the words of the description it starts
+     * @param limit  the maximum number of transactions returned
+     * @return the matching transactions
+     */
+    @GetMapping("/search")
+    public ResponseEntity<List<TransactionDTO>> searchTransactions(@RequestParam Integer userId,
+                                                                   @RequestParam String q,
+                                                                   @RequestParam(required = false) Integer limit) {
+        logger.debug("Received request to search transactions for user with ID: {} matching: {}", userId, q);
+        List<TransactionDTO> transactionDTOs = transactionService.searchTransactions(userId, q, limit);
+        logger.info("Returning {} transactions matching the search for user with ID: {}", transactionDTOs.size(), userId);
         return ResponseEntity.ok(transactionDTOs);
     }
 
+    /**
+     * Export the transactions of a user, oldest first, as a file download
+     * <p>
+     * The export is streamed while it is read from the database, so it can hold any number of transactions.
+     *
+     * @param userId the user ID
+     * @param format the format of the export: csv or ndjson
+     * @param fromId the lowest transaction ID exported, absent to start from the first transaction
+     * @param toId   the highest transaction ID exported, absent to go up to the last transaction
+     * @return the streamed export
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportTransactions(@RequestParam Integer userId,
+                                                                    @RequestParam(defaultValue = "csv") String format,
+                                                                    @RequestParam(required = false) Integer fromId,
+                                                                    @RequestParam(required = false) Integer toId) {
+        logger.debug("Received request to export transactions for user with ID: {} as {}", userId, format);
+        TransactionExporter.Format exportFormat = TransactionExporter.Format.of(format);
+        transactionExporter.checkExport(userId, fromId, toId);
+
+        StreamingResponseBody responseBody = outputStream -> {
+            long exported = transactionExporter.export(userId, fromId, toId, exportFormat, outputStream);
+            logger.info("Exported {} transactions for user with ID: {}", exported, userId);
+        };
+        ContentDisposition contentDisposition = ContentDisposition.attachment()
+                .filename("transactions-" + userId + "." + exportFormat.getExtension())
+                .build();
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, contentDisposition.toString())
+                .body(responseBody);
+    }
+
     /**
      * Add a new transaction
+     * <p>
+     * When an {@code Idempotency-Key} header is sent, the transaction is created at most once for that key:
+     * a retried request gets the response of the first one back, flagged with an {@code Idempotent-Replayed} header.
+     * Otherwise, when asynchronous transfers are enabled, the transaction is only queued: a 202 Accepted response is
+     * returned with the transfer ID, whose status can be polled on {@code /transactions/status/{id}}.
      *
      * @param transactionCreationDTO the transaction data
-     * @return the created transaction
+     * @param idempotencyKey         the optional idempotency key chosen by the client
+     * @return the created transaction, or the ID of the queued transfer
      */
     @PostMapping
-    public ResponseEntity<Response> addTransaction(@RequestBody @Valid TransactionCreationDTO transactionCreationDTO) {
+    public ResponseEntity<Response> addTransaction(@RequestBody @Valid TransactionCreationDTO transactionCreationDTO,
+                                                   @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
         logger.debug("Received request to add transaction from sender ID: {} to receiver ID: {}",
                 transactionCreationDTO.getSenderId(), transactionCreationDTO.getReceiverId());
+        if (idempotencyKey != null) {
+            IdempotentResponse idempotentResponse = idempotencyManager.execute(idempotencyKey, transactionCreationDTO,
+                    inTransaction -> transactionService.addTransaction(transactionCreationDTO, inTransaction));
+            Response responseBody = new Response("Transaction added successfully", true)
+                    .add("data", idempotentResponse.transaction());
+
+            logger.info("Transaction added with Idempotency-Key: {} (replayed: {})", idempotencyKey, idempotentResponse.replayed());
+            return ResponseEntity.status(HttpStatus.CREATED)
+                    .header("Idempotent-Replayed", String.valueOf(idempotentResponse.replayed()))
+                    .body(responseBody);
+        }
+
+        if (asyncTransferPipeline.isEnabled()) {
+            TransferTicket ticket = asyncTransferPipeline.submit(transactionCreationDTO);
+            Response responseBody = new Response("Transaction accepted", true)
+                    .add("transferId", ticket.getId())
+                    .add("status", ticket.getStatus());
+
+            logger.info("Transaction queued with transfer ID: {}", ticket.getId());
+            return ResponseEntity.status(HttpStatus.ACCEPTED)
+                    .header(HttpHeaders.LOCATION, "/transactions/status/" + ticket.getId())
+                    .body(responseBody);
+        }
+
         Transaction createdTransaction = transactionService.addTransaction(transactionCreationDTO);
         TransactionDTO transactionDTO = transactionMapper.transactionToTransactionDTO(createdTransaction);
 
@@ -70,4 +213,40 @@ public class TransactionController {
         logger.info("Transaction added successfully");
         return new ResponseEntity<>(responseBody, HttpStatus.CREATED);
     }
+
+    /**
+     * Add a batch of transactions in a single request. The items are checked one by one while the batch is applied,
+     * so that an invalid item, even a null one, is rejected in its own result without failing the others.
+     *
+     * @param transactionCreationDTOs the transactions data, applied in order
+     * @return the result of every transaction of the batch
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<Response> addTransactions(@RequestBody List<TransactionCreationDTO> transactionCreationDTOs) {
+        logger.debug("Received request to add a batch of {} transactions", transactionCreationDTOs.size());
+        List<TransferOutcome> outcomes = transactionService.addTransactions(transactionCreationDTOs);
+        List<TransferResultDTO> results = transactionMapper.transferOutcomesToTransferResultDTOs(outcomes);
+        long succeeded = outcomes.stream().filter(TransferOutcome::isSuccess).count();
+
+        Response responseBody = new Response("Batch processed", true)
+                .add("succeeded", succeeded)
+                .add("failed", outcomes.size() - succeeded)
+                .add("data", results);
+
+        logger.info("Batch processed: {} succeeded, {} failed", succeeded, outcomes.size() - succeeded);
+        return ResponseEntity.ok(responseBody);
+    }
+
+    /**
+     * Get the status of a transaction submitted asynchronously
+     *
+     * @param id the transfer ID returned when the transaction was accepted
+     * @return the status of the transfer: PENDING, COMMITTED or REJECTED
+     */
+    @GetMapping("/status/{id}")
+    public ResponseEntity<TransferStatusDTO> getTransferStatus(@PathVariable String id) {
+        logger.debug("Received request to get the status of transfer with ID: {}", id);
+        TransferTicket ticket = asyncTransferPipeline.getTicket(id);
+        return ResponseEntity.ok(transactionMapper.transferTicketToTransferStatusDTO(ticket));
+    }
 }
@@ -2,14 +2,19 @@ package dev.nikkune.paymybuddy.controller;
 
 import dev.nikkune.paymybuddy.dto.EmailDTO;
 import dev.nikkune.paymybuddy.dto.UserDTO;
+import dev.nikkune.paymybuddy.dto.UserStatsDTO;
 import dev.nikkune.paymybuddy.dto.UserUpdateDTO;
 import dev.nikkune.paymybuddy.mapper.UserMapper;
 import dev.nikkune.paymybuddy.model.User;
 import dev.nikkune.paymybuddy.service.IUserService;
+import dev.nikkune.paymybuddy.service.UserVersions;
+import dev.nikkune.paymybuddy.utils.ETagUtil;
 import dev.nikkune.paymybuddy.utils.Response;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -24,16 +29,19 @@ public class UserController {
     private static final Logger logger = LoggerFactory.getLogger(UserController.class);
     private final IUserService userService;
     private final UserMapper userMapper;
+    private final UserVersions userVersions;
 
     /**
      * Constructor for UserController
      *
-     * @param userService the user service
-     * @param userMapper  the user mapper
+     * @param userService  the user service
+     * @param userMapper   the user mapper
+     * @param userVersions the versions of the users, giving the ETags of their connections
      */
-    public UserController(IUserService userService, UserMapper userMapper) {
+    public UserController(IUserService userService, UserMapper userMapper, UserVersions userVersions) {
         this.userService = userService;
         this.userMapper = userMapper;
+        this.userVersions = userVersions;
     }
 
     /**
@@ -72,18 +80,39 @@ public class UserController {
     }
 
     /**
-     * Get a user's connections
+     * Get a user's connections, or 304 Not Modified if they did not change since the client got them
      *
-     * @param id the user ID
-     * @return the user's connections
+     * @param id          the user ID
+     * @param ifNoneMatch the ETag of the connections the client holds, if any
+     * @return the user's connections, with their ETag
      */
     @GetMapping("/{id}/connections")
-    public ResponseEntity<List<UserDTO>> getConnections(@PathVariable @Valid Integer id) {
+    public ResponseEntity<List<UserDTO>> getConnections(@PathVariable @Valid Integer id,
+                                                        @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         logger.debug("Received request to get connections for user with ID: {}", id);
+        String eTag = userVersions.connectionsETag(id);
+        if (ETagUtil.matches(ifNoneMatch, eTag)) {
+            logger.info("Connections not modified for user with ID: {}", id);
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).cacheControl(ETagUtil.REVALIDATE).build();
+        }
         List<User> connections = userService.getConnections(id);
         List<UserDTO> connectionDTOs = userMapper.usersToUserDTOs(connections);
         logger.info("Returning {} connections for user with ID: {}", connectionDTOs.size(), id);
-        return ResponseEntity.ok(connectionDTOs);
+        return ResponseEntity.ok().eTag(eTag).cacheControl(ETagUtil.REVALIDATE).body(connectionDTOs);
+    }
+
+    /**
+     * Get a user's transfer statistics
+     *
+     * @param id the user ID
+     * @return the user's totals, transaction count and top counterparties
+     */
+    @GetMapping("/{id}/stats")
+    public ResponseEntity<UserStatsDTO> getUserStats(@PathVariable @Valid Integer id) {
+        logger.debug("Received request to get statistics for user with ID: {}", id);
+        UserStatsDTO userStatsDTO = userService.getUserStats(id);
+        logger.info("Returning statistics for user with ID: {}", id);
+        return ResponseEntity.ok(userStatsDTO);
     }
 
     /**
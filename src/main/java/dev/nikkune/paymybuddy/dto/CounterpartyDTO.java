@@ -0,0 +1,22 @@
+package dev.nikkune.paymybuddy.dto;
+
+import dev.nikkune.paymybuddy.model.Money;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Data Transfer Object for a user the statistics of another user are about
+ * The all-args constructor is used by the projection query of CounterpartyStatsRepository
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CounterpartyDTO {
+    private String username;
+
+    // Transactions sent to or received from this user
+    private long transferCount;
+
+    private Money totalAmount;
+}
@@ -1,5 +1,6 @@
 package dev.nikkune.paymybuddy.dto;
 
+import dev.nikkune.paymybuddy.model.Money;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
 import lombok.Data;
@@ -19,5 +20,5 @@ public class TransactionCreationDTO {
 
     @NotNull(message = "Amount is required")
     @Positive(message = "Amount must be positive")
-    private double amount;
+    private Money amount;
 }
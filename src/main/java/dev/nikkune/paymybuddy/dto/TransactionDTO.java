@@ -1,16 +1,26 @@
 package dev.nikkune.paymybuddy.dto;
 
+import dev.nikkune.paymybuddy.model.Money;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
+import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
 
 /**
  * Data Transfer Object for Transaction entity
+ * The all-args constructor is used by the projection queries of TransactionRepository, keep its order in sync
  */
 @Data
+@NoArgsConstructor
+@AllArgsConstructor
 public class TransactionDTO {
 
+    private int id;
+
     @NotBlank(message = "Sender username is required")
     private String senderUsername;
 
@@ -21,5 +31,7 @@ public class TransactionDTO {
 
     @NotNull(message = "Amount is required")
     @Positive(message = "Amount must be positive")
-    private double amount;
+    private Money amount;
+
+    private Instant createdAt;
 }
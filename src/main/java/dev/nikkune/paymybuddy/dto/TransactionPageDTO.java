@@ -0,0 +1,16 @@
+package dev.nikkune.paymybuddy.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Data Transfer Object for one page of the transaction history of a user
+ */
+@Data
+public class TransactionPageDTO {
+    private List<TransactionDTO> transactions;
+
+    // Null on the last page
+    private Integer nextCursor;
+}
@@ -0,0 +1,17 @@
+package dev.nikkune.paymybuddy.dto;
+
+import lombok.Data;
+
+/**
+ * Data Transfer Object for the result of one transaction of a batch
+ */
+@Data
+public class TransferResultDTO {
+    private int index;
+
+    private boolean success;
+
+    private TransactionDTO transaction;
+
+    private String error;
+}
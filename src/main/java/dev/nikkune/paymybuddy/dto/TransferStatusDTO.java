@@ -0,0 +1,17 @@
+package dev.nikkune.paymybuddy.dto;
+
+import lombok.Data;
+
+/**
+ * Data Transfer Object for the status of an asynchronous transfer
+ */
+@Data
+public class TransferStatusDTO {
+    private String id;
+
+    private String status;
+
+    private Integer transactionId;
+
+    private String error;
+}
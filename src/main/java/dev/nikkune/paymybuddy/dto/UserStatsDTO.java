@@ -0,0 +1,23 @@
+package dev.nikkune.paymybuddy.dto;
+
+import dev.nikkune.paymybuddy.model.Money;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Data Transfer Object for the transfer statistics of a user
+ */
+@Data
+public class UserStatsDTO {
+    private int userId;
+
+    private Money totalSent;
+
+    private Money totalReceived;
+
+    private long transferCount;
+
+    // Most frequent counterparties first
+    private List<CounterpartyDTO> topCounterparties;
+}
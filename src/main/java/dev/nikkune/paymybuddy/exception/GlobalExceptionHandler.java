@@ -3,6 +3,8 @@ package dev.nikkune.paymybuddy.exception;
 import jakarta.validation.ConstraintViolationException;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
@@ -12,6 +14,7 @@ import org.springframework.web.bind.annotation.ExceptionHandler;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
 @ControllerAdvice
 public class GlobalExceptionHandler {
@@ -48,6 +51,76 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
     }
 
+    /**
+     * Handles ConcurrencyFailureExceptions, thrown when a write lost a race against a concurrent update
+     * of the same rows and could not be completed within the retry budget.
+     * <p>
+     * A 409 Conflict status is returned, since the request can be safely retried by the client.
+     *
+     * @param e the ConcurrencyFailureException to handle
+     * @return a ResponseEntity with a 409 Conflict status
+     */
+    @ExceptionHandler(ConcurrencyFailureException.class)
+    public ResponseEntity<Map<String, Object>> handleConcurrencyFailureException(ConcurrencyFailureException e) {
+        logger.warn("Concurrent update conflict: {}", e.getMessage());
+
+        // Create response
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", false);
+        response.put("message", "Conflict");
+        response.put("error", "The account was updated concurrently, please retry");
+
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+    }
+
+    /**
+     * Handles RejectedExecutionExceptions, thrown when the server has no capacity left to accept the request,
+     * for instance when the asynchronous transfer queue is full.
+     * <p>
+     * A 503 Service Unavailable status is returned with a Retry-After header.
+     *
+     * @param e the RejectedExecutionException to handle
+     * @return a ResponseEntity with a 503 Service Unavailable status
+     */
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<Map<String, Object>> handleRejectedExecutionException(RejectedExecutionException e) {
+        logger.warn("Request rejected: {}", e.getMessage());
+
+        // Create response
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", false);
+        response.put("message", "Service unavailable");
+        response.put("error", e.getMessage());
+
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(response);
+    }
+
+    /**
+     * Handles TooManyAttemptsExceptions, thrown when the login attempts of an email or of a client address
+     * exceed the limit of the login throttle.
+     * <p>
+     * A 429 Too Many Requests status is returned with a Retry-After header.
+     *
+     * @param e the TooManyAttemptsException to handle
+     * @return a ResponseEntity with a 429 Too Many Requests status
+     */
+    @ExceptionHandler(TooManyAttemptsException.class)
+    public ResponseEntity<Map<String, Object>> handleTooManyAttemptsException(TooManyAttemptsException e) {
+        logger.warn("Login attempt throttled: {}", e.getMessage());
+
+        // Create response
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", false);
+        response.put("message", "Too many login attempts");
+        response.put("error", e.getMessage());
+
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfter()))
+                .body(response);
+    }
+
     /**
      * Handle MethodArgumentNotValidException exceptions by returning a
      * ResponseEntity containing a map of errors.
@@ -0,0 +1,23 @@
+package dev.nikkune.paymybuddy.exception;
+
+/**
+ * Thrown when a login attempt is rejected by the {@link dev.nikkune.paymybuddy.service.LoginThrottle}, before the
+ * password is checked. It is answered with a {@code 429 Too Many Requests} status.
+ */
+public class TooManyAttemptsException extends RuntimeException {
+    private final long retryAfter;
+
+    /**
+     * Constructs a TooManyAttemptsException.
+     *
+     * @param retryAfter the number of seconds to wait before the next attempt
+     */
+    public TooManyAttemptsException(long retryAfter) {
+        super("Retry in " + retryAfter + " seconds");
+        this.retryAfter = retryAfter;
+    }
+
+    public long getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -2,8 +2,14 @@ package dev.nikkune.paymybuddy.mapper;
 
 import dev.nikkune.paymybuddy.dto.TransactionCreationDTO;
 import dev.nikkune.paymybuddy.dto.TransactionDTO;
+import dev.nikkune.paymybuddy.dto.TransactionPageDTO;
+import dev.nikkune.paymybuddy.dto.TransferResultDTO;
+import dev.nikkune.paymybuddy.dto.TransferStatusDTO;
 import dev.nikkune.paymybuddy.model.Transaction;
 import dev.nikkune.paymybuddy.model.User;
+import dev.nikkune.paymybuddy.service.TransactionPage;
+import dev.nikkune.paymybuddy.service.TransferOutcome;
+import dev.nikkune.paymybuddy.service.TransferTicket;
 import org.mapstruct.*;
 
 import java.util.List;
@@ -30,6 +36,34 @@ public interface TransactionMapper {
      */
     List<TransactionDTO> transactionsToTransactionDTOs(List<Transaction> transactions);
 
+    /**
+     * Converts a page of the transaction history to a TransactionPageDTO
+     * @param transactionPage the page of transactions
+     * @return the TransactionPageDTO
+     */
+    TransactionPageDTO transactionPageToTransactionPageDTO(TransactionPage transactionPage);
+
+    /**
+     * Converts the outcome of a batch item to a TransferResultDTO
+     * @param transferOutcome the outcome of the batch item
+     * @return the TransferResultDTO
+     */
+    TransferResultDTO transferOutcomeToTransferResultDTO(TransferOutcome transferOutcome);
+
+    /**
+     * Converts a list of batch item outcomes to a list of TransferResultDTOs
+     * @param transferOutcomes the list of batch item outcomes
+     * @return the list of TransferResultDTOs
+     */
+    List<TransferResultDTO> transferOutcomesToTransferResultDTOs(List<TransferOutcome> transferOutcomes);
+
+    /**
+     * Converts the ticket of an asynchronous transfer to a TransferStatusDTO
+     * @param transferTicket the ticket of the transfer
+     * @return the TransferStatusDTO
+     */
+    TransferStatusDTO transferTicketToTransferStatusDTO(TransferTicket transferTicket);
+
     /**
      * Updates a Transaction entity with a sender User
      * @param transaction the Transaction entity to update
@@ -36,6 +36,12 @@ public interface UserMapper {
      * @param userUpdateDTO the UserUpdateDTO containing the updated user information
      * @return the User entity updated with the given information
      */
+    // The version is only changed by the persistence layer, the other fields by their own endpoints
+    @Mapping(target = "version", ignore = true)
+    @Mapping(target = "balance", ignore = true)
+    @Mapping(target = "connections", ignore = true)
+    @Mapping(target = "sentTransactions", ignore = true)
+    @Mapping(target = "receivedTransactions", ignore = true)
     User userUpdateDTOToUser(UserUpdateDTO userUpdateDTO);
 
     /**
@@ -0,0 +1,22 @@
+package dev.nikkune.paymybuddy.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.Instant;
+
+@Entity
+@Table(name = "balance_snapshots")
+@Data
+public class BalanceSnapshot {
+    @Id
+    @Column(name = "account_id")
+    private int accountId;
+
+    // Includes the opening balance and every snapshotted ledger entry of the account
+    @Column(nullable = false)
+    private Money balance;
+
+    @Column(nullable = false)
+    private Instant takenAt;
+}
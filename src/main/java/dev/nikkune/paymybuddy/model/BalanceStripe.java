@@ -0,0 +1,35 @@
+package dev.nikkune.paymybuddy.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+@Entity
+@Table(name = "balance_stripes")
+@IdClass(BalanceStripe.Key.class)
+@Data
+public class BalanceStripe {
+    @Id
+    @Column(name = "account_id")
+    private int accountId;
+
+    @Id
+    private int stripe;
+
+    @Column(nullable = false)
+    private Money balance = Money.ZERO;
+
+    @Column(nullable = false)
+    private long version;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private int accountId;
+        private int stripe;
+    }
+}
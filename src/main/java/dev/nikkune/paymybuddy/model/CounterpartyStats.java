@@ -0,0 +1,39 @@
+package dev.nikkune.paymybuddy.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+@Entity
+@Table(name = "counterparty_stats", indexes = {
+        // Top counterparties of a user
+        @Index(name = "idx_counterparty_stats_user_id", columnList = "user_id, transfer_count")
+})
+@IdClass(CounterpartyStats.Key.class)
+@Data
+public class CounterpartyStats {
+    @Id
+    @Column(name = "user_id")
+    private int userId;
+
+    @Id
+    @Column(name = "counterparty_id")
+    private int counterpartyId;
+
+    @Column(nullable = false)
+    private long transferCount;
+
+    @Column(nullable = false)
+    private Money totalAmount = Money.ZERO;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private int userId;
+        private int counterpartyId;
+    }
+}
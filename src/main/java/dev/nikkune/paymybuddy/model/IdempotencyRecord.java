@@ -0,0 +1,32 @@
+package dev.nikkune.paymybuddy.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.Instant;
+
+@Entity
+@Table(name = "idempotency_keys")
+@Data
+public class IdempotencyRecord {
+    @Id
+    private String idempotencyKey;
+
+    @Column(nullable = false, length = 64)
+    private String fingerprint;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+
+    private Integer transactionId;
+
+    private String senderUsername;
+
+    private String receiverUsername;
+
+    private String description;
+
+    private Money amount;
+
+    private Instant transactionCreatedAt;
+}
@@ -0,0 +1,29 @@
+package dev.nikkune.paymybuddy.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+@Entity
+@Table(name = "ledger_entries", indexes = @Index(name = "idx_ledger_entries_account_id", columnList = "account_id, snapshotted"))
+@Data
+public class LedgerEntry {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE)
+    private long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "account_id", nullable = false)
+    private User account;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "transaction_id", nullable = false)
+    private Transaction transaction;
+
+    // Signed: negative for the sender, positive for the receiver
+    @Column(nullable = false)
+    private Money amount;
+
+    // Set once the entry is included in the balance snapshot of its account
+    @Column(nullable = false)
+    private boolean snapshotted;
+}
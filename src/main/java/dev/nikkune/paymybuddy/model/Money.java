@@ -0,0 +1,159 @@
+package dev.nikkune.paymybuddy.model;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import dev.nikkune.paymybuddy.utils.MoneyDeserializer;
+import dev.nikkune.paymybuddy.utils.MoneySerializer;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Money is an immutable amount of money stored as a whole number of cents.
+ * <p>
+ * All the arithmetic is exact integer arithmetic on a single {@code long}, which fails on overflow instead of
+ * silently losing precision like {@code double}, and does not allocate intermediate digits like {@code BigDecimal}.
+ * It is stored in a {@code BIGINT} column by {@link MoneyConverter} and serialized as a decimal JSON number with two
+ * fraction digits, so {@code 12.34} in the API is {@code 1234} in the database.
+ */
+@JsonSerialize(using = MoneySerializer.class)
+@JsonDeserialize(using = MoneyDeserializer.class)
+public final class Money implements Comparable<Money> {
+    /**
+     * The number of fraction digits of an amount.
+     */
+    public static final int SCALE = 2;
+
+    /**
+     * The number of integer digits of the largest amount, {@code Long.MAX_VALUE} cents.
+     */
+    private static final int MAX_INTEGER_DIGITS = 17;
+
+    /**
+     * The number of fraction digits above which a decimal is rejected even if they are all zeros.
+     */
+    private static final int MAX_DECIMAL_SCALE = SCALE + MAX_INTEGER_DIGITS;
+
+    public static final Money ZERO = new Money(0);
+
+    private final long cents;
+
+    private Money(long cents) {
+        this.cents = cents;
+    }
+
+    /**
+     * Creates an amount from a number of cents.
+     *
+     * @param cents the number of cents
+     * @return the amount
+     */
+    public static Money ofCents(long cents) {
+        return cents == 0 ? ZERO : new Money(cents);
+    }
+
+    /**
+     * Creates an amount from a decimal value.
+     *
+     * @param amount the decimal amount, with at most two fraction digits
+     * @return the amount
+     * @throws ArithmeticException if the amount has more than two fraction digits or does not fit in a {@code long} of cents
+     */
+    public static Money of(BigDecimal amount) throws ArithmeticException {
+        // Checked before rescaling: a decimal such as 1E+99999999 is cheap to parse but takes seconds to rescale
+        if (amount.precision() - amount.scale() > MAX_INTEGER_DIGITS || amount.scale() > MAX_DECIMAL_SCALE)
+            throw new ArithmeticException("Amount out of range: " + amount);
+        return ofCents(amount.setScale(SCALE, RoundingMode.UNNECESSARY).unscaledValue().longValueExact());
+    }
+
+    /**
+     * Creates an amount from its decimal representation, such as {@code "12.34"}.
+     *
+     * @param amount the decimal amount, with at most two fraction digits
+     * @return the amount
+     * @throws NumberFormatException if the text is not a decimal number
+     * @throws ArithmeticException   if the amount has more than two fraction digits or does not fit in a {@code long} of cents
+     */
+    public static Money of(String amount) throws NumberFormatException, ArithmeticException {
+        return of(new BigDecimal(amount));
+    }
+
+    /**
+     * Returns the number of cents of this amount.
+     *
+     * @return the number of cents
+     */
+    public long getCents() {
+        return cents;
+    }
+
+    /**
+     * Returns the sum of this amount and the given one.
+     *
+     * @param other the amount to add
+     * @return the sum
+     * @throws ArithmeticException if the sum overflows
+     */
+    public Money plus(Money other) throws ArithmeticException {
+        return ofCents(Math.addExact(cents, other.cents));
+    }
+
+    /**
+     * Returns the difference between this amount and the given one.
+     *
+     * @param other the amount to subtract
+     * @return the difference
+     * @throws ArithmeticException if the difference overflows
+     */
+    public Money minus(Money other) throws ArithmeticException {
+        return ofCents(Math.subtractExact(cents, other.cents));
+    }
+
+    /**
+     * Checks whether this amount is strictly greater than zero.
+     *
+     * @return {@code true} if this amount is positive, {@code false} otherwise
+     */
+    public boolean isPositive() {
+        return cents > 0;
+    }
+
+    /**
+     * Checks whether this amount is strictly lower than the given one.
+     *
+     * @param other the amount to compare to
+     * @return {@code true} if this amount is lower than the other one, {@code false} otherwise
+     */
+    public boolean isLessThan(Money other) {
+        return cents < other.cents;
+    }
+
+    /**
+     * Returns this amount as a decimal with two fraction digits.
+     *
+     * @return the decimal amount
+     */
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(cents, SCALE);
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(cents, other.cents);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Money money && cents == money.cents;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(cents);
+    }
+
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString();
+    }
+}
@@ -0,0 +1,15 @@
+package dev.nikkune.paymybuddy.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+@Entity
+@Table(name = "shared_versions")
+@Data
+public class SharedVersion {
+    @Id
+    private String name;
+
+    @Column(nullable = false)
+    private long version;
+}
@@ -3,8 +3,15 @@ package dev.nikkune.paymybuddy.model;
 import jakarta.persistence.*;
 import lombok.Data;
 
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
 @Entity
-@Table(name = "transactions")
+@Table(name = "transactions", indexes = {
+        // Ranges read by the history queries of each side of a transfer
+        @Index(name = "idx_transactions_sender_id", columnList = "sender_id, id"),
+        @Index(name = "idx_transactions_receiver_id", columnList = "receiver_id, id")
+})
 @Data
 public class Transaction {
     @Id
@@ -20,5 +27,18 @@ public class Transaction {
     private User receiver;
 
     private String description;
-    private double amount;
+
+    @Column(nullable = false)
+    private Money amount;
+
+    // Partitioning key of the table when it is partitioned by month
+    @Column(nullable = false, updatable = false)
+    private Instant createdAt;
+
+    @PrePersist
+    void onCreate() {
+        // Truncated as stored, so that a transaction reads the same before and after it is saved
+        if (createdAt == null)
+            createdAt = Instant.now().truncatedTo(ChronoUnit.MICROS);
+    }
 }
@@ -21,7 +21,11 @@ public class User {
 
     private String password;
 
-    private double balance;
+    @Column(nullable = false)
+    private Money balance = Money.ZERO;
+
+    @Version
+    private long version;
 
     @ManyToMany
     @JoinTable(
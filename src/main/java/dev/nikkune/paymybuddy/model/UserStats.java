@@ -0,0 +1,22 @@
+package dev.nikkune.paymybuddy.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+@Entity
+@Table(name = "user_stats")
+@Data
+public class UserStats {
+    @Id
+    @Column(name = "user_id")
+    private int userId;
+
+    @Column(nullable = false)
+    private Money totalSent = Money.ZERO;
+
+    @Column(nullable = false)
+    private Money totalReceived = Money.ZERO;
+
+    @Column(nullable = false)
+    private long transferCount;
+}
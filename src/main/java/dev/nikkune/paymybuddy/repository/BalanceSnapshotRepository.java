@@ -0,0 +1,9 @@
+package dev.nikkune.paymybuddy.repository;
+
+import dev.nikkune.paymybuddy.model.BalanceSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface BalanceSnapshotRepository extends JpaRepository<BalanceSnapshot, Integer> {
+}
@@ -0,0 +1,77 @@
+package dev.nikkune.paymybuddy.repository;
+
+import dev.nikkune.paymybuddy.model.BalanceStripe;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface BalanceStripeRepository extends JpaRepository<BalanceStripe, BalanceStripe.Key> {
+    /**
+     * Creates an empty balance stripe.
+     *
+     * @param accountId the ID of the account
+     * @param stripe    the index of the stripe
+     * @throws org.springframework.dao.DataIntegrityViolationException if the stripe already exists
+     */
+    @Modifying
+    @Query(value = "INSERT INTO balance_stripes (account_id, stripe, balance, version) VALUES (:accountId, :stripe, 0, 0)", nativeQuery = true)
+    void insertStripe(@Param("accountId") int accountId, @Param("stripe") int stripe);
+
+    /**
+     * Credits one balance stripe of an account in a single statement and bumps its version, which the ETag of the
+     * transactions of the account is derived from along with {@code users.version}.
+     *
+     * @param accountId the ID of the account
+     * @param stripe    the index of the stripe
+     * @param amount    the amount to credit, in cents
+     * @return the number of updated rows: 1 if the stripe was credited, 0 if it does not exist
+     */
+    @Modifying
+    @Query(value = "UPDATE balance_stripes SET balance = balance + :amount, version = version + 1 WHERE account_id = :accountId AND stripe = :stripe", nativeQuery = true)
+    int creditStripe(@Param("accountId") int accountId, @Param("stripe") int stripe, @Param("amount") long amount);
+
+    /**
+     * Retrieves the balance stripes of an account and locks them until the end of the current transaction.
+     * The rows are locked in ascending stripe order.
+     *
+     * @param accountId the ID of the account
+     * @return the stripes of the account, ordered by stripe
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM BalanceStripe s WHERE s.accountId = :accountId ORDER BY s.stripe")
+    List<BalanceStripe> findAllByAccountIdForUpdate(@Param("accountId") int accountId);
+
+    /**
+     * Empties every balance stripe of an account.
+     *
+     * @param accountId the ID of the account
+     * @return the number of updated rows
+     */
+    @Modifying
+    @Query(value = "UPDATE balance_stripes SET balance = 0 WHERE account_id = :accountId", nativeQuery = true)
+    int clearStripes(@Param("accountId") int accountId);
+
+    /**
+     * Sums the balance stripes of an account.
+     *
+     * @param accountId the ID of the account
+     * @return the sum of the stripes, in cents
+     */
+    @Query(value = "SELECT COALESCE(SUM(balance), 0) FROM balance_stripes WHERE account_id = :accountId", nativeQuery = true)
+    long sumByAccountId(@Param("accountId") int accountId);
+
+    /**
+     * Retrieves the IDs of the accounts having balance stripes.
+     *
+     * @return the IDs of the striped accounts
+     */
+    @Query("SELECT DISTINCT s.accountId FROM BalanceStripe s")
+    List<Integer> findStripedAccountIds();
+}
@@ -0,0 +1,57 @@
+package dev.nikkune.paymybuddy.repository;
+
+import dev.nikkune.paymybuddy.dto.CounterpartyDTO;
+import dev.nikkune.paymybuddy.model.CounterpartyStats;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface CounterpartyStatsRepository extends JpaRepository<CounterpartyStats, CounterpartyStats.Key> {
+    /**
+     * Adds transactions to the statistics of a user with one of their counterparties in a single statement.
+     *
+     * @param userId         the ID of the user
+     * @param counterpartyId the ID of the counterparty
+     * @param transferCount  the number of transactions
+     * @param amount         the amount sent or received, in cents
+     * @return the number of updated rows: 1 if the statistics were updated, 0 if the pair has none yet
+     */
+    @Modifying
+    @Query(value = "UPDATE counterparty_stats SET transfer_count = transfer_count + :transferCount, total_amount = total_amount + :amount " +
+            "WHERE user_id = :userId AND counterparty_id = :counterpartyId", nativeQuery = true)
+    int addCounterparty(@Param("userId") int userId, @Param("counterpartyId") int counterpartyId,
+                        @Param("transferCount") long transferCount, @Param("amount") long amount);
+
+    /**
+     * Creates the statistics of a user with one of their counterparties.
+     *
+     * @param userId         the ID of the user
+     * @param counterpartyId the ID of the counterparty
+     * @param transferCount  the number of transactions
+     * @param amount         the amount sent or received, in cents
+     * @throws org.springframework.dao.DataIntegrityViolationException if the pair already has statistics
+     */
+    @Modifying
+    @Query(value = "INSERT INTO counterparty_stats (user_id, counterparty_id, transfer_count, total_amount) " +
+            "VALUES (:userId, :counterpartyId, :transferCount, :amount)", nativeQuery = true)
+    void insertCounterparty(@Param("userId") int userId, @Param("counterpartyId") int counterpartyId,
+                            @Param("transferCount") long transferCount, @Param("amount") long amount);
+
+    /**
+     * Retrieves the counterparties a user exchanged the most transactions with, as DTOs.
+     *
+     * @param userId the ID of the user
+     * @param limit  the maximum number of counterparties returned
+     * @return the counterparties, by descending number of transactions
+     */
+    @Query("SELECT new dev.nikkune.paymybuddy.dto.CounterpartyDTO(u.username, c.transferCount, c.totalAmount) " +
+            "FROM CounterpartyStats c JOIN User u ON u.id = c.counterpartyId " +
+            "WHERE c.userId = :userId ORDER BY c.transferCount DESC, c.counterpartyId")
+    List<CounterpartyDTO> findTopByUserId(@Param("userId") int userId, Limit limit);
+}
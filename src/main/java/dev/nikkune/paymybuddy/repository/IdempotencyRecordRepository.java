@@ -0,0 +1,84 @@
+package dev.nikkune.paymybuddy.repository;
+
+import dev.nikkune.paymybuddy.model.IdempotencyRecord;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Optional;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+    /**
+     * Claims an idempotency key by inserting a record without a response.
+     * Unlike {@code save}, the insert fails if the key is already claimed, even by another instance of the application.
+     *
+     * @param key         the idempotency key
+     * @param fingerprint the fingerprint of the request
+     * @param createdAt   the time the key is claimed
+     * @throws org.springframework.dao.DataIntegrityViolationException if the key is already claimed
+     */
+    @Modifying
+    @Transactional
+    @Query("INSERT INTO IdempotencyRecord (idempotencyKey, fingerprint, createdAt) VALUES (:key, :fingerprint, :createdAt)")
+    void claim(@Param("key") String key, @Param("fingerprint") String fingerprint, @Param("createdAt") Instant createdAt);
+
+    /**
+     * Takes over a claim left without a response for too long, for instance by an instance that stopped while running
+     * the transfer.
+     *
+     * @param key          the idempotency key
+     * @param fingerprint  the fingerprint of the request taking the key over
+     * @param claimedAt    the time the key is claimed again
+     * @param claimedUntil the time before which the previous claim must have been made
+     * @return {@code 1} if the key was taken over, {@code 0} if it has a response or its claim is still recent
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE IdempotencyRecord r SET r.fingerprint = :fingerprint, r.createdAt = :claimedAt " +
+            "WHERE r.idempotencyKey = :key AND r.transactionId IS NULL AND r.createdAt < :claimedUntil")
+    int takeOver(@Param("key") String key, @Param("fingerprint") String fingerprint, @Param("claimedAt") Instant claimedAt,
+                 @Param("claimedUntil") Instant claimedUntil);
+
+    /**
+     * Locks a claim without a response until the end of the current transaction, provided it was not taken over.
+     *
+     * @param key       the idempotency key
+     * @param claimedAt the time the key was claimed by the caller
+     * @return the claim, or an empty Optional if the key was taken over or already has a response
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM IdempotencyRecord r WHERE r.idempotencyKey = :key AND r.transactionId IS NULL AND r.createdAt = :claimedAt")
+    Optional<IdempotencyRecord> findClaimForUpdate(@Param("key") String key, @Param("claimedAt") Instant claimedAt);
+
+    /**
+     * Releases a claimed idempotency key whose transfer did not commit.
+     * A key whose response was stored with its transfer is kept, even if the request failed afterwards, and so is a
+     * key taken over by another request meanwhile.
+     *
+     * @param key       the idempotency key
+     * @param claimedAt the time the key was claimed by the caller
+     * @return the number of deleted records
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.idempotencyKey = :key AND r.transactionId IS NULL AND r.createdAt = :claimedAt")
+    int release(@Param("key") String key, @Param("claimedAt") Instant claimedAt);
+
+    /**
+     * Deletes the records created before the given time.
+     *
+     * @param threshold the creation time before which records are deleted
+     * @return the number of deleted records
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.createdAt < :threshold")
+    int deleteCreatedBefore(@Param("threshold") Instant threshold);
+}
@@ -0,0 +1,45 @@
+package dev.nikkune.paymybuddy.repository;
+
+import dev.nikkune.paymybuddy.model.LedgerEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface LedgerEntryRepository extends JpaRepository<LedgerEntry, Long> {
+    /**
+     * Computes the balance of an account: its last snapshot, or the balance stored on the user if it has none, plus
+     * the ledger entries not snapshotted yet. The single statement reads the snapshot and the entries consistently,
+     * even while the account is being snapshotted.
+     *
+     * @param accountId the ID of the account
+     * @return an Optional containing the balance in cents, or an empty Optional if no user exists with the given ID
+     */
+    @Query(value = "SELECT COALESCE((SELECT s.balance FROM balance_snapshots s WHERE s.account_id = u.id), u.balance) + " +
+            "(SELECT COALESCE(SUM(e.amount), 0) FROM ledger_entries e WHERE e.account_id = u.id AND e.snapshotted = false) " +
+            "FROM users u WHERE u.id = :accountId", nativeQuery = true)
+    Optional<Long> findBalance(@Param("accountId") int accountId);
+
+    /**
+     * Retrieves the ledger entries of an account not included in its balance snapshot yet.
+     *
+     * @param accountId the ID of the account
+     * @return the entries not snapshotted
+     */
+    @Query("SELECT e FROM LedgerEntry e WHERE e.account.id = :accountId AND e.snapshotted = false")
+    List<LedgerEntry> findNotSnapshotted(@Param("accountId") int accountId);
+
+    /**
+     * Retrieves the accounts having at least the given number of ledger entries written since their last snapshot.
+     *
+     * @param minEntries the minimum number of entries since the last snapshot
+     * @return the IDs of the accounts
+     */
+    @Query(value = "SELECT account_id FROM ledger_entries WHERE snapshotted = false " +
+            "GROUP BY account_id HAVING COUNT(*) >= :minEntries", nativeQuery = true)
+    List<Integer> findAccountIdsToSnapshot(@Param("minEntries") long minEntries);
+}
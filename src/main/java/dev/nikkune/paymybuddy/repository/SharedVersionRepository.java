@@ -0,0 +1,43 @@
+package dev.nikkune.paymybuddy.repository;
+
+import dev.nikkune.paymybuddy.model.SharedVersion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface SharedVersionRepository extends JpaRepository<SharedVersion, String> {
+    /**
+     * Retrieves a version shared by all the users without loading it.
+     *
+     * @param name the name of the version
+     * @return an Optional containing the version, or an empty Optional if it was never changed
+     */
+    @Query("SELECT v.version FROM SharedVersion v WHERE v.name = :name")
+    Optional<Long> findVersionByName(@Param("name") String name);
+
+    /**
+     * Bumps a version shared by all the users in a single statement.
+     *
+     * @param name the name of the version
+     * @return the number of updated rows: 1 if the version was bumped, 0 if it does not exist yet
+     */
+    @Modifying
+    @Query("UPDATE SharedVersion v SET v.version = v.version + 1 WHERE v.name = :name")
+    int increment(@Param("name") String name);
+
+    /**
+     * Creates a version shared by all the users.
+     *
+     * @param name    the name of the version
+     * @param version the initial value of the version
+     * @throws org.springframework.dao.DataIntegrityViolationException if the version already exists
+     */
+    @Modifying
+    @Query("INSERT INTO SharedVersion (name, version) VALUES (:name, :version)")
+    void insert(@Param("name") String name, @Param("version") long version);
+}
@@ -1,19 +1,181 @@
 package dev.nikkune.paymybuddy.repository;
 
+import dev.nikkune.paymybuddy.dto.TransactionDTO;
+import dev.nikkune.paymybuddy.model.Money;
 import dev.nikkune.paymybuddy.model.Transaction;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
 import java.util.List;
 
 @Repository
 public interface TransactionRepository extends JpaRepository<Transaction, Integer> {
     /**
-     * Retrieves a list of transactions where the specified user is either the sender or the receiver.
+     * Columns of a transaction history row, read by {@link #toTransactionDTOs}.
+     * The transactions of a user are read as two branches, one per side of the transfer, combined with UNION ALL:
+     * each branch is a range of the {@code (sender_id, id)} or {@code (receiver_id, id)} index, where a single
+     * {@code sender_id = ? OR receiver_id = ?} predicate would need an index merge or a full scan.
+     * A transfer a user sent to themselves is only read on the sender side.
+     */
+    String HISTORY_COLUMNS = "SELECT t.id, s.username, r.username, t.description, t.amount, t.created_at FROM ";
+    String HISTORY_JOINS = " t JOIN users s ON s.id = t.sender_id JOIN users r ON r.id = t.receiver_id";
+    String HISTORY_BRANCH = "SELECT id, sender_id, receiver_id, description, amount, created_at FROM transactions ";
+
+    /**
+     * Bounds of the history pages read without a date range. They are still compared with {@code created_at},
+     * which keeps a single query and lets a table partitioned by month prune the partitions of a real range.
+     */
+    Instant HISTORY_START = Instant.EPOCH;
+    Instant HISTORY_END = Instant.parse("9999-12-31T00:00:00Z");
+
+    /**
+     * Query of {@link #findHistoryPageRowsByUserId}, also run by the history benchmark.
+     */
+    String HISTORY_PAGE_QUERY = HISTORY_COLUMNS + "(" +
+            "(" + HISTORY_BRANCH + "WHERE sender_id = :userId AND id < :afterId AND created_at >= :from AND created_at < :to " +
+            "ORDER BY id DESC LIMIT :limit) " +
+            "UNION ALL " +
+            "(" + HISTORY_BRANCH + "WHERE receiver_id = :userId AND sender_id <> :userId AND id < :afterId AND created_at >= :from AND created_at < :to " +
+            "ORDER BY id DESC LIMIT :limit)" +
+            ")" + HISTORY_JOINS + " ORDER BY t.id DESC LIMIT :limit";
+
+    /**
+     * Retrieves the transactions where the specified user is either the sender or the receiver, oldest first,
+     * as rows of {@link #HISTORY_COLUMNS}.
+     *
+     * @param userId the ID of the user who sent or received the transactions
+     * @return the rows of the transactions involving the user as either the sender or the receiver
+     */
+    @Query(nativeQuery = true, value = HISTORY_COLUMNS + "(" +
+            HISTORY_BRANCH + "WHERE sender_id = :userId " +
+            "UNION ALL " +
+            HISTORY_BRANCH + "WHERE receiver_id = :userId AND sender_id <> :userId" +
+            ")" + HISTORY_JOINS + " ORDER BY t.id")
+    List<Object[]> findHistoryRowsByUserId(@Param("userId") int userId);
+
+    /**
+     * Retrieves one page of the transactions of a user created within a date range, newest first, starting after a
+     * given transaction, as rows of {@link #HISTORY_COLUMNS}. Each branch stops after {@code limit} rows of its index,
+     * so the page is found by seeking on the indexes instead of skipping rows and its cost does not depend on how deep
+     * it is. When the table is partitioned by month, only the partitions overlapping the date range are read.
+     *
+     * @param userId  the ID of the user who sent or received the transactions
+     * @param afterId the ID of the last transaction of the previous page, the transactions returned have a lower ID
+     * @param from    the start of the date range, inclusive
+     * @param to      the end of the date range, exclusive
+     * @param limit   the maximum number of transactions returned
+     * @return the rows of the transactions involving the user with an ID lower than {@code afterId}, ordered by descending ID
+     */
+    @Query(nativeQuery = true, value = HISTORY_PAGE_QUERY)
+    List<Object[]> findHistoryPageRowsByUserId(@Param("userId") int userId, @Param("afterId") int afterId,
+                                               @Param("from") Instant from, @Param("to") Instant to, @Param("limit") int limit);
+
+    /**
+     * Retrieves the ID and the description of the transactions of a user that have a description, read to build
+     * the search index of the user.
+     *
+     * @param userId the ID of the user who sent or received the transactions
+     * @return the ID and the description of each transaction, in no particular order
+     */
+    @Query(nativeQuery = true, value = "SELECT id, description FROM transactions WHERE sender_id = :userId AND description IS NOT NULL " +
+            "UNION ALL " +
+            "SELECT id, description FROM transactions WHERE receiver_id = :userId AND sender_id <> :userId AND description IS NOT NULL")
+    List<Object[]> findDescriptionRowsByUserId(@Param("userId") int userId);
+
+    /**
+     * Retrieves the given transactions, newest first, as rows of {@link #HISTORY_COLUMNS}.
+     *
+     * @param ids the IDs of the transactions
+     * @return the rows of the transactions found, ordered by descending ID
+     */
+    @Query(nativeQuery = true, value = HISTORY_COLUMNS + "transactions" + HISTORY_JOINS + " WHERE t.id IN (:ids) ORDER BY t.id DESC")
+    List<Object[]> findHistoryRowsByIds(@Param("ids") List<Integer> ids);
+
+    /**
+     * Retrieves the transactions where the specified user is either the sender or the receiver, oldest first, as DTOs.
+     * The columns read by the DTO are selected with one join on the users, so no entity is loaded.
+     *
+     * @param userId the ID of the user who sent or received the transactions
+     * @return the transactions involving the user as either the sender or the receiver
+     */
+    default List<TransactionDTO> findDTOsByUserId(int userId) {
+        return toTransactionDTOs(findHistoryRowsByUserId(userId));
+    }
+
+    /**
+     * Retrieves one page of the transactions of a user, newest first, starting after a given transaction, as DTOs.
+     *
+     * @param userId  the ID of the user who sent or received the transactions
+     * @param afterId the ID of the last transaction of the previous page, the transactions returned have a lower ID
+     * @param limit   the maximum number of transactions returned
+     * @return the transactions involving the user with an ID lower than {@code afterId}, ordered by descending ID
+     */
+    default List<TransactionDTO> findPageByUserId(int userId, int afterId, int limit) {
+        return findPageByUserId(userId, afterId, HISTORY_START, HISTORY_END, limit);
+    }
+
+    /**
+     * Retrieves one page of the transactions of a user created within a date range, newest first, starting after a
+     * given transaction, as DTOs.
      *
-     * @param senderId the ID of the user who initiated the transactions
-     * @param receiverId the ID of the user who received the transactions
-     * @return a list of transactions involving the user as either the sender or the receiver
+     * @param userId  the ID of the user who sent or received the transactions
+     * @param afterId the ID of the last transaction of the previous page, the transactions returned have a lower ID
+     * @param from    the start of the date range, inclusive
+     * @param to      the end of the date range, exclusive
+     * @param limit   the maximum number of transactions returned
+     * @return the transactions involving the user with an ID lower than {@code afterId}, ordered by descending ID
+     */
+    default List<TransactionDTO> findPageByUserId(int userId, int afterId, Instant from, Instant to, int limit) {
+        return toTransactionDTOs(findHistoryPageRowsByUserId(userId, afterId, from, to, limit));
+    }
+
+    /**
+     * Retrieves the given transactions, newest first, as DTOs.
+     *
+     * @param ids the IDs of the transactions
+     * @return the transactions found, ordered by descending ID
+     */
+    default List<TransactionDTO> findDTOsByIds(List<Integer> ids) {
+        if (ids.isEmpty())
+            return List.of();
+        return toTransactionDTOs(findHistoryRowsByIds(ids));
+    }
+
+    /**
+     * Converts rows of {@link #HISTORY_COLUMNS} to TransactionDTOs.
+     *
+     * @param rows the rows read by a history query
+     * @return the TransactionDTOs, in the order of the rows
+     */
+    static List<TransactionDTO> toTransactionDTOs(List<Object[]> rows) {
+        List<TransactionDTO> transactionDTOs = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            transactionDTOs.add(new TransactionDTO(((Number) row[0]).intValue(), (String) row[1], (String) row[2],
+                    (String) row[3], Money.ofCents(((Number) row[4]).longValue()), toInstant(row[5])));
+        }
+        return transactionDTOs;
+    }
+
+    /**
+     * Converts a {@code created_at} value read by a native query, whose Java type depends on the database.
+     * Values without a time zone are stored in UTC, see {@code hibernate.jdbc.time_zone}.
      */
-    List<Transaction> findBySenderIdOrReceiverId(int senderId, int receiverId);
+    static Instant toInstant(Object createdAt) {
+        return switch (createdAt) {
+            case null -> null;
+            case Instant instant -> instant;
+            case OffsetDateTime offsetDateTime -> offsetDateTime.toInstant();
+            case LocalDateTime localDateTime -> localDateTime.toInstant(ZoneOffset.UTC);
+            case Timestamp timestamp -> timestamp.toInstant();
+            default -> throw new IllegalArgumentException("Unsupported created_at value : " + createdAt.getClass().getName());
+        };
+    }
 }
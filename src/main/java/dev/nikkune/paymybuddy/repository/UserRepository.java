@@ -1,9 +1,18 @@
 package dev.nikkune.paymybuddy.repository;
 
+import dev.nikkune.paymybuddy.model.Money;
 import dev.nikkune.paymybuddy.model.User;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -23,4 +32,115 @@ public interface UserRepository extends JpaRepository<User, Integer> {
      * @return an Optional containing the User object if found, or an empty Optional if no user exists with the given email
      */
     Optional<User> findByEmail(String email);
+
+    /**
+     * Retrieves the balance stored on a user without loading the user.
+     *
+     * @param id the ID of the user
+     * @return an Optional containing the balance, or an empty Optional if no user exists with the given ID
+     */
+    @Query("SELECT u.balance FROM User u WHERE u.id = :id")
+    Optional<Money> findBalanceById(@Param("id") int id);
+
+    /**
+     * Retrieves the username of a user without loading the user.
+     *
+     * @param id the ID of the user
+     * @return an Optional containing the username, or an empty Optional if no user exists with the given ID
+     */
+    @Query("SELECT u.username FROM User u WHERE u.id = :id")
+    Optional<String> findUsernameById(@Param("id") int id);
+
+    /**
+     * Retrieves the usernames of the users with the given IDs without loading the users.
+     *
+     * @param ids the IDs of the users
+     * @return a list of rows holding the ID and the username of each user found
+     */
+    @Query("SELECT u.id, u.username FROM User u WHERE u.id IN :ids")
+    List<Object[]> findUsernamesByIds(@Param("ids") Collection<Integer> ids);
+
+    /**
+     * Debits the balance of a user in a single statement, provided the balance covers the amount.
+     * The version is bumped so that a concurrent write of the loaded entity fails instead of overwriting the balance.
+     *
+     * @param id     the ID of the user to debit
+     * @param amount the amount to debit, in cents
+     * @return the number of updated rows: 1 if the user was debited, 0 if the user does not exist or
+     * the balance is insufficient
+     */
+    @Modifying
+    @Query(value = "UPDATE users SET balance = balance - :amount, version = version + 1 WHERE id = :id AND balance >= :amount", nativeQuery = true)
+    int debitBalance(@Param("id") int id, @Param("amount") long amount);
+
+    /**
+     * Credits the balance of a user in a single statement and bumps its version.
+     *
+     * @param id     the ID of the user to credit
+     * @param amount the amount to credit, in cents
+     * @return the number of updated rows: 1 if the user was credited, 0 if the user does not exist
+     */
+    @Modifying
+    @Query(value = "UPDATE users SET balance = balance + :amount, version = version + 1 WHERE id = :id", nativeQuery = true)
+    int creditBalance(@Param("id") int id, @Param("amount") long amount);
+
+    /**
+     * Bumps the versions of the given users in a single statement, for a change the users rows do not record
+     * otherwise, such as a transaction appended to the ledger.
+     *
+     * @param ids the IDs of the users
+     * @return the number of updated rows
+     */
+    @Modifying
+    @Query(value = "UPDATE users SET version = version + 1 WHERE id IN (:ids)", nativeQuery = true)
+    int incrementVersions(@Param("ids") Collection<Integer> ids);
+
+    /**
+     * Bumps the versions of the users having the given user among their connections, other than the user itself,
+     * in a single statement.
+     *
+     * @param id the ID of the connected user
+     * @return the number of updated rows
+     */
+    @Modifying
+    @Query(value = "UPDATE users SET version = version + 1 WHERE id <> :id AND id IN " +
+            "(SELECT user_id FROM user_connections WHERE connection_id = :id)", nativeQuery = true)
+    int incrementVersionsOfConnectedUsers(@Param("id") int id);
+
+    /**
+     * Retrieves the version of a user plus the versions of the balance stripes of the account without loading the
+     * user. It grows with every transaction the user sends or receives, whatever the transfer strategy.
+     *
+     * @param id the ID of the user
+     * @return an Optional containing the version, or an empty Optional if no user exists with the given ID
+     */
+    @Query(value = "SELECT u.version + COALESCE((SELECT SUM(s.version) FROM balance_stripes s WHERE s.account_id = u.id), 0) " +
+            "FROM users u WHERE u.id = :id", nativeQuery = true)
+    Optional<Long> findVersionById(@Param("id") int id);
+
+    /**
+     * Replaces the password hash of a user, provided it is still the given one, so that a password changed
+     * meanwhile is not overwritten. The version is left unchanged: the hash of the same password does not
+     * conflict with the writes of the loaded entity.
+     *
+     * @param id          the ID of the user
+     * @param oldPassword the hash the user is expected to have
+     * @param newPassword the new hash of the same password
+     * @return the number of updated rows: 1 if the hash was replaced, 0 otherwise
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE User u SET u.password = :newPassword WHERE u.id = :id AND u.password = :oldPassword")
+    int replacePassword(@Param("id") int id, @Param("oldPassword") String oldPassword, @Param("newPassword") String newPassword);
+
+    /**
+     * Retrieves the users with the given IDs in a single query and locks their rows until the end of the
+     * current transaction. The rows are locked in ascending ID order.
+     *
+     * @param ids the IDs of the users to be retrieved
+     * @return the users found, ordered by ID
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT u FROM User u WHERE u.id IN :ids ORDER BY u.id")
+    List<User> findAllByIdForUpdate(@Param("ids") Collection<Integer> ids);
 }
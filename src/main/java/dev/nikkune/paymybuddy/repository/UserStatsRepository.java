@@ -0,0 +1,41 @@
+package dev.nikkune.paymybuddy.repository;
+
+import dev.nikkune.paymybuddy.model.UserStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface UserStatsRepository extends JpaRepository<UserStats, Integer> {
+    /**
+     * Adds amounts to the statistics of a user in a single statement.
+     *
+     * @param userId        the ID of the user
+     * @param sent          the amount sent, in cents
+     * @param received      the amount received, in cents
+     * @param transferCount the number of transactions
+     * @return the number of updated rows: 1 if the statistics were updated, 0 if the user has none yet
+     */
+    @Modifying
+    @Query(value = "UPDATE user_stats SET total_sent = total_sent + :sent, total_received = total_received + :received, " +
+            "transfer_count = transfer_count + :transferCount WHERE user_id = :userId", nativeQuery = true)
+    int addStats(@Param("userId") int userId, @Param("sent") long sent, @Param("received") long received,
+                 @Param("transferCount") long transferCount);
+
+    /**
+     * Creates the statistics of a user.
+     *
+     * @param userId        the ID of the user
+     * @param sent          the amount sent, in cents
+     * @param received      the amount received, in cents
+     * @param transferCount the number of transactions
+     * @throws org.springframework.dao.DataIntegrityViolationException if the user already has statistics
+     */
+    @Modifying
+    @Query(value = "INSERT INTO user_stats (user_id, total_sent, total_received, transfer_count) " +
+            "VALUES (:userId, :sent, :received, :transferCount)", nativeQuery = true)
+    void insertStats(@Param("userId") int userId, @Param("sent") long sent, @Param("received") long received,
+                     @Param("transferCount") long transferCount);
+}
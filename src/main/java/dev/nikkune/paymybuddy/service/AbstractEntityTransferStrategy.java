@@ -0,0 +1,80 @@
+package dev.nikkune.paymybuddy.service;
+
+import dev.nikkune.paymybuddy.dto.TransactionCreationDTO;
+import dev.nikkune.paymybuddy.model.Transaction;
+import dev.nikkune.paymybuddy.model.User;
+import dev.nikkune.paymybuddy.repository.TransactionRepository;
+import dev.nikkune.paymybuddy.repository.UserRepository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Base class of the transfer strategies that load both users, update their balances on the entities
+ * and let JPA write the changes back.
+ * <p>
+ * Subclasses decide how concurrent transfers on the same accounts are kept apart, and call
+ * {@link #applyTransfer(TransactionCreationDTO, Consumer)} inside a transaction started with {@link #transactionTemplate}.
+ */
+public abstract class AbstractEntityTransferStrategy implements ITransferStrategy {
+    protected final TransactionRepository transactionRepository;
+    protected final UserRepository userRepository;
+    protected final TransactionTemplate transactionTemplate;
+
+    /**
+     * Constructs a new AbstractEntityTransferStrategy.
+     *
+     * @param transactionRepository the repository for managing transaction data
+     * @param userRepository        the repository for managing user data
+     * @param transactionManager    the transaction manager used to demarcate each transfer
+     */
+    protected AbstractEntityTransferStrategy(TransactionRepository transactionRepository, UserRepository userRepository,
+                                             PlatformTransactionManager transactionManager) {
+        this.transactionRepository = transactionRepository;
+        this.userRepository = userRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Loads the sender and the receiver, moves the amount between their balances, saves the transaction and hands it
+     * to {@code inTransaction}. Must be called inside a transaction.
+     *
+     * @param transactionCreationDTO the transaction to be added, which includes sender, receiver, amount, and description
+     * @param inTransaction          the action given the saved transaction, before the commit
+     * @return the saved transaction object
+     * @throws RuntimeException if the sender or receiver does not exist or if the sender's balance is insufficient
+     */
+    protected Transaction applyTransfer(TransactionCreationDTO transactionCreationDTO, Consumer<Transaction> inTransaction) throws RuntimeException {
+        User sender = userRepository.findById(transactionCreationDTO.getSenderId()).orElse(null);
+        if (sender == null)
+            throw new RuntimeException("Sender with ID : " + transactionCreationDTO.getSenderId() + " not found");
+
+        User receiver = userRepository.findById(transactionCreationDTO.getReceiverId()).orElse(null);
+        if (receiver == null)
+            throw new RuntimeException("Receiver with ID : " + transactionCreationDTO.getReceiverId() + " not found");
+
+        if (sender.getBalance().isLessThan(transactionCreationDTO.getAmount()))
+            throw new RuntimeException("Insufficient balance");
+
+        Transaction transaction = new Transaction();
+        transaction.setSender(sender);
+        transaction.setReceiver(receiver);
+        transaction.setAmount(transactionCreationDTO.getAmount());
+        transaction.setDescription(transactionCreationDTO.getDescription());
+
+        sender.setBalance(sender.getBalance().minus(transactionCreationDTO.getAmount()));
+        receiver.setBalance(receiver.getBalance().plus(transactionCreationDTO.getAmount()));
+
+        userRepository.save(sender);
+        userRepository.save(receiver);
+        // A transfer to oneself leaves the balance, hence the version giving the ETag of the transactions, unchanged
+        if (sender.getId() == receiver.getId())
+            userRepository.incrementVersions(List.of(sender.getId()));
+
+        transaction = transactionRepository.save(transaction);
+        inTransaction.accept(transaction);
+        return transaction;
+    }
+}
@@ -0,0 +1,157 @@
+package dev.nikkune.paymybuddy.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * AccountLockManager serializes work touching the same accounts while letting work on unrelated
+ * accounts run fully in parallel.
+ * <p>
+ * Accounts are mapped onto a fixed array of {@link ReentrantLock} stripes ({@code accountId mod stripeCount}).
+ * Stripes are always acquired in ascending order, so two transfers moving money in opposite directions
+ * between the same accounts can never deadlock. Contention is published per stripe through Micrometer:
+ * <ul>
+ *     <li>{@code paymybuddy.transfer.lock.acquisitions}: number of times the stripe was acquired</li>
+ *     <li>{@code paymybuddy.transfer.lock.wait}: time spent waiting when the stripe was already held</li>
+ *     <li>{@code paymybuddy.transfer.lock.queue}: number of threads currently waiting for the stripe</li>
+ * </ul>
+ */
+@Component
+public class AccountLockManager {
+    private final ReentrantLock[] stripes;
+    private final Counter[] acquisitionCounters;
+    private final Timer[] waitTimers;
+
+    /**
+     * Constructs an AccountLockManager with a fixed number of lock stripes.
+     *
+     * @param stripeCount   the number of lock stripes, must be positive
+     * @param meterRegistry the registry used to publish the contention metrics
+     */
+    public AccountLockManager(@Value("${paymybuddy.transfer.lock-stripes:64}") int stripeCount, MeterRegistry meterRegistry) {
+        if (stripeCount <= 0)
+            throw new IllegalArgumentException("Lock stripe count must be positive");
+
+        this.stripes = new ReentrantLock[stripeCount];
+        this.acquisitionCounters = new Counter[stripeCount];
+        this.waitTimers = new Timer[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            String stripe = String.valueOf(i);
+            ReentrantLock lock = new ReentrantLock();
+            stripes[i] = lock;
+            acquisitionCounters[i] = Counter.builder("paymybuddy.transfer.lock.acquisitions")
+                    .description("Number of times the account lock stripe was acquired")
+                    .tag("stripe", stripe)
+                    .register(meterRegistry);
+            waitTimers[i] = Timer.builder("paymybuddy.transfer.lock.wait")
+                    .description("Time spent waiting for an account lock stripe held by another transfer")
+                    .tag("stripe", stripe)
+                    .register(meterRegistry);
+            Gauge.builder("paymybuddy.transfer.lock.queue", lock, ReentrantLock::getQueueLength)
+                    .description("Number of transfers waiting for the account lock stripe")
+                    .tag("stripe", stripe)
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * Runs the given action while holding the locks of both accounts.
+     *
+     * @param firstAccountId  the ID of the first account
+     * @param secondAccountId the ID of the second account
+     * @param action          the action to run
+     * @param <T>             the type of the action result
+     * @return the result of the action
+     */
+    public <T> T withAccountLocks(int firstAccountId, int secondAccountId, Supplier<T> action) {
+        return withAccountLocks(List.of(firstAccountId, secondAccountId), action);
+    }
+
+    /**
+     * Runs the given action while holding the locks of every given account.
+     * The locks are released once the action returns or throws.
+     *
+     * @param accountIds the IDs of the accounts to lock
+     * @param action     the action to run
+     * @param <T>        the type of the action result
+     * @return the result of the action
+     */
+    public <T> T withAccountLocks(Collection<Integer> accountIds, Supplier<T> action) {
+        int[] order = accountIds.stream()
+                .mapToInt(this::stripeFor)
+                .distinct()
+                .sorted()
+                .toArray();
+
+        int acquired = 0;
+        try {
+            for (int stripe : order) {
+                lock(stripe);
+                acquired++;
+            }
+            return action.get();
+        } finally {
+            for (int i = acquired - 1; i >= 0; i--)
+                stripes[order[i]].unlock();
+        }
+    }
+
+    /**
+     * Returns the stripe guarding the given account.
+     *
+     * @param accountId the ID of the account
+     * @return the index of the stripe guarding the account
+     */
+    public int stripeFor(int accountId) {
+        return Math.floorMod(accountId, stripes.length);
+    }
+
+    /**
+     * Checks whether the current thread holds the lock guarding the given account.
+     *
+     * @param accountId the ID of the account
+     * @return {@code true} if the current thread holds the account lock, {@code false} otherwise
+     */
+    public boolean isHeldByCurrentThread(int accountId) {
+        return stripes[stripeFor(accountId)].isHeldByCurrentThread();
+    }
+
+    /**
+     * Returns the number of threads currently waiting for the given stripe.
+     *
+     * @param stripe the index of the stripe
+     * @return the number of waiting threads
+     */
+    public int getQueueLength(int stripe) {
+        return stripes[stripe].getQueueLength();
+    }
+
+    /**
+     * Returns the number of lock stripes.
+     *
+     * @return the number of lock stripes
+     */
+    public int getStripeCount() {
+        return stripes.length;
+    }
+
+    private void lock(int stripe) {
+        ReentrantLock lock = stripes[stripe];
+        if (!lock.tryLock()) {
+            long start = System.nanoTime();
+            lock.lock();
+            waitTimers[stripe].record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        acquisitionCounters[stripe].increment();
+    }
+}
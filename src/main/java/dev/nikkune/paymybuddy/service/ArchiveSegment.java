@@ -0,0 +1,237 @@
+package dev.nikkune.paymybuddy.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * An immutable segment file of archived transactions, read through a memory mapping.
+ * <p>
+ * A segment holds one block per user, with every transaction the user sent or received, in ascending ID order. Each
+ * block is compressed on its own, so that the transactions of a user are read without inflating the other blocks.
+ * The blocks are followed by the offset index of the segment, one entry per user, then by a fixed-size footer:
+ * <pre>
+ * block*  entry*  entryCount:int  indexOffset:long  MAGIC:int
+ * entry = userId:int offset:long compressedLength:int length:int minId:int maxId:int minCreatedAt:long maxCreatedAt:long
+ * row   = id:int senderId:int receiverId:int amount:long createdAt:long descriptionLength:int description:byte*
+ * </pre>
+ * Amounts are in cents, dates in microseconds since the epoch and descriptions in UTF-8, with a length of {@code -1}
+ * for a missing description.
+ */
+final class ArchiveSegment {
+    static final int MAGIC = 0x504D4231;
+    private static final int ENTRY_SIZE = 4 + 8 + 4 + 4 + 4 + 4 + 8 + 8;
+    private static final int FOOTER_SIZE = 4 + 8 + 4;
+
+    /**
+     * An archived transaction.
+     */
+    record Row(int id, int senderId, int receiverId, String description, long amount, Instant createdAt) {
+    }
+
+    /**
+     * The location of the transactions of one user in a segment.
+     */
+    record Block(ArchiveSegment segment, int userId, long offset, int compressedLength, int length,
+                 int minId, int maxId, Instant minCreatedAt, Instant maxCreatedAt) {
+
+        /**
+         * Inflates the transactions of the block.
+         *
+         * @return the transactions, in ascending ID order
+         */
+        List<Row> rows() {
+            return segment.read(this);
+        }
+    }
+
+    private final String name;
+    private final MappedByteBuffer buffer;
+    private final List<Block> blocks;
+
+    private ArchiveSegment(String name, MappedByteBuffer buffer) {
+        this.name = name;
+        this.buffer = buffer;
+        this.blocks = readIndex();
+    }
+
+    String name() {
+        return name;
+    }
+
+    List<Block> blocks() {
+        return blocks;
+    }
+
+    /**
+     * Maps a segment file and reads its offset index.
+     *
+     * @param path the segment file
+     * @return the segment
+     * @throws IOException if the file cannot be read or is not a complete segment
+     */
+    static ArchiveSegment open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // The mapping stays valid once the channel is closed, and when the file is renamed
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new ArchiveSegment(path.getFileName().toString(), buffer);
+        } catch (IllegalStateException e) {
+            throw new IOException("Invalid archive segment " + path + " : " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Writes a segment file and forces it to the disk.
+     *
+     * @param path         the file to create
+     * @param rowsByUserId the transactions of each user, in ascending ID order, by ascending user ID
+     * @throws IOException if the file cannot be written
+     */
+    static void write(Path path, SortedMap<Integer, List<Row>> rowsByUserId) throws IOException {
+        ByteArrayOutputStream index = new ByteArrayOutputStream();
+        DataOutputStream indexOutput = new DataOutputStream(index);
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            long offset = 0;
+            for (Map.Entry<Integer, List<Row>> user : rowsByUserId.entrySet()) {
+                List<Row> rows = user.getValue();
+                byte[] block = encode(rows);
+                byte[] compressed = deflate(deflater, block);
+                offset += writeFully(channel, ByteBuffer.wrap(compressed));
+
+                indexOutput.writeInt(user.getKey());
+                indexOutput.writeLong(offset - compressed.length);
+                indexOutput.writeInt(compressed.length);
+                indexOutput.writeInt(block.length);
+                indexOutput.writeInt(rows.getFirst().id());
+                indexOutput.writeInt(rows.getLast().id());
+                indexOutput.writeLong(rows.stream().map(Row::createdAt).min(Instant::compareTo).map(ArchiveSegment::micros).orElseThrow());
+                indexOutput.writeLong(rows.stream().map(Row::createdAt).max(Instant::compareTo).map(ArchiveSegment::micros).orElseThrow());
+            }
+            indexOutput.writeInt(rowsByUserId.size());
+            indexOutput.writeLong(offset);
+            indexOutput.writeInt(MAGIC);
+            writeFully(channel, ByteBuffer.wrap(index.toByteArray()));
+            channel.force(true);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private List<Block> readIndex() {
+        int size = buffer.capacity();
+        if (size < FOOTER_SIZE || buffer.getInt(size - 4) != MAGIC)
+            throw new IllegalStateException("missing footer");
+        int entryCount = buffer.getInt(size - FOOTER_SIZE);
+        long indexOffset = buffer.getLong(size - FOOTER_SIZE + 4);
+        if (indexOffset + (long) entryCount * ENTRY_SIZE + FOOTER_SIZE != size)
+            throw new IllegalStateException("truncated index");
+
+        List<Block> index = new ArrayList<>(entryCount);
+        ByteBuffer entries = buffer.slice((int) indexOffset, entryCount * ENTRY_SIZE);
+        for (int i = 0; i < entryCount; i++) {
+            index.add(new Block(this, entries.getInt(), entries.getLong(), entries.getInt(), entries.getInt(),
+                    entries.getInt(), entries.getInt(), instant(entries.getLong()), instant(entries.getLong())));
+        }
+        return List.copyOf(index);
+    }
+
+    private List<Row> read(Block block) {
+        byte[] bytes = new byte[block.length()];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(buffer.slice((int) block.offset(), block.compressedLength()));
+            int read = 0;
+            while (read < bytes.length && !inflater.finished())
+                read += inflater.inflate(bytes, read, bytes.length - read);
+            if (read != bytes.length)
+                throw new IllegalStateException("Truncated block of user " + block.userId() + " in archive segment " + name);
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupted block of user " + block.userId() + " in archive segment " + name, e);
+        } finally {
+            inflater.end();
+        }
+        return decode(ByteBuffer.wrap(bytes));
+    }
+
+    private static byte[] encode(List<Row> rows) throws IOException {
+        ByteArrayOutputStream block = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(block);
+        for (Row row : rows) {
+            output.writeInt(row.id());
+            output.writeInt(row.senderId());
+            output.writeInt(row.receiverId());
+            output.writeLong(row.amount());
+            output.writeLong(micros(row.createdAt()));
+            if (row.description() == null) {
+                output.writeInt(-1);
+            } else {
+                byte[] description = row.description().getBytes(StandardCharsets.UTF_8);
+                output.writeInt(description.length);
+                output.write(description);
+            }
+        }
+        return block.toByteArray();
+    }
+
+    private static List<Row> decode(ByteBuffer block) {
+        List<Row> rows = new ArrayList<>();
+        while (block.hasRemaining()) {
+            int id = block.getInt();
+            int senderId = block.getInt();
+            int receiverId = block.getInt();
+            long amount = block.getLong();
+            Instant createdAt = instant(block.getLong());
+            String description = null;
+            int descriptionLength = block.getInt();
+            if (descriptionLength >= 0) {
+                byte[] utf8 = new byte[descriptionLength];
+                block.get(utf8);
+                description = new String(utf8, StandardCharsets.UTF_8);
+            }
+            rows.add(new Row(id, senderId, receiverId, description, amount, createdAt));
+        }
+        return rows;
+    }
+
+    private static byte[] deflate(Deflater deflater, byte[] block) {
+        deflater.reset();
+        deflater.setInput(block);
+        deflater.finish();
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(Math.max(64, block.length / 4));
+        byte[] chunk = new byte[8192];
+        while (!deflater.finished())
+            compressed.write(chunk, 0, deflater.deflate(chunk));
+        return compressed.toByteArray();
+    }
+
+    private static int writeFully(FileChannel channel, ByteBuffer bytes) throws IOException {
+        int written = bytes.remaining();
+        while (bytes.hasRemaining())
+            channel.write(bytes);
+        return written;
+    }
+
+    private static long micros(Instant instant) {
+        return ChronoUnit.MICROS.between(Instant.EPOCH, instant);
+    }
+
+    private static Instant instant(long micros) {
+        return Instant.EPOCH.plus(micros, ChronoUnit.MICROS);
+    }
+}
@@ -0,0 +1,192 @@
+package dev.nikkune.paymybuddy.service;
+
+import dev.nikkune.paymybuddy.dto.TransactionCreationDTO;
+import dev.nikkune.paymybuddy.model.Transaction;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AsyncTransferPipeline decouples the acceptance of a transfer from its commit.
+ * <p>
+ * When {@code paymybuddy.transfer.async.enabled} is set, submitted transfers are queued into one of
+ * {@code shards} bounded ring buffers ({@link ArrayBlockingQueue}) chosen by sender ID, and each shard is
+ * drained by a single writer thread. All the debits of a sender are therefore applied one after the other
+ * by the same thread, in submission order, without any application lock; the credits still go through the
+ * atomic updates of the configured {@link ITransferStrategy}. A full shard rejects the submission with a
+ * {@link RejectedExecutionException} instead of blocking the HTTP thread.
+ * <p>
+ * Each transfer is tracked by a {@link TransferTicket}; completed tickets are kept for {@code ticket-ttl-ms}
+ * so that clients can poll their status, then purged. Queued transfers live in memory only: the writers drain
+ * their queue on shutdown, but a crash loses the transfers that were still pending.
+ * Published metrics:
+ * <ul>
+ *     <li>{@code paymybuddy.transfer.async.queue}: number of transfers waiting in a shard</li>
+ *     <li>{@code paymybuddy.transfer.async.lag}: time between the submission and the completion of a transfer</li>
+ * </ul>
+ */
+@Component
+public class AsyncTransferPipeline implements DisposableBean {
+    private static final Logger logger = LogManager.getLogger(AsyncTransferPipeline.class);
+
+    private final ITransactionService transactionService;
+    private final boolean enabled;
+    private final long ticketTtlMillis;
+    private final List<BlockingQueue<PendingTransfer>> shards = new ArrayList<>();
+    private final List<Thread> writers = new ArrayList<>();
+    private final Map<String, TransferTicket> tickets = new ConcurrentHashMap<>();
+    private final Timer lagTimer;
+    private volatile boolean running;
+
+    /**
+     * Constructs an AsyncTransferPipeline and starts its writers when it is enabled.
+     *
+     * @param transactionService the service applying the transfers
+     * @param meterRegistry      the registry used to publish the pipeline metrics
+     * @param enabled            whether transfers are applied asynchronously
+     * @param shardCount         the number of shards, hence of writer threads, must be positive
+     * @param queueCapacity      the number of transfers each shard can hold, must be positive
+     * @param ticketTtlMillis    how long a completed ticket is kept, in milliseconds
+     */
+    public AsyncTransferPipeline(ITransactionService transactionService, MeterRegistry meterRegistry,
+                                 @Value("${paymybuddy.transfer.async.enabled:false}") boolean enabled,
+                                 @Value("${paymybuddy.transfer.async.shards:4}") int shardCount,
+                                 @Value("${paymybuddy.transfer.async.queue-capacity:1024}") int queueCapacity,
+                                 @Value("${paymybuddy.transfer.async.ticket-ttl-ms:600000}") long ticketTtlMillis) {
+        if (shardCount <= 0 || queueCapacity <= 0)
+            throw new IllegalArgumentException("Async shard count and queue capacity must be positive");
+
+        this.transactionService = transactionService;
+        this.enabled = enabled;
+        this.ticketTtlMillis = ticketTtlMillis;
+        this.lagTimer = Timer.builder("paymybuddy.transfer.async.lag")
+                .description("Time between the submission and the completion of an asynchronous transfer")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        if (!enabled)
+            return;
+
+        running = true;
+        for (int i = 0; i < shardCount; i++) {
+            BlockingQueue<PendingTransfer> queue = new ArrayBlockingQueue<>(queueCapacity);
+            shards.add(queue);
+            Gauge.builder("paymybuddy.transfer.async.queue", queue, BlockingQueue::size)
+                    .description("Number of transfers waiting in the shard")
+                    .tag("shard", String.valueOf(i))
+                    .register(meterRegistry);
+            Thread writer = new Thread(() -> drain(queue), "transfer-writer-" + i);
+            writer.setDaemon(true);
+            writers.add(writer);
+            writer.start();
+        }
+        logger.info("Asynchronous transfers enabled with {} shards of {} transfers", shardCount, queueCapacity);
+    }
+
+    /**
+     * Checks whether transfers are applied asynchronously.
+     *
+     * @return {@code true} if the pipeline accepts transfers, {@code false} otherwise
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Queues a transfer on the shard of its sender.
+     *
+     * @param transactionCreationDTO the transfer to apply
+     * @return the pending ticket of the transfer
+     * @throws RejectedExecutionException if the pipeline is stopped or the shard of the sender is full
+     */
+    public TransferTicket submit(TransactionCreationDTO transactionCreationDTO) throws RejectedExecutionException {
+        if (!running)
+            throw new RejectedExecutionException("Asynchronous transfers are not accepted");
+
+        TransferTicket ticket = new TransferTicket(UUID.randomUUID().toString(), System.currentTimeMillis());
+        tickets.put(ticket.getId(), ticket);
+        BlockingQueue<PendingTransfer> queue = shards.get(Math.floorMod(transactionCreationDTO.getSenderId(), shards.size()));
+        if (!queue.offer(new PendingTransfer(ticket, transactionCreationDTO, System.nanoTime()))) {
+            tickets.remove(ticket.getId());
+            throw new RejectedExecutionException("Transfer queue is full");
+        }
+        return ticket;
+    }
+
+    /**
+     * Retrieves the ticket of a submitted transfer.
+     *
+     * @param id the transfer ID
+     * @return the ticket of the transfer
+     * @throws RuntimeException if no transfer with the given ID is known, or its ticket was purged
+     */
+    public TransferTicket getTicket(String id) throws RuntimeException {
+        TransferTicket ticket = tickets.get(id);
+        if (ticket == null)
+            throw new RuntimeException("Transfer with ID : " + id + " not found");
+        return ticket;
+    }
+
+    /**
+     * Removes the tickets completed for longer than the ticket TTL.
+     */
+    @Scheduled(fixedDelayString = "${paymybuddy.transfer.async.purge-interval-ms:60000}")
+    public void purgeCompletedTickets() {
+        long threshold = System.currentTimeMillis() - ticketTtlMillis;
+        tickets.values().removeIf(ticket -> ticket.getStatus() != TransferStatus.PENDING && ticket.getCompletedAt() < threshold);
+    }
+
+    /**
+     * Stops accepting transfers and waits for the writers to apply the transfers already queued.
+     */
+    @Override
+    public void destroy() throws InterruptedException {
+        running = false;
+        for (Thread writer : writers)
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    private void drain(BlockingQueue<PendingTransfer> queue) {
+        while (running || !queue.isEmpty()) {
+            PendingTransfer pending;
+            try {
+                pending = queue.poll(100, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (pending != null)
+                apply(pending);
+        }
+    }
+
+    private void apply(PendingTransfer pending) {
+        try {
+            Transaction transaction = transactionService.addTransaction(pending.transactionCreationDTO());
+            pending.ticket().commit(transaction.getId(), System.currentTimeMillis());
+        } catch (RuntimeException e) {
+            logger.warn("Asynchronous transfer {} rejected: {}", pending.ticket().getId(), e.getMessage());
+            pending.ticket().reject(e.getMessage(), System.currentTimeMillis());
+        } finally {
+            lagTimer.record(System.nanoTime() - pending.submittedAt(), TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private record PendingTransfer(TransferTicket ticket, TransactionCreationDTO transactionCreationDTO, long submittedAt) {
+    }
+}
@@ -0,0 +1,255 @@
+package dev.nikkune.paymybuddy.service;
+
+import dev.nikkune.paymybuddy.dto.TransactionCreationDTO;
+import dev.nikkune.paymybuddy.model.Money;
+import dev.nikkune.paymybuddy.model.Transaction;
+import dev.nikkune.paymybuddy.model.User;
+import dev.nikkune.paymybuddy.repository.TransactionRepository;
+import dev.nikkune.paymybuddy.repository.UserRepository;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * BatchTransferProcessor applies many transfers with one round trip per statement type instead of one
+ * database transaction per transfer.
+ * <p>
+ * The batch is cut into chunks of {@code chunk-size} items (the whole batch when it is {@code 0}), and every
+ * chunk is committed in its own transaction:
+ * <ol>
+ *     <li>all the users involved in the chunk are loaded with a single {@code IN} query, locked for update in
+ *     ascending id order so that concurrent batches and transfers cannot deadlock;</li>
+ *     <li>the items are applied in order on the loaded entities, an item that cannot be applied is rejected
+ *     without affecting the others;</li>
+ *     <li>the balance updates and the transaction inserts are flushed as JDBC batches on commit
+ *     ({@code hibernate.jdbc.batch_size}).</li>
+ * </ol>
+ * A chunk whose transaction fails, for instance on a lock timeout, is rolled back and all its items are rejected;
+ * the chunks committed before keep their outcomes and the next chunks are still applied.
+ */
+@Component
+public class BatchTransferProcessor {
+    private static final Logger logger = LogManager.getLogger(BatchTransferProcessor.class);
+
+    private final TransactionRepository transactionRepository;
+    private final UserRepository userRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxSize;
+    private final int chunkSize;
+
+    /**
+     * Constructs a new BatchTransferProcessor.
+     *
+     * @param transactionRepository the repository for managing transaction data
+     * @param userRepository        the repository for managing user data
+     * @param transactionManager    the transaction manager used to demarcate each chunk
+     * @param maxSize               the maximum number of transfers accepted in one batch, must be positive
+     * @param chunkSize             the number of transfers committed together, {@code 0} to commit the whole batch at once
+     */
+    public BatchTransferProcessor(TransactionRepository transactionRepository, UserRepository userRepository,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${paymybuddy.transfer.batch.max-size:1000}") int maxSize,
+                                  @Value("${paymybuddy.transfer.batch.chunk-size:0}") int chunkSize) {
+        if (maxSize <= 0 || chunkSize < 0)
+            throw new IllegalArgumentException("Batch max size must be positive and chunk size must not be negative");
+
+        this.transactionRepository = transactionRepository;
+        this.userRepository = userRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxSize = maxSize;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Applies the given transfers in order.
+     *
+     * @param transactionCreationDTOs the transfers to apply
+     * @return one outcome per transfer, in the order of the batch, the items of a failed chunk being rejected
+     * @throws RuntimeException if the batch is empty or larger than the maximum size
+     */
+    public List<TransferOutcome> process(List<TransactionCreationDTO> transactionCreationDTOs) throws RuntimeException {
+        if (transactionCreationDTOs == null || transactionCreationDTOs.isEmpty() || transactionCreationDTOs.size() > maxSize)
+            throw new RuntimeException("Batch must contain between 1 and " + maxSize + " transactions");
+
+        int step = chunkSize == 0 ? transactionCreationDTOs.size() : chunkSize;
+        List<TransferOutcome> outcomes = new ArrayList<>(transactionCreationDTOs.size());
+        for (int from = 0; from < transactionCreationDTOs.size(); from += step) {
+            int start = from;
+            List<TransactionCreationDTO> chunk = transactionCreationDTOs.subList(from, Math.min(from + step, transactionCreationDTOs.size()));
+            try {
+                outcomes.addAll(transactionTemplate.execute(status -> processChunk(start, chunk)));
+            } catch (RuntimeException e) {
+                // The chunks committed before keep their outcomes, only the transfers of this one were rolled back
+                logger.warn("Chunk of {} transactions at index {} failed: {}", chunk.size(), start, e.getMessage());
+                for (int i = 0; i < chunk.size(); i++)
+                    outcomes.add(TransferOutcome.failure(start + i, e.getMessage()));
+            }
+        }
+        logger.info("Processed batch of {} transactions, {} rejected", outcomes.size(),
+                outcomes.stream().filter(outcome -> !outcome.isSuccess()).count());
+        return outcomes;
+    }
+
+    /**
+     * Applies the given transfers in order in a single transaction, whatever the chunk size, so that they are either
+     * all committed or all rolled back. Used by {@link GroupCommitWriter}, which applies the transfers of a group
+     * again one at a time when the group is rolled back.
+     *
+     * @param transactionCreationDTOs the transfers to apply
+     * @return one outcome per transfer, in the order of the batch; if the commit itself failed, the transfers may have
+     * been applied and all of them are rejected with its error
+     * @throws RuntimeException if the batch is empty or larger than the maximum size, or if the transaction was
+     *                          rolled back before its commit, in which case none of the transfers was applied
+     */
+    List<TransferOutcome> processInOneTransaction(List<TransactionCreationDTO> transactionCreationDTOs) throws RuntimeException {
+        if (transactionCreationDTOs == null || transactionCreationDTOs.isEmpty() || transactionCreationDTOs.size() > maxSize)
+            throw new RuntimeException("Batch must contain between 1 and " + maxSize + " transactions");
+
+        AtomicBoolean flushed = new AtomicBoolean();
+        try {
+            return transactionTemplate.execute(status -> {
+                List<TransferOutcome> outcomes = processChunk(0, transactionCreationDTOs);
+                // Raises the errors of the statements here, so that only the commit itself can fail afterwards
+                transactionRepository.flush();
+                flushed.set(true);
+                return outcomes;
+            });
+        } catch (RuntimeException e) {
+            if (!flushed.get())
+                throw e;
+            logger.warn("Commit of {} transactions failed, their outcome is unknown: {}", transactionCreationDTOs.size(), e.getMessage());
+            List<TransferOutcome> outcomes = new ArrayList<>(transactionCreationDTOs.size());
+            for (int i = 0; i < transactionCreationDTOs.size(); i++)
+                outcomes.add(TransferOutcome.failure(i, e.getMessage()));
+            return outcomes;
+        }
+    }
+
+    /**
+     * Applies the given transfers in order, one at a time with the given strategy. Used when the strategy does not
+     * keep the balances on the users, which {@link #process} updates directly.
+     *
+     * @param transactionCreationDTOs the transfers to apply
+     * @param transferStrategy        the strategy applying each transfer
+     * @return one outcome per transfer, in the order of the batch
+     * @throws RuntimeException if the batch is empty or larger than the maximum size
+     */
+    public List<TransferOutcome> processEach(List<TransactionCreationDTO> transactionCreationDTOs, ITransferStrategy transferStrategy) throws RuntimeException {
+        if (transactionCreationDTOs == null || transactionCreationDTOs.isEmpty() || transactionCreationDTOs.size() > maxSize)
+            throw new RuntimeException("Batch must contain between 1 and " + maxSize + " transactions");
+
+        List<TransferOutcome> outcomes = new ArrayList<>(transactionCreationDTOs.size());
+        for (int i = 0; i < transactionCreationDTOs.size(); i++) {
+            TransactionCreationDTO transactionCreationDTO = transactionCreationDTOs.get(i);
+            String error = validateItem(transactionCreationDTO);
+            if (error != null) {
+                outcomes.add(TransferOutcome.failure(i, error));
+                continue;
+            }
+            try {
+                outcomes.add(TransferOutcome.success(i, transferStrategy.transfer(transactionCreationDTO)));
+            } catch (RuntimeException e) {
+                outcomes.add(TransferOutcome.failure(i, e.getMessage()));
+            }
+        }
+        logger.info("Processed batch of {} transactions one at a time, {} rejected", outcomes.size(),
+                outcomes.stream().filter(outcome -> !outcome.isSuccess()).count());
+        return outcomes;
+    }
+
+    private List<TransferOutcome> processChunk(int offset, List<TransactionCreationDTO> chunk) {
+        Set<Integer> userIds = new TreeSet<>();
+        for (TransactionCreationDTO transactionCreationDTO : chunk) {
+            // A null item is rejected on its own by validate
+            if (transactionCreationDTO == null)
+                continue;
+            userIds.add(transactionCreationDTO.getSenderId());
+            userIds.add(transactionCreationDTO.getReceiverId());
+        }
+        Map<Integer, User> users = new HashMap<>();
+        Map<Integer, Money> balancesBefore = new HashMap<>();
+        for (User user : userRepository.findAllByIdForUpdate(userIds)) {
+            users.put(user.getId(), user);
+            balancesBefore.put(user.getId(), user.getBalance());
+        }
+
+        List<TransferOutcome> outcomes = new ArrayList<>(chunk.size());
+        List<Transaction> transactions = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            TransactionCreationDTO transactionCreationDTO = chunk.get(i);
+            String error = validate(transactionCreationDTO, users);
+            if (error != null) {
+                outcomes.add(TransferOutcome.failure(offset + i, error));
+                continue;
+            }
+
+            User sender = users.get(transactionCreationDTO.getSenderId());
+            User receiver = users.get(transactionCreationDTO.getReceiverId());
+            sender.setBalance(sender.getBalance().minus(transactionCreationDTO.getAmount()));
+            receiver.setBalance(receiver.getBalance().plus(transactionCreationDTO.getAmount()));
+
+            Transaction transaction = new Transaction();
+            transaction.setSender(sender);
+            transaction.setReceiver(receiver);
+            transaction.setAmount(transactionCreationDTO.getAmount());
+            transaction.setDescription(transactionCreationDTO.getDescription());
+            transactions.add(transaction);
+            outcomes.add(TransferOutcome.success(offset + i, transaction));
+        }
+
+        // The users are managed entities: their balance updates are flushed with the inserts on commit
+        transactionRepository.saveAll(transactions);
+        // A user whose transfers cancel out is left unchanged, and so is the version giving the ETag of their transactions
+        Set<Integer> unchangedUserIds = new TreeSet<>();
+        for (Transaction transaction : transactions) {
+            for (User user : List.of(transaction.getSender(), transaction.getReceiver())) {
+                if (user.getBalance().equals(balancesBefore.get(user.getId())))
+                    unchangedUserIds.add(user.getId());
+            }
+        }
+        if (!unchangedUserIds.isEmpty())
+            userRepository.incrementVersions(unchangedUserIds);
+        return outcomes;
+    }
+
+    private String validate(TransactionCreationDTO transactionCreationDTO, Map<Integer, User> users) {
+        String error = validateItem(transactionCreationDTO);
+        if (error != null)
+            return error;
+
+        User sender = users.get(transactionCreationDTO.getSenderId());
+        if (sender == null)
+            return "Sender with ID : " + transactionCreationDTO.getSenderId() + " not found";
+
+        if (!users.containsKey(transactionCreationDTO.getReceiverId()))
+            return "Receiver with ID : " + transactionCreationDTO.getReceiverId() + " not found";
+
+        if (sender.getBalance().isLessThan(transactionCreationDTO.getAmount()))
+            return "Insufficient balance";
+
+        return null;
+    }
+
+    /**
+     * Checks an item on its own, the batch items not being validated by the controller so that each one
+     * gets its own outcome.
+     */
+    private static String validateItem(TransactionCreationDTO transactionCreationDTO) {
+        if (transactionCreationDTO == null)
+            return "Transaction is required";
+        if (transactionCreationDTO.getAmount() == null || !transactionCreationDTO.getAmount().isPositive())
+            return "Amount must be positive";
+        return null;
+    }
+}
@@ -0,0 +1,126 @@
+package dev.nikkune.paymybuddy.service;
+
+import dev.nikkune.paymybuddy.dto.TransactionCreationDTO;
+import dev.nikkune.paymybuddy.model.Money;
+import dev.nikkune.paymybuddy.model.Transaction;
+import dev.nikkune.paymybuddy.model.User;
+import dev.nikkune.paymybuddy.repository.TransactionRepository;
+import dev.nikkune.paymybuddy.repository.UserRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.function.Consumer;
+
+/**
+ * Transfer strategy that moves money with two guarded {@code UPDATE} statements and one insert,
+ * without ever loading the sender or the receiver into the persistence context.
+ * <p>
+ * The debit only succeeds when the balance covers the amount, so insufficient funds are detected from
+ * the affected-row count and the database row locks keep concurrent transfers consistent. Both rows are
+ * always updated in ascending ID order, so opposite-direction transfers queue on the same row instead
+ * of deadlocking.
+ * <p>
+ * Accounts credited concurrently too often are promoted by {@link HotAccountStriping}: their credits then go to one
+ * of several stripe rows, and a debit that their user row does not cover sweeps the stripes into it first.
+ */
+@Component
+@ConditionalOnProperty(name = "paymybuddy.transfer.strategy", havingValue = "conditional-update", matchIfMissing = true)
+public class ConditionalUpdateTransferStrategy implements ITransferStrategy {
+    private final TransactionRepository transactionRepository;
+    private final UserRepository userRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final HotAccountStriping hotAccountStriping;
+
+    /**
+     * Constructs a new ConditionalUpdateTransferStrategy.
+     *
+     * @param transactionRepository the repository for managing transaction data
+     * @param userRepository        the repository for managing user data
+     * @param transactionManager    the transaction manager used to demarcate each transfer
+     * @param hotAccountStriping    the striping of the balances of the hot accounts
+     */
+    public ConditionalUpdateTransferStrategy(TransactionRepository transactionRepository, UserRepository userRepository,
+                                             PlatformTransactionManager transactionManager, HotAccountStriping hotAccountStriping) {
+        this.transactionRepository = transactionRepository;
+        this.userRepository = userRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.hotAccountStriping = hotAccountStriping;
+    }
+
+    /**
+     * Transfers money from the sender to the receiver in a single database transaction.
+     *
+     * @param transactionCreationDTO the transaction to be added, which includes sender, receiver, amount, and description
+     * @param inTransaction          the action given the saved transaction, before the commit
+     * @return the saved transaction object
+     * @throws RuntimeException if the sender or receiver does not exist or if the sender's balance is insufficient
+     */
+    @Override
+    public Transaction transfer(TransactionCreationDTO transactionCreationDTO, Consumer<Transaction> inTransaction) throws RuntimeException {
+        return hotAccountStriping.trackCredit(transactionCreationDTO.getReceiverId(),
+                () -> transactionTemplate.execute(status -> applyTransfer(transactionCreationDTO, inTransaction)));
+    }
+
+    /**
+     * Returns the current balance of a user, including the balance held in its stripes if it is a hot account.
+     *
+     * @param user the user
+     * @return the current balance of the user
+     */
+    @Override
+    public Money balanceOf(User user) {
+        long striped = hotAccountStriping.stripedBalance(user.getId());
+        return striped == 0 ? user.getBalance() : user.getBalance().plus(Money.ofCents(striped));
+    }
+
+    @Override
+    public boolean storesBalanceOnUser() {
+        // The batch processor only knows about the user rows
+        return !hotAccountStriping.hasStripedAccounts();
+    }
+
+    private Transaction applyTransfer(TransactionCreationDTO transactionCreationDTO, Consumer<Transaction> inTransaction) {
+        int senderId = transactionCreationDTO.getSenderId();
+        int receiverId = transactionCreationDTO.getReceiverId();
+        long amount = transactionCreationDTO.getAmount().getCents();
+
+        if (receiverId < senderId) {
+            credit(receiverId, amount);
+            debit(senderId, amount);
+        } else {
+            debit(senderId, amount);
+            credit(receiverId, amount);
+        }
+
+        Transaction transaction = new Transaction();
+        transaction.setSender(userRepository.getReferenceById(senderId));
+        transaction.setReceiver(userRepository.getReferenceById(receiverId));
+        transaction.setAmount(transactionCreationDTO.getAmount());
+        transaction.setDescription(transactionCreationDTO.getDescription());
+
+        transaction = transactionRepository.save(transaction);
+        inTransaction.accept(transaction);
+        return transaction;
+    }
+
+    private void debit(int senderId, long amount) {
+        if (userRepository.debitBalance(senderId, amount) == 0) {
+            // The user row is now locked: the stripes of a hot account can be swept into it
+            if (hotAccountStriping.sweep(senderId) > 0 && userRepository.debitBalance(senderId, amount) == 1)
+                return;
+            // Only look the sender up on the failure path to tell both causes apart
+            if (!userRepository.existsById(senderId))
+                throw new RuntimeException("Sender with ID : " + senderId + " not found");
+            throw new RuntimeException("Insufficient balance");
+        }
+    }
+
+    private void credit(int receiverId, long amount) {
+        if (hotAccountStriping.creditStripe(receiverId, amount))
+            return;
+        if (userRepository.creditBalance(receiverId, amount) == 0)
+            throw new RuntimeException("Receiver with ID : " + receiverId + " not found");
+    }
+}
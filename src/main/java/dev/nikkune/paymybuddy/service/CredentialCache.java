@@ -0,0 +1,98 @@
+package dev.nikkune.paymybuddy.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import dev.nikkune.paymybuddy.utils.CommitUtil;
+import dev.nikkune.paymybuddy.utils.HmacSha256;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+/**
+ * CredentialCache remembers the credentials recently verified, so that a client sending its email and password with
+ * every request (HTTP Basic) only pays for the user lookup and the BCrypt hash once per {@code ttl-ms}.
+ * <p>
+ * The credentials are never kept: an entry is keyed by the HMAC-SHA256 of the email and the password with a key drawn
+ * at startup, and holds the email alone, so that the entries of a user are dropped when their email or password
+ * changes. A verification that started before such a change is not cached. The cache is local to each instance.
+ */
+@Component
+public class CredentialCache {
+    private final Cache<ByteBuffer, String> verified;
+    // Changed by every invalidation, so that a verification running meanwhile is not cached
+    private final AtomicLong generation = new AtomicLong();
+    // Keyed at startup, so that the keys of the entries are of no use outside this instance
+    private final HmacSha256 hmac = HmacSha256.withRandomKey();
+
+    /**
+     * Constructs a CredentialCache.
+     *
+     * @param meterRegistry the registry used to publish the cache statistics
+     * @param cacheSize     the maximum number of credentials remembered, {@code 0} to verify every request
+     * @param ttlMillis     how long a verification is remembered, in milliseconds
+     */
+    public CredentialCache(MeterRegistry meterRegistry,
+                           @Value("${paymybuddy.auth.credentials.cache-size:10000}") long cacheSize,
+                           @Value("${paymybuddy.auth.credentials.ttl-ms:300000}") long ttlMillis) {
+        this.verified = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(Duration.ofMillis(ttlMillis))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, verified, "paymybuddy.auth.credentials");
+        Gauge.builder("paymybuddy.auth.credentials.hit-ratio", verified, cache -> cache.stats().hitRate())
+                .description("Share of the authentications answered without checking the password")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Verifies credentials, from memory if they were verified recently.
+     *
+     * @param email    the email of the user
+     * @param password the password of the user
+     * @param login    the actual verification, which returns {@code true} or throws if the credentials are invalid
+     * @return {@code true} if the credentials are valid
+     */
+    public boolean verify(String email, String password, BooleanSupplier login) {
+        ByteBuffer key = key(email, password);
+        if (verified.getIfPresent(key) != null)
+            return true;
+
+        long start = generation.get();
+        if (!login.getAsBoolean())
+            return false;
+        verified.put(key, email);
+        // The email or the password may have changed while the old one was checked
+        if (generation.get() != start)
+            verified.invalidate(key);
+        return true;
+    }
+
+    /**
+     * Forgets the credentials of a user whose email or password changes, once the change is committed.
+     *
+     * @param email the email of the user before the change
+     */
+    public void invalidate(String email) {
+        generation.incrementAndGet();
+        CommitUtil.afterCommit(() -> {
+            generation.incrementAndGet();
+            verified.asMap().values().removeIf(email::equals);
+        });
+    }
+
+    private ByteBuffer key(String email, String password) {
+        byte[] emailBytes = email.getBytes(StandardCharsets.UTF_8);
+        // Prefixed with its length, so that no other email and password give the same input
+        return ByteBuffer.wrap(hmac.sign(ByteBuffer.allocate(Integer.BYTES).putInt(emailBytes.length).array(), emailBytes,
+                password.getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,243 @@
+package dev.nikkune.paymybuddy.service;
+
+import dev.nikkune.paymybuddy.dto.TransactionCreationDTO;
+import dev.nikkune.paymybuddy.model.Transaction;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * GroupCommitWriter commits the transfers of many concurrent requests together, so that they share one
+ * database transaction, hence one log flush, instead of paying a commit each.
+ * <p>
+ * When {@code paymybuddy.transfer.group-commit.enabled} is set, {@link #transfer} queues the transfer and blocks
+ * the caller until its group is committed: the API stays synchronous. Each writer thread takes the first queued
+ * transfer, then keeps collecting transfers for at most {@code window-ms} or until the group holds
+ * {@code max-items}, and applies the group with {@link BatchTransferProcessor#processInOneTransaction} in a single
+ * transaction, whatever the batch chunk size (locked users, batched inserts and updates). Each caller then gets its
+ * own outcome: a transfer rejected by the validation, such as an insufficient balance, does not affect the others.
+ * If the group is rolled back as a whole, for instance on a lock timeout, none of its transfers was applied and they
+ * are applied again one at a time with the {@link ITransferStrategy}. If its commit fails, they may have been
+ * applied, so they fail instead of being applied twice.
+ * <p>
+ * Group commit only applies while the strategy keeps the balances on the users; otherwise transfers go straight
+ * to the strategy. Published metrics:
+ * <ul>
+ *     <li>{@code paymybuddy.transfer.group.size}: number of transfers committed together</li>
+ *     <li>{@code paymybuddy.transfer.group.wait}: time between the submission and the completion of a transfer</li>
+ *     <li>{@code paymybuddy.transfer.group.queue}: number of transfers waiting for a group</li>
+ * </ul>
+ */
+@Component
+public class GroupCommitWriter implements DisposableBean {
+    private static final Logger logger = LogManager.getLogger(GroupCommitWriter.class);
+
+    private final BatchTransferProcessor batchTransferProcessor;
+    private final ITransferStrategy transferStrategy;
+    private final boolean enabled;
+    private final long windowNanos;
+    private final int maxItems;
+    private final BlockingQueue<PendingTransfer> queue;
+    private final List<Thread> writers = new ArrayList<>();
+    private final DistributionSummary groupSize;
+    private final Timer waitTimer;
+    private volatile boolean running;
+
+    /**
+     * Constructs a GroupCommitWriter and starts its writers when it is enabled.
+     *
+     * @param batchTransferProcessor the processor applying each group
+     * @param transferStrategy       the strategy applying the transfers of a failed group, one at a time
+     * @param meterRegistry          the registry used to publish the group commit metrics
+     * @param enabled                whether transfers are committed in groups
+     * @param windowMillis           how long a group collects transfers after its first one, in milliseconds
+     * @param maxItems               the maximum number of transfers in a group, must be positive
+     * @param writerCount            the number of groups committed concurrently, must be positive
+     * @param queueCapacity          the number of transfers that can wait for a group, must be positive
+     */
+    public GroupCommitWriter(BatchTransferProcessor batchTransferProcessor, ITransferStrategy transferStrategy, MeterRegistry meterRegistry,
+                             @Value("${paymybuddy.transfer.group-commit.enabled:false}") boolean enabled,
+                             @Value("${paymybuddy.transfer.group-commit.window-ms:2}") long windowMillis,
+                             @Value("${paymybuddy.transfer.group-commit.max-items:100}") int maxItems,
+                             @Value("${paymybuddy.transfer.group-commit.writers:2}") int writerCount,
+                             @Value("${paymybuddy.transfer.group-commit.queue-capacity:4096}") int queueCapacity) {
+        if (windowMillis < 0 || maxItems <= 0 || writerCount <= 0 || queueCapacity <= 0)
+            throw new IllegalArgumentException("Group commit window must not be negative, max items, writers and queue capacity must be positive");
+
+        this.batchTransferProcessor = batchTransferProcessor;
+        this.transferStrategy = transferStrategy;
+        this.enabled = enabled;
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMillis);
+        this.maxItems = maxItems;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.groupSize = DistributionSummary.builder("paymybuddy.transfer.group.size")
+                .description("Number of transfers committed together")
+                .register(meterRegistry);
+        this.waitTimer = Timer.builder("paymybuddy.transfer.group.wait")
+                .description("Time between the submission and the completion of a group committed transfer")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        Gauge.builder("paymybuddy.transfer.group.queue", queue, BlockingQueue::size)
+                .description("Number of transfers waiting for a group")
+                .register(meterRegistry);
+        if (!enabled)
+            return;
+
+        running = true;
+        for (int i = 0; i < writerCount; i++) {
+            Thread writer = new Thread(this::drain, "group-commit-writer-" + i);
+            writer.setDaemon(true);
+            writers.add(writer);
+            writer.start();
+        }
+        logger.info("Group commit enabled with {} writers, groups of up to {} transfers within {} ms", writerCount, maxItems, windowMillis);
+    }
+
+    /**
+     * Checks whether transfers are currently committed in groups.
+     *
+     * @return {@code true} if group commit is enabled and the strategy keeps the balances on the users
+     */
+    public boolean isEnabled() {
+        return enabled && transferStrategy.storesBalanceOnUser();
+    }
+
+    /**
+     * Queues a transfer and waits until its group is committed.
+     *
+     * @param transactionCreationDTO the transfer to apply
+     * @return the saved transaction object
+     * @throws RejectedExecutionException if the writer is stopped or too many transfers are waiting
+     * @throws RuntimeException           if the transfer is rejected, with the same message as the transfer strategies
+     */
+    public Transaction transfer(TransactionCreationDTO transactionCreationDTO) throws RuntimeException {
+        if (!running)
+            throw new RejectedExecutionException("Group commit is not accepting transfers");
+
+        PendingTransfer pending = new PendingTransfer(transactionCreationDTO, new CompletableFuture<>(), System.nanoTime());
+        if (!queue.offer(pending))
+            throw new RejectedExecutionException("Transfer queue is full");
+
+        try {
+            return pending.result().get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause)
+                throw cause;
+            throw new RuntimeException(e.getCause());
+        } catch (InterruptedException e) {
+            // The transfer may still be committed by its group
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for the transfer to be committed");
+        }
+    }
+
+    /**
+     * Stops accepting transfers and waits for the writers to commit the transfers already queued.
+     */
+    @Override
+    public void destroy() throws InterruptedException {
+        running = false;
+        for (Thread writer : writers)
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    private void drain() {
+        List<PendingTransfer> group = new ArrayList<>(maxItems);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingTransfer first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null)
+                    continue;
+                group.add(first);
+                collect(group);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                if (!group.isEmpty())
+                    commit(group);
+                group.clear();
+            }
+        }
+    }
+
+    /**
+     * Adds transfers to the group until the window closes or the group is full.
+     */
+    private void collect(List<PendingTransfer> group) throws InterruptedException {
+        long deadline = System.nanoTime() + windowNanos;
+        while (group.size() < maxItems) {
+            queue.drainTo(group, maxItems - group.size());
+            long remaining = deadline - System.nanoTime();
+            if (group.size() >= maxItems || remaining <= 0)
+                return;
+
+            PendingTransfer next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null)
+                return;
+            group.add(next);
+        }
+    }
+
+    private void commit(List<PendingTransfer> group) {
+        groupSize.record(group.size());
+        List<TransactionCreationDTO> transactionCreationDTOs = new ArrayList<>(group.size());
+        for (PendingTransfer pending : group)
+            transactionCreationDTOs.add(pending.transactionCreationDTO());
+
+        List<TransferOutcome> outcomes;
+        try {
+            outcomes = batchTransferProcessor.processInOneTransaction(transactionCreationDTOs);
+        } catch (RuntimeException e) {
+            // The group was rolled back: none of its transfers was applied
+            logger.warn("Group of {} transfers failed, applying them one at a time: {}", group.size(), e.getMessage());
+            for (PendingTransfer pending : group)
+                applyAlone(pending);
+            return;
+        }
+
+        for (int i = 0; i < group.size(); i++) {
+            TransferOutcome outcome = outcomes.get(i);
+            if (outcome.isSuccess())
+                complete(group.get(i), outcome.getTransaction());
+            else
+                fail(group.get(i), new RuntimeException(outcome.getError()));
+        }
+    }
+
+    private void applyAlone(PendingTransfer pending) {
+        try {
+            complete(pending, transferStrategy.transfer(pending.transactionCreationDTO()));
+        } catch (RuntimeException e) {
+            fail(pending, e);
+        }
+    }
+
+    private void complete(PendingTransfer pending, Transaction transaction) {
+        waitTimer.record(System.nanoTime() - pending.submittedAt(), TimeUnit.NANOSECONDS);
+        pending.result().complete(transaction);
+    }
+
+    private void fail(PendingTransfer pending, RuntimeException e) {
+        waitTimer.record(System.nanoTime() - pending.submittedAt(), TimeUnit.NANOSECONDS);
+        pending.result().completeExceptionally(e);
+    }
+
+    private record PendingTransfer(TransactionCreationDTO transactionCreationDTO, CompletableFuture<Transaction> result, long submittedAt) {
+    }
+}
@@ -0,0 +1,233 @@
+package dev.nikkune.paymybuddy.service;
+
+import dev.nikkune.paymybuddy.model.BalanceStripe;
+import dev.nikkune.paymybuddy.repository.BalanceStripeRepository;
+import dev.nikkune.paymybuddy.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.Supplier;
+
+/**
+ * HotAccountStriping spreads the credits of the accounts receiving many concurrent transfers over several
+ * {@code balance_stripes} rows, so that they no longer queue on the row lock of a single {@code users} row.
+ * <p>
+ * The balance of a striped account is its {@code users.balance} plus the sum of its stripes:
+ * <ul>
+ *     <li>a credit updates one stripe picked at random;</li>
+ *     <li>a debit is taken from {@code users.balance}; when it does not cover the amount, the stripes are
+ *     first locked, emptied and added to it ({@link #sweep});</li>
+ *     <li>a read sums the stripes.</li>
+ * </ul>
+ * Every credit counts the transfers crediting the same account that are still running in this instance. When this
+ * number reaches {@code contention-threshold} the account is hit; an account hit {@code promotion-hits} times within
+ * {@code window-ms} is promoted to striped mode, for good. The accounts promoted by another instance are loaded from
+ * the database on startup and then once per {@code window-ms}. Until then this instance credits them on
+ * {@code users.balance}, which is still correct, but does not count their stripes in their balance.
+ */
+@Component
+public class HotAccountStriping {
+    private static final Logger logger = LogManager.getLogger(HotAccountStriping.class);
+    private static final int IN_FLIGHT_SLOTS = 1024;
+
+    private final BalanceStripeRepository balanceStripeRepository;
+    private final UserRepository userRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int stripeCount;
+    private final int contentionThreshold;
+    private final int promotionHits;
+    private final Set<Integer> stripedAccounts = ConcurrentHashMap.newKeySet();
+    private final AtomicIntegerArray inFlight = new AtomicIntegerArray(IN_FLIGHT_SLOTS);
+    private final Map<Integer, Integer> hits = new ConcurrentHashMap<>();
+    private final Counter promotionCounter;
+    private final Counter sweepCounter;
+
+    /**
+     * Constructs a HotAccountStriping.
+     *
+     * @param balanceStripeRepository the repository storing the balance stripes
+     * @param userRepository          the repository for managing user data
+     * @param transactionManager      the transaction manager used to promote an account
+     * @param meterRegistry           the registry used to publish the striping metrics
+     * @param stripeCount             the number of stripes of a promoted account, {@code 0} to disable striping
+     * @param contentionThreshold     the number of concurrent credits to the same account, this one included, counted as a hit
+     * @param promotionHits           the number of hits within a window after which an account is promoted
+     */
+    public HotAccountStriping(BalanceStripeRepository balanceStripeRepository, UserRepository userRepository,
+                              PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+                              @Value("${paymybuddy.transfer.hot-accounts.stripes:8}") int stripeCount,
+                              @Value("${paymybuddy.transfer.hot-accounts.contention-threshold:4}") int contentionThreshold,
+                              @Value("${paymybuddy.transfer.hot-accounts.promotion-hits:50}") int promotionHits) {
+        if (stripeCount < 0 || contentionThreshold <= 0 || promotionHits <= 0)
+            throw new IllegalArgumentException("Stripe count must not be negative, contention threshold and promotion hits must be positive");
+
+        this.balanceStripeRepository = balanceStripeRepository;
+        this.userRepository = userRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.stripeCount = stripeCount;
+        this.contentionThreshold = contentionThreshold;
+        this.promotionHits = promotionHits;
+        this.promotionCounter = Counter.builder("paymybuddy.transfer.hot-accounts.promotions")
+                .description("Number of accounts promoted to striped balances")
+                .register(meterRegistry);
+        this.sweepCounter = Counter.builder("paymybuddy.transfer.hot-accounts.sweeps")
+                .description("Number of times the balance stripes of an account were swept to cover a debit")
+                .register(meterRegistry);
+        Gauge.builder("paymybuddy.transfer.hot-accounts", stripedAccounts, Set::size)
+                .description("Number of accounts with striped balances")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Loads the accounts already promoted, possibly by another instance.
+     */
+    @Scheduled(fixedDelayString = "${paymybuddy.transfer.hot-accounts.window-ms:60000}")
+    public void loadStripedAccounts() {
+        try {
+            int known = stripedAccounts.size();
+            stripedAccounts.addAll(balanceStripeRepository.findStripedAccountIds());
+            if (stripedAccounts.size() > known)
+                logger.info("Loaded {} accounts with striped balances", stripedAccounts.size() - known);
+        } catch (DataAccessException e) {
+            // For instance before the balance_stripes table is created: the accounts are loaded on the next run
+            logger.warn("Failed to load the accounts with striped balances: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Runs a transfer crediting the given account, and promotes the account once the transfer is over if it is
+     * credited concurrently too often.
+     *
+     * @param accountId the ID of the credited account
+     * @param transfer  the transfer, which must commit before returning
+     * @param <T>       the type of the transfer result
+     * @return the result of the transfer
+     */
+    public <T> T trackCredit(int accountId, Supplier<T> transfer) {
+        if (stripeCount == 0 || isStriped(accountId))
+            return transfer.get();
+
+        int slot = Math.floorMod(accountId, IN_FLIGHT_SLOTS);
+        boolean contended = inFlight.incrementAndGet(slot) >= contentionThreshold;
+        T result;
+        try {
+            result = transfer.get();
+        } finally {
+            inFlight.decrementAndGet(slot);
+        }
+
+        if (contended && hits.merge(accountId, 1, Integer::sum) >= promotionHits)
+            promote(accountId);
+        return result;
+    }
+
+    /**
+     * Credits one random stripe of the account if it is striped. Must be called inside a transaction.
+     *
+     * @param accountId the ID of the account to credit
+     * @param amount    the amount to credit, in cents
+     * @return {@code true} if a stripe was credited, {@code false} if the account must be credited on its user row
+     */
+    public boolean creditStripe(int accountId, long amount) {
+        if (!isStriped(accountId))
+            return false;
+        return balanceStripeRepository.creditStripe(accountId, ThreadLocalRandom.current().nextInt(stripeCount), amount) == 1;
+    }
+
+    /**
+     * Moves the balance of every stripe of the account to its user row. Must be called inside a transaction, after
+     * the user row has been locked, so that the rows are always locked in the same order.
+     *
+     * @param accountId the ID of the account
+     * @return the amount moved, in cents
+     */
+    public long sweep(int accountId) {
+        // Checked against the database too: the account may have been promoted by another instance
+        long total = 0;
+        for (BalanceStripe stripe : balanceStripeRepository.findAllByAccountIdForUpdate(accountId))
+            total += stripe.getBalance().getCents();
+        if (total == 0)
+            return 0;
+
+        balanceStripeRepository.clearStripes(accountId);
+        userRepository.creditBalance(accountId, total);
+        sweepCounter.increment();
+        return total;
+    }
+
+    /**
+     * Returns the part of the balance of an account held in its stripes.
+     *
+     * @param accountId the ID of the account
+     * @return the sum of the stripes in cents, {@code 0} if the account is not striped
+     */
+    public long stripedBalance(int accountId) {
+        if (!isStriped(accountId))
+            return 0;
+        return balanceStripeRepository.sumByAccountId(accountId);
+    }
+
+    /**
+     * Checks whether the account has striped balances.
+     *
+     * @param accountId the ID of the account
+     * @return {@code true} if the account is striped, {@code false} otherwise
+     */
+    public boolean isStriped(int accountId) {
+        return stripedAccounts.contains(accountId);
+    }
+
+    /**
+     * Checks whether at least one account has striped balances.
+     *
+     * @return {@code true} if an account is striped, {@code false} otherwise
+     */
+    public boolean hasStripedAccounts() {
+        return !stripedAccounts.isEmpty();
+    }
+
+    /**
+     * Forgets the hits counted during the last window, so that only sustained contention promotes an account.
+     */
+    @Scheduled(fixedDelayString = "${paymybuddy.transfer.hot-accounts.window-ms:60000}")
+    public void resetHits() {
+        hits.clear();
+    }
+
+    private void promote(int accountId) {
+        if (!stripedAccounts.add(accountId))
+            return;
+
+        hits.remove(accountId);
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                for (int stripe = 0; stripe < stripeCount; stripe++)
+                    balanceStripeRepository.insertStripe(accountId, stripe);
+            });
+            promotionCounter.increment();
+            logger.info("Account {} promoted to {} balance stripes", accountId, stripeCount);
+        } catch (DataIntegrityViolationException e) {
+            // Already promoted by another instance
+            logger.info("Account {} already has balance stripes", accountId);
+        } catch (RuntimeException e) {
+            // The transfer has been committed already: keep crediting the user row and try again later
+            stripedAccounts.remove(accountId);
+            logger.warn("Failed to promote account {} to balance stripes", accountId, e);
+        }
+    }
+}
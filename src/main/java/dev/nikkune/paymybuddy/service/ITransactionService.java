@@ -1,14 +1,25 @@
 package dev.nikkune.paymybuddy.service;
 
 import dev.nikkune.paymybuddy.dto.TransactionCreationDTO;
+import dev.nikkune.paymybuddy.dto.TransactionDTO;
 import dev.nikkune.paymybuddy.model.Transaction;
 
+import java.time.Instant;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface ITransactionService {
     void requiredUser(int id) throws RuntimeException;
 
-    List<Transaction> getTransactionsByUserId(int userId) throws RuntimeException;
+    List<TransactionDTO> getTransactionsByUserId(int userId) throws RuntimeException;
+
+    TransactionPage getTransactionHistory(int userId, Integer after, Integer limit, Instant from, Instant to) throws RuntimeException;
+
+    List<TransactionDTO> searchTransactions(int userId, String query, Integer limit) throws RuntimeException;
 
     Transaction addTransaction(TransactionCreationDTO transactionCreationDTO) throws RuntimeException;
+
+    Transaction addTransaction(TransactionCreationDTO transactionCreationDTO, Consumer<Transaction> inTransaction) throws RuntimeException;
+
+    List<TransferOutcome> addTransactions(List<TransactionCreationDTO> transactionCreationDTOs) throws RuntimeException;
 }
@@ -0,0 +1,59 @@
+package dev.nikkune.paymybuddy.service;
+
+import dev.nikkune.paymybuddy.dto.TransactionCreationDTO;
+import dev.nikkune.paymybuddy.model.Money;
+import dev.nikkune.paymybuddy.model.Transaction;
+import dev.nikkune.paymybuddy.model.User;
+
+import java.util.function.Consumer;
+
+/**
+ * Applies a money transfer between two users. Implementations own both the database transaction
+ * and the concurrency control guarding the balances of the sender and the receiver.
+ */
+public interface ITransferStrategy {
+    /**
+     * Transfers money from the sender to the receiver.
+     *
+     * @param transactionCreationDTO the transaction to be added, which includes sender, receiver, amount, and description
+     * @return the saved transaction object
+     * @throws RuntimeException if the sender or receiver does not exist or if the sender's balance is insufficient
+     */
+    default Transaction transfer(TransactionCreationDTO transactionCreationDTO) throws RuntimeException {
+        return transfer(transactionCreationDTO, transaction -> {
+        });
+    }
+
+    /**
+     * Transfers money from the sender to the receiver, and runs an action in the same database transaction once the
+     * transaction is saved, so that whatever the action writes is committed together with the transfer, or not at all.
+     * The action runs again whenever the transfer is retried.
+     *
+     * @param transactionCreationDTO the transaction to be added, which includes sender, receiver, amount, and description
+     * @param inTransaction          the action given the saved transaction, before the commit
+     * @return the saved transaction object
+     * @throws RuntimeException if the sender or receiver does not exist, if the sender's balance is insufficient
+     *                          or if the action fails
+     */
+    Transaction transfer(TransactionCreationDTO transactionCreationDTO, Consumer<Transaction> inTransaction) throws RuntimeException;
+
+    /**
+     * Returns the current balance of a user.
+     *
+     * @param user the user
+     * @return the current balance of the user
+     */
+    default Money balanceOf(User user) {
+        return user.getBalance();
+    }
+
+    /**
+     * Tells whether the strategy keeps the current balance in the {@code balance} column of the users, which
+     * {@link BatchTransferProcessor#process} updates directly.
+     *
+     * @return {@code true} if the balance column is the current balance, {@code false} otherwise
+     */
+    default boolean storesBalanceOnUser() {
+        return true;
+    }
+}
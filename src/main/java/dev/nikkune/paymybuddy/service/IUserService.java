@@ -1,5 +1,7 @@
 package dev.nikkune.paymybuddy.service;
 
+import dev.nikkune.paymybuddy.dto.UserStatsDTO;
+import dev.nikkune.paymybuddy.model.Money;
 import dev.nikkune.paymybuddy.model.User;
 
 import java.util.List;
@@ -9,6 +11,10 @@ public interface IUserService {
 
     User getUserByEmail(String email) throws RuntimeException;
 
+    Money getBalance(User user);
+
+    UserStatsDTO getUserStats(int userId) throws RuntimeException;
+
     User register(User user) throws RuntimeException;
 
     User updateUser(User user) throws RuntimeException;
@@ -0,0 +1,270 @@
+package dev.nikkune.paymybuddy.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import dev.nikkune.paymybuddy.dto.TransactionCreationDTO;
+import dev.nikkune.paymybuddy.dto.TransactionDTO;
+import dev.nikkune.paymybuddy.model.IdempotencyRecord;
+import dev.nikkune.paymybuddy.model.Transaction;
+import dev.nikkune.paymybuddy.repository.IdempotencyRecordRepository;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.HexFormat;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * IdempotencyManager makes the creation of a transaction safe to retry with an {@code Idempotency-Key}.
+ * <p>
+ * The first request with a given key runs the transfer and stores its response; any later request with the
+ * same key gets the stored response back without running the transfer again. Responses are kept in two tiers:
+ * <ul>
+ *     <li>a bounded Caffeine cache of futures, evicted after {@code ttl-ms}: a duplicate arriving while the first
+ *     request is still running waits on the same future instead of running the transfer twice, and a replay
+ *     touches neither the users nor any lock;</li>
+ *     <li>the {@code idempotency_keys} table, which survives restarts and cache evictions and, because the key is
+ *     claimed by an insert before the transfer runs, also guards against duplicates sent to another instance.</li>
+ * </ul>
+ * The response is written to the claimed row in the database transaction of the transfer, so that a transfer is never
+ * committed without its response, even if the application stops right after. A key is bound to the request it was
+ * first used with: reusing it for a different request is rejected. A transfer that did not commit releases its key,
+ * so the client can retry it.
+ * <p>
+ * A claim is timestamped: if the instance that claimed a key stops before the transfer commits, the claim is left
+ * without a response, and is taken over by the next request with that key once it is older than {@code wait-timeout-ms}.
+ * The transfer checks and locks its claim before storing the response, so a request whose key was taken over meanwhile
+ * rolls back instead of running the transfer a second time.
+ */
+@Component
+public class IdempotencyManager {
+    private static final Logger logger = LogManager.getLogger(IdempotencyManager.class);
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final AsyncCache<String, IdempotencyRecord> responses;
+    private final Duration ttl;
+    private final long waitTimeoutMillis;
+
+    /**
+     * Constructs an IdempotencyManager.
+     *
+     * @param idempotencyRecordRepository the repository storing the responses
+     * @param cacheSize                   the maximum number of responses kept in memory
+     * @param ttlMillis                   how long a response is kept, in milliseconds
+     * @param waitTimeoutMillis           how long a duplicate waits for the first request to complete, in milliseconds
+     */
+    public IdempotencyManager(IdempotencyRecordRepository idempotencyRecordRepository,
+                              @Value("${paymybuddy.idempotency.cache-size:10000}") long cacheSize,
+                              @Value("${paymybuddy.idempotency.ttl-ms:86400000}") long ttlMillis,
+                              @Value("${paymybuddy.idempotency.wait-timeout-ms:30000}") long waitTimeoutMillis) {
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+        this.ttl = Duration.ofMillis(ttlMillis);
+        this.waitTimeoutMillis = waitTimeoutMillis;
+        this.responses = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(ttl)
+                .buildAsync();
+    }
+
+    /**
+     * Runs the transfer once per idempotency key.
+     *
+     * @param idempotencyKey         the idempotency key sent by the client
+     * @param transactionCreationDTO the transaction to be added
+     * @param transfer               the transfer to run if the key was never used, given the action to run in its
+     *                               database transaction once the transaction is saved
+     * @return the response of the transfer, and whether it was replayed from a previous request
+     * @throws RuntimeException if the key is invalid, was used for a different request or is still in progress,
+     *                          or if the transfer itself fails
+     */
+    public IdempotentResponse execute(String idempotencyKey, TransactionCreationDTO transactionCreationDTO,
+                                      Function<Consumer<Transaction>, Transaction> transfer) throws RuntimeException {
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH)
+            throw new RuntimeException("Idempotency-Key must contain between 1 and " + MAX_KEY_LENGTH + " characters");
+
+        String fingerprint = fingerprint(transactionCreationDTO);
+        CompletableFuture<IdempotencyRecord> future = new CompletableFuture<>();
+        CompletableFuture<IdempotencyRecord> prior = responses.asMap().putIfAbsent(idempotencyKey, future);
+        if (prior != null)
+            return response(idempotencyKey, fingerprint, await(idempotencyKey, prior), true);
+
+        try {
+            IdempotencyRecord stored = idempotencyRecordRepository.findById(idempotencyKey).orElse(null);
+            boolean replayed = true;
+            Instant claimedAt = null;
+            if (stored == null) {
+                claimedAt = claim(idempotencyKey, fingerprint);
+                if (claimedAt == null)
+                    stored = find(idempotencyKey);
+            } else if (stored.getTransactionId() == null) {
+                claimedAt = takeOver(idempotencyKey, fingerprint);
+                if (claimedAt == null)
+                    stored = find(idempotencyKey);
+            }
+            if (claimedAt != null) {
+                stored = run(idempotencyKey, fingerprint, claimedAt, transfer);
+                replayed = false;
+            }
+            // Only completed responses may be cached: a failed future is evicted by the cache
+            IdempotentResponse response = response(idempotencyKey, fingerprint, stored, replayed);
+            future.complete(stored);
+            return response;
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Removes the stored responses older than the TTL.
+     */
+    @Scheduled(fixedDelayString = "${paymybuddy.idempotency.purge-interval-ms:3600000}")
+    public void purgeExpiredKeys() {
+        try {
+            int deleted = idempotencyRecordRepository.deleteCreatedBefore(Instant.now().minus(ttl));
+            if (deleted > 0)
+                logger.info("Purged {} expired idempotency keys", deleted);
+        } catch (DataAccessException e) {
+            // For instance before the idempotency_keys table is created: the keys are purged on the next run
+            logger.warn("Failed to purge the expired idempotency keys: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Claims the key in the database.
+     *
+     * @return the time of the claim, or {@code null} if another request claimed the key first
+     */
+    private Instant claim(String idempotencyKey, String fingerprint) {
+        Instant claimedAt = claimTime();
+        try {
+            idempotencyRecordRepository.claim(idempotencyKey, fingerprint, claimedAt);
+            return claimedAt;
+        } catch (DataIntegrityViolationException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Takes over the claim of the key if it was left without a response for longer than the wait timeout.
+     *
+     * @return the time of the new claim, or {@code null} if the previous claim is still recent or got its response
+     */
+    private Instant takeOver(String idempotencyKey, String fingerprint) {
+        Instant claimedAt = claimTime();
+        if (idempotencyRecordRepository.takeOver(idempotencyKey, fingerprint, claimedAt, claimedAt.minusMillis(waitTimeoutMillis)) == 0)
+            return null;
+        logger.warn("Took over Idempotency-Key : {} left without a response", idempotencyKey);
+        return claimedAt;
+    }
+
+    private IdempotencyRecord find(String idempotencyKey) {
+        return idempotencyRecordRepository.findById(idempotencyKey)
+                .orElseThrow(() -> new RuntimeException("Idempotency-Key : " + idempotencyKey + " already exists and is still in progress"));
+    }
+
+    /**
+     * The time of a claim, truncated to the precision of the database so that it can be compared with the stored one.
+     */
+    private static Instant claimTime() {
+        return Instant.now().truncatedTo(ChronoUnit.MICROS);
+    }
+
+    /**
+     * Runs the transfer, storing its response in its database transaction.
+     *
+     * @return the stored response
+     */
+    private IdempotencyRecord run(String idempotencyKey, String fingerprint, Instant claimedAt,
+                                  Function<Consumer<Transaction>, Transaction> transfer) {
+        AtomicReference<IdempotencyRecord> stored = new AtomicReference<>();
+        try {
+            transfer.apply(transaction -> {
+                // Rolls the transfer back if the claim was taken over, and keeps it from being taken over until the commit
+                if (idempotencyRecordRepository.findClaimForUpdate(idempotencyKey, claimedAt).isEmpty())
+                    throw new RuntimeException("Idempotency-Key : " + idempotencyKey + " was taken over by another request");
+                stored.set(idempotencyRecordRepository.save(record(idempotencyKey, fingerprint, transaction)));
+            });
+        } catch (RuntimeException e) {
+            // Only deletes the key if the response was rolled back with the transfer and the claim is still ours
+            idempotencyRecordRepository.release(idempotencyKey, claimedAt);
+            throw e;
+        }
+        if (stored.get() == null)
+            throw new IllegalStateException("The transfer did not store the response of Idempotency-Key : " + idempotencyKey);
+        return stored.get();
+    }
+
+    private static IdempotencyRecord record(String idempotencyKey, String fingerprint, Transaction transaction) {
+        IdempotencyRecord record = new IdempotencyRecord();
+        record.setIdempotencyKey(idempotencyKey);
+        record.setFingerprint(fingerprint);
+        record.setCreatedAt(Instant.now());
+        record.setTransactionId(transaction.getId());
+        record.setSenderUsername(transaction.getSender().getUsername());
+        record.setReceiverUsername(transaction.getReceiver().getUsername());
+        record.setDescription(transaction.getDescription());
+        record.setAmount(transaction.getAmount());
+        record.setTransactionCreatedAt(transaction.getCreatedAt());
+        return record;
+    }
+
+    private IdempotentResponse response(String idempotencyKey, String fingerprint, IdempotencyRecord stored, boolean replayed) {
+        if (!stored.getFingerprint().equals(fingerprint))
+            throw new RuntimeException("Idempotency-Key : " + idempotencyKey + " already exists for a different request");
+        if (stored.getTransactionId() == null)
+            throw new RuntimeException("Idempotency-Key : " + idempotencyKey + " already exists and is still in progress");
+
+        TransactionDTO transactionDTO = new TransactionDTO();
+        transactionDTO.setId(stored.getTransactionId());
+        transactionDTO.setSenderUsername(stored.getSenderUsername());
+        transactionDTO.setReceiverUsername(stored.getReceiverUsername());
+        transactionDTO.setDescription(stored.getDescription());
+        transactionDTO.setAmount(stored.getAmount());
+        transactionDTO.setCreatedAt(stored.getTransactionCreatedAt());
+        return new IdempotentResponse(transactionDTO, replayed);
+    }
+
+    private IdempotencyRecord await(String idempotencyKey, CompletableFuture<IdempotencyRecord> prior) {
+        try {
+            return prior.get(waitTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause)
+                throw cause;
+            throw new RuntimeException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new RuntimeException("Idempotency-Key : " + idempotencyKey + " already exists and is still in progress");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for Idempotency-Key : " + idempotencyKey);
+        }
+    }
+
+    private static String fingerprint(TransactionCreationDTO transactionCreationDTO) {
+        String request = transactionCreationDTO.getSenderId() + "|" + transactionCreationDTO.getReceiverId() + "|"
+                + transactionCreationDTO.getAmount() + "|" + transactionCreationDTO.getDescription();
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(request.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package dev.nikkune.paymybuddy.service;
+
+import dev.nikkune.paymybuddy.dto.TransactionDTO;
+
+/**
+ * Response of a transaction created with an idempotency key.
+ *
+ * @param transaction the created transaction
+ * @param replayed    {@code true} if the response was stored by a previous request with the same key
+ */
+public record IdempotentResponse(TransactionDTO transaction, boolean replayed) {
+}
@@ -0,0 +1,255 @@
+package dev.nikkune.paymybuddy.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import dev.nikkune.paymybuddy.dto.TransactionCreationDTO;
+import dev.nikkune.paymybuddy.model.BalanceSnapshot;
+import dev.nikkune.paymybuddy.model.LedgerEntry;
+import dev.nikkune.paymybuddy.model.Money;
+import dev.nikkune.paymybuddy.model.Transaction;
+import dev.nikkune.paymybuddy.model.User;
+import dev.nikkune.paymybuddy.repository.BalanceSnapshotRepository;
+import dev.nikkune.paymybuddy.repository.LedgerEntryRepository;
+import dev.nikkune.paymybuddy.repository.TransactionRepository;
+import dev.nikkune.paymybuddy.repository.UserRepository;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Transfer strategy that never updates the balances of the users: every transfer appends two signed entries to the
+ * {@code ledger_entries} table, and the balance of an account is its opening balance plus its entries.
+ * <p>
+ * The balance is computed from three sources:
+ * <ul>
+ *     <li>the row of {@code balance_snapshots} of the account, or the {@code balance} column of the user,
+ *     which becomes the opening balance and is never written again;</li>
+ *     <li>the sum of the entries not included in that snapshot yet;</li>
+ *     <li>a bounded in-memory cache holding the result, so that a balance read is a single lookup.</li>
+ * </ul>
+ * The debit is checked against the database, not against the cache: each transfer bumps the versions of the sender
+ * and the receiver in {@code users}, which give the ETag of their transactions, thus locking both rows in ID order,
+ * and computes the balance of the sender from the ledger in the same transaction as the entries. Two transfers from the same account, even on different instances of the application, are thus
+ * serialized and cannot overdraw it. The striped locks of {@link AccountLockManager} are held in addition, until the
+ * cache is updated after the commit, so that the transfers of one instance keep its cache in order; the balances
+ * it caches do not include the credits written by the other instances until they are reloaded.
+ * <p>
+ * A scheduled job snapshots the accounts having at least {@code snapshot-min-entries} entries not snapshotted, which
+ * bounds the number of entries summed when a balance is computed. The entries included in a snapshot are flagged in
+ * the same transaction, so the snapshot does not depend on the order of the entry IDs, which the sequence allocates
+ * to each instance in blocks.
+ */
+@Component
+@ConditionalOnProperty(name = "paymybuddy.transfer.strategy", havingValue = "ledger")
+public class LedgerTransferStrategy implements ITransferStrategy {
+    private static final Logger logger = LogManager.getLogger(LedgerTransferStrategy.class);
+
+    private final TransactionRepository transactionRepository;
+    private final UserRepository userRepository;
+    private final LedgerEntryRepository ledgerEntryRepository;
+    private final BalanceSnapshotRepository balanceSnapshotRepository;
+    private final AccountLockManager accountLockManager;
+    private final TransactionTemplate transactionTemplate;
+    private final Cache<Integer, Long> balances;
+    private final long snapshotMinEntries;
+
+    /**
+     * Constructs a new LedgerTransferStrategy.
+     *
+     * @param transactionRepository     the repository for managing transaction data
+     * @param userRepository            the repository for managing user data
+     * @param ledgerEntryRepository     the repository storing the ledger entries
+     * @param balanceSnapshotRepository the repository storing the balance snapshots
+     * @param accountLockManager        the lock manager guarding the accounts
+     * @param transactionManager        the transaction manager used to demarcate each transfer
+     * @param cacheSize                 the maximum number of balances kept in memory
+     * @param snapshotMinEntries        the number of entries since the last snapshot above which an account is snapshotted
+     */
+    public LedgerTransferStrategy(TransactionRepository transactionRepository, UserRepository userRepository,
+                                  LedgerEntryRepository ledgerEntryRepository, BalanceSnapshotRepository balanceSnapshotRepository,
+                                  AccountLockManager accountLockManager, PlatformTransactionManager transactionManager,
+                                  @Value("${paymybuddy.ledger.cache-size:100000}") long cacheSize,
+                                  @Value("${paymybuddy.ledger.snapshot-min-entries:100}") long snapshotMinEntries) {
+        if (snapshotMinEntries <= 0)
+            throw new IllegalArgumentException("Snapshot minimum entries must be positive");
+
+        this.transactionRepository = transactionRepository;
+        this.userRepository = userRepository;
+        this.ledgerEntryRepository = ledgerEntryRepository;
+        this.balanceSnapshotRepository = balanceSnapshotRepository;
+        this.accountLockManager = accountLockManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.balances = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .build();
+        this.snapshotMinEntries = snapshotMinEntries;
+    }
+
+    /**
+     * Transfers money from the sender to the receiver by appending one debit and one credit entry to the ledger.
+     *
+     * @param transactionCreationDTO the transaction to be added, which includes sender, receiver, amount, and description
+     * @param inTransaction          the action given the saved transaction, before the commit
+     * @return the saved transaction object
+     * @throws RuntimeException if the sender or receiver does not exist or if the sender's balance is insufficient
+     */
+    @Override
+    public Transaction transfer(TransactionCreationDTO transactionCreationDTO, Consumer<Transaction> inTransaction) throws RuntimeException {
+        int senderId = transactionCreationDTO.getSenderId();
+        int receiverId = transactionCreationDTO.getReceiverId();
+        long amount = transactionCreationDTO.getAmount().getCents();
+
+        return accountLockManager.withAccountLocks(senderId, receiverId, () -> {
+            AtomicLong senderBalance = new AtomicLong();
+            Transaction transaction;
+            try {
+                transaction = transactionTemplate.execute(status -> {
+                    // Locks both rows in ID order, before the sender's balance is read
+                    userRepository.incrementVersions(List.of(senderId, receiverId));
+                    senderBalance.set(lockedBalance(senderId));
+                    currentBalance(receiverId, "Receiver");
+                    if (senderBalance.get() < amount)
+                        throw new RuntimeException("Insufficient balance");
+                    return append(transactionCreationDTO, inTransaction);
+                });
+            } catch (RuntimeException e) {
+                // The outcome of a failed commit is unknown: reload both balances from the ledger next time
+                balances.invalidate(senderId);
+                balances.invalidate(receiverId);
+                throw e;
+            }
+
+            // An evicted balance is simply reloaded from the ledger, which now includes both entries
+            balances.put(senderId, senderBalance.get() - amount);
+            balances.asMap().computeIfPresent(receiverId, (id, balance) -> balance + amount);
+            return transaction;
+        });
+    }
+
+    /**
+     * Returns the current balance of a user from the cache, loading it from the ledger on a miss.
+     *
+     * @param user the user
+     * @return the current balance of the user
+     * @throws RuntimeException if the user does not exist
+     */
+    @Override
+    public Money balanceOf(User user) throws RuntimeException {
+        Long cached = balances.getIfPresent(user.getId());
+        if (cached != null)
+            return Money.ofCents(cached);
+
+        return Money.ofCents(accountLockManager.withAccountLocks(List.of(user.getId()),
+                () -> currentBalance(user.getId(), "User")));
+    }
+
+    @Override
+    public boolean storesBalanceOnUser() {
+        return false;
+    }
+
+    /**
+     * Snapshots the balance of every account having enough ledger entries since its last snapshot.
+     */
+    @Scheduled(fixedDelayString = "${paymybuddy.ledger.snapshot-interval-ms:60000}")
+    public void takeSnapshots() {
+        List<Integer> accountIds = ledgerEntryRepository.findAccountIdsToSnapshot(snapshotMinEntries);
+        for (int accountId : accountIds)
+            accountLockManager.withAccountLocks(List.of(accountId), () -> transactionTemplate.execute(status -> snapshot(accountId)));
+
+        if (!accountIds.isEmpty())
+            logger.info("Snapshotted the balance of {} accounts", accountIds.size());
+    }
+
+    /**
+     * Locks the row of the sender until the end of the current transaction and computes its balance from the ledger.
+     *
+     * @return the balance in cents
+     * @throws RuntimeException if the sender does not exist
+     */
+    private long lockedBalance(int senderId) {
+        if (userRepository.findAllByIdForUpdate(List.of(senderId)).isEmpty())
+            throw new RuntimeException("Sender with ID : " + senderId + " not found");
+        return ledgerEntryRepository.findBalance(senderId).orElseThrow();
+    }
+
+    /**
+     * Returns the current balance of an account, in cents. Must be called while holding the account lock.
+     */
+    private long currentBalance(int accountId, String role) {
+        Long balance = balances.get(accountId, this::loadBalance);
+        if (balance == null)
+            throw new RuntimeException(role + " with ID : " + accountId + " not found");
+        return balance;
+    }
+
+    /**
+     * Computes the balance of an account from its snapshot and the ledger entries not snapshotted yet.
+     *
+     * @return the balance in cents, or {@code null} if the account does not exist
+     */
+    private Long loadBalance(int accountId) {
+        return ledgerEntryRepository.findBalance(accountId).orElse(null);
+    }
+
+    private Transaction append(TransactionCreationDTO transactionCreationDTO, Consumer<Transaction> inTransaction) {
+        User sender = userRepository.getReferenceById(transactionCreationDTO.getSenderId());
+        User receiver = userRepository.getReferenceById(transactionCreationDTO.getReceiverId());
+
+        Transaction transaction = new Transaction();
+        transaction.setSender(sender);
+        transaction.setReceiver(receiver);
+        transaction.setAmount(transactionCreationDTO.getAmount());
+        transaction.setDescription(transactionCreationDTO.getDescription());
+        transaction = transactionRepository.save(transaction);
+
+        long amount = transactionCreationDTO.getAmount().getCents();
+        ledgerEntryRepository.saveAll(List.of(entry(sender, transaction, -amount), entry(receiver, transaction, amount)));
+        inTransaction.accept(transaction);
+        return transaction;
+    }
+
+    private LedgerEntry entry(User account, Transaction transaction, long amount) {
+        LedgerEntry entry = new LedgerEntry();
+        entry.setAccount(account);
+        entry.setTransaction(transaction);
+        entry.setAmount(Money.ofCents(amount));
+        return entry;
+    }
+
+    private BalanceSnapshot snapshot(int accountId) {
+        // Serializes the snapshots and the debits of the account across the instances
+        List<User> accounts = userRepository.findAllByIdForUpdate(List.of(accountId));
+        if (accounts.isEmpty())
+            return null;
+
+        BalanceSnapshot snapshot = balanceSnapshotRepository.findById(accountId).orElse(null);
+        long balance;
+        if (snapshot != null) {
+            balance = snapshot.getBalance().getCents();
+        } else {
+            snapshot = new BalanceSnapshot();
+            snapshot.setAccountId(accountId);
+            balance = accounts.get(0).getBalance().getCents();
+        }
+
+        // The entries committed after this read are left for the next snapshot
+        for (LedgerEntry entry : ledgerEntryRepository.findNotSnapshotted(accountId)) {
+            balance += entry.getAmount().getCents();
+            entry.setSnapshotted(true);
+        }
+        snapshot.setBalance(Money.ofCents(balance));
+        snapshot.setTakenAt(Instant.now());
+        return balanceSnapshotRepository.save(snapshot);
+    }
+}
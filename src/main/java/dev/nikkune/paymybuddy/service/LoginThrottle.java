@@ -0,0 +1,138 @@
+package dev.nikkune.paymybuddy.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * LoginThrottle limits the login attempts per email and per client IP address with token buckets, so that a burst of
+ * attempts, such as credential stuffing, is rejected before any user is looked up or any password is hashed.
+ * <p>
+ * Each email and each address has a bucket of {@code burst} attempts, refilled with {@code per-minute} attempts a
+ * minute; an attempt takes one from the bucket of the address, then one from the bucket of the email. The buckets are
+ * updated with compare-and-set, without locks. They are kept in bounded caches of {@code max-keys} entries each, and
+ * dropped once unused for the time they take to refill, when they are as good as new. A burst of {@code 0} disables
+ * the limit on the emails or on the addresses. The rejected attempts are counted by
+ * {@code paymybuddy.auth.throttle.rejected}, tagged with the {@code key} that rejected them.
+ */
+@Component
+public class LoginThrottle {
+    private final Limit emailLimit;
+    private final Limit ipLimit;
+
+    /**
+     * Constructs a LoginThrottle.
+     *
+     * @param meterRegistry   the registry used to publish the throttling metrics
+     * @param emailBurst      the number of attempts an email can make at once, {@code 0} for no limit
+     * @param emailPerMinute  the number of attempts an email gets back each minute, must be positive
+     * @param ipBurst         the number of attempts an address can make at once, {@code 0} for no limit
+     * @param ipPerMinute     the number of attempts an address gets back each minute, must be positive
+     * @param maxKeys         the maximum number of emails, and of addresses, whose bucket is kept
+     */
+    public LoginThrottle(MeterRegistry meterRegistry,
+                         @Value("${paymybuddy.auth.throttle.email.burst:5}") int emailBurst,
+                         @Value("${paymybuddy.auth.throttle.email.per-minute:5}") int emailPerMinute,
+                         @Value("${paymybuddy.auth.throttle.ip.burst:20}") int ipBurst,
+                         @Value("${paymybuddy.auth.throttle.ip.per-minute:60}") int ipPerMinute,
+                         @Value("${paymybuddy.auth.throttle.max-keys:100000}") long maxKeys) {
+        if (emailBurst < 0 || ipBurst < 0 || emailPerMinute <= 0 || ipPerMinute <= 0 || maxKeys <= 0)
+            throw new IllegalArgumentException("Login throttle bursts must not be negative, rates and max keys must be positive");
+
+        this.emailLimit = new Limit(meterRegistry, "email", emailBurst, emailPerMinute, maxKeys);
+        this.ipLimit = new Limit(meterRegistry, "ip", ipBurst, ipPerMinute, maxKeys);
+    }
+
+    /**
+     * Takes a login attempt from the buckets of an email and of a client address.
+     *
+     * @param email    the email the attempt is made for
+     * @param clientIp the address the attempt comes from
+     * @return {@code 0} if the attempt is allowed, otherwise the number of seconds to wait before the next one
+     */
+    public long acquire(String email, String clientIp) {
+        return acquire(email, clientIp, System.nanoTime());
+    }
+
+    long acquire(String email, String clientIp, long now) {
+        long waitNanos = ipLimit.acquire(clientIp, now);
+        if (waitNanos == 0)
+            waitNanos = emailLimit.acquire(email.trim().toLowerCase(Locale.ROOT), now);
+        return waitNanos == 0 ? 0 : Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+    }
+
+    /**
+     * The buckets of one kind of key.
+     */
+    private static final class Limit {
+        private final int burst;
+        private final long nanosPerToken;
+        private final Cache<String, TokenBucket> buckets;
+        private final Counter rejected;
+
+        private Limit(MeterRegistry meterRegistry, String key, int burst, int perMinute, long maxKeys) {
+            this.burst = burst;
+            this.nanosPerToken = TimeUnit.MINUTES.toNanos(1) / perMinute;
+            // An idle bucket is full again after this delay, the same as a new one
+            this.buckets = Caffeine.newBuilder()
+                    .maximumSize(maxKeys)
+                    .expireAfterAccess(Duration.ofNanos(Math.max(1, burst) * nanosPerToken))
+                    .recordStats()
+                    .build();
+            CaffeineCacheMetrics.monitor(meterRegistry, buckets, "paymybuddy.auth.throttle." + key);
+            this.rejected = Counter.builder("paymybuddy.auth.throttle.rejected")
+                    .description("Number of login attempts rejected by the throttle")
+                    .tag("key", key)
+                    .register(meterRegistry);
+        }
+
+        private long acquire(String key, long now) {
+            if (burst == 0)
+                return 0;
+            long waitNanos = buckets.get(key, k -> new TokenBucket(burst, now)).acquire(now, burst, nanosPerToken);
+            if (waitNanos > 0)
+                rejected.increment();
+            return waitNanos;
+        }
+    }
+
+    /**
+     * A token bucket whose state is replaced as a whole with compare-and-set.
+     */
+    private static final class TokenBucket {
+        private record State(double tokens, long refilledAt) {
+        }
+
+        private final AtomicReference<State> state;
+
+        private TokenBucket(int burst, long now) {
+            this.state = new AtomicReference<>(new State(burst, now));
+        }
+
+        /**
+         * Takes a token if one is available.
+         *
+         * @return {@code 0} if a token was taken, otherwise the nanoseconds until the next one
+         */
+        private long acquire(long now, int burst, long nanosPerToken) {
+            while (true) {
+                State current = state.get();
+                long elapsed = Math.max(0, now - current.refilledAt());
+                double tokens = Math.min(burst, current.tokens() + (double) elapsed / nanosPerToken);
+                if (tokens < 1)
+                    return Math.max(1, (long) Math.ceil((1 - tokens) * nanosPerToken));
+                if (state.compareAndSet(current, new State(tokens - 1, Math.max(now, current.refilledAt()))))
+                    return 0;
+            }
+        }
+    }
+}
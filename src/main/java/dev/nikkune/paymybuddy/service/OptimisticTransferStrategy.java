@@ -0,0 +1,53 @@
+package dev.nikkune.paymybuddy.service;
+
+import dev.nikkune.paymybuddy.dto.TransactionCreationDTO;
+import dev.nikkune.paymybuddy.model.Transaction;
+import dev.nikkune.paymybuddy.repository.TransactionRepository;
+import dev.nikkune.paymybuddy.repository.UserRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.function.Consumer;
+
+/**
+ * Transfer strategy that takes no lock at all and relies on the version column of the users.
+ * <p>
+ * Each attempt reads both users, updates their balances and commits; if another transfer changed one of
+ * the users in between, the version check fails at flush time and the whole attempt is rolled back and
+ * retried by the {@link TransferRetryExecutor}. When most transfers touch disjoint accounts, conflicts
+ * are rare and transfers never wait for each other.
+ */
+@Component
+@ConditionalOnProperty(name = "paymybuddy.transfer.strategy", havingValue = "optimistic")
+public class OptimisticTransferStrategy extends AbstractEntityTransferStrategy {
+    private final TransferRetryExecutor retryExecutor;
+
+    /**
+     * Constructs a new OptimisticTransferStrategy.
+     *
+     * @param transactionRepository the repository for managing transaction data
+     * @param userRepository        the repository for managing user data
+     * @param retryExecutor         the executor retrying the conflicting attempts
+     * @param transactionManager    the transaction manager used to demarcate each attempt
+     */
+    public OptimisticTransferStrategy(TransactionRepository transactionRepository, UserRepository userRepository,
+                                      TransferRetryExecutor retryExecutor, PlatformTransactionManager transactionManager) {
+        super(transactionRepository, userRepository, transactionManager);
+        this.retryExecutor = retryExecutor;
+    }
+
+    /**
+     * Transfers money from the sender to the receiver, retrying when a concurrent transfer updated one of the users.
+     *
+     * @param transactionCreationDTO the transaction to be added, which includes sender, receiver, amount, and description
+     * @param inTransaction          the action given the saved transaction, before the commit
+     * @return the saved transaction object
+     * @throws RuntimeException if the sender or receiver does not exist, if the sender's balance is insufficient
+     *                          or if the transfer still conflicted after the last attempt
+     */
+    @Override
+    public Transaction transfer(TransactionCreationDTO transactionCreationDTO, Consumer<Transaction> inTransaction) throws RuntimeException {
+        return retryExecutor.execute(() -> transactionTemplate.execute(status -> applyTransfer(transactionCreationDTO, inTransaction)));
+    }
+}
@@ -0,0 +1,224 @@
+package dev.nikkune.paymybuddy.service;
+
+import dev.nikkune.paymybuddy.utils.PasswordUtil;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * PasswordHasher runs the BCrypt hashes on a dedicated pool of {@code threads} threads, so that a burst of logins or
+ * registrations cannot take all the CPU from the other requests.
+ * <p>
+ * Unless a {@code cost} is set, the cost of the new hashes is calibrated at startup: a hash at a low cost is timed, and
+ * the cost whose hash should take closest to {@code target-ms} on this host is chosen, each step doubling the time,
+ * but never below {@code min-cost}. A hash computed with another cost still matches, and is replaced on the next
+ * login (see {@link #needsRehash}), so that the cost of a login follows the host the application runs on.
+ * <p>
+ * The calling thread waits for its hash. At most {@code queue-capacity} hashes wait for a thread: beyond, the call
+ * fails at once with a {@link RejectedExecutionException}, answered {@code 503 Service Unavailable} with a
+ * {@code Retry-After} header, instead of holding the request thread in a queue that keeps growing. Published metrics:
+ * <ul>
+ *     <li>{@code paymybuddy.auth.hash.cost}: cost of the new hashes</li>
+ *     <li>{@code paymybuddy.auth.hash}: duration of a hash, tagged with its {@code operation}</li>
+ *     <li>{@code paymybuddy.auth.hash.wait}: time a hash waited for a thread</li>
+ *     <li>{@code paymybuddy.auth.hash.queue}: number of hashes waiting for a thread</li>
+ *     <li>{@code paymybuddy.auth.hash.rejected}: number of hashes rejected because the queue was full</li>
+ * </ul>
+ */
+@Component
+public class PasswordHasher implements DisposableBean {
+    private static final Logger logger = LogManager.getLogger(PasswordHasher.class);
+    private static final int REFERENCE_COST = 8;
+    private static final int MAX_COST = 16;
+    private static final int CALIBRATION_SAMPLES = 5;
+
+    private final int cost;
+    private final BCryptPasswordEncoder encoder;
+    private final ThreadPoolExecutor executor;
+    private final Timer encodeTimer;
+    private final Timer matchesTimer;
+    private final Timer waitTimer;
+    private final Counter rejected;
+
+    /**
+     * Constructs a PasswordHasher and starts its threads.
+     *
+     * @param meterRegistry the registry used to publish the hashing metrics
+     * @param threads       the number of hashes computed at the same time, {@code 0} for half of the processors
+     * @param queueCapacity the number of hashes that can wait for a thread, must be positive
+     * @param cost          the cost of the new hashes, between 4 and 31, or {@code 0} to calibrate it
+     * @param targetMillis  how long a hash should take when the cost is calibrated, in milliseconds
+     * @param minCost       the lowest cost the calibration may choose, between 4 and 16
+     */
+    public PasswordHasher(MeterRegistry meterRegistry,
+                          @Value("${paymybuddy.auth.hash.threads:0}") int threads,
+                          @Value("${paymybuddy.auth.hash.queue-capacity:100}") int queueCapacity,
+                          @Value("${paymybuddy.auth.hash.cost:0}") int cost,
+                          @Value("${paymybuddy.auth.hash.target-ms:100}") long targetMillis,
+                          @Value("${paymybuddy.auth.hash.min-cost:10}") int minCost) {
+        if (threads < 0 || queueCapacity <= 0)
+            throw new IllegalArgumentException("Hashing threads must not be negative and queue capacity must be positive");
+        if ((cost != 0 && (cost < 4 || cost > 31)) || targetMillis <= 0 || minCost < 4 || minCost > MAX_COST)
+            throw new IllegalArgumentException("Hashing cost must be 0 or between 4 and 31, target must be positive and min cost between 4 and " + MAX_COST);
+
+        this.cost = cost != 0 ? cost : calibrate(targetMillis, minCost);
+        this.encoder = new BCryptPasswordEncoder(this.cost);
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+
+        AtomicInteger threadCount = new AtomicInteger();
+        BlockingQueue<Runnable> queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS, queue, task -> {
+            Thread thread = new Thread(task, "password-hasher-" + threadCount.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.encodeTimer = hashTimer(meterRegistry, "encode");
+        this.matchesTimer = hashTimer(meterRegistry, "matches");
+        this.waitTimer = Timer.builder("paymybuddy.auth.hash.wait")
+                .description("Time a password hash waited for a thread")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.rejected = Counter.builder("paymybuddy.auth.hash.rejected")
+                .description("Number of password hashes rejected because the queue was full")
+                .register(meterRegistry);
+        Gauge.builder("paymybuddy.auth.hash.queue", queue, BlockingQueue::size)
+                .description("Number of password hashes waiting for a thread")
+                .register(meterRegistry);
+        Gauge.builder("paymybuddy.auth.hash.cost", this, PasswordHasher::getCost)
+                .description("Cost of the new password hashes")
+                .register(meterRegistry);
+        logger.info("Password hashing on {} threads, up to {} waiting, with cost {}", poolSize, queueCapacity, this.cost);
+    }
+
+    /**
+     * Hashes a password.
+     *
+     * @param rawPassword the password to hash
+     * @return the BCrypt hash of the password
+     * @throws RejectedExecutionException if too many hashes are waiting
+     */
+    public String encode(String rawPassword) throws RejectedExecutionException {
+        return run(encodeTimer, () -> encoder.encode(rawPassword));
+    }
+
+    /**
+     * Checks a password against its hash.
+     *
+     * @param rawPassword     the password to check
+     * @param encodedPassword the BCrypt hash of the expected password
+     * @return {@code true} if the password matches the hash
+     * @throws RejectedExecutionException if too many hashes are waiting
+     */
+    public boolean matches(String rawPassword, String encodedPassword) throws RejectedExecutionException {
+        return run(matchesTimer, () -> PasswordUtil.matches(rawPassword, encodedPassword));
+    }
+
+    /**
+     * Checks whether a hash should be replaced by one computed with the current cost.
+     *
+     * @param encodedPassword the BCrypt hash of a password that just matched
+     * @return {@code true} if the hash was computed with another cost
+     */
+    public boolean needsRehash(String encodedPassword) {
+        return PasswordUtil.cost(encodedPassword) != cost;
+    }
+
+    /**
+     * Returns the cost of the new hashes.
+     *
+     * @return the base 2 logarithm of the number of BCrypt rounds
+     */
+    public int getCost() {
+        return cost;
+    }
+
+    /**
+     * Stops the threads once the hashes already queued are computed.
+     */
+    @Override
+    public void destroy() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    private <T> T run(Timer timer, Supplier<T> hash) {
+        long submittedAt = System.nanoTime();
+        Future<T> result;
+        try {
+            result = executor.submit(() -> {
+                waitTimer.record(System.nanoTime() - submittedAt, TimeUnit.NANOSECONDS);
+                return timer.record(hash);
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new RejectedExecutionException("Too many password checks in progress");
+        }
+
+        try {
+            return result.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause)
+                throw cause;
+            throw new RuntimeException(e.getCause());
+        } catch (InterruptedException e) {
+            result.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for the password hash");
+        }
+    }
+
+    private static int calibrate(long targetMillis, int minCost) {
+        BCryptPasswordEncoder reference = new BCryptPasswordEncoder(REFERENCE_COST);
+        // The first hash also loads and compiles BCrypt
+        String encoded = reference.encode("calibration");
+        long fastest = Long.MAX_VALUE;
+        for (int i = 0; i < CALIBRATION_SAMPLES; i++) {
+            long start = System.nanoTime();
+            reference.matches("calibration", encoded);
+            fastest = Math.min(fastest, System.nanoTime() - start);
+        }
+        int cost = costFor(fastest, targetMillis, minCost);
+        logger.info("Password hashing cost calibrated to {}: a hash with cost {} took {} µs, target {} ms",
+                cost, REFERENCE_COST, TimeUnit.NANOSECONDS.toMicros(fastest), targetMillis);
+        return cost;
+    }
+
+    /**
+     * Chooses the cost whose hash should take closest to the target, knowing that each step doubles the time.
+     *
+     * @param referenceNanos the duration of a hash with the reference cost, in nanoseconds
+     * @param targetMillis   how long a hash should take, in milliseconds
+     * @param minCost        the lowest cost that may be chosen
+     * @return the cost, between {@code minCost} and 16
+     */
+    static int costFor(long referenceNanos, long targetMillis, int minCost) {
+        double doublings = Math.log((double) TimeUnit.MILLISECONDS.toNanos(targetMillis) / Math.max(1, referenceNanos)) / Math.log(2);
+        int cost = REFERENCE_COST + (int) Math.round(doublings);
+        return Math.max(minCost, Math.min(MAX_COST, cost));
+    }
+
+    private static Timer hashTimer(MeterRegistry meterRegistry, String operation) {
+        return Timer.builder("paymybuddy.auth.hash")
+                .description("Duration of a password hash")
+                .tag("operation", operation)
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+    }
+}
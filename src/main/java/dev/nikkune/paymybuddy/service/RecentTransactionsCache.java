@@ -0,0 +1,222 @@
+package dev.nikkune.paymybuddy.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import dev.nikkune.paymybuddy.dto.TransactionDTO;
+import dev.nikkune.paymybuddy.model.Transaction;
+import dev.nikkune.paymybuddy.model.User;
+import dev.nikkune.paymybuddy.repository.TransactionRepository;
+import dev.nikkune.paymybuddy.repository.UserRepository;
+import dev.nikkune.paymybuddy.utils.CommitUtil;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.hibernate.Hibernate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+
+/**
+ * RecentTransactionsCache keeps the most recent transactions of the users who asked for their history lately,
+ * so that the first page of the history, asked again and again by the home screen, is served from memory.
+ * <p>
+ * Each cached user holds up to {@code size} transactions, newest first. The cache is bounded by
+ * {@code cache-size} users (W-TinyLFU eviction) and each entry expires {@code ttl-ms} after it was loaded.
+ * Every committed transaction is added to the entries of its sender and receiver with {@link #record}, so an entry
+ * never misses a transaction; entries are only loaded from the database on a miss. A change of username empties
+ * the cache, since the usernames are part of the cached transactions.
+ * <p>
+ * Hits, misses and evictions are published as the {@code cache.*} metrics tagged
+ * {@code cache=paymybuddy.transactions.recent}.
+ */
+@Component
+public class RecentTransactionsCache {
+    private final TransactionRepository transactionRepository;
+    private final UserRepository userRepository;
+    private final TransactionArchive transactionArchive;
+    private final int size;
+    private final Cache<Integer, RecentTransactions> recent;
+    // Number of first pages loading each user, so that a transaction recorded meanwhile waits for the load
+    private final ConcurrentHashMap<Integer, Integer> loading = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs a RecentTransactionsCache.
+     *
+     * @param transactionRepository the repository for managing transaction data
+     * @param userRepository        the repository for managing user data
+     * @param transactionArchive    the archive holding the old transactions
+     * @param meterRegistry         the registry used to publish the cache statistics
+     * @param size                  the number of transactions kept per user, {@code 0} to disable the cache
+     * @param cacheSize             the maximum number of users kept in memory
+     * @param ttlMillis             how long the transactions of a user are kept after they were loaded, in milliseconds
+     */
+    public RecentTransactionsCache(TransactionRepository transactionRepository, UserRepository userRepository,
+                                   TransactionArchive transactionArchive, MeterRegistry meterRegistry,
+                                   @Value("${paymybuddy.transactions.recent.size:20}") int size,
+                                   @Value("${paymybuddy.transactions.recent.cache-size:10000}") long cacheSize,
+                                   @Value("${paymybuddy.transactions.recent.ttl-ms:300000}") long ttlMillis) {
+        if (size < 0)
+            throw new IllegalArgumentException("Recent transactions size must not be negative");
+
+        this.transactionRepository = transactionRepository;
+        this.userRepository = userRepository;
+        this.transactionArchive = transactionArchive;
+        this.size = size;
+        this.recent = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(Duration.ofMillis(ttlMillis))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, recent, "paymybuddy.transactions.recent");
+    }
+
+    /**
+     * Checks whether a first page of the given size can be served by the cache.
+     *
+     * @param limit the number of transactions of the page
+     * @return {@code true} if the cache holds enough transactions per user
+     */
+    public boolean covers(int limit) {
+        return limit <= size;
+    }
+
+    /**
+     * Returns the first page of the history of a user, loading the recent transactions of the user on a miss.
+     *
+     * @param userId the ID of the user
+     * @param limit  the number of transactions of the page, covered by the cache
+     * @return the newest transactions of the user, with the cursor of the next page if there is one
+     * @throws RuntimeException if the user does not exist
+     */
+    public TransactionPage firstPage(int userId, int limit) throws RuntimeException {
+        boolean[] loaded = new boolean[1];
+        RecentTransactions recentTransactions;
+        try {
+            recentTransactions = recent.get(userId, id -> {
+                loaded[0] = true;
+                loading.merge(id, 1, Integer::sum);
+                return load(id);
+            });
+        } finally {
+            // Only once the entry is in the cache, where the transactions recorded from now on will find it
+            if (loaded[0])
+                loading.computeIfPresent(userId, (id, count) -> count == 1 ? null : count - 1);
+        }
+        List<TransactionDTO> transactions = recentTransactions.transactions();
+        if (transactions.size() > limit)
+            return new TransactionPage(transactions.subList(0, limit), transactions.get(limit - 1).getId());
+        if (!recentTransactions.complete() && !transactions.isEmpty())
+            return new TransactionPage(transactions, transactions.getLast().getId());
+        return new TransactionPage(transactions, null);
+    }
+
+    /**
+     * Adds a committed transaction to the cached transactions of its sender and receiver.
+     *
+     * @param transaction the transaction, once committed
+     */
+    public void record(Transaction transaction) {
+        if (size == 0)
+            return;
+
+        // Built for the first cached user only, since most transactions concern no cached user
+        TransactionDTO[] transactionDTO = new TransactionDTO[1];
+        BiFunction<Integer, RecentTransactions, RecentTransactions> add = (id, recentTransactions) -> {
+            if (recentTransactions == null)
+                return null;
+            if (transactionDTO[0] == null)
+                transactionDTO[0] = toDTO(transaction);
+            // Dropping the entry reloads it on the next read
+            return transactionDTO[0] == null ? null : recentTransactions.with(transactionDTO[0], size);
+        };
+        int senderId = transaction.getSender().getId();
+        int receiverId = transaction.getReceiver().getId();
+        addTo(senderId, add);
+        if (receiverId != senderId)
+            addTo(receiverId, add);
+    }
+
+    private void addTo(int userId, BiFunction<Integer, RecentTransactions, RecentTransactions> add) {
+        // Unlike computeIfPresent, which returns at once while the user is still absent, compute waits for a load of
+        // the same user in progress, which may or may not have read the transaction
+        if (loading.containsKey(userId) || recent.asMap().containsKey(userId))
+            recent.asMap().compute(userId, add);
+    }
+
+    /**
+     * Empties the cache once the current transaction, if any, is committed, after a username has changed.
+     */
+    public void usernameChanged() {
+        CommitUtil.afterCommit(recent::invalidateAll);
+    }
+
+    private RecentTransactions load(int userId) {
+        if (!userRepository.existsById(userId))
+            throw new RuntimeException("User with ID : " + userId + " not found");
+
+        // One extra row tells whether the user has older transactions, possibly archived
+        List<TransactionDTO> transactions = transactionArchive.mergePage(
+                transactionRepository.findPageByUserId(userId, Integer.MAX_VALUE, size + 1), userId, Integer.MAX_VALUE,
+                TransactionRepository.HISTORY_START, TransactionRepository.HISTORY_END, size + 1);
+        if (transactions.size() <= size)
+            return new RecentTransactions(List.copyOf(transactions), true);
+        return new RecentTransactions(List.copyOf(transactions.subList(0, size)), false);
+    }
+
+    /**
+     * Builds the cached form of a transaction.
+     *
+     * @return the transaction, or {@code null} if one of its users no longer exists
+     */
+    private TransactionDTO toDTO(Transaction transaction) {
+        String senderUsername = username(transaction.getSender());
+        String receiverUsername = username(transaction.getReceiver());
+        if (senderUsername == null || receiverUsername == null)
+            return null;
+        return new TransactionDTO(transaction.getId(), senderUsername, receiverUsername,
+                transaction.getDescription(), transaction.getAmount(), transaction.getCreatedAt());
+    }
+
+    private String username(User user) {
+        // The strategies may only hold a reference to the users, which cannot be loaded outside of a session
+        if (Hibernate.isInitialized(user))
+            return user.getUsername();
+        return userRepository.findUsernameById(user.getId()).orElse(null);
+    }
+
+    /**
+     * The most recent transactions of a user, newest first.
+     *
+     * @param transactions the transactions, at most {@code size}
+     * @param complete     whether the user has no older transactions
+     */
+    record RecentTransactions(List<TransactionDTO> transactions, boolean complete) {
+
+        /**
+         * Returns these transactions with another one, kept in descending ID order since concurrent transactions
+         * may be recorded out of order.
+         */
+        RecentTransactions with(TransactionDTO transactionDTO, int size) {
+            List<TransactionDTO> updated = new ArrayList<>(transactions.size() + 1);
+            boolean added = false;
+            for (TransactionDTO cached : transactions) {
+                if (cached.getId() == transactionDTO.getId())
+                    return this;
+                if (!added && cached.getId() < transactionDTO.getId()) {
+                    updated.add(transactionDTO);
+                    added = true;
+                }
+                updated.add(cached);
+            }
+            if (!added)
+                updated.add(transactionDTO);
+            if (updated.size() <= size)
+                return new RecentTransactions(List.copyOf(updated), complete);
+            return new RecentTransactions(List.copyOf(updated.subList(0, size)), false);
+        }
+    }
+}
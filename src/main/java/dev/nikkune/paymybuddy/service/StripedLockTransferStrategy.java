@@ -0,0 +1,54 @@
+package dev.nikkune.paymybuddy.service;
+
+import dev.nikkune.paymybuddy.dto.TransactionCreationDTO;
+import dev.nikkune.paymybuddy.model.Transaction;
+import dev.nikkune.paymybuddy.repository.TransactionRepository;
+import dev.nikkune.paymybuddy.repository.UserRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.function.Consumer;
+
+/**
+ * Transfer strategy that serializes transfers touching the same accounts with the striped locks of
+ * {@link AccountLockManager}, while transfers between unrelated accounts run in parallel.
+ * <p>
+ * The locks are acquired before the database transaction begins and released only once it has been
+ * committed or rolled back, so the next transfer on the same account always reads the committed balances.
+ */
+@Component
+@ConditionalOnProperty(name = "paymybuddy.transfer.strategy", havingValue = "striped-lock")
+public class StripedLockTransferStrategy extends AbstractEntityTransferStrategy {
+    private final AccountLockManager accountLockManager;
+
+    /**
+     * Constructs a new StripedLockTransferStrategy.
+     *
+     * @param transactionRepository the repository for managing transaction data
+     * @param userRepository        the repository for managing user data
+     * @param accountLockManager    the lock manager guarding the accounts
+     * @param transactionManager    the transaction manager used to demarcate each transfer
+     */
+    public StripedLockTransferStrategy(TransactionRepository transactionRepository, UserRepository userRepository,
+                                       AccountLockManager accountLockManager, PlatformTransactionManager transactionManager) {
+        super(transactionRepository, userRepository, transactionManager);
+        this.accountLockManager = accountLockManager;
+    }
+
+    /**
+     * Transfers money from the sender to the receiver while holding the locks of both accounts.
+     *
+     * @param transactionCreationDTO the transaction to be added, which includes sender, receiver, amount, and description
+     * @param inTransaction          the action given the saved transaction, before the commit
+     * @return the saved transaction object
+     * @throws RuntimeException if the sender or receiver does not exist or if the sender's balance is insufficient
+     */
+    @Override
+    public Transaction transfer(TransactionCreationDTO transactionCreationDTO, Consumer<Transaction> inTransaction) throws RuntimeException {
+        return accountLockManager.withAccountLocks(
+                transactionCreationDTO.getSenderId(),
+                transactionCreationDTO.getReceiverId(),
+                () -> transactionTemplate.execute(status -> applyTransfer(transactionCreationDTO, inTransaction)));
+    }
+}
@@ -0,0 +1,547 @@
+package dev.nikkune.paymybuddy.service;
+
+import dev.nikkune.paymybuddy.dto.TransactionDTO;
+import dev.nikkune.paymybuddy.model.Money;
+import dev.nikkune.paymybuddy.repository.TransactionRepository;
+import dev.nikkune.paymybuddy.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TimeZone;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * TransactionArchive moves the transactions older than {@code min-age-days} out of the database into immutable
+ * segment files on the local disk, and reads them back for the history of the users.
+ * <p>
+ * Every {@code interval-ms}, the oldest transactions are moved by batches of {@code batch-size}: each batch is
+ * written to a new {@link ArchiveSegment}, forced to the disk, then deleted from the {@code transactions} table in
+ * one database transaction. Should the delete fail, the segment is removed; should the application stop between the
+ * two, the delete is completed when the archive is opened again. Until then a transaction may be read from both
+ * tiers, so the merges below drop the duplicate IDs.
+ * <p>
+ * The segments are memory-mapped, and the offset index of every segment is kept in memory by user: reading the
+ * archived transactions of a user only inflates the blocks of that user, and the blocks outside of the requested
+ * ID and date range are skipped. The usernames are not archived but read from the database, so that they stay
+ * current. Instances sharing the directory with {@code read-only} set load the new segments on the same schedule, and
+ * also as soon as the database returns fewer transactions than asked while the directory changed: the archiver
+ * deletes the transactions from the database right after writing their segment, which these instances would
+ * otherwise miss until their next scheduled load.
+ */
+@Component
+public class TransactionArchive implements InitializingBean {
+    private static final Logger logger = LogManager.getLogger(TransactionArchive.class);
+    static final String CANDIDATES_QUERY = "SELECT id, sender_id, receiver_id, description, amount, created_at " +
+            "FROM transactions WHERE created_at < ? ORDER BY id LIMIT ?";
+    static final String DELETE_QUERY = "DELETE FROM transactions WHERE id = ?";
+    static final String EXISTS_QUERY = "SELECT COUNT(*) FROM transactions WHERE id = ?";
+    private static final Pattern SEGMENT_NAME = Pattern.compile("segment-(\\d{10})\\.seg");
+    private static final String TEMPORARY_SUFFIX = ".tmp";
+    private static final int DELETE_BATCH_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final UserRepository userRepository;
+    private final boolean enabled;
+    private final Path directory;
+    private final boolean readOnly;
+    private final Duration minAge;
+    private final int batchSize;
+    private final Counter archivedCounter;
+    private final Map<String, ArchiveSegment> segments = new ConcurrentHashMap<>();
+    private final Map<Integer, List<ArchiveSegment.Block>> blocksByUserId = new ConcurrentHashMap<>();
+    private long nextSequence = 1;
+    private volatile FileTime directoryModifiedAt;
+
+    /**
+     * Constructs a TransactionArchive.
+     *
+     * @param jdbcTemplate       the JdbcTemplate used to read and delete the archived transactions
+     * @param transactionManager the transaction manager used to delete a batch atomically
+     * @param userRepository     the repository for managing user data
+     * @param meterRegistry      the registry used to publish the archive metrics
+     * @param enabled            whether archived transactions are read and, unless read-only, written
+     * @param directory          the directory holding the segment files
+     * @param readOnly           whether this instance only reads the segments written by another one
+     * @param minAgeDays         the age after which a transaction is archived, in days
+     * @param batchSize          the maximum number of transactions per segment
+     */
+    public TransactionArchive(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                              UserRepository userRepository, MeterRegistry meterRegistry,
+                              @Value("${paymybuddy.transactions.archive.enabled:false}") boolean enabled,
+                              @Value("${paymybuddy.transactions.archive.directory:archive}") String directory,
+                              @Value("${paymybuddy.transactions.archive.read-only:false}") boolean readOnly,
+                              @Value("${paymybuddy.transactions.archive.min-age-days:365}") int minAgeDays,
+                              @Value("${paymybuddy.transactions.archive.batch-size:50000}") int batchSize) {
+        if (minAgeDays < 1)
+            throw new IllegalArgumentException("Archive min age days must be at least 1");
+        if (batchSize <= 0)
+            throw new IllegalArgumentException("Archive batch size must be positive");
+
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.userRepository = userRepository;
+        this.enabled = enabled;
+        this.directory = Path.of(directory);
+        this.readOnly = readOnly;
+        this.minAge = Duration.ofDays(minAgeDays);
+        this.batchSize = batchSize;
+        this.archivedCounter = Counter.builder("paymybuddy.transactions.archive.archived")
+                .description("Transactions moved to the archive")
+                .register(meterRegistry);
+        meterRegistry.gauge("paymybuddy.transactions.archive.segments", segments, Map::size);
+    }
+
+    /**
+     * Tells whether the old transactions are moved to the archive, by this instance or by another one sharing the
+     * directory.
+     *
+     * @return {@code true} if the archive is enabled
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Returns the age after which a transaction is moved to the archive.
+     *
+     * @return the minimum age of an archived transaction
+     */
+    public Duration getMinAge() {
+        return minAge;
+    }
+
+    /**
+     * Opens the segments of the directory and completes the batch interrupted by a stop, if any.
+     *
+     * @throws IOException if the directory cannot be read or holds an invalid segment
+     */
+    @Override
+    public synchronized void afterPropertiesSet() throws IOException {
+        if (!enabled)
+            return;
+        Files.createDirectories(directory);
+        if (!readOnly) {
+            try (DirectoryStream<Path> leftovers = Files.newDirectoryStream(directory, "*" + TEMPORARY_SUFFIX)) {
+                // Never renamed, so never read nor deleted from the database
+                for (Path leftover : leftovers)
+                    Files.delete(leftover);
+            }
+        }
+        refresh();
+        if (!readOnly) {
+            for (ArchiveSegment segment : segments.values())
+                completeDelete(segment);
+        }
+    }
+
+    /**
+     * Loads the new segments and, unless read-only, moves the transactions old enough to the archive.
+     */
+    @Scheduled(fixedDelayString = "${paymybuddy.transactions.archive.interval-ms:3600000}")
+    public void archive() {
+        if (!enabled)
+            return;
+        try {
+            refresh();
+            if (readOnly)
+                return;
+            Instant cutoff = Instant.now().minus(minAge);
+            while (archiveBatch(cutoff) == batchSize) {
+                // Catching up, one segment per batch
+            }
+        } catch (IOException | DataAccessException e) {
+            // The transactions stay in the database and are archived on the next run
+            logger.warn("Failed to archive the old transactions: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Moves a batch of the oldest transactions created before the cutoff to a new segment.
+     *
+     * @param cutoff the date before which a transaction is archived
+     * @return the number of transactions archived
+     * @throws IOException if the segment cannot be written
+     */
+    synchronized int archiveBatch(Instant cutoff) throws IOException {
+        // The dates are stored in UTC, see hibernate.jdbc.time_zone
+        Calendar utc = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+        List<ArchiveSegment.Row> rows = jdbcTemplate.query(CANDIDATES_QUERY, statement -> {
+            statement.setTimestamp(1, Timestamp.from(cutoff), utc);
+            statement.setInt(2, batchSize);
+        }, (resultSet, rowNum) -> new ArchiveSegment.Row(resultSet.getInt(1), resultSet.getInt(2), resultSet.getInt(3),
+                resultSet.getString(4), resultSet.getLong(5), resultSet.getTimestamp(6, utc).toInstant()));
+        if (rows.isEmpty())
+            return 0;
+
+        SortedMap<Integer, List<ArchiveSegment.Row>> rowsByUserId = new TreeMap<>();
+        for (ArchiveSegment.Row row : rows) {
+            rowsByUserId.computeIfAbsent(row.senderId(), id -> new ArrayList<>()).add(row);
+            if (row.receiverId() != row.senderId())
+                rowsByUserId.computeIfAbsent(row.receiverId(), id -> new ArrayList<>()).add(row);
+        }
+
+        Path path = directory.resolve(String.format("segment-%010d.seg", nextSequence));
+        Path temporary = path.resolveSibling(path.getFileName() + TEMPORARY_SUFFIX);
+        try {
+            ArchiveSegment.write(temporary, rowsByUserId);
+            Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            // A full disk would otherwise keep the partial segment until the next startup
+            Files.deleteIfExists(temporary);
+            throw e;
+        }
+        nextSequence++;
+        ArchiveSegment segment = publish(path);
+
+        try {
+            delete(rows.stream().map(ArchiveSegment.Row::id).toList());
+        } catch (RuntimeException e) {
+            unpublish(segment);
+            Files.delete(path);
+            throw e;
+        }
+        archivedCounter.increment(rows.size());
+        logger.info("Archived {} transactions created before {} to {}", rows.size(), cutoff, path.getFileName());
+        return rows.size();
+    }
+
+    /**
+     * Merges the archived transactions of a user into one page of their history read from the database.
+     *
+     * @param transactions the page read from the database, newest first
+     * @param userId       the ID of the user
+     * @param afterId      the ID below which the transactions are read
+     * @param from         the start of the date range, inclusive
+     * @param to           the end of the date range, exclusive
+     * @param limit        the maximum number of transactions of the page
+     * @return the newest transactions of both tiers, at most {@code limit}
+     */
+    public List<TransactionDTO> mergePage(List<TransactionDTO> transactions, int userId, int afterId, Instant from, Instant to, int limit) {
+        if (transactions.size() < limit)
+            refreshIfChanged();
+        List<ArchiveSegment.Row> archived = rows(userId, afterId, from, to);
+        if (archived.isEmpty())
+            return transactions;
+
+        // Only the newest archived transactions can make it to the page
+        return mergeDescending(transactions, toTransactionDTOs(archived.subList(Math.max(0, archived.size() - limit), archived.size()).reversed()), limit);
+    }
+
+    /**
+     * Merges the archived transactions among the given ones into the transactions read from the database.
+     *
+     * @param transactions the transactions found in the database, newest first
+     * @param userId       the ID of the user who sent or received the transactions
+     * @param ids          the IDs of the transactions
+     * @return the transactions found in both tiers, newest first
+     */
+    public List<TransactionDTO> mergeIds(List<TransactionDTO> transactions, int userId, List<Integer> ids) {
+        if (transactions.size() < ids.size())
+            refreshIfChanged();
+        Set<Integer> wanted = new HashSet<>(ids);
+        List<ArchiveSegment.Row> archived = rows(userId).stream().filter(row -> wanted.contains(row.id())).toList();
+        if (archived.isEmpty())
+            return transactions;
+        return mergeDescending(transactions, toTransactionDTOs(archived.reversed()), ids.size());
+    }
+
+    /**
+     * Merges the archived transactions of a user into their whole history read from the database.
+     *
+     * @param transactions the history read from the database, oldest first
+     * @param userId       the ID of the user
+     * @return the transactions of both tiers, oldest first
+     */
+    public List<TransactionDTO> mergeAll(List<TransactionDTO> transactions, int userId) {
+        refreshIfChanged();
+        return mergeAscending(transactions, findByUserId(userId, 0, Integer.MAX_VALUE));
+    }
+
+    /**
+     * Reads the archived transactions of a user, sent or received, with an ID within the given range.
+     *
+     * @param userId the ID of the user
+     * @param fromId the lowest transaction ID, inclusive
+     * @param toId   the highest transaction ID, inclusive
+     * @return the transactions, oldest first
+     */
+    List<TransactionDTO> findByUserId(int userId, int fromId, int toId) {
+        List<ArchiveSegment.Row> rows = rows(userId, toId == Integer.MAX_VALUE ? Integer.MAX_VALUE : toId + 1,
+                TransactionRepository.HISTORY_START, TransactionRepository.HISTORY_END);
+        return toTransactionDTOs(rows.stream().filter(row -> row.id() >= fromId).toList());
+    }
+
+    /**
+     * Iterates over the archived transactions of a user, sent or received, with an ID within the given range. The
+     * blocks are inflated one at a time, as the iteration reaches them, so that a long history is never held in memory.
+     *
+     * @param userId the ID of the user
+     * @param fromId the lowest transaction ID, inclusive
+     * @param toId   the highest transaction ID, inclusive
+     * @return the transactions, oldest first
+     */
+    Iterator<TransactionDTO> iterateByUserId(int userId, int fromId, int toId) {
+        List<ArchiveSegment.Block> blocks = enabled ? blocksByUserId.get(userId) : null;
+        if (blocks == null)
+            return Collections.emptyIterator();
+        Deque<ArchiveSegment.Block> pending = blocks.stream()
+                .filter(block -> block.maxId() >= fromId && block.minId() <= toId)
+                .sorted(Comparator.comparingInt(ArchiveSegment.Block::minId))
+                .collect(Collectors.toCollection(ArrayDeque::new));
+
+        return new Iterator<>() {
+            private final Deque<TransactionDTO> inflated = new ArrayDeque<>();
+            private int lastId = fromId - 1;
+
+            @Override
+            public boolean hasNext() {
+                while (inflated.isEmpty() && !pending.isEmpty())
+                    inflateNext();
+                return !inflated.isEmpty();
+            }
+
+            @Override
+            public TransactionDTO next() {
+                if (!hasNext())
+                    throw new NoSuchElementException();
+                return inflated.removeFirst();
+            }
+
+            /**
+             * Inflates the next block, together with the blocks whose IDs overlap it, such as a batch rewritten after
+             * a failed removal of its segment.
+             */
+            private void inflateNext() {
+                List<ArchiveSegment.Row> rows = new ArrayList<>();
+                int maxId = Integer.MIN_VALUE;
+                while (!pending.isEmpty() && (rows.isEmpty() || pending.peekFirst().minId() <= maxId)) {
+                    ArchiveSegment.Block block = pending.removeFirst();
+                    maxId = Math.max(maxId, block.maxId());
+                    for (ArchiveSegment.Row row : block.rows()) {
+                        if (row.id() > lastId && row.id() <= toId)
+                            rows.add(row);
+                    }
+                    if (rows.isEmpty())
+                        maxId = Integer.MIN_VALUE;
+                }
+                rows.sort(Comparator.comparingInt(ArchiveSegment.Row::id));
+                List<ArchiveSegment.Row> distinct = new ArrayList<>(rows.size());
+                for (ArchiveSegment.Row row : rows) {
+                    if (distinct.isEmpty() || distinct.getLast().id() != row.id())
+                        distinct.add(row);
+                }
+                if (!distinct.isEmpty())
+                    lastId = distinct.getLast().id();
+                inflated.addAll(toTransactionDTOs(distinct));
+            }
+        };
+    }
+
+    /**
+     * Reads the archived transactions of a user, sent or received.
+     *
+     * @param userId the ID of the user
+     * @return the transactions, in ascending ID order
+     */
+    List<ArchiveSegment.Row> rows(int userId) {
+        return rows(userId, Integer.MAX_VALUE, TransactionRepository.HISTORY_START, TransactionRepository.HISTORY_END);
+    }
+
+    private List<ArchiveSegment.Row> rows(int userId, int beforeId, Instant from, Instant to) {
+        List<ArchiveSegment.Block> blocks = enabled ? blocksByUserId.get(userId) : null;
+        if (blocks == null)
+            return List.of();
+
+        List<ArchiveSegment.Row> rows = new ArrayList<>();
+        for (ArchiveSegment.Block block : blocks) {
+            if (block.minId() >= beforeId || block.maxCreatedAt().isBefore(from) || !block.minCreatedAt().isBefore(to))
+                continue;
+            for (ArchiveSegment.Row row : block.rows()) {
+                if (row.id() < beforeId && !row.createdAt().isBefore(from) && row.createdAt().isBefore(to))
+                    rows.add(row);
+            }
+        }
+        rows.sort(Comparator.comparingInt(ArchiveSegment.Row::id));
+        // A batch rewritten after a failed removal of its segment is in two segments
+        List<ArchiveSegment.Row> distinct = new ArrayList<>(rows.size());
+        for (ArchiveSegment.Row row : rows) {
+            if (distinct.isEmpty() || distinct.getLast().id() != row.id())
+                distinct.add(row);
+        }
+        return distinct;
+    }
+
+    static List<TransactionDTO> mergeDescending(List<TransactionDTO> transactions, List<TransactionDTO> archived, int limit) {
+        List<TransactionDTO> merged = new ArrayList<>(Math.min(limit, transactions.size() + archived.size()));
+        int i = 0, j = 0;
+        while (merged.size() < limit && (i < transactions.size() || j < archived.size())) {
+            if (j == archived.size() || (i < transactions.size() && transactions.get(i).getId() > archived.get(j).getId())) {
+                merged.add(transactions.get(i++));
+            } else {
+                if (i < transactions.size() && transactions.get(i).getId() == archived.get(j).getId())
+                    i++;
+                merged.add(archived.get(j++));
+            }
+        }
+        return merged;
+    }
+
+    static List<TransactionDTO> mergeAscending(List<TransactionDTO> transactions, List<TransactionDTO> archived) {
+        if (archived.isEmpty())
+            return transactions;
+        List<TransactionDTO> merged = new ArrayList<>(transactions.size() + archived.size());
+        int i = 0, j = 0;
+        while (i < transactions.size() || j < archived.size()) {
+            if (j == archived.size() || (i < transactions.size() && transactions.get(i).getId() < archived.get(j).getId())) {
+                merged.add(transactions.get(i++));
+            } else {
+                if (i < transactions.size() && transactions.get(i).getId() == archived.get(j).getId())
+                    i++;
+                merged.add(archived.get(j++));
+            }
+        }
+        return merged;
+    }
+
+    private List<TransactionDTO> toTransactionDTOs(List<ArchiveSegment.Row> rows) {
+        if (rows.isEmpty())
+            return List.of();
+        Set<Integer> userIds = new HashSet<>();
+        for (ArchiveSegment.Row row : rows) {
+            userIds.add(row.senderId());
+            userIds.add(row.receiverId());
+        }
+        Map<Integer, String> usernames = new HashMap<>();
+        for (Object[] user : userRepository.findUsernamesByIds(userIds))
+            usernames.put(((Number) user[0]).intValue(), (String) user[1]);
+
+        List<TransactionDTO> transactionDTOs = new ArrayList<>(rows.size());
+        for (ArchiveSegment.Row row : rows) {
+            transactionDTOs.add(new TransactionDTO(row.id(), usernames.get(row.senderId()), usernames.get(row.receiverId()),
+                    row.description(), Money.ofCents(row.amount()), row.createdAt()));
+        }
+        return transactionDTOs;
+    }
+
+    /**
+     * Loads the segments written by another instance if the directory changed since the last load. Called by the
+     * read-only instances once they read the database, which may lack the transactions just archived.
+     */
+    private void refreshIfChanged() {
+        if (!enabled || !readOnly)
+            return;
+        try {
+            if (!Files.getLastModifiedTime(directory).equals(directoryModifiedAt))
+                refresh();
+        } catch (IOException e) {
+            // The segments are loaded on the next run of the schedule
+            logger.warn("Failed to load the new archive segments: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Loads the segments added to the directory and forgets the removed ones.
+     */
+    private synchronized void refresh() throws IOException {
+        // Read before the listing, so that a segment added meanwhile is loaded by the next refresh
+        directoryModifiedAt = Files.getLastModifiedTime(directory);
+        Set<String> names = new HashSet<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "segment-*.seg")) {
+            for (Path file : files) {
+                Matcher matcher = SEGMENT_NAME.matcher(file.getFileName().toString());
+                if (!matcher.matches())
+                    continue;
+                names.add(matcher.group());
+                nextSequence = Math.max(nextSequence, Long.parseLong(matcher.group(1)) + 1);
+                if (!segments.containsKey(matcher.group()))
+                    publish(file);
+            }
+        }
+        for (ArchiveSegment segment : List.copyOf(segments.values())) {
+            if (!names.contains(segment.name()))
+                unpublish(segment);
+        }
+    }
+
+    private ArchiveSegment publish(Path path) throws IOException {
+        ArchiveSegment segment = ArchiveSegment.open(path);
+        segments.put(segment.name(), segment);
+        for (ArchiveSegment.Block block : segment.blocks()) {
+            blocksByUserId.merge(block.userId(), List.of(block), (blocks, added) -> {
+                List<ArchiveSegment.Block> updated = new ArrayList<>(blocks);
+                updated.addAll(added);
+                return List.copyOf(updated);
+            });
+        }
+        return segment;
+    }
+
+    private void unpublish(ArchiveSegment segment) {
+        segments.remove(segment.name());
+        for (ArchiveSegment.Block block : segment.blocks()) {
+            blocksByUserId.computeIfPresent(block.userId(), (userId, blocks) -> {
+                List<ArchiveSegment.Block> updated = blocks.stream().filter(b -> b.segment() != segment).toList();
+                return updated.isEmpty() ? null : updated;
+            });
+        }
+    }
+
+    /**
+     * Deletes the transactions of a segment from the database if the archiver stopped before.
+     */
+    private void completeDelete(ArchiveSegment segment) {
+        int firstId = segment.blocks().stream().mapToInt(ArchiveSegment.Block::minId).min().orElseThrow();
+        Integer count = jdbcTemplate.queryForObject(EXISTS_QUERY, Integer.class, firstId);
+        if (count == null || count == 0)
+            return;
+
+        Set<Integer> ids = new HashSet<>();
+        for (ArchiveSegment.Block block : segment.blocks())
+            block.rows().forEach(row -> ids.add(row.id()));
+        delete(List.copyOf(ids));
+        logger.info("Completed the archiving of {} to {}", ids.size(), segment.name());
+    }
+
+    private void delete(List<Integer> ids) {
+        transactionTemplate.executeWithoutResult(status ->
+                jdbcTemplate.batchUpdate(DELETE_QUERY, ids, DELETE_BATCH_SIZE, (statement, id) -> statement.setInt(1, id)));
+    }
+}
@@ -0,0 +1,239 @@
+package dev.nikkune.paymybuddy.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import dev.nikkune.paymybuddy.dto.TransactionDTO;
+import dev.nikkune.paymybuddy.model.Money;
+import dev.nikkune.paymybuddy.repository.TransactionRepository;
+import dev.nikkune.paymybuddy.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Calendar;
+import java.util.Iterator;
+import java.util.TimeZone;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * TransactionExporter streams the whole transaction history of a user, oldest first, as CSV or NDJSON.
+ * <p>
+ * The rows are read with a forward-only JDBC cursor fetching {@code fetch-size} rows at a time, and each row is
+ * written to the output as soon as it is read: no entity is created and only the current row is held, so the memory
+ * used does not depend on the size of the history. MySQL Connector/J only fetches rows on demand when the JDBC URL
+ * sets {@code useCursorFetch=true}; otherwise it reads the whole result set first. The transactions of the user moved
+ * to the {@link TransactionArchive} are read first and written in ID order among the rows of the cursor.
+ */
+@Component
+public class TransactionExporter {
+    static final String EXPORT_QUERY = TransactionRepository.HISTORY_COLUMNS + "(" +
+            TransactionRepository.HISTORY_BRANCH + "WHERE sender_id = ? AND id BETWEEN ? AND ? " +
+            "UNION ALL " +
+            TransactionRepository.HISTORY_BRANCH + "WHERE receiver_id = ? AND sender_id <> ? AND id BETWEEN ? AND ?" +
+            ")" + TransactionRepository.HISTORY_JOINS + " ORDER BY t.id";
+    static final String CSV_HEADER = "id,sender,receiver,description,amount,created_at";
+
+    /**
+     * The formats a transaction history can be exported to.
+     */
+    public enum Format {
+        CSV("text/csv", "csv"),
+        NDJSON("application/x-ndjson", "ndjson");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        /**
+         * Finds a format by its name, ignoring case.
+         *
+         * @param name the name of the format, such as {@code csv}
+         * @return the format
+         * @throws RuntimeException if no format has this name
+         */
+        public static Format of(String name) throws RuntimeException {
+            for (Format format : values()) {
+                if (format.name().equalsIgnoreCase(name))
+                    return format;
+            }
+            throw new RuntimeException("Unsupported export format : " + name);
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final UserRepository userRepository;
+    private final TransactionArchive transactionArchive;
+    private final ObjectWriter rowWriter;
+
+    /**
+     * Constructs a TransactionExporter.
+     *
+     * @param dataSource         the data source the history is read from
+     * @param userRepository     the repository for managing user data
+     * @param transactionArchive the archive holding the old transactions
+     * @param objectMapper       the object mapper writing the NDJSON rows
+     * @param fetchSize          the number of rows fetched from the database at a time, must be positive
+     */
+    public TransactionExporter(DataSource dataSource, UserRepository userRepository, TransactionArchive transactionArchive,
+                               ObjectMapper objectMapper,
+                               @Value("${paymybuddy.transactions.export.fetch-size:500}") int fetchSize) {
+        if (fetchSize <= 0)
+            throw new IllegalArgumentException("Export fetch size must be positive");
+
+        // A JdbcTemplate of its own, so that the fetch size does not apply to the other queries
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+        this.userRepository = userRepository;
+        this.transactionArchive = transactionArchive;
+        this.rowWriter = objectMapper.writerFor(TransactionDTO.class);
+    }
+
+    /**
+     * Checks that the history of a user can be exported, before the response starts to be written.
+     *
+     * @param userId the ID of the user whose transactions are exported
+     * @param fromId the lowest transaction ID exported, or {@code null} to start from the first transaction
+     * @param toId   the highest transaction ID exported, or {@code null} to go up to the last transaction
+     * @throws RuntimeException if the user does not exist or the range is empty
+     */
+    public void checkExport(int userId, Integer fromId, Integer toId) throws RuntimeException {
+        if (fromId != null && toId != null && fromId > toId)
+            throw new RuntimeException("fromId must not be greater than toId");
+        if (!userRepository.existsById(userId))
+            throw new RuntimeException("User with ID : " + userId + " not found");
+    }
+
+    /**
+     * Writes the transactions of a user, sent or received, with an ID within the given range.
+     *
+     * @param userId       the ID of the user whose transactions are exported
+     * @param fromId       the lowest transaction ID exported, or {@code null} to start from the first transaction
+     * @param toId         the highest transaction ID exported, or {@code null} to go up to the last transaction
+     * @param format       the format of the export
+     * @param outputStream the stream the export is written to, left open
+     * @return the number of transactions exported
+     * @throws IOException if the export could not be written, for instance because the client went away
+     */
+    public long export(int userId, Integer fromId, Integer toId, Format format, OutputStream outputStream) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        if (format == Format.CSV)
+            writer.write(CSV_HEADER + "\n");
+
+        int from = fromId == null ? 0 : fromId;
+        int to = toId == null ? Integer.MAX_VALUE : toId;
+        // The archived transactions are inflated block by block as the cursor moves past them
+        PeekingIterator archived = new PeekingIterator(transactionArchive.iterateByUserId(userId, from, to));
+        AtomicLong rows = new AtomicLong();
+        try {
+            // The dates are stored in UTC, see hibernate.jdbc.time_zone
+            Calendar utc = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+            jdbcTemplate.query(EXPORT_QUERY, resultSet -> {
+                TransactionDTO transactionDTO = new TransactionDTO(resultSet.getInt(1), resultSet.getString(2),
+                        resultSet.getString(3), resultSet.getString(4), Money.ofCents(resultSet.getLong(5)),
+                        resultSet.getTimestamp(6, utc).toInstant());
+                try {
+                    while (archived.hasNext() && archived.peek().getId() <= transactionDTO.getId()) {
+                        TransactionDTO archivedDTO = archived.next();
+                        // Until the archiving of a batch completes, its transactions are in both tiers
+                        if (archivedDTO.getId() == transactionDTO.getId())
+                            continue;
+                        writeRow(writer, format, archivedDTO);
+                        rows.incrementAndGet();
+                    }
+                    writeRow(writer, format, transactionDTO);
+                } catch (IOException e) {
+                    // Stops reading the cursor as well
+                    throw new UncheckedIOException(e);
+                }
+                rows.incrementAndGet();
+            }, userId, from, to, userId, userId, from, to);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        while (archived.hasNext()) {
+            writeRow(writer, format, archived.next());
+            rows.incrementAndGet();
+        }
+
+        writer.flush();
+        return rows.get();
+    }
+
+    private void writeRow(Writer writer, Format format, TransactionDTO transactionDTO) throws IOException {
+        if (format == Format.NDJSON) {
+            writer.write(rowWriter.writeValueAsString(transactionDTO));
+        } else {
+            writer.write(String.valueOf(transactionDTO.getId()));
+            writer.write(',');
+            writer.write(csvField(transactionDTO.getSenderUsername()));
+            writer.write(',');
+            writer.write(csvField(transactionDTO.getReceiverUsername()));
+            writer.write(',');
+            writer.write(csvField(transactionDTO.getDescription()));
+            writer.write(',');
+            writer.write(transactionDTO.getAmount().toString());
+            writer.write(',');
+            writer.write(transactionDTO.getCreatedAt().toString());
+        }
+        writer.write('\n');
+    }
+
+    /**
+     * Quotes a CSV field when it holds a separator, a quote or a line break, as described by RFC 4180.
+     */
+    static String csvField(String value) {
+        if (value == null)
+            return "";
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0)
+            return value;
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    /**
+     * An iterator whose next element can be looked at without moving past it.
+     */
+    private static final class PeekingIterator {
+        private final Iterator<TransactionDTO> iterator;
+        private TransactionDTO next;
+
+        private PeekingIterator(Iterator<TransactionDTO> iterator) {
+            this.iterator = iterator;
+        }
+
+        private boolean hasNext() {
+            return next != null || iterator.hasNext();
+        }
+
+        private TransactionDTO peek() {
+            if (next == null)
+                next = iterator.next();
+            return next;
+        }
+
+        private TransactionDTO next() {
+            TransactionDTO current = peek();
+            next = null;
+            return current;
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package dev.nikkune.paymybuddy.service;
+
+import dev.nikkune.paymybuddy.dto.TransactionDTO;
+
+import java.util.List;
+
+/**
+ * One page of the transaction history of a user.
+ *
+ * @param transactions the transactions of the page, newest first
+ * @param nextCursor   the cursor to pass as {@code after} to get the next page, or {@code null} on the last page
+ */
+public record TransactionPage(List<TransactionDTO> transactions, Integer nextCursor) {
+}
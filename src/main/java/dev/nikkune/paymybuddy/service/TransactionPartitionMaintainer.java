@@ -0,0 +1,144 @@
+package dev.nikkune.paymybuddy.service;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * TransactionPartitionMaintainer keeps the monthly partitions of the {@code transactions} table, once the table has
+ * been partitioned on {@code created_at} as described in the README (MySQL only).
+ * <p>
+ * Each month {@code yyyy-MM} has a partition {@code pyyyyMM}, followed by an empty {@code p_future} partition
+ * catching the later dates. Every {@code interval-ms}, the partitions of the next {@code months-ahead} months are
+ * split out of {@code p_future} while it is still empty, which only changes the metadata of the table. When
+ * {@code retention-months} is set, the partitions of the months older than that are dropped, which removes their
+ * transactions without a {@code DELETE}.
+ * <p>
+ * When the {@link TransactionArchive} is enabled, the transactions are meant to be moved to the archive rather than
+ * dropped: the retention must then be longer than the archive min age, which is checked at startup, and a partition
+ * is only dropped once the archive has emptied it, so that an archiver lagging behind loses nothing.
+ */
+@Component
+public class TransactionPartitionMaintainer {
+    private static final Logger logger = LogManager.getLogger(TransactionPartitionMaintainer.class);
+    static final String FUTURE_PARTITION = "p_future";
+    // The shortest month, so that the transactions of a dropped partition are at least retention-months * 28 days old
+    private static final int MIN_DAYS_PER_MONTH = 28;
+    static final String PARTITIONS_QUERY = "SELECT PARTITION_NAME FROM information_schema.PARTITIONS " +
+            "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'transactions' AND PARTITION_NAME IS NOT NULL " +
+            "ORDER BY PARTITION_ORDINAL_POSITION";
+    private static final DateTimeFormatter PARTITION_NAME = DateTimeFormatter.ofPattern("'p'yyyyMM");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private final int monthsAhead;
+    private final int retentionMonths;
+    private final boolean archived;
+
+    /**
+     * Constructs a TransactionPartitionMaintainer.
+     *
+     * @param jdbcTemplate       the JdbcTemplate used to read and change the partitions
+     * @param transactionArchive the archive the old transactions are moved to, if enabled
+     * @param enabled            whether the partitions are maintained
+     * @param monthsAhead        the number of months after the current one that must have a partition
+     * @param retentionMonths    the number of months before the current one whose partitions are kept, {@code 0} to keep them all
+     */
+    public TransactionPartitionMaintainer(JdbcTemplate jdbcTemplate, TransactionArchive transactionArchive,
+                                          @Value("${paymybuddy.transactions.partitions.enabled:false}") boolean enabled,
+                                          @Value("${paymybuddy.transactions.partitions.months-ahead:3}") int monthsAhead,
+                                          @Value("${paymybuddy.transactions.partitions.retention-months:0}") int retentionMonths) {
+        if (monthsAhead < 1)
+            throw new IllegalArgumentException("Partitions months ahead must be at least 1");
+        if (retentionMonths < 0)
+            throw new IllegalArgumentException("Partitions retention months must not be negative");
+        if (enabled && retentionMonths > 0 && transactionArchive.isEnabled()
+                && (long) retentionMonths * MIN_DAYS_PER_MONTH < transactionArchive.getMinAge().toDays())
+            throw new IllegalArgumentException("Partitions retention months must cover the archive min age of "
+                    + transactionArchive.getMinAge().toDays() + " days, otherwise transactions are dropped before they are archived");
+
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+        this.monthsAhead = monthsAhead;
+        this.retentionMonths = retentionMonths;
+        this.archived = transactionArchive.isEnabled();
+    }
+
+    /**
+     * Creates the partitions of the coming months and drops the expired ones, if enabled.
+     */
+    @Scheduled(fixedDelayString = "${paymybuddy.transactions.partitions.interval-ms:86400000}")
+    public void maintainPartitions() {
+        if (!enabled)
+            return;
+        try {
+            maintainPartitions(YearMonth.now(ZoneOffset.UTC));
+        } catch (DataAccessException e) {
+            // Another instance may have changed the partitions at the same time: they are read again on the next run
+            logger.warn("Failed to maintain the partitions of the transactions table: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Creates the partitions up to {@code monthsAhead} months after the given month and drops the partitions of the
+     * months more than {@code retentionMonths} months before it, once archived if the archive is enabled.
+     *
+     * @param currentMonth the current month, in UTC
+     */
+    void maintainPartitions(YearMonth currentMonth) {
+        List<String> partitions = jdbcTemplate.queryForList(PARTITIONS_QUERY, String.class);
+        if (!partitions.contains(FUTURE_PARTITION)) {
+            logger.warn("The transactions table has no {} partition, it is not partitioned by month", FUTURE_PARTITION);
+            return;
+        }
+
+        List<YearMonth> months = new ArrayList<>();
+        for (String partition : partitions) {
+            // Partitions named otherwise, such as one holding older transactions, are left alone
+            if (partition.matches("p\\d{6}"))
+                months.add(YearMonth.parse(partition, PARTITION_NAME));
+        }
+
+        YearMonth lastMonth = months.isEmpty() ? currentMonth.minusMonths(1) : months.getLast();
+        List<String> added = new ArrayList<>();
+        for (YearMonth month = lastMonth.plusMonths(1); !month.isAfter(currentMonth.plusMonths(monthsAhead)); month = month.plusMonths(1))
+            added.add("PARTITION " + month.format(PARTITION_NAME) + " VALUES LESS THAN ('" + month.plusMonths(1).atDay(1) + "')");
+        if (!added.isEmpty()) {
+            jdbcTemplate.execute("ALTER TABLE transactions REORGANIZE PARTITION " + FUTURE_PARTITION + " INTO (" +
+                    String.join(", ", added) + ", PARTITION " + FUTURE_PARTITION + " VALUES LESS THAN (MAXVALUE))");
+            logger.info("Added {} partitions to the transactions table, up to {}", added.size(), currentMonth.plusMonths(monthsAhead));
+        }
+
+        if (retentionMonths == 0)
+            return;
+        List<String> expired = new ArrayList<>();
+        for (YearMonth month : months) {
+            if (!month.isBefore(currentMonth.minusMonths(retentionMonths)))
+                continue;
+            String partition = month.format(PARTITION_NAME);
+            if (archived && isNotEmpty(partition)) {
+                logger.warn("The expired partition {} of the transactions table is kept until it is archived", partition);
+                continue;
+            }
+            expired.add(partition);
+        }
+        if (!expired.isEmpty()) {
+            jdbcTemplate.execute("ALTER TABLE transactions DROP PARTITION " + String.join(", ", expired));
+            logger.info("Dropped the expired partitions {} of the transactions table", expired);
+        }
+    }
+
+    private boolean isNotEmpty(String partition) {
+        return jdbcTemplate.queryForObject("SELECT EXISTS (SELECT 1 FROM transactions PARTITION (" + partition + "))", Integer.class) == 1;
+    }
+}
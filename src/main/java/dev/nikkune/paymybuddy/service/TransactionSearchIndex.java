@@ -0,0 +1,262 @@
+package dev.nikkune.paymybuddy.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import dev.nikkune.paymybuddy.model.Transaction;
+import dev.nikkune.paymybuddy.repository.TransactionRepository;
+import dev.nikkune.paymybuddy.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+/**
+ * TransactionSearchIndex finds the transactions of a user whose description contains words starting with the
+ * searched terms, without scanning the descriptions in the database.
+ * <p>
+ * Each user searched lately has an inverted index in memory: a sorted map from every word of their descriptions to
+ * the sorted IDs of the transactions holding it, in {@code int} arrays. A search term matches the words it prefixes,
+ * found as one range of the sorted map. The index of a user is built from the database and the
+ * {@link TransactionArchive} on their first search, and every committed transaction is added to the indexes of its
+ * sender and receiver with {@link #record}.
+ * <p>
+ * The indexes are bounded by their total number of postings, {@code max-postings} (W-TinyLFU eviction), and expire
+ * {@code ttl-ms} after they were built or last updated, however often they are searched, so that an index is rebuilt
+ * with the transactions it missed, such as the ones committed through another instance. Hits, misses and evictions
+ * are published as the {@code cache.*} metrics tagged {@code cache=paymybuddy.transactions.search}.
+ */
+@Component
+public class TransactionSearchIndex {
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+
+    private final TransactionRepository transactionRepository;
+    private final UserRepository userRepository;
+    private final TransactionArchive transactionArchive;
+    private final Cache<Integer, UserIndex> indexes;
+
+    /**
+     * Constructs a TransactionSearchIndex.
+     *
+     * @param transactionRepository the repository for managing transaction data
+     * @param userRepository        the repository for managing user data
+     * @param transactionArchive    the archive holding the old transactions
+     * @param meterRegistry         the registry used to publish the cache statistics
+     * @param maxPostings           the maximum number of postings kept in memory, over all the users
+     * @param ttlMillis             how long the index of a user is kept after it was built or last updated, in milliseconds
+     */
+    public TransactionSearchIndex(TransactionRepository transactionRepository, UserRepository userRepository,
+                                  TransactionArchive transactionArchive, MeterRegistry meterRegistry,
+                                  @Value("${paymybuddy.transactions.search.max-postings:1000000}") long maxPostings,
+                                  @Value("${paymybuddy.transactions.search.ttl-ms:600000}") long ttlMillis) {
+        this.transactionRepository = transactionRepository;
+        this.userRepository = userRepository;
+        this.transactionArchive = transactionArchive;
+        this.indexes = Caffeine.newBuilder()
+                .maximumWeight(maxPostings)
+                .weigher((Integer userId, UserIndex index) -> index.postings())
+                .expireAfterWrite(Duration.ofMillis(ttlMillis))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, indexes, "paymybuddy.transactions.search");
+    }
+
+    /**
+     * Searches the transactions of a user whose description has, for every term of the query, a word starting with it.
+     *
+     * @param userId the ID of the user
+     * @param query  the searched terms, matched without case and accents
+     * @param limit  the maximum number of transaction IDs returned
+     * @return the IDs of the matching transactions, newest first
+     * @throws RuntimeException if the user does not exist
+     */
+    public List<Integer> search(int userId, String query, int limit) throws RuntimeException {
+        List<String> terms = terms(query);
+        UserIndex index = indexes.get(userId, this::load);
+        return index.search(terms, limit);
+    }
+
+    /**
+     * Adds a committed transaction to the indexes of its sender and receiver, if they are in memory.
+     *
+     * @param transaction the transaction, once committed
+     */
+    public void record(Transaction transaction) {
+        List<String> words = terms(transaction.getDescription());
+        if (words.isEmpty())
+            return;
+
+        int senderId = transaction.getSender().getId();
+        int receiverId = transaction.getReceiver().getId();
+        // Waits for a load of the same user in progress, which may or may not have read the transaction; returning
+        // the index makes the cache weigh it again
+        indexes.asMap().computeIfPresent(senderId, (id, index) -> index.add(transaction.getId(), words));
+        if (receiverId != senderId)
+            indexes.asMap().computeIfPresent(receiverId, (id, index) -> index.add(transaction.getId(), words));
+    }
+
+    /**
+     * Splits a text into lower case words without accents.
+     *
+     * @param text the text, may be {@code null}
+     * @return the distinct words of the text, in order
+     */
+    static List<String> terms(String text) {
+        if (text == null)
+            return List.of();
+        String normalized = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("").toLowerCase(Locale.ROOT);
+        Set<String> words = new LinkedHashSet<>();
+        for (String word : SEPARATORS.split(normalized)) {
+            if (!word.isEmpty())
+                words.add(word);
+        }
+        return List.copyOf(words);
+    }
+
+    private UserIndex load(int userId) {
+        if (!userRepository.existsById(userId))
+            throw new RuntimeException("User with ID : " + userId + " not found");
+
+        UserIndex index = new UserIndex();
+        for (Object[] row : transactionRepository.findDescriptionRowsByUserId(userId))
+            index.add(((Number) row[0]).intValue(), terms((String) row[1]));
+        for (ArchiveSegment.Row row : transactionArchive.rows(userId))
+            index.add(row.id(), terms(row.description()));
+        return index;
+    }
+
+    /**
+     * The inverted index of the descriptions of one user. Searches and updates are serialized on the index.
+     */
+    static final class UserIndex {
+        private final TreeMap<String, PostingList> postingLists = new TreeMap<>();
+        private int postings;
+
+        synchronized UserIndex add(int transactionId, List<String> words) {
+            for (String word : words) {
+                if (postingLists.computeIfAbsent(word, w -> new PostingList()).add(transactionId))
+                    postings++;
+            }
+            return this;
+        }
+
+        synchronized List<Integer> search(List<String> terms, int limit) {
+            if (terms.isEmpty())
+                return List.of();
+
+            int[] matches = null;
+            for (String term : terms) {
+                int[] termMatches = prefixed(term);
+                matches = matches == null ? termMatches : intersect(matches, termMatches);
+                if (matches.length == 0)
+                    return List.of();
+            }
+
+            List<Integer> transactionIds = new ArrayList<>(Math.min(limit, matches.length));
+            for (int i = matches.length - 1; i >= 0 && transactionIds.size() < limit; i--)
+                transactionIds.add(matches[i]);
+            return transactionIds;
+        }
+
+        synchronized int postings() {
+            // Never 0, so that an empty index still counts
+            return Math.max(postings, 1);
+        }
+
+        /**
+         * Returns the sorted IDs of the transactions with a word starting with the term.
+         */
+        private int[] prefixed(String term) {
+            SortedMap<String, PostingList> words = postingLists.subMap(term, term + Character.MAX_VALUE);
+            if (words.size() == 1)
+                return words.values().iterator().next().toArray();
+
+            int[] union = new int[0];
+            for (Map.Entry<String, PostingList> word : words.entrySet())
+                union = merge(union, word.getValue().toArray());
+            return union;
+        }
+
+        private static int[] merge(int[] left, int[] right) {
+            int[] merged = new int[left.length + right.length];
+            int i = 0, j = 0, k = 0;
+            while (i < left.length && j < right.length) {
+                if (left[i] < right[j])
+                    merged[k++] = left[i++];
+                else if (left[i] > right[j])
+                    merged[k++] = right[j++];
+                else {
+                    merged[k++] = left[i++];
+                    j++;
+                }
+            }
+            while (i < left.length)
+                merged[k++] = left[i++];
+            while (j < right.length)
+                merged[k++] = right[j++];
+            return Arrays.copyOf(merged, k);
+        }
+
+        private static int[] intersect(int[] left, int[] right) {
+            int[] intersection = new int[Math.min(left.length, right.length)];
+            int i = 0, j = 0, k = 0;
+            while (i < left.length && j < right.length) {
+                if (left[i] < right[j])
+                    i++;
+                else if (left[i] > right[j])
+                    j++;
+                else {
+                    intersection[k++] = left[i++];
+                    j++;
+                }
+            }
+            return Arrays.copyOf(intersection, k);
+        }
+    }
+
+    /**
+     * The sorted IDs of the transactions holding a word.
+     */
+    static final class PostingList {
+        private int[] transactionIds = new int[2];
+        private int size;
+
+        /**
+         * Adds a transaction, usually at the end since the IDs grow; concurrent transactions may be recorded out of order.
+         *
+         * @return {@code false} if the transaction was already there
+         */
+        boolean add(int transactionId) {
+            int position = size > 0 && transactionIds[size - 1] < transactionId
+                    ? size
+                    : Arrays.binarySearch(transactionIds, 0, size, transactionId);
+            if (position >= 0 && position < size)
+                return false;
+            int insertion = position >= 0 ? position : -position - 1;
+
+            if (size == transactionIds.length)
+                transactionIds = Arrays.copyOf(transactionIds, size * 2);
+            System.arraycopy(transactionIds, insertion, transactionIds, insertion + 1, size - insertion);
+            transactionIds[insertion] = transactionId;
+            size++;
+            return true;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(transactionIds, size);
+        }
+    }
+}
@@ -1,14 +1,16 @@
 package dev.nikkune.paymybuddy.service;
 
 import dev.nikkune.paymybuddy.dto.TransactionCreationDTO;
+import dev.nikkune.paymybuddy.dto.TransactionDTO;
 import dev.nikkune.paymybuddy.model.Transaction;
 import dev.nikkune.paymybuddy.model.User;
 import dev.nikkune.paymybuddy.repository.TransactionRepository;
 import dev.nikkune.paymybuddy.repository.UserRepository;
-import jakarta.transaction.Transactional;
 import org.springframework.stereotype.Service;
 
+import java.time.Instant;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Service class that manages transaction-related operations and interactions between users
@@ -17,18 +19,45 @@ import java.util.List;
  */
 @Service
 public class TransactionService implements ITransactionService {
+    static final int DEFAULT_HISTORY_LIMIT = 20;
+    static final int MAX_HISTORY_LIMIT = 100;
+
     private final TransactionRepository transactionRepository;
     private final UserRepository userRepository;
+    private final ITransferStrategy transferStrategy;
+    private final BatchTransferProcessor batchTransferProcessor;
+    private final GroupCommitWriter groupCommitWriter;
+    private final RecentTransactionsCache recentTransactionsCache;
+    private final UserStatsAccumulator userStatsAccumulator;
+    private final TransactionSearchIndex transactionSearchIndex;
+    private final TransactionArchive transactionArchive;
 
     /**
      * Constructs a new TransactionService with the given repositories.
      *
      * @param transactionRepository the repository for managing transaction data
      * @param userRepository the repository for managing user data
+     * @param transferStrategy the strategy applying transfers between users
+     * @param batchTransferProcessor the processor applying batches of transfers
+     * @param groupCommitWriter the writer committing concurrent transfers together, when enabled
+     * @param recentTransactionsCache the cache serving the first page of the history of the users
+     * @param userStatsAccumulator the accumulator maintaining the statistics of the users
+     * @param transactionSearchIndex the index searching the descriptions of the transactions of the users
+     * @param transactionArchive the archive holding the old transactions
      */
-    public TransactionService(TransactionRepository transactionRepository, UserRepository userRepository){
+    public TransactionService(TransactionRepository transactionRepository, UserRepository userRepository, ITransferStrategy transferStrategy,
+                              BatchTransferProcessor batchTransferProcessor, GroupCommitWriter groupCommitWriter,
+                              RecentTransactionsCache recentTransactionsCache, UserStatsAccumulator userStatsAccumulator,
+                              TransactionSearchIndex transactionSearchIndex, TransactionArchive transactionArchive){
         this.transactionRepository = transactionRepository;
         this.userRepository = userRepository;
+        this.transferStrategy = transferStrategy;
+        this.batchTransferProcessor = batchTransferProcessor;
+        this.groupCommitWriter = groupCommitWriter;
+        this.recentTransactionsCache = recentTransactionsCache;
+        this.userStatsAccumulator = userStatsAccumulator;
+        this.transactionSearchIndex = transactionSearchIndex;
+        this.transactionArchive = transactionArchive;
     }
 
     /**
@@ -45,49 +74,151 @@ public class TransactionService implements ITransactionService {
 
     /**
      * Retrieves a list of transactions associated with a specific user.
-     * This includes transactions where the user is either the sender or the receiver.
+     * This includes transactions where the user is either the sender or the receiver, archived or not.
      *
      * @param userId the unique identifier of the user whose transactions are to be retrieved
-     * @return a list of transactions related to the user, both as sender and receiver
+     * @return a list of transactions related to the user, both as sender and receiver, read directly as DTOs
      * @throws RuntimeException if the user with the specified ID does not exist
      */
-    public List<Transaction> getTransactionsByUserId(int userId) throws RuntimeException {
+    public List<TransactionDTO> getTransactionsByUserId(int userId) throws RuntimeException {
+        requiredUser(userId);
+        return transactionArchive.mergeAll(transactionRepository.findDTOsByUserId(userId), userId);
+    }
+
+    /**
+     * Retrieves one page of the transactions associated with a specific user, newest first, optionally restricted
+     * to the transactions created within a date range.
+     * Pages are chained with the cursor returned with each page rather than with an offset, so that every page
+     * is read with an index seek and costs the same however deep it is. The first page without a date range is
+     * served by the {@link RecentTransactionsCache} when it holds enough transactions per user. The transactions
+     * moved to the {@link TransactionArchive} are merged into the page read from the database.
+     *
+     * @param userId the unique identifier of the user whose transactions are to be retrieved
+     * @param after  the cursor returned with the previous page, or {@code null} for the first page
+     * @param limit  the maximum number of transactions of the page, capped to {@value #MAX_HISTORY_LIMIT};
+     *               {@code null} for {@value #DEFAULT_HISTORY_LIMIT}
+     * @param from   the start of the date range, inclusive, or {@code null} to start from the first transaction
+     * @param to     the end of the date range, exclusive, or {@code null} to go up to the last transaction
+     * @return the page of transactions, with the cursor of the next page if there is one
+     * @throws RuntimeException if the user with the specified ID does not exist, the limit is not positive
+     *                          or the date range is empty
+     */
+    public TransactionPage getTransactionHistory(int userId, Integer after, Integer limit, Instant from, Instant to) throws RuntimeException {
+        if (limit != null && limit <= 0)
+            throw new RuntimeException("Limit must be positive");
+        if (from != null && to != null && !from.isBefore(to))
+            throw new RuntimeException("from must be before to");
+        int pageSize = limit == null ? DEFAULT_HISTORY_LIMIT : Math.min(limit, MAX_HISTORY_LIMIT);
+        if (after == null && from == null && to == null && recentTransactionsCache.covers(pageSize))
+            return recentTransactionsCache.firstPage(userId, pageSize);
+
         requiredUser(userId);
-        return transactionRepository.findBySenderIdOrReceiverId(userId, userId);
+        // One extra row tells whether there is a next page without a count query
+        int afterId = after == null ? Integer.MAX_VALUE : after;
+        Instant start = from == null ? TransactionRepository.HISTORY_START : from;
+        Instant end = to == null ? TransactionRepository.HISTORY_END : to;
+        List<TransactionDTO> transactions = transactionArchive.mergePage(
+                transactionRepository.findPageByUserId(userId, afterId, start, end, pageSize + 1),
+                userId, afterId, start, end, pageSize + 1);
+        if (transactions.size() <= pageSize)
+            return new TransactionPage(transactions, null);
+
+        List<TransactionDTO> page = transactions.subList(0, pageSize);
+        return new TransactionPage(page, page.get(pageSize - 1).getId());
+    }
+
+    /**
+     * Searches the transactions of a user by description. Every term of the query must start a word of the
+     * description, without case and accents: "pi" matches "Pizza night". The search is answered by the in-memory
+     * {@link TransactionSearchIndex} of the user, built on their first search, and only the matching transactions
+     * are read from the database, or from the {@link TransactionArchive} for the archived ones.
+     *
+     * @param userId the unique identifier of the user whose transactions are searched
+     * @param query  the searched terms
+     * @param limit  the maximum number of transactions returned, capped to {@value #MAX_HISTORY_LIMIT};
+     *               {@code null} for {@value #DEFAULT_HISTORY_LIMIT}
+     * @return the matching transactions, newest first
+     * @throws RuntimeException if the user with the specified ID does not exist, the query has no term
+     *                          or the limit is not positive
+     */
+    public List<TransactionDTO> searchTransactions(int userId, String query, Integer limit) throws RuntimeException {
+        if (limit != null && limit <= 0)
+            throw new RuntimeException("Limit must be positive");
+        if (TransactionSearchIndex.terms(query).isEmpty())
+            throw new RuntimeException("Search query must contain a word");
+        int pageSize = limit == null ? DEFAULT_HISTORY_LIMIT : Math.min(limit, MAX_HISTORY_LIMIT);
+
+        List<Integer> transactionIds = transactionSearchIndex.search(userId, query, pageSize);
+        List<TransactionDTO> transactions = transactionRepository.findDTOsByIds(transactionIds);
+        if (transactions.size() == transactionIds.size())
+            return transactions;
+        return transactionArchive.mergeIds(transactions, userId, transactionIds);
     }
 
     /**
      * Adds a new transaction to the system after validating that both the sender and receiver exist.
+     * The transfer is delegated to the configured {@link ITransferStrategy}, which owns the database
+     * transaction and the locking of both accounts. This method must therefore not run inside an outer
+     * transaction, otherwise the commit would happen after the account locks have been released.
+     * When group commit is enabled, the transfer is committed together with the concurrent ones by the
+     * {@link GroupCommitWriter}, and this method returns once its group is committed. The committed transaction
+     * is then added to the recent transactions of the sender and the receiver.
      *
      * @param transactionCreationDTO the transaction to be added, which includes sender, receiver, amount, and description
      * @return the saved transaction object
      * @throws RuntimeException if the sender or receiver does not exist
      */
-    @Transactional
     public Transaction addTransaction(TransactionCreationDTO transactionCreationDTO) throws RuntimeException {
-        User sender = userRepository.findById(transactionCreationDTO.getSenderId()).orElse(null);
-        if (sender == null)
-            throw new RuntimeException("Sender with ID : " + transactionCreationDTO.getSenderId() + " not found");
-
-        User receiver = userRepository.findById(transactionCreationDTO.getReceiverId()).orElse(null);
-        if (receiver == null)
-            throw new RuntimeException("Receiver with ID : " + transactionCreationDTO.getReceiverId() + " not found");
-
-        if (sender.getBalance() < transactionCreationDTO.getAmount())
-            throw new RuntimeException("Insufficient balance");
-
-        Transaction transaction = new Transaction();
-        transaction.setSender(sender);
-        transaction.setReceiver(receiver);
-        transaction.setAmount(transactionCreationDTO.getAmount());
-        transaction.setDescription(transactionCreationDTO.getDescription());
+        Transaction transaction = groupCommitWriter.isEnabled()
+                ? groupCommitWriter.transfer(transactionCreationDTO)
+                : transferStrategy.transfer(transactionCreationDTO);
+        recordCommitted(transaction);
+        return transaction;
+    }
 
-        sender.setBalance(sender.getBalance() - transactionCreationDTO.getAmount());
-        receiver.setBalance(receiver.getBalance() + transactionCreationDTO.getAmount());
+    /**
+     * Adds a new transaction like {@link #addTransaction(TransactionCreationDTO)}, and runs an action in the database
+     * transaction of the transfer, so that whatever the action writes is committed together with the transfer, or not
+     * at all. The transfer never goes through group commit: a failing action would roll back the whole group.
+     *
+     * @param transactionCreationDTO the transaction to be added, which includes sender, receiver, amount, and description
+     * @param inTransaction          the action given the saved transaction, before the commit
+     * @return the saved transaction object
+     * @throws RuntimeException if the sender or receiver does not exist, or if the action fails
+     */
+    public Transaction addTransaction(TransactionCreationDTO transactionCreationDTO, Consumer<Transaction> inTransaction) throws RuntimeException {
+        Transaction transaction = transferStrategy.transfer(transactionCreationDTO, inTransaction);
+        recordCommitted(transaction);
+        return transaction;
+    }
 
-        userRepository.save(sender);
-        userRepository.save(receiver);
+    /**
+     * Adds a batch of transactions. Each transaction is validated and applied on its own: a transaction
+     * that cannot be applied is reported in its outcome and does not prevent the others from being saved.
+     * When the configured strategy does not keep the balances on the users, the transactions are applied one
+     * at a time with that strategy instead of in chunks.
+     *
+     * @param transactionCreationDTOs the transactions to be added, in the order they must be applied
+     * @return one outcome per transaction, in the order of the batch
+     * @throws RuntimeException if the batch is empty or exceeds the maximum batch size
+     */
+    public List<TransferOutcome> addTransactions(List<TransactionCreationDTO> transactionCreationDTOs) throws RuntimeException {
+        List<TransferOutcome> outcomes = transferStrategy.storesBalanceOnUser()
+                ? batchTransferProcessor.process(transactionCreationDTOs)
+                : batchTransferProcessor.processEach(transactionCreationDTOs, transferStrategy);
+        for (TransferOutcome outcome : outcomes) {
+            if (outcome.isSuccess())
+                recordCommitted(outcome.getTransaction());
+        }
+        return outcomes;
+    }
 
-        return transactionRepository.save(transaction);
+    /**
+     * Adds a committed transaction to the views of the transactions kept besides the database.
+     */
+    private void recordCommitted(Transaction transaction) {
+        recentTransactionsCache.record(transaction);
+        userStatsAccumulator.record(transaction);
+        transactionSearchIndex.record(transaction);
     }
 }
@@ -0,0 +1,56 @@
+package dev.nikkune.paymybuddy.service;
+
+import dev.nikkune.paymybuddy.model.Transaction;
+
+/**
+ * Result of one item of a batch transfer: either the saved transaction or the reason it was rejected.
+ */
+public class TransferOutcome {
+    private final int index;
+    private final Transaction transaction;
+    private final String error;
+
+    private TransferOutcome(int index, Transaction transaction, String error) {
+        this.index = index;
+        this.transaction = transaction;
+        this.error = error;
+    }
+
+    /**
+     * Creates the outcome of an item that was applied.
+     *
+     * @param index       the position of the item in the batch
+     * @param transaction the saved transaction
+     * @return the successful outcome
+     */
+    public static TransferOutcome success(int index, Transaction transaction) {
+        return new TransferOutcome(index, transaction, null);
+    }
+
+    /**
+     * Creates the outcome of an item that was rejected.
+     *
+     * @param index the position of the item in the batch
+     * @param error the reason the item was rejected
+     * @return the failed outcome
+     */
+    public static TransferOutcome failure(int index, String error) {
+        return new TransferOutcome(index, null, error);
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public Transaction getTransaction() {
+        return transaction;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public boolean isSuccess() {
+        return error == null;
+    }
+}
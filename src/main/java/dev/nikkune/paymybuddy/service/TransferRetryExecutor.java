@@ -0,0 +1,143 @@
+package dev.nikkune.paymybuddy.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * TransferRetryExecutor re-runs a transfer that lost a race against a concurrent update.
+ * <p>
+ * An attempt is retried when it fails with a {@link ConcurrencyFailureException} (an optimistic lock
+ * failure on the user version, a lock timeout or a deadlock), up to {@code max-attempts} attempts in total.
+ * Between attempts the caller sleeps for a random time between zero and an exponentially growing bound
+ * ("full jitter"), capped at {@code max-backoff-ms}, so colliding transfers do not collide again in lockstep.
+ * Any other exception is propagated immediately. Each call publishes:
+ * <ul>
+ *     <li>{@code paymybuddy.transfer.retry.attempts}: number of attempts made</li>
+ *     <li>{@code paymybuddy.transfer.retry.conflicts}: number of attempts that failed on a conflict</li>
+ *     <li>{@code paymybuddy.transfer.retry.retries}: distribution of the number of retries per call</li>
+ *     <li>{@code paymybuddy.transfer.retry.latency}: time added by retries, from the first conflict to the end of the call</li>
+ *     <li>{@code paymybuddy.transfer.retry.exhausted}: number of calls that gave up after the last attempt</li>
+ * </ul>
+ * The conflict rate is {@code conflicts / attempts}.
+ */
+@Component
+public class TransferRetryExecutor {
+    private static final Logger logger = LogManager.getLogger(TransferRetryExecutor.class);
+
+    private final int maxAttempts;
+    private final long baseBackoffMillis;
+    private final long maxBackoffMillis;
+
+    private final Counter attemptCounter;
+    private final Counter conflictCounter;
+    private final Counter exhaustedCounter;
+    private final DistributionSummary retrySummary;
+    private final Timer retryLatencyTimer;
+
+    /**
+     * Constructs a TransferRetryExecutor.
+     *
+     * @param maxAttempts       the maximum number of attempts per call, including the first one, must be positive
+     * @param baseBackoffMillis the upper bound of the first backoff, in milliseconds
+     * @param maxBackoffMillis  the cap of the backoff bound, in milliseconds
+     * @param meterRegistry     the registry used to publish the retry metrics
+     */
+    public TransferRetryExecutor(@Value("${paymybuddy.transfer.retry.max-attempts:5}") int maxAttempts,
+                                 @Value("${paymybuddy.transfer.retry.base-backoff-ms:5}") long baseBackoffMillis,
+                                 @Value("${paymybuddy.transfer.retry.max-backoff-ms:100}") long maxBackoffMillis,
+                                 MeterRegistry meterRegistry) {
+        if (maxAttempts <= 0)
+            throw new IllegalArgumentException("Retry max attempts must be positive");
+        if (baseBackoffMillis < 0 || maxBackoffMillis < baseBackoffMillis)
+            throw new IllegalArgumentException("Retry backoff must be positive and not greater than the max backoff");
+
+        this.maxAttempts = maxAttempts;
+        this.baseBackoffMillis = baseBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+        this.attemptCounter = Counter.builder("paymybuddy.transfer.retry.attempts")
+                .description("Number of transfer attempts")
+                .register(meterRegistry);
+        this.conflictCounter = Counter.builder("paymybuddy.transfer.retry.conflicts")
+                .description("Number of transfer attempts that failed on a concurrent update")
+                .register(meterRegistry);
+        this.exhaustedCounter = Counter.builder("paymybuddy.transfer.retry.exhausted")
+                .description("Number of transfers that still conflicted after the last attempt")
+                .register(meterRegistry);
+        this.retrySummary = DistributionSummary.builder("paymybuddy.transfer.retry.retries")
+                .description("Number of retries per transfer")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.retryLatencyTimer = Timer.builder("paymybuddy.transfer.retry.latency")
+                .description("Time added to a transfer by its retries, backoff included")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs the given action, retrying it while it fails on a concurrent update.
+     *
+     * @param action the action to run, it must start its own database transaction
+     * @param <T>    the type of the action result
+     * @return the result of the first successful attempt
+     * @throws ConcurrencyFailureException if the last attempt still conflicted
+     */
+    public <T> T execute(Supplier<T> action) throws ConcurrencyFailureException {
+        long firstConflict = 0;
+        int attempt = 0;
+        try {
+            while (true) {
+                attempt++;
+                attemptCounter.increment();
+                try {
+                    return action.get();
+                } catch (ConcurrencyFailureException e) {
+                    conflictCounter.increment();
+                    if (firstConflict == 0)
+                        firstConflict = System.nanoTime();
+                    if (attempt >= maxAttempts) {
+                        exhaustedCounter.increment();
+                        logger.warn("Transfer still conflicting after {} attempts", attempt);
+                        throw e;
+                    }
+                    backoff(attempt, e);
+                }
+            }
+        } finally {
+            retrySummary.record(attempt - 1);
+            if (firstConflict != 0)
+                retryLatencyTimer.record(System.nanoTime() - firstConflict, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Returns the maximum number of attempts per call.
+     *
+     * @return the maximum number of attempts per call
+     */
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    private void backoff(int attempt, ConcurrencyFailureException cause) {
+        long bound = Math.min(maxBackoffMillis, baseBackoffMillis << Math.min(attempt - 1, 20));
+        if (bound <= 0)
+            return;
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(bound + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw cause;
+        }
+    }
+}
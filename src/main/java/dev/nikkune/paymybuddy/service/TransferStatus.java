@@ -0,0 +1,19 @@
+package dev.nikkune.paymybuddy.service;
+
+/**
+ * Lifecycle of a transfer submitted to the {@link AsyncTransferPipeline}.
+ */
+public enum TransferStatus {
+    /**
+     * The transfer is queued and has not been applied yet.
+     */
+    PENDING,
+    /**
+     * The transfer was applied and its transaction committed.
+     */
+    COMMITTED,
+    /**
+     * The transfer could not be applied, the ticket holds the reason.
+     */
+    REJECTED
+}
@@ -0,0 +1,73 @@
+package dev.nikkune.paymybuddy.service;
+
+/**
+ * Tracks a transfer submitted to the {@link AsyncTransferPipeline}, from the moment it is queued until
+ * it is committed or rejected by its writer.
+ */
+public class TransferTicket {
+    private final String id;
+    private final long submittedAt;
+    private volatile TransferStatus status = TransferStatus.PENDING;
+    private volatile Integer transactionId;
+    private volatile String error;
+    private volatile long completedAt;
+
+    /**
+     * Constructs a pending TransferTicket.
+     *
+     * @param id          the transfer ID returned to the client
+     * @param submittedAt the submission time, in milliseconds since the epoch
+     */
+    public TransferTicket(String id, long submittedAt) {
+        this.id = id;
+        this.submittedAt = submittedAt;
+    }
+
+    /**
+     * Marks the transfer as committed.
+     *
+     * @param transactionId the ID of the saved transaction
+     * @param completedAt   the completion time, in milliseconds since the epoch
+     */
+    public void commit(int transactionId, long completedAt) {
+        this.transactionId = transactionId;
+        this.completedAt = completedAt;
+        this.status = TransferStatus.COMMITTED;
+    }
+
+    /**
+     * Marks the transfer as rejected.
+     *
+     * @param error       the reason the transfer was rejected
+     * @param completedAt the completion time, in milliseconds since the epoch
+     */
+    public void reject(String error, long completedAt) {
+        this.error = error;
+        this.completedAt = completedAt;
+        this.status = TransferStatus.REJECTED;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public long getSubmittedAt() {
+        return submittedAt;
+    }
+
+    public TransferStatus getStatus() {
+        return status;
+    }
+
+    public Integer getTransactionId() {
+        return transactionId;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public long getCompletedAt() {
+        return completedAt;
+    }
+}
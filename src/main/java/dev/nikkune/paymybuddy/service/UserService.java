@@ -1,9 +1,16 @@
 package dev.nikkune.paymybuddy.service;
 
+import dev.nikkune.paymybuddy.dto.UserStatsDTO;
+import dev.nikkune.paymybuddy.model.Money;
 import dev.nikkune.paymybuddy.model.User;
+import dev.nikkune.paymybuddy.model.UserStats;
+import dev.nikkune.paymybuddy.repository.CounterpartyStatsRepository;
 import dev.nikkune.paymybuddy.repository.UserRepository;
-import dev.nikkune.paymybuddy.utils.PasswordUtil;
+import dev.nikkune.paymybuddy.repository.UserStatsRepository;
 import jakarta.transaction.Transactional;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -15,15 +22,45 @@ import java.util.List;
  */
 @Service
 public class UserService implements IUserService {
+    private static final Logger logger = LogManager.getLogger(UserService.class);
+
+    /**
+     * Number of counterparties returned with the statistics of a user.
+     */
+    public static final int TOP_COUNTERPARTIES = 5;
+
     private final UserRepository userRepository;
+    private final ITransferStrategy transferStrategy;
+    private final RecentTransactionsCache recentTransactionsCache;
+    private final UserStatsRepository userStatsRepository;
+    private final CounterpartyStatsRepository counterpartyStatsRepository;
+    private final UserVersions userVersions;
+    private final CredentialCache credentialCache;
+    private final PasswordHasher passwordHasher;
 
     /**
      * Constructs an instance of {@code UserService} with the specified {@code UserRepository}.
      *
-     * @param userRepository the {@code UserRepository} used for database operations related to users
+     * @param userRepository          the {@code UserRepository} used for database operations related to users
+     * @param transferStrategy        the strategy applying transfers, which knows where the current balances are kept
+     * @param recentTransactionsCache     the cache of recent transactions, which holds usernames
+     * @param userStatsRepository         the repository storing the statistics of the users
+     * @param counterpartyStatsRepository the repository storing the statistics of the users with each counterparty
+     * @param userVersions                the versions of the users, changed by their updates and connections
+     * @param credentialCache             the credentials verified recently, forgotten when they change
+     * @param passwordHasher              the bounded pool hashing and checking the passwords
      */
-    public UserService(UserRepository userRepository) {
+    public UserService(UserRepository userRepository, ITransferStrategy transferStrategy, RecentTransactionsCache recentTransactionsCache,
+                       UserStatsRepository userStatsRepository, CounterpartyStatsRepository counterpartyStatsRepository,
+                       UserVersions userVersions, CredentialCache credentialCache, PasswordHasher passwordHasher) {
         this.userRepository = userRepository;
+        this.transferStrategy = transferStrategy;
+        this.recentTransactionsCache = recentTransactionsCache;
+        this.userStatsRepository = userStatsRepository;
+        this.counterpartyStatsRepository = counterpartyStatsRepository;
+        this.userVersions = userVersions;
+        this.credentialCache = credentialCache;
+        this.passwordHasher = passwordHasher;
     }
 
     /**
@@ -58,6 +95,39 @@ public class UserService implements IUserService {
         }
     }
 
+    /**
+     * Retrieves the current balance of a user. Depending on the transfer strategy, it is either the balance
+     * stored on the user or the balance computed from the ledger.
+     *
+     * @param user the user whose balance is to be retrieved
+     * @return the current balance of the user
+     */
+    public Money getBalance(User user) {
+        return transferStrategy.balanceOf(user);
+    }
+
+    /**
+     * Retrieves the transfer statistics of a user: the totals sent and received, the number of transactions and the
+     * counterparties the user exchanged the most transactions with. The statistics are maintained incrementally by
+     * {@link UserStatsAccumulator}, so they may lag behind the latest transactions by one flush interval.
+     *
+     * @param userId the ID of the user whose statistics are to be retrieved
+     * @return the statistics of the user, all zero if the user has no transaction yet
+     * @throws RuntimeException if the user with the given ID does not exist
+     */
+    public UserStatsDTO getUserStats(int userId) throws RuntimeException {
+        requiredUser(userId);
+        UserStats userStats = userStatsRepository.findById(userId).orElseGet(UserStats::new);
+
+        UserStatsDTO userStatsDTO = new UserStatsDTO();
+        userStatsDTO.setUserId(userId);
+        userStatsDTO.setTotalSent(userStats.getTotalSent());
+        userStatsDTO.setTotalReceived(userStats.getTotalReceived());
+        userStatsDTO.setTransferCount(userStats.getTransferCount());
+        userStatsDTO.setTopCounterparties(counterpartyStatsRepository.findTopByUserId(userId, Limit.of(TOP_COUNTERPARTIES)));
+        return userStatsDTO;
+    }
+
     /**
      * Registers a new user in the system. This method ensures that the user's email and username are unique,
      * encodes the user's password before saving, and persists the user in the repository.
@@ -76,7 +146,7 @@ public class UserService implements IUserService {
         existingUser = userRepository.findByUsername(user.getUsername()).orElse(null);
         if (existingUser != null)
             throw new RuntimeException("User with username : " + user.getUsername() + " already exists");
-        String encodedPassword = PasswordUtil.encodePassword(user.getPassword());
+        String encodedPassword = passwordHasher.encode(user.getPassword());
         user.setPassword(encodedPassword);
         return userRepository.save(user);
     }
@@ -95,13 +165,21 @@ public class UserService implements IUserService {
     @Transactional
     public User updateUser(User user) throws RuntimeException {
         User existingUser = requiredUser(user.getId());
+        boolean emailChanged = user.getEmail() != null && !user.getEmail().equals(existingUser.getEmail());
+        if (emailChanged || user.getPassword() != null)
+            credentialCache.invalidate(existingUser.getEmail());
         // Replace non-null fields
-        if (user.getUsername() != null)
+        if (user.getUsername() != null && !user.getUsername().equals(existingUser.getUsername())) {
             existingUser.setUsername(user.getUsername());
-        if (user.getEmail() != null)
+            recentTransactionsCache.usernameChanged();
+            userVersions.usernameChanged(existingUser.getId());
+        }
+        if (emailChanged) {
             existingUser.setEmail(user.getEmail());
+            userVersions.connectionChanged(existingUser.getId());
+        }
         if (user.getPassword() != null) {
-            existingUser.setPassword(PasswordUtil.encodePassword(user.getPassword()));
+            existingUser.setPassword(passwordHasher.encode(user.getPassword()));
         }
 
         return userRepository.save(existingUser);
@@ -109,6 +187,8 @@ public class UserService implements IUserService {
 
     /**
      * Authenticates a user by validating their email and password.
+     * A password hash computed with another cost than the current one is replaced on the way,
+     * unless the password was changed meanwhile.
      *
      * @param email    the email of the user attempting to log in
      * @param password the password of the user attempting to log in
@@ -119,11 +199,22 @@ public class UserService implements IUserService {
         User existingUser = userRepository.findByEmail(email).orElse(null);
         if (existingUser == null)
             throw new RuntimeException("User with email : " + email + " not found");
-        if (!PasswordUtil.matches(password, existingUser.getPassword()))
+        if (!passwordHasher.matches(password, existingUser.getPassword()))
             throw new RuntimeException("Invalid password");
+        if (passwordHasher.needsRehash(existingUser.getPassword()))
+            rehash(existingUser, password);
         return true;
     }
 
+    private void rehash(User user, String password) {
+        try {
+            userRepository.replacePassword(user.getId(), user.getPassword(), passwordHasher.encode(password));
+        } catch (RuntimeException e) {
+            // The old hash still matches, the next login tries again
+            logger.warn("Could not rehash the password of user with ID : {}: {}", user.getId(), e.getMessage());
+        }
+    }
+
     /**
      * Retrieves the list of connections for a specific user.
      *
@@ -155,6 +246,8 @@ public class UserService implements IUserService {
         if (existingUser.getConnections().contains(connection))
             throw new RuntimeException("User is already connected to this user");
         existingUser.getConnections().add(connection);
+        // The connections of the other users hold the connection IDs of this one
+        userVersions.connectionChanged(userId);
         return existingUser.getConnections();
     }
 }
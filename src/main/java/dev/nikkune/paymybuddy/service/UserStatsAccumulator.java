@@ -0,0 +1,170 @@
+package dev.nikkune.paymybuddy.service;
+
+import dev.nikkune.paymybuddy.model.Transaction;
+import dev.nikkune.paymybuddy.repository.CounterpartyStatsRepository;
+import dev.nikkune.paymybuddy.repository.UserStatsRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * UserStatsAccumulator maintains the {@code user_stats} and {@code counterparty_stats} tables incrementally, so that
+ * the statistics of a user are read from one row instead of being computed from their transactions.
+ * <p>
+ * Each committed transaction is added to in-memory deltas of its sender and receiver with {@link #record}. The deltas
+ * are written every {@code flush-interval-ms} by {@link #flush}, in one database transaction, as one increment per
+ * user and per counterparty. Updating the statistics inside each transfer would make every transfer to the same
+ * account wait for the same statistics row, as the merchants credited by many transfers at once; the deltas coalesce
+ * those transfers into one update per interval instead.
+ * <p>
+ * The statistics therefore lag behind the transactions by up to one interval. The deltas are written when the
+ * application stops, but those of an instance that crashes are lost.
+ */
+@Component
+public class UserStatsAccumulator implements DisposableBean {
+    private static final Logger logger = LogManager.getLogger(UserStatsAccumulator.class);
+
+    private final UserStatsRepository userStatsRepository;
+    private final CounterpartyStatsRepository counterpartyStatsRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Map<Integer, Delta> pending = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs a UserStatsAccumulator.
+     *
+     * @param userStatsRepository         the repository storing the statistics of the users
+     * @param counterpartyStatsRepository the repository storing the statistics of the users with each counterparty
+     * @param transactionManager          the transaction manager used to write the deltas
+     * @param meterRegistry               the registry used to publish the number of users with pending deltas
+     */
+    public UserStatsAccumulator(UserStatsRepository userStatsRepository, CounterpartyStatsRepository counterpartyStatsRepository,
+                                PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
+        this.userStatsRepository = userStatsRepository;
+        this.counterpartyStatsRepository = counterpartyStatsRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        Gauge.builder("paymybuddy.users.stats.pending", pending, Map::size)
+                .description("Number of users whose statistics have not been written yet")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Adds a committed transaction to the statistics of its sender and receiver.
+     *
+     * @param transaction the transaction, once committed
+     */
+    public void record(Transaction transaction) {
+        int senderId = transaction.getSender().getId();
+        int receiverId = transaction.getReceiver().getId();
+        long amount = transaction.getAmount().getCents();
+
+        // The deltas are only changed inside compute, which excludes the flush of the same user. Both sides of a
+        // transfer to oneself go in the same compute, since a flush may take the delta in between
+        if (receiverId == senderId) {
+            pending.compute(senderId, (id, delta) -> (delta == null ? new Delta() : delta).sent(receiverId, amount).receivedFromSelf(amount));
+            return;
+        }
+        pending.compute(senderId, (id, delta) -> (delta == null ? new Delta() : delta).sent(receiverId, amount));
+        pending.compute(receiverId, (id, delta) -> (delta == null ? new Delta() : delta).received(senderId, amount));
+    }
+
+    /**
+     * Writes the pending deltas. Deltas that could not be written are kept for the next flush.
+     */
+    @Scheduled(fixedDelayString = "${paymybuddy.users.stats.flush-interval-ms:1000}")
+    public synchronized void flush() {
+        // Ordered by user, so that concurrent flushes of several instances lock the rows in the same order
+        Map<Integer, Delta> deltas = new TreeMap<>();
+        for (Integer userId : new ArrayList<>(pending.keySet())) {
+            Delta delta = pending.remove(userId);
+            if (delta != null)
+                deltas.put(userId, delta);
+        }
+        if (deltas.isEmpty())
+            return;
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> deltas.forEach(this::write));
+        } catch (RuntimeException e) {
+            // Another instance may have created the same rows: they are updated on the next flush
+            logger.warn("Failed to write the statistics of {} users, retrying on the next flush: {}", deltas.size(), e.getMessage());
+            deltas.forEach((userId, delta) -> pending.merge(userId, delta, Delta::merge));
+        }
+    }
+
+    /**
+     * Writes the pending deltas before the application stops.
+     */
+    @Override
+    public void destroy() {
+        flush();
+    }
+
+    private void write(int userId, Delta delta) {
+        if (userStatsRepository.addStats(userId, delta.sent, delta.received, delta.transferCount) == 0)
+            userStatsRepository.insertStats(userId, delta.sent, delta.received, delta.transferCount);
+
+        new TreeMap<>(delta.counterparties).forEach((counterpartyId, counterparty) -> {
+            if (counterpartyStatsRepository.addCounterparty(userId, counterpartyId, counterparty[0], counterparty[1]) == 0)
+                counterpartyStatsRepository.insertCounterparty(userId, counterpartyId, counterparty[0], counterparty[1]);
+        });
+    }
+
+    /**
+     * The statistics of a user not written yet.
+     */
+    private static final class Delta {
+        private long sent;
+        private long received;
+        private long transferCount;
+        // Number of transactions and amount, per counterparty
+        private final Map<Integer, long[]> counterparties = new HashMap<>();
+
+        Delta sent(int receiverId, long amount) {
+            sent += amount;
+            transferCount++;
+            counterparty(receiverId, 1, amount);
+            return this;
+        }
+
+        Delta received(int senderId, long amount) {
+            received += amount;
+            transferCount++;
+            counterparty(senderId, 1, amount);
+            return this;
+        }
+
+        /**
+         * Completes a transaction a user sent to themselves, already counted by {@link #sent}.
+         */
+        Delta receivedFromSelf(long amount) {
+            received += amount;
+            return this;
+        }
+
+        Delta merge(Delta other) {
+            sent += other.sent;
+            received += other.received;
+            transferCount += other.transferCount;
+            other.counterparties.forEach((counterpartyId, counterparty) -> counterparty(counterpartyId, counterparty[0], counterparty[1]));
+            return this;
+        }
+
+        private void counterparty(int counterpartyId, long transferCount, long amount) {
+            long[] counterparty = counterparties.computeIfAbsent(counterpartyId, id -> new long[2]);
+            counterparty[0] += transferCount;
+            counterparty[1] += amount;
+        }
+    }
+}
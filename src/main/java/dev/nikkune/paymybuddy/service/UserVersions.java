@@ -0,0 +1,92 @@
+package dev.nikkune.paymybuddy.service;
+
+import dev.nikkune.paymybuddy.repository.SharedVersionRepository;
+import dev.nikkune.paymybuddy.repository.UserRepository;
+import org.springframework.stereotype.Component;
+
+/**
+ * UserVersions gives the weak ETags of the transactions and the connections of each user, so that a client polling
+ * them is answered {@code 304 Not Modified} after reading one row instead of the whole list.
+ * <p>
+ * The ETags are derived from the database, so every instance gives the same ones:
+ * <ul>
+ *     <li>{@code users.version} is bumped in the database transaction of every transfer the user sends or receives,
+ *     by the update of their balance or, when the strategy leaves it unchanged, on purpose. The credits of a striped
+ *     account bump the version of their stripe instead, which is added to it;</li>
+ *     <li>the connections also hold the usernames, the emails and the connection IDs of other users, so changing
+ *     them bumps the versions of the users connected to them ({@link #connectionChanged});</li>
+ *     <li>the transactions also hold the usernames of the counterparties, archived ones included, so changing a
+ *     username bumps the {@code usernames} row of {@code shared_versions}, part of the ETag of all the transactions
+ *     ({@link #usernameChanged}).</li>
+ * </ul>
+ * The versions only grow, so an ETag is never given again for other contents.
+ */
+@Component
+public class UserVersions {
+    private static final String USERNAMES = "usernames";
+
+    private final UserRepository userRepository;
+    private final SharedVersionRepository sharedVersionRepository;
+
+    /**
+     * Constructs a UserVersions.
+     *
+     * @param userRepository          the repository holding the versions of the users
+     * @param sharedVersionRepository the repository holding the version of the usernames
+     */
+    public UserVersions(UserRepository userRepository, SharedVersionRepository sharedVersionRepository) {
+        this.userRepository = userRepository;
+        this.sharedVersionRepository = sharedVersionRepository;
+    }
+
+    /**
+     * Returns the weak ETag of the current transactions of a user. It must be read before the transactions, so that
+     * a change committed in between gives another ETag.
+     *
+     * @param userId the ID of the user
+     * @return the ETag, such as {@code W/"t-3-12"}, or {@code null} if the user does not exist
+     */
+    public String transactionsETag(int userId) {
+        Long version = userRepository.findVersionById(userId).orElse(null);
+        if (version == null)
+            return null;
+        long usernames = sharedVersionRepository.findVersionByName(USERNAMES).orElse(0L);
+        return "W/\"t-" + usernames + "-" + version + "\"";
+    }
+
+    /**
+     * Returns the weak ETag of the current connections of a user. It must be read before the connections.
+     *
+     * @param userId the ID of the user
+     * @return the ETag, such as {@code W/"c-12"}, or {@code null} if the user does not exist
+     */
+    public String connectionsETag(int userId) {
+        return userRepository.findVersionById(userId)
+                .map(version -> "W/\"c-" + version + "\"")
+                .orElse(null);
+    }
+
+    /**
+     * Changes the ETags of the connections of the users connected to a user, after the username, the email or the
+     * connections of that user changed. The version of the user itself is bumped by the update of its row. Must be
+     * called inside the database transaction making the change.
+     *
+     * @param userId the ID of the user
+     */
+    public void connectionChanged(int userId) {
+        userRepository.incrementVersionsOfConnectedUsers(userId);
+    }
+
+    /**
+     * Changes the ETags of the transactions of all the users, and of the connections of the users connected to the
+     * given one, after the username of that user changed. Must be called inside the database transaction making the
+     * change.
+     *
+     * @param userId the ID of the user
+     */
+    public void usernameChanged(int userId) {
+        connectionChanged(userId);
+        if (sharedVersionRepository.increment(USERNAMES) == 0)
+            sharedVersionRepository.insert(USERNAMES, 1);
+    }
+}
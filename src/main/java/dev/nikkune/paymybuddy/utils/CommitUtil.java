@@ -0,0 +1,25 @@
+package dev.nikkune.paymybuddy.utils;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+public class CommitUtil {
+    /**
+     * Runs an action once the current transaction is committed, or at once outside a transaction. The action is not
+     * run if the transaction is rolled back.
+     *
+     * @param action the action, such as a change of the data kept in memory besides the database
+     */
+    public static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,29 @@
+package dev.nikkune.paymybuddy.utils;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.ETag;
+
+public class ETagUtil {
+    /**
+     * Lets the clients keep a response as long as they revalidate it with its ETag before each use.
+     */
+    public static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+
+    /**
+     * Checks whether an {@code If-None-Match} header matches the current ETag of a resource, with the weak comparison.
+     *
+     * @param ifNoneMatch the value of the header, or {@code null} if absent
+     * @param eTag        the current ETag of the resource, or {@code null} if it has none
+     * @return {@code true} if the client already holds the current resource
+     */
+    public static boolean matches(String ifNoneMatch, String eTag) {
+        if (ifNoneMatch == null || eTag == null)
+            return false;
+        ETag current = ETag.create(eTag);
+        for (ETag candidate : ETag.parse(ifNoneMatch)) {
+            if (candidate.isWildcard() || candidate.compare(current, false))
+                return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,62 @@
+package dev.nikkune.paymybuddy.utils;
+
+import javax.crypto.KeyGenerator;
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+
+/**
+ * Computes the HMAC-SHA256 of messages with one key, from any thread.
+ */
+public class HmacSha256 {
+    public static final String ALGORITHM = "HmacSHA256";
+
+    // Mac instances are not thread-safe and costly to create
+    private final ThreadLocal<Mac> macs;
+
+    /**
+     * Constructs an HmacSha256.
+     *
+     * @param key the key of the HMAC
+     */
+    public HmacSha256(Key key) {
+        this.macs = ThreadLocal.withInitial(() -> {
+            try {
+                Mac mac = Mac.getInstance(ALGORITHM);
+                mac.init(key);
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("HMAC-SHA256 is not available", e);
+            }
+        });
+    }
+
+    /**
+     * Constructs an HmacSha256 with a random key, valid until the application stops.
+     *
+     * @return the HmacSha256
+     */
+    public static HmacSha256 withRandomKey() {
+        SecretKey key;
+        try {
+            key = KeyGenerator.getInstance(ALGORITHM).generateKey();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC-SHA256 is not available", e);
+        }
+        return new HmacSha256(key);
+    }
+
+    /**
+     * Computes the HMAC of a message given in parts, as if they were concatenated.
+     *
+     * @param parts the parts of the message
+     * @return the 32 bytes of the HMAC
+     */
+    public byte[] sign(byte[]... parts) {
+        Mac mac = macs.get();
+        for (byte[] part : parts)
+            mac.update(part);
+        return mac.doFinal();
+    }
+}
@@ -0,0 +1,44 @@
+package dev.nikkune.paymybuddy.utils;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import dev.nikkune.paymybuddy.model.Money;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+
+/**
+ * Reads a {@link Money} from a JSON number or string, such as {@code 12.34} or {@code "12.34"}.
+ * The decimal text is parsed exactly, an amount with more than two fraction digits or too large is rejected.
+ */
+public class MoneyDeserializer extends StdDeserializer<Money> {
+
+    public MoneyDeserializer() {
+        super(Money.class);
+    }
+
+    @Override
+    public Money deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+        BigDecimal amount;
+        if (parser.currentToken() == JsonToken.VALUE_STRING) {
+            try {
+                amount = new BigDecimal(parser.getText().trim());
+            } catch (NumberFormatException e) {
+                return (Money) context.handleWeirdStringValue(Money.class, parser.getText(), "not a decimal amount");
+            }
+        } else if (parser.currentToken().isNumeric()) {
+            amount = parser.getDecimalValue();
+        } else {
+            return (Money) context.handleUnexpectedToken(Money.class, parser);
+        }
+
+        try {
+            return Money.of(amount);
+        } catch (ArithmeticException e) {
+            return (Money) context.handleWeirdNumberValue(Money.class, amount, "amount must have at most " + Money.SCALE
+                    + " fraction digits and fit in a long of cents");
+        }
+    }
+}
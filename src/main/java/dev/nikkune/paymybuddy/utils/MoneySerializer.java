@@ -0,0 +1,23 @@
+package dev.nikkune.paymybuddy.utils;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import dev.nikkune.paymybuddy.model.Money;
+
+import java.io.IOException;
+
+/**
+ * Writes a {@link Money} as a decimal JSON number with two fraction digits, such as {@code 12.34}.
+ */
+public class MoneySerializer extends StdSerializer<Money> {
+
+    public MoneySerializer() {
+        super(Money.class);
+    }
+
+    @Override
+    public void serialize(Money money, JsonGenerator generator, SerializerProvider provider) throws IOException {
+        generator.writeNumber(money.toBigDecimal());
+    }
+}
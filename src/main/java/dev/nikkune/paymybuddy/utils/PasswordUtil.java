@@ -2,8 +2,12 @@ package dev.nikkune.paymybuddy.utils;
 
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
 public class PasswordUtil {
     private static final BCryptPasswordEncoder encoder = new BCryptPasswordEncoder();
+    private static final Pattern BCRYPT_PREFIX = Pattern.compile("\\A\\$2[aby]?\\$(\\d\\d)\\$");
 
     public static String encodePassword(String rawPassword) {
         return encoder.encode(rawPassword);
@@ -12,4 +16,17 @@ public class PasswordUtil {
     public static boolean matches(String rawPassword, String encodedPassword) {
         return encoder.matches(rawPassword, encodedPassword);
     }
+
+    /**
+     * Reads the cost, the base 2 logarithm of the number of rounds, a BCrypt hash was computed with.
+     *
+     * @param encodedPassword the BCrypt hash
+     * @return the cost, or {@code -1} if the hash is not a BCrypt hash
+     */
+    public static int cost(String encodedPassword) {
+        if (encodedPassword == null)
+            return -1;
+        Matcher matcher = BCRYPT_PREFIX.matcher(encodedPassword);
+        return matcher.find() ? Integer.parseInt(matcher.group(1)) : -1;
+    }
 }
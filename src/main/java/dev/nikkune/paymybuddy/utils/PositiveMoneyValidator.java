@@ -0,0 +1,19 @@
+package dev.nikkune.paymybuddy.utils;
+
+import dev.nikkune.paymybuddy.model.Money;
+import jakarta.validation.ConstraintValidator;
+import jakarta.validation.ConstraintValidatorContext;
+import jakarta.validation.constraints.Positive;
+
+/**
+ * Validates {@link Positive} on {@link Money} attributes. Registered with the validation provider through
+ * {@code META-INF/services/jakarta.validation.ConstraintValidator}.
+ */
+public class PositiveMoneyValidator implements ConstraintValidator<Positive, Money> {
+
+    @Override
+    public boolean isValid(Money money, ConstraintValidatorContext context) {
+        // null values are validated by @NotNull
+        return money == null || money.isPositive();
+    }
+}
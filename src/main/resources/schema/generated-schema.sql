@@ -1,26 +1,28 @@
-create table transactions (amount float(53) not null, id integer not null, receiver_id integer not null, sender_id integer not null, description varchar(255), primary key (id)) engine=InnoDB;
+create table balance_snapshots (account_id integer not null, balance bigint not null, taken_at datetime(6) not null, primary key (account_id)) engine=InnoDB;
+create table balance_stripes (account_id integer not null, stripe integer not null, balance bigint not null, version bigint not null, primary key (account_id, stripe)) engine=InnoDB;
+create table counterparty_stats (counterparty_id integer not null, user_id integer not null, total_amount bigint not null, transfer_count bigint not null, primary key (counterparty_id, user_id)) engine=InnoDB;
+create table idempotency_keys (transaction_id integer, amount bigint, created_at datetime(6) not null, transaction_created_at datetime(6), fingerprint varchar(64) not null, description varchar(255), idempotency_key varchar(255) not null, receiver_username varchar(255), sender_username varchar(255), primary key (idempotency_key)) engine=InnoDB;
+create table ledger_entries (account_id integer not null, snapshotted bit not null, transaction_id integer not null, amount bigint not null, id bigint not null, primary key (id)) engine=InnoDB;
+create table ledger_entries_seq (next_val bigint) engine=InnoDB;
+insert into ledger_entries_seq values ( 1 );
+create table shared_versions (version bigint not null, name varchar(255) not null, primary key (name)) engine=InnoDB;
+create table transactions (id integer not null, receiver_id integer not null, sender_id integer not null, amount bigint not null, created_at datetime(6) not null, description varchar(255), primary key (id)) engine=InnoDB;
 create table transactions_seq (next_val bigint) engine=InnoDB;
 insert into transactions_seq values ( 1 );
 create table user_connections (connection_id integer not null, user_id integer not null) engine=InnoDB;
-create table users (balance float(53) not null, id integer not null, email varchar(255), password varchar(255), username varchar(255), primary key (id)) engine=InnoDB;
+create table user_stats (user_id integer not null, total_received bigint not null, total_sent bigint not null, transfer_count bigint not null, primary key (user_id)) engine=InnoDB;
+create table users (id integer not null, balance bigint not null, version bigint not null, email varchar(255), password varchar(255), username varchar(255), primary key (id)) engine=InnoDB;
 create table users_seq (next_val bigint) engine=InnoDB;
 insert into users_seq values ( 1 );
+create index idx_counterparty_stats_user_id on counterparty_stats (user_id, transfer_count);
+create index idx_ledger_entries_account_id on ledger_entries (account_id, snapshotted);
+create index idx_transactions_sender_id on transactions (sender_id, id);
+create index idx_transactions_receiver_id on transactions (receiver_id, id);
 alter table users add constraint UK6dotkott2kjsp8vw4d0m25fb7 unique (email);
 alter table users add constraint UKr43af9ap4edm43mmtq01oddj6 unique (username);
+alter table ledger_entries add constraint FKlqaath76y15me2wt1xyuwdms2 foreign key (account_id) references users (id);
+alter table ledger_entries add constraint FKgwcsld4m3g325l66qro45i14x foreign key (transaction_id) references transactions (id);
 alter table transactions add constraint FK5nn8ird7idyxyxki68gox2wbx foreign key (receiver_id) references users (id);
 alter table transactions add constraint FK3ly4r8r6ubt0blftudix2httv foreign key (sender_id) references users (id);
 alter table user_connections add constraint FKohvj3bhf0c6gb645k4atn4rax foreign key (connection_id) references users (id);
 alter table user_connections add constraint FK56b5yg0vwv72mhph7e5u2hn6x foreign key (user_id) references users (id);
-create table transactions (amount float(53) not null, id integer not null, receiver_id integer not null, sender_id integer not null, description varchar(255), primary key (id)) engine=InnoDB;
-create table transactions_seq (next_val bigint) engine=InnoDB;
-insert into transactions_seq values ( 1 );
-create table user_connections (connection_id integer not null, user_id integer not null) engine=InnoDB;
-create table users (balance float(53) not null, id integer not null, email varchar(255), password varchar(255), username varchar(255), primary key (id)) engine=InnoDB;
-create table users_seq (next_val bigint) engine=InnoDB;
-insert into users_seq values ( 1 );
-alter table users add constraint UK6dotkott2kjsp8vw4d0m25fb7 unique (email);
-alter table users add constraint UKr43af9ap4edm43mmtq01oddj6 unique (username);
-alter table transactions add constraint FK5nn8ird7idyxyxki68gox2wbx foreign key (receiver_id) references users (id);
-alter table transactions add constraint FK3ly4r8r6ubt0blftudix2httv foreign key (sender_id) references users (id);
-alter table user_connections add constraint FKohvj3bhf0c6gb645k4atn4rax foreign key (connection_id) references users (id);
-alter table user_connections add constraint FK56b5yg0vwv72mhph7e5u2hn6x foreign key (user_id) references users (id);
\ No newline at end of file
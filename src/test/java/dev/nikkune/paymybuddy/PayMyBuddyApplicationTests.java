@@ -3,7 +3,8 @@ package dev.nikkune.paymybuddy;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+// Creates the schema: the scheduled tasks, starting with the purge of the idempotency keys, query their tables on startup
+@SpringBootTest(properties = "spring.jpa.properties.jakarta.persistence.schema-generation.database.action=drop-and-create")
 class PayMyBuddyApplicationTests {
 
     @Test
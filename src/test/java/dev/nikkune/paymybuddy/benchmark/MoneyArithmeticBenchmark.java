@@ -0,0 +1,129 @@
+package dev.nikkune.paymybuddy.benchmark;
+
+import dev.nikkune.paymybuddy.model.Money;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the cost of the balance arithmetic of a transfer (check the sender balance, debit it, credit the
+ * receiver) with {@code double}, {@code BigDecimal}, {@link Money} and the raw {@code long} cents that the
+ * conditional-update strategy hands to its SQL statements. Money keeps flowing between two accounts,
+ * which swap roles when the sender runs out. Run it with the {@link #main} method, adding {@code -prof gc} to the
+ * JMH arguments to compare the allocation rates.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoneyArithmeticBenchmark {
+
+    private static final int TRANSFERS = 100;
+
+    private double doubleSender;
+    private double doubleReceiver;
+    private double doubleAmount;
+
+    private BigDecimal decimalSender;
+    private BigDecimal decimalReceiver;
+    private BigDecimal decimalAmount;
+
+    private Money moneySender;
+    private Money moneyReceiver;
+    private Money moneyAmount;
+
+    private long centsSender;
+    private long centsReceiver;
+    private long centsAmount;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        doubleSender = 1_000.00;
+        doubleReceiver = 0.00;
+        doubleAmount = 0.10;
+
+        decimalSender = new BigDecimal("1000.00");
+        decimalReceiver = new BigDecimal("0.00");
+        decimalAmount = new BigDecimal("0.10");
+
+        moneySender = Money.of("1000.00");
+        moneyReceiver = Money.ZERO;
+        moneyAmount = Money.of("0.10");
+
+        centsSender = moneySender.getCents();
+        centsReceiver = moneyReceiver.getCents();
+        centsAmount = moneyAmount.getCents();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TRANSFERS)
+    public double doubleTransfers() {
+        for (int i = 0; i < TRANSFERS; i++) {
+            if (doubleSender < doubleAmount) {
+                double sender = doubleSender;
+                doubleSender = doubleReceiver;
+                doubleReceiver = sender;
+            }
+            doubleSender -= doubleAmount;
+            doubleReceiver += doubleAmount;
+        }
+        return doubleSender + doubleReceiver;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TRANSFERS)
+    public BigDecimal bigDecimalTransfers() {
+        for (int i = 0; i < TRANSFERS; i++) {
+            if (decimalSender.compareTo(decimalAmount) < 0) {
+                BigDecimal sender = decimalSender;
+                decimalSender = decimalReceiver;
+                decimalReceiver = sender;
+            }
+            decimalSender = decimalSender.subtract(decimalAmount);
+            decimalReceiver = decimalReceiver.add(decimalAmount);
+        }
+        return decimalSender.add(decimalReceiver);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TRANSFERS)
+    public Money moneyTransfers() {
+        for (int i = 0; i < TRANSFERS; i++) {
+            if (moneySender.isLessThan(moneyAmount)) {
+                Money sender = moneySender;
+                moneySender = moneyReceiver;
+                moneyReceiver = sender;
+            }
+            moneySender = moneySender.minus(moneyAmount);
+            moneyReceiver = moneyReceiver.plus(moneyAmount);
+        }
+        return moneySender.plus(moneyReceiver);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TRANSFERS)
+    public long centsTransfers() {
+        for (int i = 0; i < TRANSFERS; i++) {
+            if (centsSender < centsAmount) {
+                long sender = centsSender;
+                centsSender = centsReceiver;
+                centsReceiver = sender;
+            }
+            centsSender = Math.subtractExact(centsSender, centsAmount);
+            centsReceiver = Math.addExact(centsReceiver, centsAmount);
+        }
+        return centsSender + centsReceiver;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(MoneyArithmeticBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,117 @@
+package dev.nikkune.paymybuddy.benchmark;
+
+import dev.nikkune.paymybuddy.PayMyBuddyApplication;
+import dev.nikkune.paymybuddy.repository.TransactionRepository;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the queries reading one page of the transaction history of a user against an in-memory H2 database
+ * holding {@code transactions} rows between {@code accounts} users.
+ * <p>
+ * {@code or} is the single {@code sender_id = ? OR receiver_id = ?} predicate, and {@code union-all} the query of
+ * {@link TransactionRepository#HISTORY_PAGE_QUERY}, both over the whole date range. The plan of each query is printed before the measurements.
+ * Run it with the {@link #main} method.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class TransactionHistoryBenchmark {
+    private static final String OR_PAGE_QUERY = TransactionRepository.HISTORY_COLUMNS + "transactions" + TransactionRepository.HISTORY_JOINS +
+            " WHERE (t.sender_id = :userId OR t.receiver_id = :userId) AND t.id < :afterId" +
+            " AND t.created_at >= :from AND t.created_at < :to ORDER BY t.id DESC LIMIT :limit";
+    private static final int PAGE_SIZE = 20;
+
+    @Param({"or", "union-all"})
+    public String query;
+
+    @Param({"2000000"})
+    public int transactions;
+
+    @Param({"10000"})
+    public int accounts;
+
+    private ConfigurableApplicationContext context;
+    private JdbcTemplate jdbcTemplate;
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(PayMyBuddyApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:history-benchmark;DB_CLOSE_DELAY=-1",
+                        "--spring.jpa.properties.jakarta.persistence.schema-generation.database.action=drop-and-create",
+                        "--logging.level.root=WARN");
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+
+        List<Object[]> users = new ArrayList<>();
+        for (int id = 1; id <= accounts; id++)
+            users.add(new Object[]{id, "user" + id, "user" + id + "@example.com"});
+        jdbcTemplate.batchUpdate("INSERT INTO users (id, username, email, password, balance, version) VALUES (?, ?, ?, 'password', 0, 0)", users);
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        List<Object[]> rows = new ArrayList<>();
+        for (int id = 1; id <= transactions; id++) {
+            int sender = 1 + random.nextInt(accounts);
+            int receiver = 1 + (sender + random.nextInt(accounts - 1)) % accounts;
+            rows.add(new Object[]{id, sender, receiver});
+            if (rows.size() == 10_000 || id == transactions) {
+                jdbcTemplate.batchUpdate("INSERT INTO transactions (id, sender_id, receiver_id, description, amount, created_at) VALUES (?, ?, ?, 'Benchmark', 100, CURRENT_TIMESTAMP)", rows);
+                rows.clear();
+            }
+        }
+        jdbcTemplate.execute("ANALYZE");
+
+        System.out.println("Plan of the " + query + " query:");
+        System.out.println(namedParameterJdbcTemplate.queryForObject("EXPLAIN " + pageQuery(), pageParameters(1), String.class));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void page(Blackhole blackhole) {
+        int userId = 1 + ThreadLocalRandom.current().nextInt(accounts);
+        blackhole.consume(namedParameterJdbcTemplate.queryForList(pageQuery(), pageParameters(userId)));
+    }
+
+    private String pageQuery() {
+        return query.equals("or") ? OR_PAGE_QUERY : TransactionRepository.HISTORY_PAGE_QUERY;
+    }
+
+    private static MapSqlParameterSource pageParameters(int userId) {
+        return new MapSqlParameterSource()
+                .addValue("userId", userId)
+                .addValue("afterId", Integer.MAX_VALUE)
+                .addValue("from", Timestamp.from(TransactionRepository.HISTORY_START))
+                .addValue("to", Timestamp.from(TransactionRepository.HISTORY_END))
+                .addValue("limit", PAGE_SIZE);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(TransactionHistoryBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,104 @@
+package dev.nikkune.paymybuddy.benchmark;
+
+import dev.nikkune.paymybuddy.PayMyBuddyApplication;
+import dev.nikkune.paymybuddy.dto.TransactionCreationDTO;
+import dev.nikkune.paymybuddy.model.Money;
+import dev.nikkune.paymybuddy.model.Transaction;
+import dev.nikkune.paymybuddy.model.User;
+import dev.nikkune.paymybuddy.repository.UserRepository;
+import dev.nikkune.paymybuddy.service.ITransactionService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the throughput of the transfer strategies against an in-memory H2 database.
+ * <p>
+ * {@code striped-lock} is the entity path (two selects, two entity merges and an insert per transfer),
+ * {@code optimistic} is the same entity path without locks, retried on version conflicts, and
+ * {@code conditional-update} is the guarded {@code UPDATE} path and {@code ledger} only inserts ledger entries.
+ * Run it with the {@link #main} method.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class TransferStrategyBenchmark {
+
+    @Param({"striped-lock", "optimistic", "conditional-update", "ledger"})
+    public String strategy;
+
+    @Param({"1000"})
+    public int accounts;
+
+    // Percentage of the transfers crediting the first account, like a merchant receiving most of the payments
+    @Param({"0"})
+    public int hotReceiverPercent;
+
+    private ConfigurableApplicationContext context;
+    private ITransactionService transactionService;
+    private int[] accountIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(PayMyBuddyApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:transfer-benchmark;DB_CLOSE_DELAY=-1",
+                        "--spring.jpa.properties.jakarta.persistence.schema-generation.database.action=drop-and-create",
+                        "--paymybuddy.transfer.strategy=" + strategy,
+                        "--logging.level.root=WARN");
+        transactionService = context.getBean(ITransactionService.class);
+
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < accounts; i++) {
+            User user = new User();
+            user.setUsername("user" + i);
+            user.setEmail("user" + i + "@example.com");
+            user.setPassword("password");
+            user.setBalance(Money.of("1000000.00"));
+            users.add(user);
+        }
+        accountIds = context.getBean(UserRepository.class).saveAll(users).stream()
+                .mapToInt(User::getId)
+                .toArray();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Transaction transfer() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int sender = random.nextInt(accountIds.length);
+        int receiver = (sender + 1 + random.nextInt(accountIds.length - 1)) % accountIds.length;
+        if (sender != 0 && random.nextInt(100) < hotReceiverPercent)
+            receiver = 0;
+
+        TransactionCreationDTO transactionCreationDTO = new TransactionCreationDTO();
+        transactionCreationDTO.setSenderId(accountIds[sender]);
+        transactionCreationDTO.setReceiverId(accountIds[receiver]);
+        transactionCreationDTO.setAmount(Money.of("1.00"));
+        transactionCreationDTO.setDescription("Benchmark");
+        return transactionService.addTransaction(transactionCreationDTO);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(TransferStrategyBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,68 @@
+package dev.nikkune.paymybuddy.config;
+
+import dev.nikkune.paymybuddy.config.AccessTokenService.AccessToken;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.Base64;
+import java.util.OptionalInt;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AccessTokenServiceTest {
+    private static final String SECRET = Base64.getEncoder().encodeToString(new byte[32]);
+    private static final Instant NOW = Instant.parse("2025-01-01T12:00:00Z");
+
+    private final AccessTokenService accessTokenService = new AccessTokenService(SECRET, 60_000);
+
+    @Test
+    void verify_WithIssuedToken_ShouldReturnUserId() {
+        // Arrange
+        AccessToken accessToken = accessTokenService.issue(42, NOW);
+
+        // Act
+        OptionalInt userId = accessTokenService.verify(accessToken.value(), NOW.plusSeconds(59));
+
+        // Assert
+        assertEquals(OptionalInt.of(42), userId);
+        assertEquals(NOW.plusSeconds(60), accessToken.expiresAt());
+    }
+
+    @Test
+    void verify_WithExpiredToken_ShouldReturnEmpty() {
+        // Arrange
+        AccessToken accessToken = accessTokenService.issue(42, NOW);
+
+        // Act
+        OptionalInt userId = accessTokenService.verify(accessToken.value(), NOW.plusSeconds(60));
+
+        // Assert
+        assertTrue(userId.isEmpty());
+    }
+
+    @Test
+    void verify_WithTamperedOrForeignToken_ShouldReturnEmpty() {
+        // Arrange
+        String token = accessTokenService.issue(42, NOW).value();
+        String otherUser = accessTokenService.issue(7, NOW).value();
+        String tampered = otherUser.substring(0, otherUser.indexOf('.')) + token.substring(token.indexOf('.'));
+        byte[] otherSecret = new byte[32];
+        otherSecret[0] = 1;
+        String foreign = new AccessTokenService(Base64.getEncoder().encodeToString(otherSecret), 60_000).issue(42, NOW).value();
+
+        // Act & Assert
+        assertTrue(accessTokenService.verify(tampered, NOW).isEmpty());
+        assertTrue(accessTokenService.verify(foreign, NOW).isEmpty());
+        assertTrue(accessTokenService.verify("not-a-token", NOW).isEmpty());
+        assertTrue(accessTokenService.verify("@@.@@", NOW).isEmpty());
+    }
+
+    @Test
+    void constructor_WithShortSecret_ShouldThrowException() {
+        // Arrange
+        String shortSecret = Base64.getEncoder().encodeToString(new byte[16]);
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> new AccessTokenService(shortSecret, 60_000));
+    }
+}
@@ -0,0 +1,79 @@
+package dev.nikkune.paymybuddy.config;
+
+import dev.nikkune.paymybuddy.exception.TooManyAttemptsException;
+import dev.nikkune.paymybuddy.service.CredentialCache;
+import dev.nikkune.paymybuddy.service.LoginThrottle;
+import dev.nikkune.paymybuddy.service.UserService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.web.authentication.WebAuthenticationDetails;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CustomAuthenticationProviderTest {
+
+    @Mock
+    private UserService userService;
+
+    private CustomAuthenticationProvider authenticationProvider;
+
+    @BeforeEach
+    void setUp() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        // One attempt per email, then one a minute
+        LoginThrottle loginThrottle = new LoginThrottle(meterRegistry, 1, 1, 0, 1, 100);
+        authenticationProvider = new CustomAuthenticationProvider(userService,
+                new CredentialCache(meterRegistry, 100, 60_000), loginThrottle);
+    }
+
+    private static UsernamePasswordAuthenticationToken basic(String email, String password) {
+        UsernamePasswordAuthenticationToken token = new UsernamePasswordAuthenticationToken(email, password);
+        token.setDetails(new WebAuthenticationDetails("192.0.2.1", null));
+        return token;
+    }
+
+    @Test
+    void authenticate_WithBasicCredentialsBeyondThrottle_ShouldRejectWithoutCheckingPassword() {
+        // Arrange
+        when(userService.login("alice@example.com", "wrong")).thenThrow(new RuntimeException("Invalid password"));
+        assertThrows(BadCredentialsException.class, () -> authenticationProvider.authenticate(basic("alice@example.com", "wrong")));
+
+        // Act & Assert
+        TooManyAttemptsException exception = assertThrows(TooManyAttemptsException.class,
+                () -> authenticationProvider.authenticate(basic("alice@example.com", "wrong")));
+        assertEquals(60, exception.getRetryAfter());
+        verify(userService, times(1)).login(anyString(), anyString());
+    }
+
+    @Test
+    void authenticate_WithCachedBasicCredentials_ShouldNotTakeAttempt() {
+        // Arrange
+        when(userService.login("alice@example.com", "password123")).thenReturn(true);
+
+        // Act & Assert
+        for (int i = 0; i < 3; i++)
+            assertTrue(authenticationProvider.authenticate(basic("alice@example.com", "password123")).isAuthenticated());
+        verify(userService, times(1)).login(anyString(), anyString());
+    }
+
+    @Test
+    void authenticate_WithoutRequestDetails_ShouldLeaveThrottleToLoginEndpoint() {
+        // Arrange
+        when(userService.login("alice@example.com", "wrong")).thenThrow(new RuntimeException("Invalid password"));
+
+        // Act & Assert
+        for (int i = 0; i < 3; i++)
+            assertThrows(BadCredentialsException.class,
+                    () -> authenticationProvider.authenticate(new UsernamePasswordAuthenticationToken("alice@example.com", "wrong")));
+        verify(userService, times(3)).login(anyString(), anyString());
+    }
+}
@@ -1,8 +1,12 @@
 package dev.nikkune.paymybuddy.controller;
 
+import dev.nikkune.paymybuddy.config.AccessTokenService;
+import dev.nikkune.paymybuddy.config.AccessTokenService.AccessToken;
 import dev.nikkune.paymybuddy.dto.LoginDTO;
 import dev.nikkune.paymybuddy.dto.UserRegistrationDTO;
+import dev.nikkune.paymybuddy.model.Money;
 import dev.nikkune.paymybuddy.model.User;
+import dev.nikkune.paymybuddy.service.LoginThrottle;
 import dev.nikkune.paymybuddy.service.UserService;
 import dev.nikkune.paymybuddy.utils.Response;
 import jakarta.servlet.http.HttpServletRequest;
@@ -13,6 +17,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -22,6 +27,8 @@ import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.authentication.logout.SecurityContextLogoutHandler;
 
+import java.time.Instant;
+
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
@@ -36,6 +43,12 @@ class AuthControllerTest {
     @Mock
     private AuthenticationManager authenticationManager;
 
+    @Mock
+    private AccessTokenService accessTokenService;
+
+    @Mock
+    private LoginThrottle loginThrottle;
+
     @Mock
     private Authentication authentication;
 
@@ -63,7 +76,7 @@ class AuthControllerTest {
         testUser.setUsername("testuser");
         testUser.setEmail("test@example.com");
         testUser.setPassword("encodedPassword");
-        testUser.setBalance(200.0);
+        testUser.setBalance(Money.of("200.00"));
 
         // Create login DTO
         loginDTO = new LoginDTO();
@@ -83,12 +96,15 @@ class AuthControllerTest {
         when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class)))
                 .thenReturn(authentication);
         when(userService.getUserByEmail(loginDTO.getEmail())).thenReturn(testUser);
+        when(userService.getBalance(testUser)).thenReturn(testUser.getBalance());
+        AccessToken accessToken = new AccessToken("payload.signature", Instant.parse("2025-01-01T00:00:00Z"));
+        when(accessTokenService.issue(testUser.getId())).thenReturn(accessToken);
 
         // Mock SecurityContextHolder
         SecurityContextHolder.setContext(securityContext);
 
         // Act
-        ResponseEntity<?> responseEntity = authController.login(loginDTO);
+        ResponseEntity<?> responseEntity = authController.login(loginDTO, request);
 
         // Assert
         assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
@@ -100,6 +116,8 @@ class AuthControllerTest {
         assertEquals(testUser.getUsername(), responseBody.get("username"));
         assertEquals(testUser.getEmail(), responseBody.get("email"));
         assertEquals(testUser.getBalance(), responseBody.get("balance"));
+        assertEquals("payload.signature", responseBody.get("token"));
+        assertEquals(accessToken.expiresAt(), responseBody.get("tokenExpiresAt"));
 
         // Verify interactions
         verify(authenticationManager).authenticate(any(UsernamePasswordAuthenticationToken.class));
@@ -114,7 +132,7 @@ class AuthControllerTest {
                 .thenThrow(new RuntimeException("Authentication failed"));
 
         // Act
-        ResponseEntity<?> responseEntity = authController.login(loginDTO);
+        ResponseEntity<?> responseEntity = authController.login(loginDTO, request);
 
         // Assert
         assertEquals(HttpStatus.UNAUTHORIZED, responseEntity.getStatusCode());
@@ -127,6 +145,27 @@ class AuthControllerTest {
         // Verify interactions
         verify(authenticationManager).authenticate(any(UsernamePasswordAuthenticationToken.class));
         verify(userService, never()).getUserByEmail(anyString());
+        verifyNoInteractions(accessTokenService);
+    }
+
+    @Test
+    void login_WithTooManyAttempts_ShouldReturnTooManyRequestsResponse() {
+        // Arrange
+        when(request.getRemoteAddr()).thenReturn("192.0.2.1");
+        when(loginThrottle.acquire(loginDTO.getEmail(), "192.0.2.1")).thenReturn(30L);
+
+        // Act
+        ResponseEntity<?> responseEntity = authController.login(loginDTO, request);
+
+        // Assert
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, responseEntity.getStatusCode());
+        assertEquals("30", responseEntity.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        Response responseBody = (Response) responseEntity.getBody();
+        assertFalse((Boolean) responseBody.get("success"));
+        assertEquals("Too many login attempts", responseBody.get("message"));
+
+        // Verify interactions
+        verifyNoInteractions(authenticationManager, userService, accessTokenService);
     }
 
     @Test
@@ -2,10 +2,22 @@ package dev.nikkune.paymybuddy.controller;
 
 import dev.nikkune.paymybuddy.dto.TransactionCreationDTO;
 import dev.nikkune.paymybuddy.dto.TransactionDTO;
+import dev.nikkune.paymybuddy.dto.TransactionPageDTO;
+import dev.nikkune.paymybuddy.dto.TransferResultDTO;
+import dev.nikkune.paymybuddy.dto.TransferStatusDTO;
 import dev.nikkune.paymybuddy.mapper.TransactionMapper;
+import dev.nikkune.paymybuddy.model.Money;
 import dev.nikkune.paymybuddy.model.Transaction;
 import dev.nikkune.paymybuddy.model.User;
+import dev.nikkune.paymybuddy.service.AsyncTransferPipeline;
 import dev.nikkune.paymybuddy.service.ITransactionService;
+import dev.nikkune.paymybuddy.service.IdempotencyManager;
+import dev.nikkune.paymybuddy.service.IdempotentResponse;
+import dev.nikkune.paymybuddy.service.TransactionExporter;
+import dev.nikkune.paymybuddy.service.TransactionPage;
+import dev.nikkune.paymybuddy.service.TransferOutcome;
+import dev.nikkune.paymybuddy.service.TransferTicket;
+import dev.nikkune.paymybuddy.service.UserVersions;
 import dev.nikkune.paymybuddy.utils.Response;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -13,15 +25,20 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.ByteArrayOutputStream;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -33,6 +50,18 @@ class TransactionControllerTest {
     @Mock
     private TransactionMapper transactionMapper;
 
+    @Mock
+    private AsyncTransferPipeline asyncTransferPipeline;
+
+    @Mock
+    private IdempotencyManager idempotencyManager;
+
+    @Mock
+    private TransactionExporter transactionExporter;
+
+    @Mock
+    private UserVersions userVersions;
+
     @InjectMocks
     private TransactionController transactionController;
 
@@ -51,34 +80,34 @@ class TransactionControllerTest {
         sender.setId(1);
         sender.setUsername("sender");
         sender.setEmail("sender@example.com");
-        sender.setBalance(1000.0);
+        sender.setBalance(Money.of("1000.00"));
 
         receiver = new User();
         receiver.setId(2);
         receiver.setUsername("receiver");
         receiver.setEmail("receiver@example.com");
-        receiver.setBalance(500.0);
+        receiver.setBalance(Money.of("500.00"));
 
         // Create transaction
         transaction = new Transaction();
         transaction.setId(1);
         transaction.setSender(sender);
         transaction.setReceiver(receiver);
-        transaction.setAmount(100.0);
+        transaction.setAmount(Money.of("100.00"));
         transaction.setDescription("Test transaction");
 
         // Create transaction DTO
         transactionDTO = new TransactionDTO();
         transactionDTO.setSenderUsername(sender.getUsername());
         transactionDTO.setReceiverUsername(receiver.getUsername());
-        transactionDTO.setAmount(100.0);
+        transactionDTO.setAmount(Money.of("100.00"));
         transactionDTO.setDescription("Test transaction");
 
         // Create transaction creation DTO
         transactionCreationDTO = new TransactionCreationDTO();
         transactionCreationDTO.setSenderId(sender.getId());
         transactionCreationDTO.setReceiverId(receiver.getId());
-        transactionCreationDTO.setAmount(100.0);
+        transactionCreationDTO.setAmount(Money.of("100.00"));
         transactionCreationDTO.setDescription("Test transaction");
 
         // Create lists
@@ -92,21 +121,97 @@ class TransactionControllerTest {
     @Test
     void getTransactionsByUserId_ShouldReturnTransactions() {
         // Arrange
-        when(transactionService.getTransactionsByUserId(sender.getId())).thenReturn(transactions);
-        when(transactionMapper.transactionsToTransactionDTOs(transactions)).thenReturn(transactionDTOs);
+        when(userVersions.transactionsETag(sender.getId())).thenReturn("W/\"t-0-2\"");
+        when(transactionService.getTransactionsByUserId(sender.getId())).thenReturn(transactionDTOs);
 
         // Act
-        ResponseEntity<List<TransactionDTO>> responseEntity = transactionController.getTransactionsByUserId(sender.getId());
+        ResponseEntity<List<TransactionDTO>> responseEntity = transactionController.getTransactionsByUserId(sender.getId(), "W/\"t-0-1\"");
 
         // Assert
         assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+        assertEquals("W/\"t-0-2\"", responseEntity.getHeaders().getETag());
         assertEquals(transactionDTOs, responseEntity.getBody());
         assertEquals(1, responseEntity.getBody().size());
         assertEquals(transactionDTO, responseEntity.getBody().get(0));
 
         // Verify interactions
         verify(transactionService).getTransactionsByUserId(sender.getId());
-        verify(transactionMapper).transactionsToTransactionDTOs(transactions);
+        verifyNoInteractions(transactionMapper);
+    }
+
+    @Test
+    void getTransactionsByUserId_WithCurrentETag_ShouldReturnNotModified() {
+        // Arrange
+        when(userVersions.transactionsETag(sender.getId())).thenReturn("W/\"t-0-2\"");
+
+        // Act
+        ResponseEntity<List<TransactionDTO>> responseEntity = transactionController.getTransactionsByUserId(sender.getId(), "\"t-0-1\", W/\"t-0-2\"");
+
+        // Assert
+        assertEquals(HttpStatus.NOT_MODIFIED, responseEntity.getStatusCode());
+        assertEquals("W/\"t-0-2\"", responseEntity.getHeaders().getETag());
+        assertNull(responseEntity.getBody());
+        verifyNoInteractions(transactionService, transactionMapper);
+    }
+
+    @Test
+    void getTransactionHistory_ShouldReturnPage() {
+        // Arrange
+        TransactionPage transactionPage = new TransactionPage(transactionDTOs, 41);
+        TransactionPageDTO transactionPageDTO = new TransactionPageDTO();
+        transactionPageDTO.setTransactions(transactionDTOs);
+        transactionPageDTO.setNextCursor(41);
+        when(transactionService.getTransactionHistory(sender.getId(), 42, 10, null, null)).thenReturn(transactionPage);
+        when(transactionMapper.transactionPageToTransactionPageDTO(transactionPage)).thenReturn(transactionPageDTO);
+
+        // Act
+        ResponseEntity<TransactionPageDTO> responseEntity = transactionController.getTransactionHistory(sender.getId(), 42, 10, null, null);
+
+        // Assert
+        assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+        assertEquals(transactionPageDTO, responseEntity.getBody());
+        assertEquals(41, responseEntity.getBody().getNextCursor());
+    }
+
+    @Test
+    void searchTransactions_ShouldReturnMatchingTransactions() {
+        // Arrange
+        when(transactionService.searchTransactions(sender.getId(), "pizza", 5)).thenReturn(transactionDTOs);
+
+        // Act
+        ResponseEntity<List<TransactionDTO>> responseEntity = transactionController.searchTransactions(sender.getId(), "pizza", 5);
+
+        // Assert
+        assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+        assertEquals(transactionDTOs, responseEntity.getBody());
+        verifyNoInteractions(transactionMapper);
+    }
+
+    @Test
+    void exportTransactions_ShouldStreamExportAsAttachment() throws Exception {
+        // Arrange
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        // Act
+        ResponseEntity<StreamingResponseBody> responseEntity = transactionController.exportTransactions(sender.getId(), "ndjson", 10, null);
+        responseEntity.getBody().writeTo(outputStream);
+
+        // Assert
+        assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+        assertEquals(MediaType.parseMediaType("application/x-ndjson"), responseEntity.getHeaders().getContentType());
+        assertEquals("attachment; filename=\"transactions-1.ndjson\"", responseEntity.getHeaders().getFirst(HttpHeaders.CONTENT_DISPOSITION));
+        verify(transactionExporter).checkExport(sender.getId(), 10, null);
+        verify(transactionExporter).export(sender.getId(), 10, null, TransactionExporter.Format.NDJSON, outputStream);
+    }
+
+    @Test
+    void exportTransactions_WithNonExistingUser_ShouldThrowBeforeStreaming() {
+        // Arrange
+        doThrow(new RuntimeException("User with ID : 999 not found")).when(transactionExporter).checkExport(999, null, null);
+
+        // Act & Assert
+        assertThrows(RuntimeException.class, () -> transactionController.exportTransactions(999, "csv", null, null));
+        verifyNoMoreInteractions(transactionExporter);
     }
 
     @Test
@@ -116,7 +221,7 @@ class TransactionControllerTest {
         when(transactionMapper.transactionToTransactionDTO(transaction)).thenReturn(transactionDTO);
 
         // Act
-        ResponseEntity<Response> responseEntity = transactionController.addTransaction(transactionCreationDTO);
+        ResponseEntity<Response> responseEntity = transactionController.addTransaction(transactionCreationDTO, null);
 
         // Assert
         assertEquals(HttpStatus.CREATED, responseEntity.getStatusCode());
@@ -138,10 +243,90 @@ class TransactionControllerTest {
                 .thenThrow(new RuntimeException("Insufficient funds"));
 
         // Act & Assert
-        assertThrows(RuntimeException.class, () -> transactionController.addTransaction(transactionCreationDTO));
+        assertThrows(RuntimeException.class, () -> transactionController.addTransaction(transactionCreationDTO, null));
 
         // Verify interactions
         verify(transactionService).addTransaction(any(TransactionCreationDTO.class));
         verify(transactionMapper, never()).transactionToTransactionDTO(any(Transaction.class));
     }
+
+    @Test
+    void addTransactions_ShouldReturnResultOfEveryTransaction() {
+        // Arrange
+        List<TransactionCreationDTO> batch = List.of(transactionCreationDTO, transactionCreationDTO);
+        List<TransferOutcome> outcomes = List.of(
+                TransferOutcome.success(0, transaction),
+                TransferOutcome.failure(1, "Insufficient balance"));
+        List<TransferResultDTO> results = List.of(new TransferResultDTO(), new TransferResultDTO());
+        when(transactionService.addTransactions(batch)).thenReturn(outcomes);
+        when(transactionMapper.transferOutcomesToTransferResultDTOs(outcomes)).thenReturn(results);
+
+        // Act
+        ResponseEntity<Response> responseEntity = transactionController.addTransactions(batch);
+
+        // Assert
+        assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+        Response responseBody = responseEntity.getBody();
+        assertTrue((Boolean) responseBody.get("success"));
+        assertEquals("Batch processed", responseBody.get("message"));
+        assertEquals(1L, responseBody.get("succeeded"));
+        assertEquals(1L, responseBody.get("failed"));
+        assertEquals(results, responseBody.get("data"));
+    }
+
+    @Test
+    void addTransaction_WithAsyncPipelineEnabled_ShouldReturnAcceptedTransferId() {
+        // Arrange
+        TransferTicket ticket = new TransferTicket("transfer-1", 0L);
+        when(asyncTransferPipeline.isEnabled()).thenReturn(true);
+        when(asyncTransferPipeline.submit(transactionCreationDTO)).thenReturn(ticket);
+
+        // Act
+        ResponseEntity<Response> responseEntity = transactionController.addTransaction(transactionCreationDTO, null);
+
+        // Assert
+        assertEquals(HttpStatus.ACCEPTED, responseEntity.getStatusCode());
+        assertEquals("/transactions/status/transfer-1", responseEntity.getHeaders().getFirst(HttpHeaders.LOCATION));
+        Response responseBody = responseEntity.getBody();
+        assertTrue((Boolean) responseBody.get("success"));
+        assertEquals("Transaction accepted", responseBody.get("message"));
+        assertEquals("transfer-1", responseBody.get("transferId"));
+        verify(transactionService, never()).addTransaction(any(TransactionCreationDTO.class));
+    }
+
+    @Test
+    void getTransferStatus_ShouldReturnStatusOfTicket() {
+        // Arrange
+        TransferTicket ticket = new TransferTicket("transfer-1", 0L);
+        ticket.commit(1, 10L);
+        TransferStatusDTO transferStatusDTO = new TransferStatusDTO();
+        transferStatusDTO.setId("transfer-1");
+        transferStatusDTO.setStatus("COMMITTED");
+        when(asyncTransferPipeline.getTicket("transfer-1")).thenReturn(ticket);
+        when(transactionMapper.transferTicketToTransferStatusDTO(ticket)).thenReturn(transferStatusDTO);
+
+        // Act
+        ResponseEntity<TransferStatusDTO> responseEntity = transactionController.getTransferStatus("transfer-1");
+
+        // Assert
+        assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+        assertEquals(transferStatusDTO, responseEntity.getBody());
+    }
+
+    @Test
+    void addTransaction_WithIdempotencyKey_ShouldReturnResponseOfIdempotencyManager() {
+        // Arrange
+        when(idempotencyManager.execute(eq("key-1"), eq(transactionCreationDTO), any()))
+                .thenReturn(new IdempotentResponse(transactionDTO, true));
+
+        // Act
+        ResponseEntity<Response> responseEntity = transactionController.addTransaction(transactionCreationDTO, "key-1");
+
+        // Assert
+        assertEquals(HttpStatus.CREATED, responseEntity.getStatusCode());
+        assertEquals("true", responseEntity.getHeaders().getFirst("Idempotent-Replayed"));
+        assertEquals(transactionDTO, responseEntity.getBody().get("data"));
+        verify(transactionService, never()).addTransaction(any(TransactionCreationDTO.class));
+        verify(asyncTransferPipeline, never()).submit(any(TransactionCreationDTO.class));
+    }
 }
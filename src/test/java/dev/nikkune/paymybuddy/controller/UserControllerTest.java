@@ -2,10 +2,13 @@ package dev.nikkune.paymybuddy.controller;
 
 import dev.nikkune.paymybuddy.dto.EmailDTO;
 import dev.nikkune.paymybuddy.dto.UserDTO;
+import dev.nikkune.paymybuddy.dto.UserStatsDTO;
 import dev.nikkune.paymybuddy.dto.UserUpdateDTO;
 import dev.nikkune.paymybuddy.mapper.UserMapper;
+import dev.nikkune.paymybuddy.model.Money;
 import dev.nikkune.paymybuddy.model.User;
 import dev.nikkune.paymybuddy.service.IUserService;
+import dev.nikkune.paymybuddy.service.UserVersions;
 import dev.nikkune.paymybuddy.utils.Response;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -33,6 +36,9 @@ class UserControllerTest {
     @Mock
     private UserMapper userMapper;
 
+    @Mock
+    private UserVersions userVersions;
+
     @InjectMocks
     private UserController userController;
 
@@ -52,7 +58,7 @@ class UserControllerTest {
         testUser.setUsername("testuser");
         testUser.setEmail("test@example.com");
         testUser.setPassword("encodedPassword");
-        testUser.setBalance(500.0);
+        testUser.setBalance(Money.of("500.00"));
         testUser.setConnections(new ArrayList<>());
 
         // Create a connection user
@@ -61,7 +67,7 @@ class UserControllerTest {
         connectionUser.setUsername("connection");
         connectionUser.setEmail("connection@example.com");
         connectionUser.setPassword("encodedPassword");
-        connectionUser.setBalance(500.0);
+        connectionUser.setBalance(Money.of("500.00"));
         connectionUser.setConnections(new ArrayList<>());
 
         // Create user DTO
@@ -144,6 +150,25 @@ class UserControllerTest {
         verify(userMapper).userToUserDTO(updatedUser);
     }
 
+    @Test
+    void getUserStats_ShouldReturnStats() {
+        // Arrange
+        UserStatsDTO userStatsDTO = new UserStatsDTO();
+        userStatsDTO.setUserId(testUser.getId());
+        userStatsDTO.setTotalSent(Money.of("12.00"));
+        userStatsDTO.setTransferCount(2);
+        when(userService.getUserStats(testUser.getId())).thenReturn(userStatsDTO);
+
+        // Act
+        ResponseEntity<UserStatsDTO> responseEntity = userController.getUserStats(testUser.getId());
+
+        // Assert
+        assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+        assertEquals(userStatsDTO, responseEntity.getBody());
+        verify(userService).getUserStats(testUser.getId());
+        verifyNoInteractions(userMapper);
+    }
+
     @Test
     void getConnections_ShouldReturnConnections() {
         // Arrange
@@ -151,7 +176,7 @@ class UserControllerTest {
         when(userMapper.usersToUserDTOs(connections)).thenReturn(connectionDTOs);
 
         // Act
-        ResponseEntity<List<UserDTO>> responseEntity = userController.getConnections(testUser.getId());
+        ResponseEntity<List<UserDTO>> responseEntity = userController.getConnections(testUser.getId(), null);
 
         // Assert
         assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
@@ -166,6 +191,20 @@ class UserControllerTest {
         verify(userMapper).usersToUserDTOs(connections);
     }
 
+    @Test
+    void getConnections_WithCurrentETag_ShouldReturnNotModified() {
+        // Arrange
+        when(userVersions.connectionsETag(testUser.getId())).thenReturn("W/\"c-3\"");
+
+        // Act
+        ResponseEntity<List<UserDTO>> responseEntity = userController.getConnections(testUser.getId(), "W/\"c-3\"");
+
+        // Assert
+        assertEquals(HttpStatus.NOT_MODIFIED, responseEntity.getStatusCode());
+        assertEquals("W/\"c-3\"", responseEntity.getHeaders().getETag());
+        verifyNoInteractions(userService, userMapper);
+    }
+
     @Test
     void addConnection_ShouldReturnUpdatedConnections() {
         // Arrange
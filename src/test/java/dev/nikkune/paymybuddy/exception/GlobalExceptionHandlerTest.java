@@ -8,7 +8,9 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
 import org.springframework.validation.FieldError;
@@ -18,6 +20,7 @@ import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.Iterator;
+import java.util.concurrent.RejectedExecutionException;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -96,6 +99,53 @@ class GlobalExceptionHandlerTest {
         assertEquals("Some other error", responseEntity.getBody().get("error"));
     }
 
+    @Test
+    void handleConcurrencyFailureException_ShouldReturnConflictStatus() {
+        // Arrange
+        ObjectOptimisticLockingFailureException exception = new ObjectOptimisticLockingFailureException("User", 1);
+
+        // Act
+        ResponseEntity<Map<String, Object>> responseEntity = globalExceptionHandler.handleConcurrencyFailureException(exception);
+
+        // Assert
+        assertEquals(HttpStatus.CONFLICT, responseEntity.getStatusCode());
+        assertFalse((Boolean) responseEntity.getBody().get("success"));
+        assertEquals("Conflict", responseEntity.getBody().get("message"));
+        assertEquals("The account was updated concurrently, please retry", responseEntity.getBody().get("error"));
+    }
+
+    @Test
+    void handleRejectedExecutionException_ShouldReturnServiceUnavailableWithRetryAfter() {
+        // Arrange
+        RejectedExecutionException exception = new RejectedExecutionException("Transfer queue is full");
+
+        // Act
+        ResponseEntity<Map<String, Object>> responseEntity = globalExceptionHandler.handleRejectedExecutionException(exception);
+
+        // Assert
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, responseEntity.getStatusCode());
+        assertEquals("1", responseEntity.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        assertFalse((Boolean) responseEntity.getBody().get("success"));
+        assertEquals("Service unavailable", responseEntity.getBody().get("message"));
+        assertEquals("Transfer queue is full", responseEntity.getBody().get("error"));
+    }
+
+    @Test
+    void handleTooManyAttemptsException_ShouldReturnTooManyRequestsWithRetryAfter() {
+        // Arrange
+        TooManyAttemptsException exception = new TooManyAttemptsException(30);
+
+        // Act
+        ResponseEntity<Map<String, Object>> responseEntity = globalExceptionHandler.handleTooManyAttemptsException(exception);
+
+        // Assert
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, responseEntity.getStatusCode());
+        assertEquals("30", responseEntity.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        assertFalse((Boolean) responseEntity.getBody().get("success"));
+        assertEquals("Too many login attempts", responseEntity.getBody().get("message"));
+        assertEquals("Retry in 30 seconds", responseEntity.getBody().get("error"));
+    }
+
     @Test
     void handleValidationExceptions_MethodArgumentNotValid_ShouldReturnBadRequestWithErrors() {
         // Arrange
@@ -2,8 +2,13 @@ package dev.nikkune.paymybuddy.mapper;
 
 import dev.nikkune.paymybuddy.dto.TransactionCreationDTO;
 import dev.nikkune.paymybuddy.dto.TransactionDTO;
+import dev.nikkune.paymybuddy.dto.TransferResultDTO;
+import dev.nikkune.paymybuddy.dto.TransferStatusDTO;
+import dev.nikkune.paymybuddy.model.Money;
 import dev.nikkune.paymybuddy.model.Transaction;
 import dev.nikkune.paymybuddy.model.User;
+import dev.nikkune.paymybuddy.service.TransferOutcome;
+import dev.nikkune.paymybuddy.service.TransferTicket;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mapstruct.factory.Mappers;
@@ -48,7 +53,7 @@ class TransactionMapperTest {
         transaction.setSender(sender);
         transaction.setReceiver(receiver);
         transaction.setDescription("Test transaction");
-        transaction.setAmount(100.0);
+        transaction.setAmount(Money.of("100.00"));
     }
 
     @Test
@@ -76,7 +81,7 @@ class TransactionMapperTest {
         anotherTransaction.setSender(receiver); // Swap sender and receiver
         anotherTransaction.setReceiver(sender);
         anotherTransaction.setDescription("Another test transaction");
-        anotherTransaction.setAmount(50.0);
+        anotherTransaction.setAmount(Money.of("50.00"));
         
         List<Transaction> transactions = Arrays.asList(transaction, anotherTransaction);
 
@@ -100,13 +105,51 @@ class TransactionMapperTest {
         assertEquals(sender.getUsername(), transactionDTOs.get(1).getReceiverUsername());
     }
 
+    @Test
+    void transferOutcomesToTransferResultDTOs_ShouldMapSuccessAndFailure() {
+        // Arrange
+        List<TransferOutcome> outcomes = List.of(
+                TransferOutcome.success(0, transaction),
+                TransferOutcome.failure(1, "Insufficient balance"));
+
+        // Act
+        List<TransferResultDTO> results = transactionMapper.transferOutcomesToTransferResultDTOs(outcomes);
+
+        // Assert
+        assertEquals(2, results.size());
+        assertTrue(results.get(0).isSuccess());
+        assertEquals(0, results.get(0).getIndex());
+        assertEquals("sender", results.get(0).getTransaction().getSenderUsername());
+        assertNull(results.get(0).getError());
+        assertFalse(results.get(1).isSuccess());
+        assertEquals(1, results.get(1).getIndex());
+        assertNull(results.get(1).getTransaction());
+        assertEquals("Insufficient balance", results.get(1).getError());
+    }
+
+    @Test
+    void transferTicketToTransferStatusDTO_ShouldMapTicket() {
+        // Arrange
+        TransferTicket ticket = new TransferTicket("transfer-1", 0L);
+        ticket.reject("Insufficient balance", 10L);
+
+        // Act
+        TransferStatusDTO transferStatusDTO = transactionMapper.transferTicketToTransferStatusDTO(ticket);
+
+        // Assert
+        assertEquals("transfer-1", transferStatusDTO.getId());
+        assertEquals("REJECTED", transferStatusDTO.getStatus());
+        assertNull(transferStatusDTO.getTransactionId());
+        assertEquals("Insufficient balance", transferStatusDTO.getError());
+    }
+
     @Test
     void setSender_ShouldSetSenderOnTransaction() {
         // Arrange
         Transaction transactionWithoutSender = new Transaction();
         transactionWithoutSender.setId(3);
         transactionWithoutSender.setDescription("Transaction without sender");
-        transactionWithoutSender.setAmount(25.0);
+        transactionWithoutSender.setAmount(Money.of("25.00"));
 
         // Act
         transactionMapper.setSender(transactionWithoutSender, sender);
@@ -121,7 +164,7 @@ class TransactionMapperTest {
         Transaction transactionWithoutReceiver = new Transaction();
         transactionWithoutReceiver.setId(3);
         transactionWithoutReceiver.setDescription("Transaction without receiver");
-        transactionWithoutReceiver.setAmount(25.0);
+        transactionWithoutReceiver.setAmount(Money.of("25.00"));
 
         // Act
         transactionMapper.setReceiver(transactionWithoutReceiver, receiver);
@@ -0,0 +1,92 @@
+package dev.nikkune.paymybuddy.model;
+
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MoneyTest {
+
+    @Test
+    void of_ShouldConvertDecimalToCents() {
+        // Assert
+        assertEquals(1234, Money.of("12.34").getCents());
+        assertEquals(1200, Money.of(new BigDecimal("12")).getCents());
+        assertEquals(-5, Money.of("-0.05").getCents());
+    }
+
+    @Test
+    void of_WithMoreThanTwoFractionDigits_ShouldThrowException() {
+        // Act & Assert
+        assertThrows(ArithmeticException.class, () -> Money.of("0.001"));
+    }
+
+    @Test
+    void of_WithHugeExponent_ShouldThrowExceptionWithoutRescaling() {
+        // Arrange
+        ObjectMapper objectMapper = new ObjectMapper();
+
+        // Act & Assert
+        assertTimeoutPreemptively(Duration.ofSeconds(1), () -> {
+            assertThrows(ArithmeticException.class, () -> Money.of("1E+99999999"));
+            assertThrows(ArithmeticException.class, () -> Money.of("1E-99999999"));
+            assertThrows(JsonMappingException.class, () -> objectMapper.readValue("1e99999999", Money.class));
+        });
+        assertEquals(Long.MAX_VALUE, Money.of("92233720368547758.07").getCents());
+        assertThrows(ArithmeticException.class, () -> Money.of("100000000000000000"));
+        assertEquals(1234, Money.of("12.340").getCents());
+    }
+
+    @Test
+    void plusAndMinus_ShouldBeExact() {
+        // Arrange
+        Money balance = Money.ZERO;
+
+        // Act
+        for (int i = 0; i < 1000; i++)
+            balance = balance.plus(Money.of("0.10"));
+
+        // Assert
+        assertEquals(Money.of("100.00"), balance);
+        assertEquals(Money.of("99.90"), balance.minus(Money.of("0.10")));
+    }
+
+    @Test
+    void plus_WhenOverflowing_ShouldThrowException() {
+        // Act & Assert
+        assertThrows(ArithmeticException.class, () -> Money.ofCents(Long.MAX_VALUE).plus(Money.ofCents(1)));
+    }
+
+    @Test
+    void comparisons_ShouldCompareCents() {
+        // Assert
+        assertTrue(Money.of("9.99").isLessThan(Money.of("10.00")));
+        assertFalse(Money.of("10.00").isLessThan(Money.of("10.00")));
+        assertTrue(Money.ofCents(1).isPositive());
+        assertFalse(Money.ZERO.isPositive());
+        assertEquals(0, Money.of("10").compareTo(Money.of("10.00")));
+    }
+
+    @Test
+    void toString_ShouldPrintTwoFractionDigits() {
+        // Assert
+        assertEquals("12.30", Money.of("12.3").toString());
+        assertEquals(new BigDecimal("12.30"), Money.ofCents(1230).toBigDecimal());
+    }
+
+    @Test
+    void converter_ShouldStoreCents() {
+        // Arrange
+        MoneyConverter moneyConverter = new MoneyConverter();
+
+        // Assert
+        assertEquals(1234L, moneyConverter.convertToDatabaseColumn(Money.of("12.34")));
+        assertEquals(Money.of("12.34"), moneyConverter.convertToEntityAttribute(1234L));
+        assertNull(moneyConverter.convertToDatabaseColumn(null));
+        assertNull(moneyConverter.convertToEntityAttribute(null));
+    }
+}
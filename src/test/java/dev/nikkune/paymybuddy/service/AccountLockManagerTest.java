@@ -0,0 +1,133 @@
+package dev.nikkune.paymybuddy.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AccountLockManagerTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private AccountLockManager accountLockManager;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        accountLockManager = new AccountLockManager(8, meterRegistry);
+    }
+
+    @Test
+    void constructor_WithNonPositiveStripeCount_ShouldThrowException() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> new AccountLockManager(0, meterRegistry));
+    }
+
+    @Test
+    void stripeFor_ShouldMapAccountsOntoStripes() {
+        // Assert
+        assertEquals(1, accountLockManager.stripeFor(1));
+        assertEquals(1, accountLockManager.stripeFor(9));
+        assertEquals(7, accountLockManager.stripeFor(-1));
+        assertEquals(8, accountLockManager.getStripeCount());
+    }
+
+    @Test
+    void withAccountLocks_ShouldHoldLocksDuringActionOnly() {
+        // Act
+        boolean heldDuringAction = accountLockManager.withAccountLocks(1, 2,
+                () -> accountLockManager.isHeldByCurrentThread(1) && accountLockManager.isHeldByCurrentThread(2));
+
+        // Assert
+        assertTrue(heldDuringAction);
+        assertFalse(accountLockManager.isHeldByCurrentThread(1));
+        assertFalse(accountLockManager.isHeldByCurrentThread(2));
+    }
+
+    @Test
+    void withAccountLocks_WithSameStripe_ShouldLockStripeOnce() {
+        // Act
+        accountLockManager.withAccountLocks(1, 9, () -> null);
+
+        // Assert
+        assertEquals(1.0, meterRegistry.get("paymybuddy.transfer.lock.acquisitions").tag("stripe", "1").counter().count());
+        assertFalse(accountLockManager.isHeldByCurrentThread(1));
+    }
+
+    @Test
+    void withAccountLocks_WhenActionThrows_ShouldReleaseLocks() {
+        // Act & Assert
+        assertThrows(RuntimeException.class, () -> accountLockManager.withAccountLocks(1, 2, () -> {
+            throw new RuntimeException("Insufficient balance");
+        }));
+        assertFalse(accountLockManager.isHeldByCurrentThread(1));
+        assertFalse(accountLockManager.isHeldByCurrentThread(2));
+    }
+
+    @Test
+    void withAccountLocks_WithOppositeDirections_ShouldNotDeadlock() throws Exception {
+        // Arrange
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        int iterations = 10_000;
+        int[] balance = new int[1];
+
+        try {
+            // Act
+            Future<?> forward = executor.submit(() -> {
+                for (int i = 0; i < iterations; i++)
+                    accountLockManager.withAccountLocks(1, 2, () -> balance[0]++);
+            });
+            Future<?> backward = executor.submit(() -> {
+                for (int i = 0; i < iterations; i++)
+                    accountLockManager.withAccountLocks(2, 1, () -> balance[0]--);
+            });
+            forward.get(10, TimeUnit.SECONDS);
+            backward.get(10, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Assert
+        assertEquals(0, balance[0], "Every update should have been applied under the lock");
+    }
+
+    @Test
+    void withAccountLocks_WhenContended_ShouldRecordWaitTimeAndQueueLength() throws Exception {
+        // Arrange
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread holder = new Thread(() -> accountLockManager.withAccountLocks(List.of(3), () -> {
+            locked.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return null;
+        }));
+        holder.start();
+        locked.await();
+        Thread waiter = new Thread(() -> accountLockManager.withAccountLocks(List.of(3), () -> null));
+        waiter.start();
+
+        // Act
+        while (accountLockManager.getQueueLength(3) == 0)
+            Thread.onSpinWait();
+        double queueLength = meterRegistry.get("paymybuddy.transfer.lock.queue").tag("stripe", "3").gauge().value();
+        release.countDown();
+        holder.join();
+        waiter.join();
+
+        // Assert
+        assertEquals(1.0, queueLength);
+        assertEquals(1, meterRegistry.get("paymybuddy.transfer.lock.wait").tag("stripe", "3").timer().count());
+        assertEquals(2.0, meterRegistry.get("paymybuddy.transfer.lock.acquisitions").tag("stripe", "3").counter().count());
+    }
+}
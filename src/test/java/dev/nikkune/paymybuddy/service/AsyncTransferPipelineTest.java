@@ -0,0 +1,171 @@
+package dev.nikkune.paymybuddy.service;
+
+import dev.nikkune.paymybuddy.dto.TransactionCreationDTO;
+import dev.nikkune.paymybuddy.model.Money;
+import dev.nikkune.paymybuddy.model.Transaction;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static dev.nikkune.paymybuddy.service.TransferTestData.creationDTO;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AsyncTransferPipelineTest {
+
+    @Mock
+    private ITransactionService transactionService;
+
+    private AsyncTransferPipeline pipeline;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (pipeline != null)
+            pipeline.destroy();
+    }
+
+    private AsyncTransferPipeline pipeline(int shards, int capacity, long ticketTtlMillis) {
+        pipeline = new AsyncTransferPipeline(transactionService, new SimpleMeterRegistry(), true, shards, capacity, ticketTtlMillis);
+        return pipeline;
+    }
+
+    private Transaction transaction(int id) {
+        Transaction transaction = new Transaction();
+        transaction.setId(id);
+        return transaction;
+    }
+
+    private void awaitCompletion(TransferTicket ticket) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (ticket.getStatus() == TransferStatus.PENDING && System.nanoTime() < deadline)
+            Thread.sleep(5);
+    }
+
+    @Test
+    void constructor_WhenDisabled_ShouldRejectSubmissions() {
+        // Arrange
+        pipeline = new AsyncTransferPipeline(transactionService, new SimpleMeterRegistry(), false, 4, 16, 1000);
+
+        // Act & Assert
+        assertFalse(pipeline.isEnabled());
+        assertThrows(RejectedExecutionException.class, () -> pipeline.submit(creationDTO(1, 2, "10.00")));
+    }
+
+    @Test
+    void submit_ShouldApplyTransferAndCommitTicket() throws InterruptedException {
+        // Arrange
+        TransactionCreationDTO transactionCreationDTO = creationDTO(1, 2, "10.00");
+        when(transactionService.addTransaction(transactionCreationDTO)).thenReturn(transaction(42));
+
+        // Act
+        TransferTicket ticket = pipeline(2, 16, 60_000).submit(transactionCreationDTO);
+        awaitCompletion(ticket);
+
+        // Assert
+        assertEquals(TransferStatus.COMMITTED, ticket.getStatus());
+        assertEquals(42, ticket.getTransactionId());
+        assertSame(ticket, pipeline.getTicket(ticket.getId()));
+    }
+
+    @Test
+    void submit_WithFailingTransfer_ShouldRejectTicket() throws InterruptedException {
+        // Arrange
+        TransactionCreationDTO transactionCreationDTO = creationDTO(1, 2, "1000.00");
+        when(transactionService.addTransaction(transactionCreationDTO)).thenThrow(new RuntimeException("Insufficient balance"));
+
+        // Act
+        TransferTicket ticket = pipeline(2, 16, 60_000).submit(transactionCreationDTO);
+        awaitCompletion(ticket);
+
+        // Assert
+        assertEquals(TransferStatus.REJECTED, ticket.getStatus());
+        assertEquals("Insufficient balance", ticket.getError());
+    }
+
+    @Test
+    void submit_ShouldApplyTransfersOfSameSenderInOrderOnOneThread() throws InterruptedException {
+        // Arrange
+        List<Money> applied = Collections.synchronizedList(new ArrayList<>());
+        List<String> threads = Collections.synchronizedList(new ArrayList<>());
+        when(transactionService.addTransaction(any(TransactionCreationDTO.class))).thenAnswer(invocation -> {
+            applied.add(invocation.<TransactionCreationDTO>getArgument(0).getAmount());
+            threads.add(Thread.currentThread().getName());
+            return transaction(1);
+        });
+        AsyncTransferPipeline asyncTransferPipeline = pipeline(4, 64, 60_000);
+
+        // Act
+        TransferTicket last = null;
+        for (int i = 1; i <= 20; i++)
+            last = asyncTransferPipeline.submit(creationDTO(7, 2, String.valueOf(i)));
+        awaitCompletion(last);
+
+        // Assert
+        List<Money> expected = new ArrayList<>();
+        for (int i = 1; i <= 20; i++)
+            expected.add(Money.of(String.valueOf(i)));
+        assertEquals(expected, applied);
+        assertEquals(1, threads.stream().distinct().count());
+    }
+
+    @Test
+    void submit_WhenShardIsFull_ShouldThrowRejectedExecutionException() throws InterruptedException {
+        // Arrange
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(transactionService.addTransaction(any(TransactionCreationDTO.class))).thenAnswer(invocation -> {
+            started.countDown();
+            release.await();
+            return transaction(1);
+        });
+        AsyncTransferPipeline asyncTransferPipeline = pipeline(1, 1, 60_000);
+        asyncTransferPipeline.submit(creationDTO(1, 2, "10.00"));
+        started.await();
+        asyncTransferPipeline.submit(creationDTO(1, 2, "10.00"));
+
+        // Act & Assert
+        try {
+            RejectedExecutionException exception = assertThrows(RejectedExecutionException.class,
+                () -> asyncTransferPipeline.submit(creationDTO(1, 2, "10.00")));
+            assertEquals("Transfer queue is full", exception.getMessage());
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    void getTicket_WithUnknownId_ShouldThrowException() {
+        // Act & Assert
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> pipeline(1, 1, 60_000).getTicket("unknown"));
+        assertEquals("Transfer with ID : unknown not found", exception.getMessage());
+    }
+
+    @Test
+    void purgeCompletedTickets_ShouldRemoveExpiredTickets() throws InterruptedException {
+        // Arrange
+        TransactionCreationDTO transactionCreationDTO = creationDTO(1, 2, "10.00");
+        when(transactionService.addTransaction(transactionCreationDTO)).thenReturn(transaction(1));
+        AsyncTransferPipeline asyncTransferPipeline = pipeline(1, 16, 0);
+        TransferTicket ticket = asyncTransferPipeline.submit(transactionCreationDTO);
+        awaitCompletion(ticket);
+        Thread.sleep(5);
+
+        // Act
+        asyncTransferPipeline.purgeCompletedTickets();
+
+        // Assert
+        assertThrows(RuntimeException.class, () -> asyncTransferPipeline.getTicket(ticket.getId()));
+    }
+}
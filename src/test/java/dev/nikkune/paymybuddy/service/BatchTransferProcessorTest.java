@@ -0,0 +1,246 @@
+package dev.nikkune.paymybuddy.service;
+
+import dev.nikkune.paymybuddy.dto.TransactionCreationDTO;
+import dev.nikkune.paymybuddy.model.Money;
+import dev.nikkune.paymybuddy.model.Transaction;
+import dev.nikkune.paymybuddy.model.User;
+import dev.nikkune.paymybuddy.repository.TransactionRepository;
+import dev.nikkune.paymybuddy.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import static dev.nikkune.paymybuddy.service.TransferTestData.creationDTO;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BatchTransferProcessorTest {
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private TransactionStatus transactionStatus;
+
+    private User alice;
+    private User bob;
+    private User carol;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(transactionManager.getTransaction(any())).thenReturn(transactionStatus);
+
+        alice = user(1, "100.00");
+        bob = user(2, "50.00");
+        carol = user(3, "0.00");
+    }
+
+    private User user(int id, String balance) {
+        User user = new User();
+        user.setId(id);
+        user.setUsername("user" + id);
+        user.setBalance(Money.of(balance));
+        return user;
+    }
+
+    private BatchTransferProcessor processor(int chunkSize) {
+        return new BatchTransferProcessor(transactionRepository, userRepository, transactionManager, 10, chunkSize);
+    }
+
+    @Test
+    void constructor_WithInvalidSizes_ShouldThrowException() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class,
+            () -> new BatchTransferProcessor(transactionRepository, userRepository, transactionManager, 0, 0));
+        assertThrows(IllegalArgumentException.class,
+            () -> new BatchTransferProcessor(transactionRepository, userRepository, transactionManager, 10, -1));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void process_ShouldLoadUsersOnceAndApplyItemsInOrder() {
+        // Arrange
+        List<TransactionCreationDTO> batch = List.of(
+                creationDTO(1, 2, "80.00"),
+                creationDTO(2, 3, "120.00"),
+                creationDTO(1, 3, "30.00"),
+                creationDTO(3, 99, "10.00"));
+        when(userRepository.findAllByIdForUpdate(anyCollection())).thenReturn(List.of(alice, bob, carol));
+
+        // Act
+        List<TransferOutcome> outcomes = processor(0).process(batch);
+
+        // Assert
+        assertEquals(4, outcomes.size());
+        assertTrue(outcomes.get(0).isSuccess());
+        assertTrue(outcomes.get(1).isSuccess(), "Bob can spend the money received earlier in the batch");
+        assertFalse(outcomes.get(2).isSuccess());
+        assertEquals("Insufficient balance", outcomes.get(2).getError());
+        assertEquals("Receiver with ID : 99 not found", outcomes.get(3).getError());
+        assertEquals(3, outcomes.get(3).getIndex());
+
+        assertEquals(Money.of("20.00"), alice.getBalance());
+        assertEquals(Money.of("10.00"), bob.getBalance());
+        assertEquals(Money.of("120.00"), carol.getBalance());
+
+        ArgumentCaptor<Collection<Integer>> ids = ArgumentCaptor.forClass(Collection.class);
+        verify(userRepository).findAllByIdForUpdate(ids.capture());
+        assertEquals(Set.of(1, 2, 3, 99), Set.copyOf(ids.getValue()));
+        ArgumentCaptor<List<Transaction>> saved = ArgumentCaptor.forClass(List.class);
+        verify(transactionRepository).saveAll(saved.capture());
+        assertEquals(2, saved.getValue().size());
+        verify(userRepository, never()).incrementVersions(anyCollection());
+        verify(transactionManager).commit(transactionStatus);
+    }
+
+    @Test
+    void process_WithTransfersCancellingOut_ShouldBumpVersionsOfUnchangedUsers() {
+        // Arrange
+        List<TransactionCreationDTO> batch = List.of(
+                creationDTO(1, 2, "10.00"),
+                creationDTO(2, 1, "10.00"),
+                creationDTO(1, 3, "5.00"),
+                creationDTO(3, 3, "5.00"));
+        when(userRepository.findAllByIdForUpdate(anyCollection())).thenReturn(List.of(alice, bob, carol));
+
+        // Act
+        List<TransferOutcome> outcomes = processor(0).process(batch);
+
+        // Assert
+        assertTrue(outcomes.stream().allMatch(TransferOutcome::isSuccess));
+        verify(userRepository).incrementVersions(Set.of(2));
+    }
+
+    @Test
+    void process_WithChunkSize_ShouldCommitEachChunk() {
+        // Arrange
+        List<TransactionCreationDTO> batch = List.of(
+                creationDTO(1, 2, "10.00"),
+                creationDTO(1, 2, "10.00"),
+                creationDTO(1, 2, "10.00"));
+        when(userRepository.findAllByIdForUpdate(anyCollection())).thenReturn(List.of(alice, bob));
+
+        // Act
+        List<TransferOutcome> outcomes = processor(2).process(batch);
+
+        // Assert
+        assertEquals(List.of(0, 1, 2), outcomes.stream().map(TransferOutcome::getIndex).toList());
+        verify(userRepository, times(2)).findAllByIdForUpdate(anyCollection());
+        verify(transactionManager, times(2)).commit(transactionStatus);
+    }
+
+    @Test
+    void process_WhenLaterChunkFails_ShouldKeepOutcomesOfCommittedChunks() {
+        // Arrange
+        List<TransactionCreationDTO> batch = List.of(
+                creationDTO(1, 2, "10.00"),
+                creationDTO(1, 2, "10.00"),
+                creationDTO(1, 2, "10.00"));
+        when(userRepository.findAllByIdForUpdate(anyCollection()))
+                .thenReturn(List.of(alice, bob))
+                .thenThrow(new CannotAcquireLockException("Lock wait timeout exceeded"));
+
+        // Act
+        List<TransferOutcome> outcomes = processor(2).process(batch);
+
+        // Assert
+        assertTrue(outcomes.get(0).isSuccess());
+        assertTrue(outcomes.get(1).isSuccess());
+        assertFalse(outcomes.get(2).isSuccess());
+        assertEquals(2, outcomes.get(2).getIndex());
+        assertEquals("Lock wait timeout exceeded", outcomes.get(2).getError());
+        verify(transactionManager).commit(transactionStatus);
+        verify(transactionManager).rollback(transactionStatus);
+    }
+
+    @Test
+    void process_WithNonPositiveAmountOrUnknownSender_ShouldRejectItem() {
+        // Arrange
+        List<TransactionCreationDTO> batch = List.of(
+                creationDTO(1, 2, "0.00"),
+                creationDTO(42, 2, "10.00"));
+        when(userRepository.findAllByIdForUpdate(anyCollection())).thenReturn(List.of(alice, bob));
+
+        // Act
+        List<TransferOutcome> outcomes = processor(0).process(batch);
+
+        // Assert
+        assertEquals("Amount must be positive", outcomes.get(0).getError());
+        assertEquals("Sender with ID : 42 not found", outcomes.get(1).getError());
+        assertEquals(Money.of("100.00"), alice.getBalance());
+        assertEquals(Money.of("50.00"), bob.getBalance());
+    }
+
+    @Test
+    void process_WithNullItem_ShouldRejectOnlyThatItem() {
+        // Arrange
+        List<TransactionCreationDTO> batch = Arrays.asList(null, creationDTO(1, 2, "10.00"));
+        when(userRepository.findAllByIdForUpdate(anyCollection())).thenReturn(List.of(alice, bob));
+
+        // Act
+        List<TransferOutcome> outcomes = processor(0).process(batch);
+
+        // Assert
+        assertEquals("Transaction is required", outcomes.get(0).getError());
+        assertTrue(outcomes.get(1).isSuccess());
+        assertEquals(Money.of("90.00"), alice.getBalance());
+        verify(userRepository).findAllByIdForUpdate(Set.of(1, 2));
+    }
+
+    @Test
+    void process_WithEmptyOrOversizedBatch_ShouldThrowException() {
+        // Arrange
+        BatchTransferProcessor batchTransferProcessor = processor(0);
+        List<TransactionCreationDTO> oversized = Collections.nCopies(11, creationDTO(1, 2, "1.00"));
+
+        // Act & Assert
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> batchTransferProcessor.process(List.of()));
+        assertEquals("Batch must contain between 1 and 10 transactions", exception.getMessage());
+        assertThrows(RuntimeException.class, () -> batchTransferProcessor.process(oversized));
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void processEach_ShouldApplyItemsOneAtATimeWithStrategy() {
+        // Arrange
+        ITransferStrategy transferStrategy = mock(ITransferStrategy.class);
+        Transaction transaction = new Transaction();
+        TransactionCreationDTO valid = creationDTO(1, 2, "10.00");
+        TransactionCreationDTO insufficient = creationDTO(3, 1, "10.00");
+        when(transferStrategy.transfer(valid)).thenReturn(transaction);
+        when(transferStrategy.transfer(insufficient)).thenThrow(new RuntimeException("Insufficient balance"));
+
+        // Act
+        List<TransferOutcome> outcomes = processor(0).processEach(Arrays.asList(valid, insufficient, creationDTO(1, 2, "0.00"), null), transferStrategy);
+
+        // Assert
+        assertTrue(outcomes.get(0).isSuccess());
+        assertEquals(transaction, outcomes.get(0).getTransaction());
+        assertEquals("Insufficient balance", outcomes.get(1).getError());
+        assertEquals("Amount must be positive", outcomes.get(2).getError());
+        assertEquals("Transaction is required", outcomes.get(3).getError());
+        verify(transferStrategy, times(2)).transfer(any(TransactionCreationDTO.class));
+        verifyNoInteractions(userRepository, transactionManager);
+    }
+}
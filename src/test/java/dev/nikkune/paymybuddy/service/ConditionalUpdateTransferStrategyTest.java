@@ -0,0 +1,208 @@
+package dev.nikkune.paymybuddy.service;
+
+import dev.nikkune.paymybuddy.dto.TransactionCreationDTO;
+import dev.nikkune.paymybuddy.model.BalanceStripe;
+import dev.nikkune.paymybuddy.model.Money;
+import dev.nikkune.paymybuddy.model.Transaction;
+import dev.nikkune.paymybuddy.model.User;
+import dev.nikkune.paymybuddy.repository.BalanceStripeRepository;
+import dev.nikkune.paymybuddy.repository.TransactionRepository;
+import dev.nikkune.paymybuddy.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+
+import java.util.List;
+
+import static dev.nikkune.paymybuddy.service.TransferTestData.creationDTO;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ConditionalUpdateTransferStrategyTest {
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private TransactionStatus transactionStatus;
+
+    @Mock
+    private BalanceStripeRepository balanceStripeRepository;
+
+    private HotAccountStriping hotAccountStriping;
+    private ConditionalUpdateTransferStrategy transferStrategy;
+
+    private User sender;
+    private User receiver;
+
+    @BeforeEach
+    void setUp() {
+        hotAccountStriping = new HotAccountStriping(balanceStripeRepository, userRepository, transactionManager, new SimpleMeterRegistry(), 4, 2, 2);
+        transferStrategy = new ConditionalUpdateTransferStrategy(transactionRepository, userRepository, transactionManager, hotAccountStriping);
+        lenient().when(transactionManager.getTransaction(any())).thenReturn(transactionStatus);
+
+        sender = new User();
+        sender.setId(1);
+        receiver = new User();
+        receiver.setId(2);
+    }
+
+    @Test
+    void transfer_WithValidTransaction_ShouldDebitCreditAndInsertWithoutLoadingUsers() {
+        // Arrange
+        TransactionCreationDTO transactionCreationDTO = creationDTO(sender.getId(), receiver.getId(), "75.00");
+        when(userRepository.debitBalance(sender.getId(), 7500L)).thenReturn(1);
+        when(userRepository.creditBalance(receiver.getId(), 7500L)).thenReturn(1);
+        when(userRepository.getReferenceById(sender.getId())).thenReturn(sender);
+        when(userRepository.getReferenceById(receiver.getId())).thenReturn(receiver);
+        when(transactionRepository.save(any(Transaction.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        Transaction result = transferStrategy.transfer(transactionCreationDTO);
+
+        // Assert
+        assertEquals(sender, result.getSender());
+        assertEquals(receiver, result.getReceiver());
+        assertEquals(Money.of("75.00"), result.getAmount());
+        assertEquals("Test transaction", result.getDescription());
+        verify(userRepository, never()).findById(anyInt());
+        verify(userRepository, never()).save(any(User.class));
+        verify(transactionManager).commit(transactionStatus);
+    }
+
+    @Test
+    void transfer_ShouldUpdateRowsInAscendingIdOrder() {
+        // Arrange
+        TransactionCreationDTO transactionCreationDTO = creationDTO(receiver.getId(), sender.getId(), "10.00");
+        when(userRepository.creditBalance(sender.getId(), 1000L)).thenReturn(1);
+        when(userRepository.debitBalance(receiver.getId(), 1000L)).thenReturn(1);
+        when(transactionRepository.save(any(Transaction.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        transferStrategy.transfer(transactionCreationDTO);
+
+        // Assert
+        InOrder inOrder = inOrder(userRepository);
+        inOrder.verify(userRepository).creditBalance(sender.getId(), 1000L);
+        inOrder.verify(userRepository).debitBalance(receiver.getId(), 1000L);
+    }
+
+    @Test
+    void transfer_WithInsufficientBalance_ShouldThrowExceptionAndRollback() {
+        // Arrange
+        TransactionCreationDTO transactionCreationDTO = creationDTO(sender.getId(), receiver.getId(), "1000.00");
+        when(userRepository.debitBalance(sender.getId(), 100000L)).thenReturn(0);
+        when(userRepository.existsById(sender.getId())).thenReturn(true);
+
+        // Act & Assert
+        RuntimeException exception = assertThrows(RuntimeException.class,
+            () -> transferStrategy.transfer(transactionCreationDTO));
+        assertEquals("Insufficient balance", exception.getMessage());
+        verify(userRepository, never()).creditBalance(anyInt(), anyLong());
+        verify(transactionRepository, never()).save(any(Transaction.class));
+        verify(transactionManager).rollback(transactionStatus);
+    }
+
+    @Test
+    void transfer_WithNonExistingSender_ShouldThrowException() {
+        // Arrange
+        TransactionCreationDTO transactionCreationDTO = creationDTO(1, 999, "75.00");
+        when(userRepository.debitBalance(1, 7500L)).thenReturn(0);
+        when(userRepository.existsById(1)).thenReturn(false);
+
+        // Act & Assert
+        RuntimeException exception = assertThrows(RuntimeException.class,
+            () -> transferStrategy.transfer(transactionCreationDTO));
+        assertEquals("Sender with ID : 1 not found", exception.getMessage());
+        verify(transactionRepository, never()).save(any(Transaction.class));
+    }
+
+    @Test
+    void transfer_WithNonExistingReceiver_ShouldThrowExceptionAndRollbackDebit() {
+        // Arrange
+        TransactionCreationDTO transactionCreationDTO = creationDTO(sender.getId(), 999, "75.00");
+        when(userRepository.debitBalance(sender.getId(), 7500L)).thenReturn(1);
+        when(userRepository.creditBalance(999, 7500L)).thenReturn(0);
+
+        // Act & Assert
+        RuntimeException exception = assertThrows(RuntimeException.class,
+            () -> transferStrategy.transfer(transactionCreationDTO));
+        assertEquals("Receiver with ID : 999 not found", exception.getMessage());
+        verify(transactionRepository, never()).save(any(Transaction.class));
+        verify(transactionManager).rollback(transactionStatus);
+    }
+
+    @Test
+    void transfer_ToStripedAccount_ShouldCreditStripeInsteadOfUserRow() {
+        // Arrange
+        when(balanceStripeRepository.findStripedAccountIds()).thenReturn(List.of(receiver.getId()));
+        hotAccountStriping.loadStripedAccounts();
+        TransactionCreationDTO transactionCreationDTO = creationDTO(sender.getId(), receiver.getId(), "75.00");
+        when(userRepository.debitBalance(sender.getId(), 7500L)).thenReturn(1);
+        when(balanceStripeRepository.creditStripe(eq(receiver.getId()), anyInt(), eq(7500L))).thenReturn(1);
+        when(transactionRepository.save(any(Transaction.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        transferStrategy.transfer(transactionCreationDTO);
+
+        // Assert
+        verify(userRepository, never()).creditBalance(anyInt(), anyLong());
+        assertFalse(transferStrategy.storesBalanceOnUser());
+    }
+
+    @Test
+    void transfer_FromStripedAccountWithLowUserBalance_ShouldSweepStripesThenDebit() {
+        // Arrange
+        TransactionCreationDTO transactionCreationDTO = creationDTO(sender.getId(), receiver.getId(), "75.00");
+        BalanceStripe stripe = new BalanceStripe();
+        stripe.setAccountId(sender.getId());
+        stripe.setBalance(Money.of("50.00"));
+        when(userRepository.debitBalance(sender.getId(), 7500L)).thenReturn(0, 1);
+        when(balanceStripeRepository.findAllByAccountIdForUpdate(sender.getId())).thenReturn(List.of(stripe, stripe));
+        when(userRepository.creditBalance(anyInt(), anyLong())).thenReturn(1);
+        when(transactionRepository.save(any(Transaction.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        transferStrategy.transfer(transactionCreationDTO);
+
+        // Assert
+        InOrder inOrder = inOrder(userRepository, balanceStripeRepository);
+        inOrder.verify(userRepository).debitBalance(sender.getId(), 7500L);
+        inOrder.verify(balanceStripeRepository).clearStripes(sender.getId());
+        inOrder.verify(userRepository).creditBalance(sender.getId(), 10000L);
+        inOrder.verify(userRepository).debitBalance(sender.getId(), 7500L);
+        verify(transactionManager).commit(transactionStatus);
+    }
+
+    @Test
+    void balanceOf_WithStripedAccount_ShouldAddStripes() {
+        // Arrange
+        when(balanceStripeRepository.findStripedAccountIds()).thenReturn(List.of(receiver.getId()));
+        hotAccountStriping.loadStripedAccounts();
+        receiver.setBalance(Money.of("10.00"));
+        when(balanceStripeRepository.sumByAccountId(receiver.getId())).thenReturn(2550L);
+
+        // Act
+        Money result = transferStrategy.balanceOf(receiver);
+
+        // Assert
+        assertEquals(Money.of("35.50"), result);
+    }
+}
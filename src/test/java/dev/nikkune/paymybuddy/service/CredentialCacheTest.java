@@ -0,0 +1,77 @@
+package dev.nikkune.paymybuddy.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CredentialCacheTest {
+
+    private CredentialCache credentialCache;
+    private AtomicInteger logins;
+
+    @BeforeEach
+    void setUp() {
+        credentialCache = new CredentialCache(new SimpleMeterRegistry(), 100, 60_000);
+        logins = new AtomicInteger();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive())
+            TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    private boolean login() {
+        logins.incrementAndGet();
+        return true;
+    }
+
+    @Test
+    void verify_WithVerifiedCredentials_ShouldNotLoginAgain() {
+        // Act
+        credentialCache.verify("alice@example.com", "password", this::login);
+        credentialCache.verify("alice@example.com", "password", this::login);
+        credentialCache.verify("alice@example.com", "other", this::login);
+
+        // Assert
+        assertEquals(2, logins.get());
+    }
+
+    @Test
+    void verify_WithFailedLogin_ShouldNotRemember() {
+        // Act
+        assertThrows(RuntimeException.class, () -> credentialCache.verify("alice@example.com", "wrong", () -> {
+            throw new RuntimeException("Invalid password");
+        }));
+        credentialCache.verify("alice@example.com", "wrong", this::login);
+
+        // Assert
+        assertEquals(1, logins.get());
+    }
+
+    @Test
+    void invalidate_InTransaction_ShouldForgetUserOnceCommitted() {
+        // Arrange
+        credentialCache.verify("bob@example.com", "password", this::login);
+        TransactionSynchronizationManager.initSynchronization();
+
+        // Act
+        credentialCache.invalidate("alice@example.com");
+        // Checked against the old password, since the change is not committed yet
+        credentialCache.verify("alice@example.com", "password", this::login);
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        TransactionSynchronizationManager.clearSynchronization();
+        credentialCache.verify("alice@example.com", "password", this::login);
+        credentialCache.verify("bob@example.com", "password", this::login);
+
+        // Assert
+        assertEquals(3, logins.get());
+    }
+}
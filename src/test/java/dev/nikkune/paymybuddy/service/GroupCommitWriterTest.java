@@ -0,0 +1,281 @@
+package dev.nikkune.paymybuddy.service;
+
+import dev.nikkune.paymybuddy.dto.TransactionCreationDTO;
+import dev.nikkune.paymybuddy.model.Money;
+import dev.nikkune.paymybuddy.model.Transaction;
+import dev.nikkune.paymybuddy.model.User;
+import dev.nikkune.paymybuddy.repository.TransactionRepository;
+import dev.nikkune.paymybuddy.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.TransactionSystemException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class GroupCommitWriterTest {
+
+    @Mock
+    private BatchTransferProcessor batchTransferProcessor;
+
+    @Mock
+    private ITransferStrategy transferStrategy;
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private TransactionStatus transactionStatus;
+
+    private SimpleMeterRegistry meterRegistry;
+    private GroupCommitWriter groupCommitWriter;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        lenient().when(transferStrategy.storesBalanceOnUser()).thenReturn(true);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (groupCommitWriter != null)
+            groupCommitWriter.destroy();
+    }
+
+    private GroupCommitWriter writer(boolean enabled, long windowMillis, int maxItems) {
+        groupCommitWriter = new GroupCommitWriter(batchTransferProcessor, transferStrategy, meterRegistry, enabled, windowMillis, maxItems, 1, 16);
+        return groupCommitWriter;
+    }
+
+    /**
+     * Builds a writer committing groups of two transfers with a processor whose batches are cut in chunks of one.
+     */
+    private GroupCommitWriter chunkedWriter() {
+        lenient().when(transactionManager.getTransaction(any())).thenReturn(transactionStatus);
+        BatchTransferProcessor chunkedProcessor = new BatchTransferProcessor(transactionRepository, userRepository, transactionManager, 10, 1);
+        groupCommitWriter = new GroupCommitWriter(chunkedProcessor, transferStrategy, meterRegistry, true, 5000, 2, 1, 16);
+        return groupCommitWriter;
+    }
+
+    private User user(int id, String balance) {
+        User user = new User();
+        user.setId(id);
+        user.setBalance(Money.of(balance));
+        return user;
+    }
+
+    /**
+     * Submits two transfers at the same time, so that they are committed in the same group.
+     */
+    private List<Future<Transaction>> submitTogether(GroupCommitWriter groupCommitWriter, ExecutorService executor) {
+        List<Future<Transaction>> results = new ArrayList<>();
+        for (int sender = 1; sender <= 2; sender++) {
+            TransactionCreationDTO transactionCreationDTO = creationDTO(sender);
+            results.add(executor.submit(() -> groupCommitWriter.transfer(transactionCreationDTO)));
+        }
+        return results;
+    }
+
+    private TransactionCreationDTO creationDTO(int senderId) {
+        TransactionCreationDTO transactionCreationDTO = new TransactionCreationDTO();
+        transactionCreationDTO.setAmount(Money.of("10.00"));
+        transactionCreationDTO.setSenderId(senderId);
+        transactionCreationDTO.setReceiverId(100);
+        return transactionCreationDTO;
+    }
+
+    /**
+     * Answers every group with a successful transaction per transfer, except the transfers sent by account 0.
+     */
+    private void answerGroups() {
+        when(batchTransferProcessor.processInOneTransaction(anyList())).thenAnswer(invocation -> {
+            List<TransactionCreationDTO> group = invocation.getArgument(0);
+            List<TransferOutcome> outcomes = new ArrayList<>();
+            for (int i = 0; i < group.size(); i++) {
+                if (group.get(i).getSenderId() == 0) {
+                    outcomes.add(TransferOutcome.failure(i, "Insufficient balance"));
+                } else {
+                    Transaction transaction = new Transaction();
+                    transaction.setId(group.get(i).getSenderId());
+                    outcomes.add(TransferOutcome.success(i, transaction));
+                }
+            }
+            return outcomes;
+        });
+    }
+
+    @Test
+    void constructor_WithInvalidSettings_ShouldThrowException() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class,
+            () -> new GroupCommitWriter(batchTransferProcessor, transferStrategy, meterRegistry, false, -1, 10, 1, 16));
+        assertThrows(IllegalArgumentException.class,
+            () -> new GroupCommitWriter(batchTransferProcessor, transferStrategy, meterRegistry, false, 1, 0, 1, 16));
+    }
+
+    @Test
+    void isEnabled_ShouldRequireBalancesStoredOnUsers() {
+        // Arrange
+        GroupCommitWriter groupCommitWriter = writer(true, 1, 10);
+        when(transferStrategy.storesBalanceOnUser()).thenReturn(true, false);
+
+        // Act & Assert
+        assertTrue(groupCommitWriter.isEnabled());
+        assertFalse(groupCommitWriter.isEnabled());
+        assertFalse(writer(false, 1, 10).isEnabled());
+    }
+
+    @Test
+    void transfer_WhenDisabled_ShouldBeRejected() {
+        // Arrange
+        GroupCommitWriter groupCommitWriter = writer(false, 1, 10);
+
+        // Act & Assert
+        assertThrows(RejectedExecutionException.class, () -> groupCommitWriter.transfer(creationDTO(1)));
+    }
+
+    @Test
+    void transfer_WithConcurrentCallers_ShouldCommitThemTogetherAndReturnEachOutcome() throws Exception {
+        // Arrange
+        GroupCommitWriter groupCommitWriter = writer(true, 1000, 4);
+        answerGroups();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        try {
+            // Act
+            List<Future<Transaction>> results = new ArrayList<>();
+            for (int sender = 1; sender <= 3; sender++) {
+                TransactionCreationDTO transactionCreationDTO = creationDTO(sender);
+                results.add(executor.submit(() -> groupCommitWriter.transfer(transactionCreationDTO)));
+            }
+            Future<Transaction> rejected = executor.submit(() -> groupCommitWriter.transfer(creationDTO(0)));
+
+            // Assert
+            for (int sender = 1; sender <= 3; sender++)
+                assertEquals(sender, results.get(sender - 1).get(5, TimeUnit.SECONDS).getId());
+            Exception exception = assertThrows(Exception.class, () -> rejected.get(5, TimeUnit.SECONDS));
+            assertEquals("Insufficient balance", exception.getCause().getMessage());
+        } finally {
+            executor.shutdownNow();
+        }
+        verify(batchTransferProcessor, times(1)).processInOneTransaction(anyList());
+        assertEquals(4.0, meterRegistry.get("paymybuddy.transfer.group.size").summary().totalAmount());
+    }
+
+    @Test
+    void transfer_WhenGroupFails_ShouldApplyTransfersOneAtATime() {
+        // Arrange
+        GroupCommitWriter groupCommitWriter = writer(true, 0, 10);
+        Transaction transaction = new Transaction();
+        TransactionCreationDTO transactionCreationDTO = creationDTO(1);
+        when(batchTransferProcessor.processInOneTransaction(anyList())).thenThrow(new RuntimeException("Lock wait timeout exceeded"));
+        when(transferStrategy.transfer(transactionCreationDTO)).thenReturn(transaction);
+
+        // Act
+        Transaction result = groupCommitWriter.transfer(transactionCreationDTO);
+
+        // Assert
+        assertEquals(transaction, result);
+        verify(transferStrategy).transfer(any(TransactionCreationDTO.class));
+    }
+
+    @Test
+    void transfer_WithChunkedBatches_ShouldCommitTheGroupInOneTransaction() throws Exception {
+        // Arrange
+        GroupCommitWriter groupCommitWriter = chunkedWriter();
+        // A second chunk would fail to lock its users after the first one was committed
+        when(userRepository.findAllByIdForUpdate(anyCollection()))
+                .thenReturn(List.of(user(1, "100.00"), user(2, "100.00"), user(100, "0.00")))
+                .thenThrow(new CannotAcquireLockException("Lock wait timeout exceeded"));
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        try {
+            // Act
+            List<Future<Transaction>> results = submitTogether(groupCommitWriter, executor);
+
+            // Assert
+            for (Future<Transaction> result : results)
+                assertEquals(Money.of("10.00"), result.get(5, TimeUnit.SECONDS).getAmount());
+        } finally {
+            executor.shutdownNow();
+        }
+        verify(userRepository, times(1)).findAllByIdForUpdate(anyCollection());
+        verify(transactionManager, times(1)).commit(transactionStatus);
+        verify(transferStrategy, never()).transfer(any(TransactionCreationDTO.class));
+    }
+
+    @Test
+    void transfer_WhenGroupIsRolledBack_ShouldApplyEachTransferOnce() throws Exception {
+        // Arrange
+        GroupCommitWriter groupCommitWriter = chunkedWriter();
+        when(userRepository.findAllByIdForUpdate(anyCollection()))
+                .thenReturn(List.of(user(1, "100.00"), user(2, "100.00"), user(100, "0.00")));
+        doThrow(new CannotAcquireLockException("Lock wait timeout exceeded")).when(transactionRepository).flush();
+        when(transferStrategy.transfer(any(TransactionCreationDTO.class))).thenAnswer(invocation -> new Transaction());
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        try {
+            // Act
+            List<Future<Transaction>> results = submitTogether(groupCommitWriter, executor);
+
+            // Assert
+            for (Future<Transaction> result : results)
+                assertNotNull(result.get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+        verify(transactionManager, never()).commit(transactionStatus);
+        verify(transactionManager).rollback(transactionStatus);
+        verify(transferStrategy, times(2)).transfer(any(TransactionCreationDTO.class));
+    }
+
+    @Test
+    void transfer_WhenGroupCommitFails_ShouldFailWithoutApplyingAgain() throws Exception {
+        // Arrange
+        GroupCommitWriter groupCommitWriter = chunkedWriter();
+        when(userRepository.findAllByIdForUpdate(anyCollection()))
+                .thenReturn(List.of(user(1, "100.00"), user(2, "100.00"), user(100, "0.00")));
+        doThrow(new TransactionSystemException("Connection lost during commit")).when(transactionManager).commit(transactionStatus);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        try {
+            // Act
+            List<Future<Transaction>> results = submitTogether(groupCommitWriter, executor);
+
+            // Assert
+            for (Future<Transaction> result : results) {
+                Exception exception = assertThrows(Exception.class, () -> result.get(5, TimeUnit.SECONDS));
+                assertEquals("Connection lost during commit", exception.getCause().getMessage());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        verify(transferStrategy, never()).transfer(any(TransactionCreationDTO.class));
+    }
+}
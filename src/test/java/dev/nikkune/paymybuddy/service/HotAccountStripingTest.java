@@ -0,0 +1,207 @@
+package dev.nikkune.paymybuddy.service;
+
+import dev.nikkune.paymybuddy.repository.BalanceStripeRepository;
+import dev.nikkune.paymybuddy.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.InvalidDataAccessResourceUsageException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class HotAccountStripingTest {
+
+    @Mock
+    private BalanceStripeRepository balanceStripeRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private TransactionStatus transactionStatus;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        lenient().when(transactionManager.getTransaction(any())).thenReturn(transactionStatus);
+    }
+
+    private HotAccountStriping striping(int stripeCount, int contentionThreshold, int promotionHits) {
+        return new HotAccountStriping(balanceStripeRepository, userRepository, transactionManager, meterRegistry,
+                stripeCount, contentionThreshold, promotionHits);
+    }
+
+    /**
+     * Runs two credits to the same account at the same time.
+     */
+    private void concurrentCredits(HotAccountStriping hotAccountStriping, int accountId) throws Exception {
+        CountDownLatch bothRunning = new CountDownLatch(2);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Runnable credit = () -> hotAccountStriping.trackCredit(accountId, () -> {
+                bothRunning.countDown();
+                try {
+                    bothRunning.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return null;
+            });
+            Future<?> first = executor.submit(credit);
+            Future<?> second = executor.submit(credit);
+            first.get(10, TimeUnit.SECONDS);
+            second.get(10, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void constructor_WithInvalidSettings_ShouldThrowException() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> striping(-1, 2, 1));
+        assertThrows(IllegalArgumentException.class, () -> striping(4, 0, 1));
+        assertThrows(IllegalArgumentException.class, () -> striping(4, 2, 0));
+    }
+
+    @Test
+    void trackCredit_WithoutContention_ShouldNotPromote() {
+        // Arrange
+        HotAccountStriping hotAccountStriping = striping(4, 2, 1);
+
+        // Act
+        String result = hotAccountStriping.trackCredit(7, () -> "done");
+
+        // Assert
+        assertEquals("done", result);
+        assertFalse(hotAccountStriping.isStriped(7));
+        verifyNoInteractions(balanceStripeRepository);
+    }
+
+    @Test
+    void trackCredit_WithConcurrentCredits_ShouldPromoteAccountWithOneRowPerStripe() throws Exception {
+        // Arrange
+        HotAccountStriping hotAccountStriping = striping(4, 2, 1);
+
+        // Act
+        concurrentCredits(hotAccountStriping, 7);
+
+        // Assert
+        assertTrue(hotAccountStriping.isStriped(7));
+        assertTrue(hotAccountStriping.hasStripedAccounts());
+        for (int stripe = 0; stripe < 4; stripe++)
+            verify(balanceStripeRepository).insertStripe(7, stripe);
+        assertEquals(1.0, meterRegistry.get("paymybuddy.transfer.hot-accounts.promotions").counter().count());
+        assertEquals(1.0, meterRegistry.get("paymybuddy.transfer.hot-accounts").gauge().value());
+    }
+
+    @Test
+    void trackCredit_WhenHitsAreReset_ShouldNotPromote() throws Exception {
+        // Arrange
+        HotAccountStriping hotAccountStriping = striping(4, 2, 4);
+
+        // Act
+        concurrentCredits(hotAccountStriping, 7);
+        hotAccountStriping.resetHits();
+        concurrentCredits(hotAccountStriping, 7);
+
+        // Assert
+        assertFalse(hotAccountStriping.isStriped(7));
+        verify(balanceStripeRepository, never()).insertStripe(anyInt(), anyInt());
+    }
+
+    @Test
+    void trackCredit_WhenAlreadyPromotedElsewhere_ShouldKeepAccountStriped() throws Exception {
+        // Arrange
+        HotAccountStriping hotAccountStriping = striping(4, 2, 1);
+        doThrow(new DataIntegrityViolationException("duplicate")).when(balanceStripeRepository).insertStripe(7, 0);
+
+        // Act
+        concurrentCredits(hotAccountStriping, 7);
+
+        // Assert
+        assertTrue(hotAccountStriping.isStriped(7));
+    }
+
+    @Test
+    void creditStripe_ShouldOnlyCreditStripedAccounts() {
+        // Arrange
+        HotAccountStriping hotAccountStriping = striping(4, 2, 1);
+        when(balanceStripeRepository.findStripedAccountIds()).thenReturn(List.of(7));
+        when(balanceStripeRepository.creditStripe(eq(7), anyInt(), eq(500L))).thenReturn(1);
+        hotAccountStriping.loadStripedAccounts();
+
+        // Act & Assert
+        assertTrue(hotAccountStriping.creditStripe(7, 500L));
+        assertFalse(hotAccountStriping.creditStripe(8, 500L));
+        verify(balanceStripeRepository, never()).creditStripe(eq(8), anyInt(), anyLong());
+    }
+
+    @Test
+    void loadStripedAccounts_ShouldPickUpAccountsPromotedLaterByAnotherInstance() {
+        // Arrange
+        HotAccountStriping hotAccountStriping = striping(4, 2, 1);
+        when(balanceStripeRepository.findStripedAccountIds()).thenReturn(List.of(), List.of(7));
+        when(balanceStripeRepository.sumByAccountId(7)).thenReturn(1200L);
+        hotAccountStriping.loadStripedAccounts();
+        assertEquals(0, hotAccountStriping.stripedBalance(7));
+
+        // Act
+        hotAccountStriping.loadStripedAccounts();
+
+        // Assert
+        assertTrue(hotAccountStriping.isStriped(7));
+        assertTrue(hotAccountStriping.hasStripedAccounts());
+        assertEquals(1200L, hotAccountStriping.stripedBalance(7));
+    }
+
+    @Test
+    void loadStripedAccounts_WithMissingTable_ShouldNotThrow() {
+        // Arrange
+        HotAccountStriping hotAccountStriping = striping(4, 2, 1);
+        when(balanceStripeRepository.findStripedAccountIds())
+                .thenThrow(new InvalidDataAccessResourceUsageException("Table \"BALANCE_STRIPES\" not found"));
+
+        // Act & Assert
+        assertDoesNotThrow(hotAccountStriping::loadStripedAccounts);
+        assertFalse(hotAccountStriping.hasStripedAccounts());
+    }
+
+    @Test
+    void sweep_WithEmptyStripes_ShouldNotTouchUserRow() {
+        // Arrange
+        HotAccountStriping hotAccountStriping = striping(4, 2, 1);
+        when(balanceStripeRepository.findAllByAccountIdForUpdate(7)).thenReturn(List.of());
+
+        // Act
+        long swept = hotAccountStriping.sweep(7);
+
+        // Assert
+        assertEquals(0, swept);
+        verify(balanceStripeRepository, never()).clearStripes(anyInt());
+        verifyNoInteractions(userRepository);
+    }
+}
@@ -0,0 +1,299 @@
+package dev.nikkune.paymybuddy.service;
+
+import dev.nikkune.paymybuddy.dto.TransactionCreationDTO;
+import dev.nikkune.paymybuddy.model.Money;
+import dev.nikkune.paymybuddy.model.IdempotencyRecord;
+import dev.nikkune.paymybuddy.model.Transaction;
+import dev.nikkune.paymybuddy.model.User;
+import dev.nikkune.paymybuddy.repository.IdempotencyRecordRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.InvalidDataAccessResourceUsageException;
+
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IdempotencyManagerTest {
+
+    @Mock
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    private IdempotencyManager idempotencyManager;
+    private TransactionCreationDTO transactionCreationDTO;
+    private Transaction transaction;
+    private AtomicInteger transfers;
+
+    @BeforeEach
+    void setUp() {
+        idempotencyManager = new IdempotencyManager(idempotencyRecordRepository, 100, 60_000, 5_000);
+        lenient().when(idempotencyRecordRepository.save(any(IdempotencyRecord.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        lenient().when(idempotencyRecordRepository.findClaimForUpdate(anyString(), any(Instant.class))).thenReturn(Optional.of(new IdempotencyRecord()));
+
+        transactionCreationDTO = new TransactionCreationDTO();
+        transactionCreationDTO.setSenderId(1);
+        transactionCreationDTO.setReceiverId(2);
+        transactionCreationDTO.setAmount(Money.of("75.00"));
+        transactionCreationDTO.setDescription("Test transaction");
+
+        User sender = new User();
+        sender.setUsername("sender");
+        User receiver = new User();
+        receiver.setUsername("receiver");
+        transaction = new Transaction();
+        transaction.setId(10);
+        transaction.setSender(sender);
+        transaction.setReceiver(receiver);
+        transaction.setAmount(Money.of("75.00"));
+        transaction.setDescription("Test transaction");
+        transfers = new AtomicInteger();
+    }
+
+    private Function<Consumer<Transaction>, Transaction> transfer() {
+        return inTransaction -> {
+            transfers.incrementAndGet();
+            inTransaction.accept(transaction);
+            return transaction;
+        };
+    }
+
+    @Test
+    void execute_WithNewKey_ShouldRunTransferAndStoreResponse() {
+        // Act
+        IdempotentResponse response = idempotencyManager.execute("key-1", transactionCreationDTO, transfer());
+
+        // Assert
+        assertFalse(response.replayed());
+        assertEquals("sender", response.transaction().getSenderUsername());
+        assertEquals("receiver", response.transaction().getReceiverUsername());
+        assertEquals(Money.of("75.00"), response.transaction().getAmount());
+        assertEquals(1, transfers.get());
+        verify(idempotencyRecordRepository).claim(eq("key-1"), anyString(), any(Instant.class));
+        verify(idempotencyRecordRepository).save(argThat(record -> record.getTransactionId() == 10));
+    }
+
+    @Test
+    void execute_ShouldStoreResponseInsideTransfer() {
+        // Act
+        idempotencyManager.execute("key-1", transactionCreationDTO, inTransaction -> {
+            inTransaction.accept(transaction);
+            // The response must be written before the transfer commits
+            verify(idempotencyRecordRepository).save(argThat(record -> record.getTransactionId() == 10));
+            return transaction;
+        });
+
+        // Assert
+        verify(idempotencyRecordRepository, times(1)).save(any(IdempotencyRecord.class));
+        verify(idempotencyRecordRepository, never()).release(anyString(), any(Instant.class));
+    }
+
+    @Test
+    void execute_WithRetriedKey_ShouldReplayFromCacheWithoutTransfer() {
+        // Arrange
+        idempotencyManager.execute("key-1", transactionCreationDTO, transfer());
+        clearInvocations(idempotencyRecordRepository);
+
+        // Act
+        IdempotentResponse response = idempotencyManager.execute("key-1", transactionCreationDTO, transfer());
+
+        // Assert
+        assertTrue(response.replayed());
+        assertEquals("sender", response.transaction().getSenderUsername());
+        assertEquals(1, transfers.get());
+        verifyNoInteractions(idempotencyRecordRepository);
+    }
+
+    @Test
+    void execute_WithKeyStoredInDatabase_ShouldReplayStoredResponse() {
+        // Arrange
+        idempotencyManager.execute("key-1", transactionCreationDTO, transfer());
+        ArgumentCaptor<IdempotencyRecord> stored = ArgumentCaptor.forClass(IdempotencyRecord.class);
+        verify(idempotencyRecordRepository).save(stored.capture());
+        IdempotencyManager restarted = new IdempotencyManager(idempotencyRecordRepository, 100, 60_000, 5_000);
+        when(idempotencyRecordRepository.findById("key-1")).thenReturn(Optional.of(stored.getValue()));
+
+        // Act
+        IdempotentResponse response = restarted.execute("key-1", transactionCreationDTO, transfer());
+
+        // Assert
+        assertTrue(response.replayed());
+        assertEquals(1, transfers.get());
+    }
+
+    @Test
+    void execute_WithKeyReusedForDifferentRequest_ShouldThrowException() {
+        // Arrange
+        idempotencyManager.execute("key-1", transactionCreationDTO, transfer());
+        transactionCreationDTO.setAmount(Money.of("500.00"));
+
+        // Act & Assert
+        RuntimeException exception = assertThrows(RuntimeException.class,
+            () -> idempotencyManager.execute("key-1", transactionCreationDTO, transfer()));
+        assertEquals("Idempotency-Key : key-1 already exists for a different request", exception.getMessage());
+        assertEquals(1, transfers.get());
+    }
+
+    @Test
+    void execute_WithFailingTransfer_ShouldReleaseKey() {
+        // Act & Assert
+        assertThrows(RuntimeException.class, () -> idempotencyManager.execute("key-1", transactionCreationDTO, inTransaction -> {
+            throw new RuntimeException("Insufficient balance");
+        }));
+        verify(idempotencyRecordRepository).release(eq("key-1"), any(Instant.class));
+
+        IdempotentResponse response = idempotencyManager.execute("key-1", transactionCreationDTO, transfer());
+        assertFalse(response.replayed());
+        assertEquals(1, transfers.get());
+    }
+
+    @Test
+    void execute_WithKeyClaimedByAnotherInstance_ShouldThrowInProgressException() {
+        // Arrange
+        IdempotencyRecord pending = new IdempotencyRecord();
+        pending.setIdempotencyKey("key-1");
+        doAnswer(invocation -> {
+            pending.setFingerprint(invocation.getArgument(1));
+            throw new DataIntegrityViolationException("Duplicate key");
+        }).when(idempotencyRecordRepository).claim(eq("key-1"), anyString(), any(Instant.class));
+        when(idempotencyRecordRepository.findById("key-1")).thenReturn(Optional.empty(), Optional.of(pending));
+
+        // Act & Assert
+        RuntimeException exception = assertThrows(RuntimeException.class,
+            () -> idempotencyManager.execute("key-1", transactionCreationDTO, transfer()));
+        assertEquals("Idempotency-Key : key-1 already exists and is still in progress", exception.getMessage());
+        assertEquals(0, transfers.get());
+    }
+
+    @Test
+    void execute_WithAbandonedClaim_ShouldTakeOverKeyAndRunTransfer() {
+        // Arrange
+        IdempotencyRecord abandoned = new IdempotencyRecord();
+        abandoned.setIdempotencyKey("key-1");
+        abandoned.setFingerprint("fingerprint");
+        abandoned.setCreatedAt(Instant.now().minusSeconds(60));
+        when(idempotencyRecordRepository.findById("key-1")).thenReturn(Optional.of(abandoned));
+        when(idempotencyRecordRepository.takeOver(eq("key-1"), anyString(), any(Instant.class), any(Instant.class))).thenReturn(1);
+
+        // Act
+        IdempotentResponse response = idempotencyManager.execute("key-1", transactionCreationDTO, transfer());
+
+        // Assert
+        assertFalse(response.replayed());
+        assertEquals(1, transfers.get());
+        verify(idempotencyRecordRepository).takeOver(eq("key-1"), anyString(),
+                any(Instant.class), argThat(claimedUntil -> claimedUntil.isBefore(Instant.now().minusSeconds(4))));
+        verify(idempotencyRecordRepository, never()).claim(anyString(), anyString(), any(Instant.class));
+    }
+
+    @Test
+    void execute_WithRecentClaim_ShouldThrowInProgressException() {
+        // Arrange
+        IdempotencyRecord pending = new IdempotencyRecord();
+        pending.setIdempotencyKey("key-1");
+        pending.setCreatedAt(Instant.now());
+        when(idempotencyRecordRepository.findById("key-1")).thenReturn(Optional.of(pending));
+        when(idempotencyRecordRepository.takeOver(eq("key-1"), anyString(), any(Instant.class), any(Instant.class))).thenAnswer(invocation -> {
+            pending.setFingerprint(invocation.getArgument(1));
+            return 0;
+        });
+
+        // Act & Assert
+        RuntimeException exception = assertThrows(RuntimeException.class,
+            () -> idempotencyManager.execute("key-1", transactionCreationDTO, transfer()));
+        assertEquals("Idempotency-Key : key-1 already exists and is still in progress", exception.getMessage());
+        assertEquals(0, transfers.get());
+    }
+
+    @Test
+    void execute_WithClaimTakenOverDuringTransfer_ShouldRollBackTransfer() {
+        // Arrange
+        when(idempotencyRecordRepository.findClaimForUpdate(eq("key-1"), any(Instant.class))).thenReturn(Optional.empty());
+
+        // Act & Assert
+        RuntimeException exception = assertThrows(RuntimeException.class,
+            () -> idempotencyManager.execute("key-1", transactionCreationDTO, transfer()));
+        assertEquals("Idempotency-Key : key-1 was taken over by another request", exception.getMessage());
+        verify(idempotencyRecordRepository, never()).save(any(IdempotencyRecord.class));
+        verify(idempotencyRecordRepository).release(eq("key-1"), any(Instant.class));
+    }
+
+    @Test
+    void execute_WithConcurrentDuplicates_ShouldRunTransferOnce() throws Exception {
+        // Arrange
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Function<Consumer<Transaction>, Transaction> slowTransfer = inTransaction -> {
+            transfers.incrementAndGet();
+            inTransaction.accept(transaction);
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return transaction;
+        };
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        try {
+            // Act
+            Future<IdempotentResponse> first = executor.submit(() -> idempotencyManager.execute("key-1", transactionCreationDTO, slowTransfer));
+            started.await();
+            Future<IdempotentResponse> duplicate = executor.submit(() -> idempotencyManager.execute("key-1", transactionCreationDTO, slowTransfer));
+            release.countDown();
+
+            // Assert
+            assertFalse(first.get(5, TimeUnit.SECONDS).replayed());
+            assertTrue(duplicate.get(5, TimeUnit.SECONDS).replayed());
+            assertEquals(1, transfers.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void execute_WithBlankKey_ShouldThrowException() {
+        // Act & Assert
+        RuntimeException exception = assertThrows(RuntimeException.class,
+            () -> idempotencyManager.execute(" ", transactionCreationDTO, transfer()));
+        assertEquals("Idempotency-Key must contain between 1 and 255 characters", exception.getMessage());
+        verifyNoInteractions(idempotencyRecordRepository);
+    }
+
+    @Test
+    void purgeExpiredKeys_ShouldDeleteRecordsOlderThanTtl() {
+        // Act
+        idempotencyManager.purgeExpiredKeys();
+
+        // Assert
+        verify(idempotencyRecordRepository).deleteCreatedBefore(argThat(threshold -> threshold.isBefore(Instant.now().minusSeconds(59))));
+    }
+
+    @Test
+    void purgeExpiredKeys_WithMissingTable_ShouldNotThrow() {
+        // Arrange
+        when(idempotencyRecordRepository.deleteCreatedBefore(any(Instant.class)))
+                .thenThrow(new InvalidDataAccessResourceUsageException("Table \"IDEMPOTENCY_KEYS\" not found"));
+
+        // Act & Assert
+        assertDoesNotThrow(() -> idempotencyManager.purgeExpiredKeys());
+    }
+}
@@ -0,0 +1,219 @@
+package dev.nikkune.paymybuddy.service;
+
+import dev.nikkune.paymybuddy.dto.TransactionCreationDTO;
+import dev.nikkune.paymybuddy.model.BalanceSnapshot;
+import dev.nikkune.paymybuddy.model.LedgerEntry;
+import dev.nikkune.paymybuddy.model.Money;
+import dev.nikkune.paymybuddy.model.Transaction;
+import dev.nikkune.paymybuddy.model.User;
+import dev.nikkune.paymybuddy.repository.BalanceSnapshotRepository;
+import dev.nikkune.paymybuddy.repository.LedgerEntryRepository;
+import dev.nikkune.paymybuddy.repository.TransactionRepository;
+import dev.nikkune.paymybuddy.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+
+import java.util.List;
+import java.util.Optional;
+
+import static dev.nikkune.paymybuddy.service.TransferTestData.creationDTO;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LedgerTransferStrategyTest {
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private LedgerEntryRepository ledgerEntryRepository;
+
+    @Mock
+    private BalanceSnapshotRepository balanceSnapshotRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private TransactionStatus transactionStatus;
+
+    private LedgerTransferStrategy transferStrategy;
+
+    private User sender;
+    private User receiver;
+
+    @BeforeEach
+    void setUp() {
+        transferStrategy = new LedgerTransferStrategy(transactionRepository, userRepository, ledgerEntryRepository,
+                balanceSnapshotRepository, new AccountLockManager(4, new SimpleMeterRegistry()), transactionManager, 100, 10);
+        lenient().when(transactionManager.getTransaction(any())).thenReturn(transactionStatus);
+
+        sender = new User();
+        sender.setId(1);
+        receiver = new User();
+        receiver.setId(2);
+    }
+
+    private void balance(User user, long cents) {
+        lenient().when(userRepository.findAllByIdForUpdate(List.of(user.getId()))).thenReturn(List.of(user));
+        when(ledgerEntryRepository.findBalance(user.getId())).thenReturn(Optional.of(cents));
+    }
+
+    private LedgerEntry entry(String amount) {
+        LedgerEntry entry = new LedgerEntry();
+        entry.setAccount(sender);
+        entry.setAmount(Money.of(amount));
+        return entry;
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void transfer_WithValidTransaction_ShouldAppendEntriesWithoutUpdatingBalances() {
+        // Arrange
+        balance(sender, 12500L);
+        balance(receiver, 5000L);
+        when(userRepository.getReferenceById(sender.getId())).thenReturn(sender);
+        when(userRepository.getReferenceById(receiver.getId())).thenReturn(receiver);
+        when(transactionRepository.save(any(Transaction.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        Transaction result = transferStrategy.transfer(creationDTO(sender.getId(), receiver.getId(), "75.00"));
+
+        // Assert
+        assertEquals(Money.of("75.00"), result.getAmount());
+        ArgumentCaptor<List<LedgerEntry>> entries = ArgumentCaptor.forClass(List.class);
+        verify(ledgerEntryRepository).saveAll(entries.capture());
+        assertEquals(sender, entries.getValue().get(0).getAccount());
+        assertEquals(Money.of("-75.00"), entries.getValue().get(0).getAmount());
+        assertEquals(receiver, entries.getValue().get(1).getAccount());
+        assertEquals(Money.of("75.00"), entries.getValue().get(1).getAmount());
+        verify(userRepository, never()).save(any(User.class));
+        verify(userRepository, never()).debitBalance(anyInt(), anyLong());
+        verify(userRepository).incrementVersions(List.of(sender.getId(), receiver.getId()));
+        verify(transactionManager).commit(transactionStatus);
+    }
+
+    @Test
+    void transfer_ShouldCheckBalanceOfLockedSenderInDatabase() {
+        // Arrange
+        balance(sender, 10000L);
+        balance(receiver, 5000L);
+        when(transactionRepository.save(any(Transaction.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        transferStrategy.transfer(creationDTO(sender.getId(), receiver.getId(), "30.00"));
+        // Another instance debited the sender meanwhile: its cached balance is stale
+        when(ledgerEntryRepository.findBalance(sender.getId())).thenReturn(Optional.of(1000L));
+
+        // Act & Assert
+        RuntimeException exception = assertThrows(RuntimeException.class,
+            () -> transferStrategy.transfer(creationDTO(sender.getId(), receiver.getId(), "20.00")));
+        assertEquals("Insufficient balance", exception.getMessage());
+        verify(userRepository, times(2)).findAllByIdForUpdate(List.of(sender.getId()));
+        verify(ledgerEntryRepository, times(1)).saveAll(anyList());
+        verify(transactionManager).rollback(transactionStatus);
+    }
+
+    @Test
+    void balanceOf_AfterTransfer_ShouldBeServedFromCache() {
+        // Arrange
+        balance(sender, 10000L);
+        balance(receiver, 5000L);
+        when(transactionRepository.save(any(Transaction.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        transferStrategy.transfer(creationDTO(sender.getId(), receiver.getId(), "30.00"));
+
+        // Act
+        Money senderBalance = transferStrategy.balanceOf(sender);
+        Money receiverBalance = transferStrategy.balanceOf(receiver);
+
+        // Assert
+        assertEquals(Money.of("70.00"), senderBalance);
+        assertEquals(Money.of("80.00"), receiverBalance);
+        verify(ledgerEntryRepository, times(1)).findBalance(sender.getId());
+        verify(ledgerEntryRepository, times(1)).findBalance(receiver.getId());
+    }
+
+    @Test
+    void transfer_WithInsufficientBalance_ShouldThrowExceptionWithoutWriting() {
+        // Arrange
+        balance(sender, 1000L);
+        balance(receiver, 5000L);
+
+        // Act & Assert
+        RuntimeException exception = assertThrows(RuntimeException.class,
+            () -> transferStrategy.transfer(creationDTO(sender.getId(), receiver.getId(), "20.00")));
+        assertEquals("Insufficient balance", exception.getMessage());
+        verify(transactionRepository, never()).save(any(Transaction.class));
+        verify(ledgerEntryRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    void transfer_WithNonExistingSenderOrReceiver_ShouldThrowException() {
+        // Arrange
+        balance(sender, 10000L);
+        when(ledgerEntryRepository.findBalance(999)).thenReturn(Optional.empty());
+
+        // Act & Assert
+        RuntimeException senderException = assertThrows(RuntimeException.class,
+            () -> transferStrategy.transfer(creationDTO(999, sender.getId(), "10.00")));
+        assertEquals("Sender with ID : 999 not found", senderException.getMessage());
+        RuntimeException receiverException = assertThrows(RuntimeException.class,
+            () -> transferStrategy.transfer(creationDTO(sender.getId(), 999, "10.00")));
+        assertEquals("Receiver with ID : 999 not found", receiverException.getMessage());
+        verify(transactionRepository, never()).save(any(Transaction.class));
+    }
+
+    @Test
+    void takeSnapshots_ShouldAddAndFlagEntriesNotSnapshotted() {
+        // Arrange
+        sender.setBalance(Money.of("100.00"));
+        when(ledgerEntryRepository.findAccountIdsToSnapshot(10)).thenReturn(List.of(sender.getId()));
+        when(userRepository.findAllByIdForUpdate(List.of(sender.getId()))).thenReturn(List.of(sender));
+        when(balanceSnapshotRepository.findById(sender.getId())).thenReturn(Optional.empty());
+        List<LedgerEntry> entries = List.of(entry("-30.00"), entry("10.00"));
+        when(ledgerEntryRepository.findNotSnapshotted(sender.getId())).thenReturn(entries);
+
+        // Act
+        transferStrategy.takeSnapshots();
+
+        // Assert
+        ArgumentCaptor<BalanceSnapshot> snapshot = ArgumentCaptor.forClass(BalanceSnapshot.class);
+        verify(balanceSnapshotRepository).save(snapshot.capture());
+        assertEquals(sender.getId(), snapshot.getValue().getAccountId());
+        assertEquals(Money.of("80.00"), snapshot.getValue().getBalance());
+        assertNotNull(snapshot.getValue().getTakenAt());
+        assertTrue(entries.stream().allMatch(LedgerEntry::isSnapshotted));
+        verify(transactionManager).commit(transactionStatus);
+    }
+
+    @Test
+    void takeSnapshots_WithPreviousSnapshot_ShouldStartFromIt() {
+        // Arrange
+        BalanceSnapshot previous = new BalanceSnapshot();
+        previous.setAccountId(sender.getId());
+        previous.setBalance(Money.of("300.00"));
+        when(ledgerEntryRepository.findAccountIdsToSnapshot(10)).thenReturn(List.of(sender.getId()));
+        when(userRepository.findAllByIdForUpdate(List.of(sender.getId()))).thenReturn(List.of(sender));
+        when(balanceSnapshotRepository.findById(sender.getId())).thenReturn(Optional.of(previous));
+        when(ledgerEntryRepository.findNotSnapshotted(sender.getId())).thenReturn(List.of(entry("-12.50")));
+
+        // Act
+        transferStrategy.takeSnapshots();
+
+        // Assert
+        verify(balanceSnapshotRepository).save(previous);
+        assertEquals(Money.of("287.50"), previous.getBalance());
+    }
+}
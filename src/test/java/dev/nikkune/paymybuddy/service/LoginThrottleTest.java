@@ -0,0 +1,59 @@
+package dev.nikkune.paymybuddy.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoginThrottleTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    // 3 attempts at once per email, then one every 10 seconds; 5 at once per address, then one a second
+    private final LoginThrottle loginThrottle = new LoginThrottle(meterRegistry, 3, 6, 5, 60, 1000);
+
+    @Test
+    void acquire_BeyondEmailBurst_ShouldRejectUntilRefilled() {
+        // Arrange
+        long now = 0;
+        for (int i = 0; i < 3; i++)
+            assertEquals(0, loginThrottle.acquire("alice@example.com", "192.0.2." + i, now));
+
+        // Act
+        long retryAfter = loginThrottle.acquire("Alice@Example.com", "192.0.2.9", now);
+        long afterRefill = loginThrottle.acquire("alice@example.com", "192.0.2.9", now + TimeUnit.SECONDS.toNanos(10));
+
+        // Assert
+        assertEquals(10, retryAfter);
+        assertEquals(0, afterRefill);
+        assertEquals(0, loginThrottle.acquire("bob@example.com", "192.0.2.9", now));
+        assertEquals(1, meterRegistry.get("paymybuddy.auth.throttle.rejected").tag("key", "email").counter().count());
+    }
+
+    @Test
+    void acquire_BeyondIpBurst_ShouldRejectAnyEmail() {
+        // Arrange
+        long now = 0;
+        for (int i = 0; i < 5; i++)
+            assertEquals(0, loginThrottle.acquire("user" + i + "@example.com", "192.0.2.1", now));
+
+        // Act
+        long retryAfter = loginThrottle.acquire("other@example.com", "192.0.2.1", now + TimeUnit.MILLISECONDS.toNanos(500));
+
+        // Assert
+        assertEquals(1, retryAfter);
+        assertEquals(0, loginThrottle.acquire("other@example.com", "192.0.2.2", now));
+        assertEquals(1, meterRegistry.get("paymybuddy.auth.throttle.rejected").tag("key", "ip").counter().count());
+    }
+
+    @Test
+    void acquire_WithZeroBurst_ShouldNotLimit() {
+        // Arrange
+        LoginThrottle unlimited = new LoginThrottle(new SimpleMeterRegistry(), 0, 1, 0, 1, 1000);
+
+        // Act & Assert
+        for (int i = 0; i < 100; i++)
+            assertEquals(0, unlimited.acquire("alice@example.com", "192.0.2.1", 0));
+    }
+}
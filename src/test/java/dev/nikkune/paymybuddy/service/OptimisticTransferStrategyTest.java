@@ -0,0 +1,130 @@
+package dev.nikkune.paymybuddy.service;
+
+import dev.nikkune.paymybuddy.dto.TransactionCreationDTO;
+import dev.nikkune.paymybuddy.model.Money;
+import dev.nikkune.paymybuddy.model.Transaction;
+import dev.nikkune.paymybuddy.model.User;
+import dev.nikkune.paymybuddy.repository.TransactionRepository;
+import dev.nikkune.paymybuddy.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+
+import java.util.List;
+import java.util.Optional;
+
+import static dev.nikkune.paymybuddy.service.TransferTestData.creationDTO;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OptimisticTransferStrategyTest {
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private TransactionStatus transactionStatus;
+
+    private OptimisticTransferStrategy transferStrategy;
+
+    private User sender;
+    private User receiver;
+
+    @BeforeEach
+    void setUp() {
+        TransferRetryExecutor retryExecutor = new TransferRetryExecutor(3, 0, 0, new SimpleMeterRegistry());
+        transferStrategy = new OptimisticTransferStrategy(transactionRepository, userRepository, retryExecutor, transactionManager);
+        lenient().when(transactionManager.getTransaction(any())).thenReturn(transactionStatus);
+
+        sender = new User();
+        sender.setId(1);
+        sender.setBalance(Money.of("500.00"));
+        receiver = new User();
+        receiver.setId(2);
+        receiver.setBalance(Money.of("500.00"));
+    }
+
+    @Test
+    void transfer_WithValidTransaction_ShouldCommitOnce() {
+        // Arrange
+        TransactionCreationDTO transactionCreationDTO = creationDTO(sender.getId(), receiver.getId(), "75.00");
+        when(userRepository.findById(sender.getId())).thenReturn(Optional.of(sender));
+        when(userRepository.findById(receiver.getId())).thenReturn(Optional.of(receiver));
+        when(transactionRepository.save(any(Transaction.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        Transaction result = transferStrategy.transfer(transactionCreationDTO);
+
+        // Assert
+        assertEquals(Money.of("75.00"), result.getAmount());
+        assertEquals(Money.of("425.00"), sender.getBalance());
+        assertEquals(Money.of("575.00"), receiver.getBalance());
+        verify(userRepository, never()).incrementVersions(any());
+        verify(transactionManager).commit(transactionStatus);
+    }
+
+    @Test
+    void transfer_ToSender_ShouldBumpVersionOfUnchangedUser() {
+        // Arrange
+        when(userRepository.findById(sender.getId())).thenReturn(Optional.of(sender));
+        when(transactionRepository.save(any(Transaction.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        transferStrategy.transfer(creationDTO(sender.getId(), sender.getId(), "75.00"));
+
+        // Assert
+        assertEquals(Money.of("500.00"), sender.getBalance());
+        verify(userRepository).incrementVersions(List.of(sender.getId()));
+        verify(transactionManager).commit(transactionStatus);
+    }
+
+    @Test
+    void transfer_WhenCommitConflicts_ShouldRetryInNewTransaction() {
+        // Arrange
+        TransactionCreationDTO transactionCreationDTO = creationDTO(sender.getId(), receiver.getId(), "75.00");
+        when(userRepository.findById(sender.getId())).thenReturn(Optional.of(sender));
+        when(userRepository.findById(receiver.getId())).thenReturn(Optional.of(receiver));
+        when(transactionRepository.save(any(Transaction.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        doThrow(new ObjectOptimisticLockingFailureException(User.class, sender.getId()))
+                .doNothing()
+                .when(transactionManager).commit(transactionStatus);
+
+        // Act
+        transferStrategy.transfer(transactionCreationDTO);
+
+        // Assert
+        verify(transactionManager, times(2)).getTransaction(any());
+        verify(userRepository, times(2)).findById(sender.getId());
+        verify(transactionManager, times(2)).commit(transactionStatus);
+    }
+
+    @Test
+    void transfer_WithInsufficientBalance_ShouldNotRetry() {
+        // Arrange
+        TransactionCreationDTO transactionCreationDTO = creationDTO(sender.getId(), receiver.getId(), "1000.00");
+        when(userRepository.findById(sender.getId())).thenReturn(Optional.of(sender));
+        when(userRepository.findById(receiver.getId())).thenReturn(Optional.of(receiver));
+
+        // Act & Assert
+        RuntimeException exception = assertThrows(RuntimeException.class,
+            () -> transferStrategy.transfer(transactionCreationDTO));
+        assertEquals("Insufficient balance", exception.getMessage());
+        verify(transactionManager, times(1)).getTransaction(any());
+        verify(transactionManager).rollback(transactionStatus);
+        verify(transactionRepository, never()).save(any(Transaction.class));
+    }
+}
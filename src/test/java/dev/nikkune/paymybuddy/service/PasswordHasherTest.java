@@ -0,0 +1,93 @@
+package dev.nikkune.paymybuddy.service;
+
+import dev.nikkune.paymybuddy.utils.PasswordUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PasswordHasherTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private PasswordHasher passwordHasher;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        passwordHasher.destroy();
+    }
+
+    @Test
+    void matches_WithEncodedPassword_ShouldReturnTrue() {
+        // Arrange
+        passwordHasher = new PasswordHasher(meterRegistry, 1, 1, 4, 100, 10);
+        String encodedPassword = passwordHasher.encode("password123");
+
+        // Act & Assert
+        assertTrue(passwordHasher.matches("password123", encodedPassword));
+        assertFalse(passwordHasher.matches("wrongpassword", encodedPassword));
+        assertEquals(2, meterRegistry.get("paymybuddy.auth.hash").tag("operation", "matches").timer().count());
+        assertFalse(passwordHasher.needsRehash(encodedPassword));
+        assertTrue(passwordHasher.needsRehash(PasswordUtil.encodePassword("password123")));
+    }
+
+    @Test
+    void costFor_ShouldChooseCostClosestToTarget() {
+        // Arrange
+        passwordHasher = new PasswordHasher(meterRegistry, 1, 1, 4, 100, 10);
+        long referenceNanos = TimeUnit.MILLISECONDS.toNanos(4);
+
+        // Act & Assert
+        // 4 ms at cost 8 gives 64 ms at cost 12 and 128 ms at cost 13
+        assertEquals(13, PasswordHasher.costFor(referenceNanos, 100, 10));
+        assertEquals(12, PasswordHasher.costFor(referenceNanos, 80, 10));
+        assertEquals(10, PasswordHasher.costFor(referenceNanos, 1, 10));
+        assertEquals(16, PasswordHasher.costFor(referenceNanos, 100_000, 10));
+    }
+
+    @Test
+    void encode_WithFullQueue_ShouldRejectOverflow() throws Exception {
+        // Arrange
+        passwordHasher = new PasswordHasher(meterRegistry, 1, 1, 10, 100, 10);
+        ExecutorService callers = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            String password = "password" + i;
+            results.add(callers.submit(() -> {
+                start.await();
+                return passwordHasher.encode(password);
+            }));
+        }
+
+        // Act
+        start.countDown();
+        int encoded = 0;
+        int rejected = 0;
+        for (Future<String> result : results) {
+            try {
+                assertNotNull(result.get(10, TimeUnit.SECONDS));
+                encoded++;
+            } catch (ExecutionException e) {
+                assertInstanceOf(RejectedExecutionException.class, e.getCause());
+                rejected++;
+            }
+        }
+        callers.shutdown();
+
+        // Assert
+        assertTrue(encoded >= 2);
+        assertTrue(rejected > 0);
+        assertEquals(rejected, meterRegistry.get("paymybuddy.auth.hash.rejected").counter().count());
+    }
+}
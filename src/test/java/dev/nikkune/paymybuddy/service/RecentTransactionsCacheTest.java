@@ -0,0 +1,193 @@
+package dev.nikkune.paymybuddy.service;
+
+import dev.nikkune.paymybuddy.dto.TransactionDTO;
+import dev.nikkune.paymybuddy.model.Money;
+import dev.nikkune.paymybuddy.model.Transaction;
+import dev.nikkune.paymybuddy.model.User;
+import dev.nikkune.paymybuddy.repository.TransactionRepository;
+import dev.nikkune.paymybuddy.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RecentTransactionsCacheTest {
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private TransactionArchive transactionArchive;
+
+    private SimpleMeterRegistry meterRegistry;
+    private RecentTransactionsCache recentTransactionsCache;
+
+    private User alice;
+    private User bob;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        // Nothing archived
+        lenient().when(transactionArchive.mergePage(anyList(), anyInt(), anyInt(), any(), any(), anyInt()))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+        recentTransactionsCache = new RecentTransactionsCache(transactionRepository, userRepository, transactionArchive, meterRegistry, 3, 100, 60000);
+
+        alice = new User();
+        alice.setId(1);
+        alice.setUsername("alice");
+        bob = new User();
+        bob.setId(2);
+        bob.setUsername("bob");
+    }
+
+    private List<TransactionDTO> transactionsWithIds(int... ids) {
+        List<TransactionDTO> transactions = new ArrayList<>();
+        for (int id : ids)
+            transactions.add(new TransactionDTO(id, "alice", "bob", "Transaction " + id, Money.of("1.00"), null));
+        return transactions;
+    }
+
+    private Transaction transaction(int id, User sender, User receiver) {
+        Transaction transaction = new Transaction();
+        transaction.setId(id);
+        transaction.setSender(sender);
+        transaction.setReceiver(receiver);
+        transaction.setAmount(Money.of("5.00"));
+        return transaction;
+    }
+
+    private void cached(User user, int... ids) {
+        when(userRepository.existsById(user.getId())).thenReturn(true);
+        when(transactionRepository.findPageByUserId(user.getId(), Integer.MAX_VALUE, 4)).thenReturn(transactionsWithIds(ids));
+        recentTransactionsCache.firstPage(user.getId(), 3);
+    }
+
+    @Test
+    void firstPage_WhenCached_ShouldNotQueryDatabaseAgain() {
+        // Arrange
+        cached(alice, 9, 7);
+
+        // Act
+        TransactionPage result = recentTransactionsCache.firstPage(alice.getId(), 2);
+
+        // Assert
+        assertEquals(List.of(9, 7), result.transactions().stream().map(TransactionDTO::getId).toList());
+        assertNull(result.nextCursor());
+        verify(transactionRepository, times(1)).findPageByUserId(anyInt(), anyInt(), anyInt());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("result", "hit").functionCounter().count());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("result", "miss").functionCounter().count());
+    }
+
+    @Test
+    void firstPage_WithOlderTransactions_ShouldReturnNextCursor() {
+        // Arrange
+        cached(alice, 9, 7, 5, 3);
+
+        // Act
+        TransactionPage fullPage = recentTransactionsCache.firstPage(alice.getId(), 3);
+        TransactionPage shortPage = recentTransactionsCache.firstPage(alice.getId(), 2);
+
+        // Assert
+        assertEquals(3, fullPage.transactions().size());
+        assertEquals(5, fullPage.nextCursor());
+        assertEquals(7, shortPage.nextCursor());
+    }
+
+    @Test
+    void firstPage_WithNonExistingUser_ShouldThrowException() {
+        // Arrange
+        when(userRepository.existsById(999)).thenReturn(false);
+
+        // Act & Assert
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> recentTransactionsCache.firstPage(999, 3));
+        assertEquals("User with ID : 999 not found", exception.getMessage());
+        verifyNoInteractions(transactionRepository);
+    }
+
+    @Test
+    void record_ShouldAddTransactionToSenderAndReceiverInIdOrder() {
+        // Arrange
+        cached(alice, 9, 5);
+        cached(bob);
+
+        // Act
+        recentTransactionsCache.record(transaction(12, alice, bob));
+        recentTransactionsCache.record(transaction(11, bob, alice));
+
+        // Assert
+        TransactionPage alicePage = recentTransactionsCache.firstPage(alice.getId(), 3);
+        assertEquals(List.of(12, 11, 9), alicePage.transactions().stream().map(TransactionDTO::getId).toList());
+        assertEquals(9, alicePage.nextCursor());
+        TransactionPage bobPage = recentTransactionsCache.firstPage(bob.getId(), 3);
+        assertEquals(List.of(12, 11), bobPage.transactions().stream().map(TransactionDTO::getId).toList());
+        assertEquals("bob", bobPage.transactions().get(1).getSenderUsername());
+        verify(transactionRepository, times(2)).findPageByUserId(anyInt(), anyInt(), anyInt());
+    }
+
+    @Test
+    void record_WhenNotCached_ShouldDoNothing() {
+        // Act
+        recentTransactionsCache.record(transaction(12, alice, bob));
+
+        // Assert
+        verifyNoInteractions(userRepository, transactionRepository);
+    }
+
+    @Test
+    void record_DuringLoad_ShouldAddTransactionOnceLoaded() throws Exception {
+        // Arrange
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(userRepository.existsById(alice.getId())).thenReturn(true);
+        // The snapshot predates transaction 12
+        when(transactionRepository.findPageByUserId(alice.getId(), Integer.MAX_VALUE, 4)).thenAnswer(invocation -> {
+            loading.countDown();
+            release.await();
+            return transactionsWithIds(9);
+        });
+        Thread reader = new Thread(() -> recentTransactionsCache.firstPage(alice.getId(), 3));
+        reader.start();
+        loading.await();
+
+        // Act
+        Thread writer = new Thread(() -> recentTransactionsCache.record(transaction(12, alice, bob)));
+        writer.start();
+        while (writer.getState() != Thread.State.BLOCKED && writer.getState() != Thread.State.TERMINATED)
+            Thread.onSpinWait();
+        release.countDown();
+        reader.join();
+        writer.join();
+
+        // Assert
+        TransactionPage page = recentTransactionsCache.firstPage(alice.getId(), 3);
+        assertEquals(List.of(12, 9), page.transactions().stream().map(TransactionDTO::getId).toList());
+    }
+
+    @Test
+    void usernameChanged_ShouldReloadTransactions() {
+        // Arrange
+        cached(alice, 9);
+
+        // Act
+        recentTransactionsCache.usernameChanged();
+        recentTransactionsCache.firstPage(alice.getId(), 3);
+
+        // Assert
+        verify(transactionRepository, times(2)).findPageByUserId(alice.getId(), Integer.MAX_VALUE, 4);
+    }
+}
@@ -0,0 +1,174 @@
+package dev.nikkune.paymybuddy.service;
+
+import dev.nikkune.paymybuddy.dto.TransactionCreationDTO;
+import dev.nikkune.paymybuddy.model.Money;
+import dev.nikkune.paymybuddy.model.Transaction;
+import dev.nikkune.paymybuddy.model.User;
+import dev.nikkune.paymybuddy.repository.TransactionRepository;
+import dev.nikkune.paymybuddy.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+
+import java.util.ArrayList;
+import java.util.Optional;
+
+import static dev.nikkune.paymybuddy.service.TransferTestData.creationDTO;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class StripedLockTransferStrategyTest {
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private TransactionStatus transactionStatus;
+
+    private AccountLockManager accountLockManager;
+    private StripedLockTransferStrategy transferStrategy;
+
+    private User sender;
+    private User receiver;
+    private Transaction transaction;
+
+    @BeforeEach
+    void setUp() {
+        accountLockManager = new AccountLockManager(4, new SimpleMeterRegistry());
+        transferStrategy = new StripedLockTransferStrategy(transactionRepository, userRepository, accountLockManager, transactionManager);
+        lenient().when(transactionManager.getTransaction(any())).thenReturn(transactionStatus);
+
+        // Create sender user
+        sender = new User();
+        sender.setId(1);
+        sender.setUsername("sender");
+        sender.setEmail("sender@example.com");
+        sender.setPassword("encodedPassword");
+        sender.setBalance(Money.of("500.00"));
+        sender.setConnections(new ArrayList<>());
+
+        // Create a receiver user
+        receiver = new User();
+        receiver.setId(2);
+        receiver.setUsername("receiver");
+        receiver.setEmail("receiver@example.com");
+        receiver.setPassword("encodedPassword");
+        receiver.setBalance(Money.of("500.00"));
+        receiver.setConnections(new ArrayList<>());
+
+        // Create transaction
+        transaction = new Transaction();
+        transaction.setId(1);
+        transaction.setSender(sender);
+        transaction.setReceiver(receiver);
+        transaction.setDescription("Test transaction");
+        transaction.setAmount(Money.of("100.00"));
+    }
+
+    @Test
+    void transfer_WithValidTransaction_ShouldAddTransaction() {
+        // Arrange
+        Money initialSenderBalance = sender.getBalance();
+        Money initialReceiverBalance = receiver.getBalance();
+        TransactionCreationDTO transactionCreationDTO = creationDTO(sender.getId(), receiver.getId(), "75.00");
+        Money transactionAmount = transactionCreationDTO.getAmount();
+
+        when(userRepository.findById(sender.getId())).thenReturn(Optional.of(sender));
+        when(userRepository.findById(receiver.getId())).thenReturn(Optional.of(receiver));
+        when(transactionRepository.save(any(Transaction.class))).thenReturn(transaction);
+
+        // Act
+        Transaction result = transferStrategy.transfer(transactionCreationDTO);
+
+        // Assert
+        assertEquals(transaction, result);
+        assertEquals(initialSenderBalance.minus(transactionAmount), sender.getBalance(), "Sender balance should be decreased by transaction amount");
+        assertEquals(initialReceiverBalance.plus(transactionAmount), receiver.getBalance(), "Receiver balance should be increased by transaction amount");
+        verify(userRepository).save(sender);
+        verify(userRepository).save(receiver);
+        verify(transactionRepository).save(any(Transaction.class));
+        verify(transactionManager).commit(transactionStatus);
+    }
+
+    @Test
+    void transfer_WithNonExistingSender_ShouldThrowException() {
+        // Arrange
+        TransactionCreationDTO transactionCreationDTO = creationDTO(999, receiver.getId(), "75.00");
+        when(userRepository.findById(999)).thenReturn(Optional.empty());
+
+        // Act & Assert
+        RuntimeException exception = assertThrows(RuntimeException.class,
+            () -> transferStrategy.transfer(transactionCreationDTO));
+        assertEquals("Sender with ID : " + 999 + " not found", exception.getMessage());
+        verify(userRepository, never()).findById(receiver.getId());
+        verify(transactionRepository, never()).save(any(Transaction.class));
+        verify(transactionManager).rollback(transactionStatus);
+    }
+
+    @Test
+    void transfer_WithNonExistingReceiver_ShouldThrowException() {
+        // Arrange
+        TransactionCreationDTO transactionCreationDTO = creationDTO(sender.getId(), 999, "75.00");
+        when(userRepository.findById(sender.getId())).thenReturn(Optional.of(sender));
+        when(userRepository.findById(999)).thenReturn(Optional.empty());
+
+        // Act & Assert
+        RuntimeException exception = assertThrows(RuntimeException.class,
+            () -> transferStrategy.transfer(transactionCreationDTO));
+        assertEquals("Receiver with ID : " + 999 + " not found", exception.getMessage());
+        verify(transactionRepository, never()).save(any(Transaction.class));
+    }
+
+    @Test
+    void transfer_WithInsufficientBalance_ShouldThrowException() {
+        // Arrange
+        TransactionCreationDTO transactionCreationDTO = creationDTO(sender.getId(), receiver.getId(), "1000.00");
+        when(userRepository.findById(sender.getId())).thenReturn(Optional.of(sender));
+        when(userRepository.findById(receiver.getId())).thenReturn(Optional.of(receiver));
+
+        // Act & Assert
+        RuntimeException exception = assertThrows(RuntimeException.class,
+            () -> transferStrategy.transfer(transactionCreationDTO));
+        assertEquals("Insufficient balance", exception.getMessage());
+
+        // Verify that balances remain unchanged
+        assertEquals(Money.of("500.00"), sender.getBalance());
+        assertEquals(Money.of("500.00"), receiver.getBalance());
+        verify(userRepository, never()).save(any(User.class));
+        verify(transactionRepository, never()).save(any(Transaction.class));
+    }
+
+    @Test
+    void transfer_ShouldHoldBothAccountLocksUntilCommit() {
+        // Arrange
+        TransactionCreationDTO transactionCreationDTO = creationDTO(sender.getId(), receiver.getId(), "75.00");
+        when(userRepository.findById(sender.getId())).thenReturn(Optional.of(sender));
+        when(userRepository.findById(receiver.getId())).thenReturn(Optional.of(receiver));
+        when(transactionRepository.save(any(Transaction.class))).thenReturn(transaction);
+        doAnswer(invocation -> {
+            assertTrue(accountLockManager.isHeldByCurrentThread(sender.getId()), "Sender lock should be held during commit");
+            assertTrue(accountLockManager.isHeldByCurrentThread(receiver.getId()), "Receiver lock should be held during commit");
+            return null;
+        }).when(transactionManager).commit(transactionStatus);
+
+        // Act
+        transferStrategy.transfer(transactionCreationDTO);
+
+        // Assert
+        assertFalse(accountLockManager.isHeldByCurrentThread(sender.getId()), "Sender lock should be released after commit");
+        assertFalse(accountLockManager.isHeldByCurrentThread(receiver.getId()), "Receiver lock should be released after commit");
+    }
+}
@@ -0,0 +1,210 @@
+package dev.nikkune.paymybuddy.service;
+
+import dev.nikkune.paymybuddy.dto.TransactionDTO;
+import dev.nikkune.paymybuddy.model.Money;
+import dev.nikkune.paymybuddy.repository.TransactionRepository;
+import dev.nikkune.paymybuddy.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionArchiveTest {
+    private static final Instant CUTOFF = Instant.parse("2026-01-01T00:00:00Z");
+
+    @Mock
+    private UserRepository userRepository;
+
+    @TempDir
+    private Path directory;
+
+    private EmbeddedDatabase database;
+    private JdbcTemplate jdbcTemplate;
+    private SimpleMeterRegistry meterRegistry;
+    private TransactionArchive transactionArchive;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .build();
+        jdbcTemplate = new JdbcTemplate(database);
+        jdbcTemplate.execute("CREATE TABLE transactions (id INTEGER PRIMARY KEY, sender_id INTEGER, receiver_id INTEGER, " +
+                "description VARCHAR(255), amount BIGINT, created_at TIMESTAMP)");
+        jdbcTemplate.update("INSERT INTO transactions VALUES (10, 1, 2, 'Lunch 🍕', 1250, '2025-03-01 12:00:00'), " +
+                "(11, 2, 1, NULL, 4000, '2025-06-01 08:30:00'), (12, 2, 3, 'Not for alice', 100, '2025-07-01 00:00:00'), " +
+                "(13, 1, 2, 'Recent', 5, '2026-03-01 00:00:00')");
+        lenient().when(userRepository.findUsernamesByIds(anyCollection())).thenReturn(List.of(
+                new Object[]{1, "alice"}, new Object[]{2, "bob"}, new Object[]{3, "carol"}));
+
+        meterRegistry = new SimpleMeterRegistry();
+        transactionArchive = archive();
+        transactionArchive.afterPropertiesSet();
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.shutdown();
+    }
+
+    private TransactionArchive archive() {
+        return new TransactionArchive(jdbcTemplate, new DataSourceTransactionManager(database), userRepository,
+                meterRegistry, true, directory.toString(), false, 30, 100);
+    }
+
+    private List<Integer> remainingIds() {
+        return jdbcTemplate.queryForList("SELECT id FROM transactions ORDER BY id", Integer.class);
+    }
+
+    private static List<Integer> ids(List<TransactionDTO> transactions) {
+        return transactions.stream().map(TransactionDTO::getId).toList();
+    }
+
+    @Test
+    void archiveBatch_ShouldMoveOldTransactionsToSegment() throws Exception {
+        // Act
+        int archived = transactionArchive.archiveBatch(CUTOFF);
+
+        // Assert
+        assertEquals(3, archived);
+        assertEquals(List.of(13), remainingIds());
+        List<TransactionDTO> page = transactionArchive.mergePage(List.of(), 1, Integer.MAX_VALUE,
+                TransactionRepository.HISTORY_START, TransactionRepository.HISTORY_END, 10);
+        assertEquals(List.of(11, 10), ids(page));
+        assertEquals(new TransactionDTO(10, "alice", "bob", "Lunch 🍕", Money.of("12.50"), Instant.parse("2025-03-01T12:00:00Z")), page.get(1));
+        assertNull(page.get(0).getDescription());
+        assertEquals(1.0, meterRegistry.get("paymybuddy.transactions.archive.segments").gauge().value());
+    }
+
+    @Test
+    void mergePage_ShouldMergeTiersNewestFirstWithinRange() throws Exception {
+        // Arrange
+        transactionArchive.archiveBatch(CUTOFF);
+        List<TransactionDTO> hot = List.of(
+                new TransactionDTO(13, "alice", "bob", "Recent", Money.of("0.05"), Instant.parse("2026-03-01T00:00:00Z")),
+                // Still in the database while its batch is archived
+                new TransactionDTO(11, "bob", "alice", null, Money.of("40.00"), Instant.parse("2025-06-01T08:30:00Z")));
+
+        // Act
+        List<TransactionDTO> page = transactionArchive.mergePage(hot, 2, Integer.MAX_VALUE,
+                TransactionRepository.HISTORY_START, TransactionRepository.HISTORY_END, 3);
+        List<TransactionDTO> range = transactionArchive.mergePage(List.of(), 2, 12,
+                Instant.parse("2025-04-01T00:00:00Z"), CUTOFF, 3);
+
+        // Assert
+        assertEquals(List.of(13, 12, 11), ids(page));
+        assertEquals(List.of(11), ids(range));
+    }
+
+    @Test
+    void mergePage_OnReadOnlyInstance_ShouldLoadSegmentWrittenSinceLastLoad() throws Exception {
+        // Arrange
+        TransactionArchive reader = new TransactionArchive(jdbcTemplate, new DataSourceTransactionManager(database), userRepository,
+                new SimpleMeterRegistry(), true, directory.toString(), true, 30, 100);
+        reader.afterPropertiesSet();
+        transactionArchive.archiveBatch(CUTOFF);
+
+        // Act
+        List<TransactionDTO> page = reader.mergePage(List.of(), 1, Integer.MAX_VALUE,
+                TransactionRepository.HISTORY_START, TransactionRepository.HISTORY_END, 10);
+
+        // Assert
+        assertEquals(List.of(11, 10), ids(page));
+        assertEquals(List.of(10, 11), ids(reader.mergeAll(List.of(), 1)));
+    }
+
+    @Test
+    void afterPropertiesSet_ShouldReopenSegmentsAndCompleteInterruptedArchiving() throws Exception {
+        // Arrange
+        transactionArchive.archiveBatch(CUTOFF);
+        // Stopped before the delete was committed
+        jdbcTemplate.update("INSERT INTO transactions VALUES (12, 2, 3, 'Not for alice', 100, '2025-07-01 00:00:00')");
+        jdbcTemplate.update("INSERT INTO transactions VALUES (10, 1, 2, 'Lunch 🍕', 1250, '2025-03-01 12:00:00')");
+
+        // Act
+        TransactionArchive reopened = archive();
+        reopened.afterPropertiesSet();
+
+        // Assert
+        assertEquals(List.of(13), remainingIds());
+        assertEquals(List.of(10, 11, 12), reopened.rows(2).stream().map(ArchiveSegment.Row::id).toList());
+        assertEquals(List.of(10, 11), ids(reopened.mergeAll(List.of(), 1)));
+    }
+
+    @Test
+    void iterateByUserId_ShouldInflateOneBlockAtATime() throws Exception {
+        // Arrange
+        TransactionArchive singleRowBatches = new TransactionArchive(jdbcTemplate, new DataSourceTransactionManager(database),
+                userRepository, meterRegistry, true, directory.toString(), false, 30, 1);
+        singleRowBatches.afterPropertiesSet();
+        for (int i = 0; i < 3; i++)
+            singleRowBatches.archiveBatch(CUTOFF);
+
+        // Act
+        Iterator<TransactionDTO> transactions = singleRowBatches.iterateByUserId(2, 11, Integer.MAX_VALUE);
+        TransactionDTO first = transactions.next();
+
+        // Assert
+        assertEquals(11, first.getId());
+        verify(userRepository, times(1)).findUsernamesByIds(anyCollection());
+        assertEquals(12, transactions.next().getId());
+        assertFalse(transactions.hasNext());
+        verify(userRepository, times(2)).findUsernamesByIds(anyCollection());
+    }
+
+    @Test
+    void archiveBatch_WhenDeleteFails_ShouldRemoveSegment() throws Exception {
+        // Arrange
+        jdbcTemplate.execute("CREATE TABLE ledger_entries (id INTEGER PRIMARY KEY, transaction_id INTEGER REFERENCES transactions(id))");
+        jdbcTemplate.update("INSERT INTO ledger_entries VALUES (1, 11)");
+
+        // Act & Assert
+        assertThrows(DataIntegrityViolationException.class, () -> transactionArchive.archiveBatch(CUTOFF));
+        assertEquals(List.of(10, 11, 12, 13), remainingIds());
+        assertTrue(transactionArchive.rows(1).isEmpty());
+        try (var files = Files.list(directory)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void archive_WhenSegmentCannotBeWritten_ShouldRemoveTemporaryFile() throws Exception {
+        // Arrange
+        // The segment cannot be renamed over a directory that is not empty
+        Path blocking = Files.createDirectory(directory.resolve("segment-0000000001.seg"));
+        Files.createFile(blocking.resolve("file"));
+
+        // Act
+        assertThrows(IOException.class, () -> transactionArchive.archiveBatch(CUTOFF));
+        assertDoesNotThrow(() -> transactionArchive.archive());
+
+        // Assert
+        assertEquals(List.of(10, 11, 12, 13), remainingIds());
+        try (var files = Files.list(directory)) {
+            assertEquals(List.of(blocking), files.toList());
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package dev.nikkune.paymybuddy.service;
+
+import com.fasterxml.jackson.databind.SerializationFeature;
+import dev.nikkune.paymybuddy.dto.TransactionDTO;
+import dev.nikkune.paymybuddy.model.Money;
+import dev.nikkune.paymybuddy.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionExporterTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private TransactionArchive transactionArchive;
+
+    private EmbeddedDatabase database;
+    private TransactionExporter transactionExporter;
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .build();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(database);
+        jdbcTemplate.execute("CREATE TABLE users (id INTEGER PRIMARY KEY, username VARCHAR(255))");
+        jdbcTemplate.execute("CREATE TABLE transactions (id INTEGER PRIMARY KEY, sender_id INTEGER, receiver_id INTEGER, " +
+                "description VARCHAR(255), amount BIGINT, created_at TIMESTAMP)");
+        jdbcTemplate.update("INSERT INTO users VALUES (1, 'alice'), (2, 'bob'), (3, 'carol')");
+        jdbcTemplate.update("INSERT INTO transactions VALUES (10, 1, 2, 'Lunch', 1250, '2026-09-30 12:00:00'), " +
+                "(11, 2, 1, 'Tickets, \"front row\"', 4000, '2026-10-01 08:30:00'), (12, 2, 3, 'Not for alice', 100, '2026-10-02 00:00:00'), " +
+                "(13, 3, 1, NULL, 5, '2026-10-03 00:00:00'), (14, 1, 1, 'To myself', 1, '2026-10-04 00:00:00')");
+        lenient().when(transactionArchive.iterateByUserId(anyInt(), anyInt(), anyInt())).thenReturn(Collections.emptyIterator());
+
+        transactionExporter = new TransactionExporter(database, userRepository, transactionArchive,
+                // Configured as the ObjectMapper of Spring Boot
+                Jackson2ObjectMapperBuilder.json().featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).build(), 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.shutdown();
+    }
+
+    @Test
+    void export_AsCsv_ShouldWriteEveryTransactionOfUser() throws Exception {
+        // Arrange
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        // Act
+        long exported = transactionExporter.export(1, null, null, TransactionExporter.Format.CSV, outputStream);
+
+        // Assert
+        assertEquals(4, exported);
+        assertEquals("""
+                id,sender,receiver,description,amount,created_at
+                10,alice,bob,Lunch,12.50,2026-09-30T12:00:00Z
+                11,bob,alice,"Tickets, ""front row\"\"",40.00,2026-10-01T08:30:00Z
+                13,carol,alice,,0.05,2026-10-03T00:00:00Z
+                14,alice,alice,To myself,0.01,2026-10-04T00:00:00Z
+                """, outputStream.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void export_AsNdjsonWithIdRange_ShouldWriteOneObjectPerLine() throws Exception {
+        // Arrange
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        // Act
+        long exported = transactionExporter.export(1, 11, 13, TransactionExporter.Format.NDJSON, outputStream);
+
+        // Assert
+        assertEquals(2, exported);
+        String[] lines = outputStream.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertEquals("{\"id\":11,\"senderUsername\":\"bob\",\"receiverUsername\":\"alice\",\"description\":\"Tickets, \\\"front row\\\"\",\"amount\":40.00,\"createdAt\":\"2026-10-01T08:30:00Z\"}", lines[0]);
+        assertTrue(lines[1].startsWith("{\"id\":13,"));
+    }
+
+    @Test
+    void export_WithArchivedTransactions_ShouldWriteThemInIdOrder() throws Exception {
+        // Arrange
+        when(transactionArchive.iterateByUserId(1, 0, Integer.MAX_VALUE)).thenReturn(List.of(
+                new TransactionDTO(5, "alice", "bob", "Old", Money.of("1.00"), Instant.parse("2025-01-01T00:00:00Z")),
+                new TransactionDTO(11, "bob", "alice", "Tickets, \"front row\"", Money.of("40.00"), Instant.parse("2026-10-01T08:30:00Z")),
+                new TransactionDTO(20, "bob", "alice", "Archived late", Money.of("2.00"), Instant.parse("2025-02-01T00:00:00Z"))).iterator());
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        // Act
+        long exported = transactionExporter.export(1, null, null, TransactionExporter.Format.CSV, outputStream);
+
+        // Assert
+        assertEquals(6, exported);
+        String[] lines = outputStream.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(List.of("5", "10", "11", "13", "14", "20"),
+                Arrays.stream(lines).skip(1).map(line -> line.substring(0, line.indexOf(','))).toList());
+    }
+
+    @Test
+    void checkExport_WithNonExistingUser_ShouldThrowException() {
+        // Arrange
+        when(userRepository.existsById(999)).thenReturn(false);
+
+        // Act & Assert
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> transactionExporter.checkExport(999, null, null));
+        assertEquals("User with ID : 999 not found", exception.getMessage());
+    }
+
+    @Test
+    void checkExport_WithEmptyRange_ShouldThrowException() {
+        // Act & Assert
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> transactionExporter.checkExport(1, 20, 10));
+        assertEquals("fromId must not be greater than toId", exception.getMessage());
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void format_WithUnknownName_ShouldThrowException() {
+        // Act & Assert
+        assertEquals(TransactionExporter.Format.NDJSON, TransactionExporter.Format.of("NDJson"));
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> TransactionExporter.Format.of("xlsx"));
+        assertEquals("Unsupported export format : xlsx", exception.getMessage());
+    }
+}
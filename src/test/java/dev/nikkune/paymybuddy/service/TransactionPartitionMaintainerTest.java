@@ -0,0 +1,114 @@
+package dev.nikkune.paymybuddy.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionPartitionMaintainerTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private TransactionArchive transactionArchive;
+
+    @Test
+    void maintainPartitions_ShouldSplitComingMonthsOutOfFuturePartition() {
+        // Arrange
+        TransactionPartitionMaintainer maintainer = new TransactionPartitionMaintainer(jdbcTemplate, transactionArchive, true, 2, 0);
+        when(jdbcTemplate.queryForList(TransactionPartitionMaintainer.PARTITIONS_QUERY, String.class))
+                .thenReturn(List.of("p_legacy", "p202610", "p202611", "p_future"));
+
+        // Act
+        maintainer.maintainPartitions(YearMonth.of(2026, 11));
+
+        // Assert
+        verify(jdbcTemplate).execute("ALTER TABLE transactions REORGANIZE PARTITION p_future INTO (" +
+                "PARTITION p202612 VALUES LESS THAN ('2027-01-01'), PARTITION p202701 VALUES LESS THAN ('2027-02-01'), " +
+                "PARTITION p_future VALUES LESS THAN (MAXVALUE))");
+        verifyNoMoreInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void maintainPartitions_WithRetention_ShouldDropExpiredMonths() {
+        // Arrange
+        TransactionPartitionMaintainer maintainer = new TransactionPartitionMaintainer(jdbcTemplate, transactionArchive, true, 1, 2);
+        when(jdbcTemplate.queryForList(TransactionPartitionMaintainer.PARTITIONS_QUERY, String.class))
+                .thenReturn(List.of("p202607", "p202608", "p202609", "p202610", "p202611", "p_future"));
+
+        // Act
+        maintainer.maintainPartitions(YearMonth.of(2026, 10));
+
+        // Assert
+        verify(jdbcTemplate).execute("ALTER TABLE transactions DROP PARTITION p202607");
+        verify(jdbcTemplate, never()).execute(startsWith("ALTER TABLE transactions REORGANIZE"));
+    }
+
+    @Test
+    void maintainPartitions_WithArchive_ShouldOnlyDropArchivedMonths() {
+        // Arrange
+        when(transactionArchive.isEnabled()).thenReturn(true);
+        when(transactionArchive.getMinAge()).thenReturn(Duration.ofDays(30));
+        TransactionPartitionMaintainer maintainer = new TransactionPartitionMaintainer(jdbcTemplate, transactionArchive, true, 1, 2);
+        when(jdbcTemplate.queryForList(TransactionPartitionMaintainer.PARTITIONS_QUERY, String.class))
+                .thenReturn(List.of("p202606", "p202607", "p202608", "p202609", "p202610", "p202611", "p_future"));
+        // The archiver has not reached July yet
+        when(jdbcTemplate.queryForObject("SELECT EXISTS (SELECT 1 FROM transactions PARTITION (p202606))", Integer.class)).thenReturn(0);
+        when(jdbcTemplate.queryForObject("SELECT EXISTS (SELECT 1 FROM transactions PARTITION (p202607))", Integer.class)).thenReturn(1);
+
+        // Act
+        maintainer.maintainPartitions(YearMonth.of(2026, 10));
+
+        // Assert
+        verify(jdbcTemplate).execute("ALTER TABLE transactions DROP PARTITION p202606");
+    }
+
+    @Test
+    void constructor_WithRetentionShorterThanArchiveMinAge_ShouldThrowException() {
+        // Arrange
+        when(transactionArchive.isEnabled()).thenReturn(true);
+        when(transactionArchive.getMinAge()).thenReturn(Duration.ofDays(365));
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> new TransactionPartitionMaintainer(jdbcTemplate, transactionArchive, true, 3, 12));
+        assertDoesNotThrow(() -> new TransactionPartitionMaintainer(jdbcTemplate, transactionArchive, true, 3, 14));
+        assertDoesNotThrow(() -> new TransactionPartitionMaintainer(jdbcTemplate, transactionArchive, true, 3, 0));
+    }
+
+    @Test
+    void maintainPartitions_WhenTableIsNotPartitioned_ShouldNotAlterTable() {
+        // Arrange
+        TransactionPartitionMaintainer maintainer = new TransactionPartitionMaintainer(jdbcTemplate, transactionArchive, true, 3, 12);
+        when(jdbcTemplate.queryForList(TransactionPartitionMaintainer.PARTITIONS_QUERY, String.class)).thenReturn(List.of());
+
+        // Act
+        maintainer.maintainPartitions();
+
+        // Assert
+        verify(jdbcTemplate, never()).execute(anyString());
+    }
+
+    @Test
+    void maintainPartitions_WhenDisabled_ShouldNotQueryDatabase() {
+        // Arrange
+        TransactionPartitionMaintainer maintainer = new TransactionPartitionMaintainer(jdbcTemplate, transactionArchive, false, 3, 0);
+
+        // Act
+        maintainer.maintainPartitions();
+
+        // Assert
+        verifyNoInteractions(jdbcTemplate);
+    }
+}
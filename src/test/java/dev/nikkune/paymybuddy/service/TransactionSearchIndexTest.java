@@ -0,0 +1,135 @@
+package dev.nikkune.paymybuddy.service;
+
+import dev.nikkune.paymybuddy.model.Money;
+import dev.nikkune.paymybuddy.model.Transaction;
+import dev.nikkune.paymybuddy.model.User;
+import dev.nikkune.paymybuddy.repository.TransactionRepository;
+import dev.nikkune.paymybuddy.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionSearchIndexTest {
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private TransactionArchive transactionArchive;
+
+    private SimpleMeterRegistry meterRegistry;
+    private TransactionSearchIndex transactionSearchIndex;
+
+    private User alice;
+    private User bob;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        transactionSearchIndex = new TransactionSearchIndex(transactionRepository, userRepository, transactionArchive, meterRegistry, 1000, 60000);
+
+        alice = new User();
+        alice.setId(1);
+        bob = new User();
+        bob.setId(2);
+    }
+
+    private void indexed(User user, Object[]... rows) {
+        when(userRepository.existsById(user.getId())).thenReturn(true);
+        when(transactionRepository.findDescriptionRowsByUserId(user.getId())).thenReturn(List.of(rows));
+    }
+
+    private Transaction transaction(int id, String description) {
+        Transaction transaction = new Transaction();
+        transaction.setId(id);
+        transaction.setSender(alice);
+        transaction.setReceiver(bob);
+        transaction.setDescription(description);
+        transaction.setAmount(Money.of("5.00"));
+        return transaction;
+    }
+
+    @Test
+    void terms_ShouldSplitLowerCaseWordsWithoutAccents() {
+        // Act & Assert
+        assertEquals(List.of("cafe", "creme", "2x"), TransactionSearchIndex.terms("Café-CRÈME, 2x café!"));
+        assertEquals(List.of(), TransactionSearchIndex.terms("  -- "));
+        assertEquals(List.of(), TransactionSearchIndex.terms(null));
+    }
+
+    @Test
+    void search_ShouldMatchPrefixesOfEveryTermNewestFirst() {
+        // Arrange
+        indexed(alice,
+                new Object[]{3, "Pizza night"},
+                new Object[]{7, "Rent October"},
+                new Object[]{9, "Pizzeria with Bob"},
+                new Object[]{12, "Night bus"});
+
+        // Act
+        List<Integer> pizza = transactionSearchIndex.search(alice.getId(), "piz", 10);
+        List<Integer> pizzaNight = transactionSearchIndex.search(alice.getId(), "PIZ nig", 10);
+        List<Integer> limited = transactionSearchIndex.search(alice.getId(), "n", 1);
+        List<Integer> none = transactionSearchIndex.search(alice.getId(), "pizza rent", 10);
+
+        // Assert
+        assertEquals(List.of(9, 3), pizza);
+        assertEquals(List.of(3), pizzaNight);
+        assertEquals(List.of(12), limited);
+        assertEquals(List.of(), none);
+        verify(transactionRepository, times(1)).findDescriptionRowsByUserId(alice.getId());
+        assertEquals(3.0, meterRegistry.get("cache.gets").tag("result", "hit").functionCounter().count());
+    }
+
+    @Test
+    void search_WithNonExistingUser_ShouldThrowException() {
+        // Arrange
+        when(userRepository.existsById(999)).thenReturn(false);
+
+        // Act & Assert
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> transactionSearchIndex.search(999, "rent", 10));
+        assertEquals("User with ID : 999 not found", exception.getMessage());
+        verifyNoInteractions(transactionRepository);
+    }
+
+    @Test
+    void record_ShouldAddTransactionToIndexedUsersInIdOrder() {
+        // Arrange
+        indexed(alice, new Object[]{5, "Rent September"});
+        indexed(bob);
+        transactionSearchIndex.search(alice.getId(), "rent", 10);
+        transactionSearchIndex.search(bob.getId(), "rent", 10);
+
+        // Act
+        transactionSearchIndex.record(transaction(11, "Rent November"));
+        transactionSearchIndex.record(transaction(8, "Rent October"));
+        transactionSearchIndex.record(transaction(8, "Rent October"));
+
+        // Assert
+        assertEquals(List.of(11, 8, 5), transactionSearchIndex.search(alice.getId(), "rent", 10));
+        assertEquals(List.of(11, 8), transactionSearchIndex.search(bob.getId(), "rent", 10));
+        verify(transactionRepository, times(2)).findDescriptionRowsByUserId(anyInt());
+    }
+
+    @Test
+    void record_WhenNotIndexed_ShouldDoNothing() {
+        // Act
+        transactionSearchIndex.record(transaction(11, "Rent November"));
+
+        // Assert
+        verifyNoInteractions(userRepository, transactionRepository);
+    }
+}
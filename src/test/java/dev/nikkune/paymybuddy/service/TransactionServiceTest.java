@@ -1,6 +1,8 @@
 package dev.nikkune.paymybuddy.service;
 
 import dev.nikkune.paymybuddy.dto.TransactionCreationDTO;
+import dev.nikkune.paymybuddy.dto.TransactionDTO;
+import dev.nikkune.paymybuddy.model.Money;
 import dev.nikkune.paymybuddy.model.Transaction;
 import dev.nikkune.paymybuddy.model.User;
 import dev.nikkune.paymybuddy.repository.TransactionRepository;
@@ -12,13 +14,15 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.*;
-import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -30,6 +34,27 @@ class TransactionServiceTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private ITransferStrategy transferStrategy;
+
+    @Mock
+    private BatchTransferProcessor batchTransferProcessor;
+
+    @Mock
+    private GroupCommitWriter groupCommitWriter;
+
+    @Mock
+    private RecentTransactionsCache recentTransactionsCache;
+
+    @Mock
+    private UserStatsAccumulator userStatsAccumulator;
+
+    @Mock
+    private TransactionSearchIndex transactionSearchIndex;
+
+    @Mock
+    private TransactionArchive transactionArchive;
+
     @InjectMocks
     private TransactionService transactionService;
 
@@ -39,13 +64,18 @@ class TransactionServiceTest {
 
     @BeforeEach
     void setUp() {
+        // Nothing archived
+        lenient().when(transactionArchive.mergePage(anyList(), anyInt(), anyInt(), any(), any(), anyInt()))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+        lenient().when(transactionArchive.mergeAll(anyList(), anyInt())).thenAnswer(invocation -> invocation.getArgument(0));
+
         // Create sender user
         sender = new User();
         sender.setId(1);
         sender.setUsername("sender");
         sender.setEmail("sender@example.com");
         sender.setPassword("encodedPassword");
-        sender.setBalance(500.0);
+        sender.setBalance(Money.of("500.00"));
         sender.setConnections(new ArrayList<>());
 
         // Create a receiver user
@@ -54,7 +84,7 @@ class TransactionServiceTest {
         receiver.setUsername("receiver");
         receiver.setEmail("receiver@example.com");
         receiver.setPassword("encodedPassword");
-        receiver.setBalance(500.0);
+        receiver.setBalance(Money.of("500.00"));
         receiver.setConnections(new ArrayList<>());
 
         // Create transaction
@@ -63,7 +93,7 @@ class TransactionServiceTest {
         transaction.setSender(sender);
         transaction.setReceiver(receiver);
         transaction.setDescription("Test transaction");
-        transaction.setAmount(100.0);
+        transaction.setAmount(Money.of("100.00"));
     }
 
     @Test
@@ -90,23 +120,22 @@ class TransactionServiceTest {
     @Test
     void getTransactionsByUserId_WithExistingId_ShouldReturnTransactions() {
         // Arrange
-        List<Transaction> sentTransactions = Arrays.asList(transaction);
-        List<Transaction> receivedTransactions = new ArrayList<>();
-        List<Transaction> allTransactions = new ArrayList<>();
-        allTransactions.addAll(sentTransactions);
-        allTransactions.addAll(receivedTransactions);
+        TransactionDTO transactionDTO = new TransactionDTO(transaction.getId(), sender.getUsername(), receiver.getUsername(),
+                transaction.getDescription(), transaction.getAmount(), transaction.getCreatedAt());
+        List<TransactionDTO> allTransactions = Arrays.asList(transactionDTO);
 
         when(userRepository.findById(sender.getId())).thenReturn(Optional.of(sender));
-        when(transactionRepository.findBySenderIdOrReceiverId(sender.getId(),sender.getId())).thenReturn(allTransactions);
+        when(transactionRepository.findDTOsByUserId(sender.getId())).thenReturn(allTransactions);
 
         // Act
-        List<Transaction> result = transactionService.getTransactionsByUserId(sender.getId());
+        List<TransactionDTO> result = transactionService.getTransactionsByUserId(sender.getId());
 
         // Assert
         assertEquals(1, result.size());
-        assertEquals(transaction, result.getFirst());
+        assertEquals(transactionDTO, result.getFirst());
+        assertEquals(receiver.getUsername(), result.getFirst().getReceiverUsername());
         verify(userRepository).findById(sender.getId());
-        verify(transactionRepository).findBySenderIdOrReceiverId(sender.getId(),sender.getId());
+        verify(transactionRepository).findDTOsByUserId(sender.getId());
     }
 
     @Test
@@ -118,103 +147,280 @@ class TransactionServiceTest {
         RuntimeException exception = assertThrows(RuntimeException.class, () -> transactionService.getTransactionsByUserId(999));
         assertEquals("User with ID : 999 not found", exception.getMessage());
         verify(userRepository).findById(999);
-        verify(transactionRepository, never()).findBySenderIdOrReceiverId(anyInt(), anyInt());
+        verify(transactionRepository, never()).findDTOsByUserId(anyInt());
+    }
+
+    private List<TransactionDTO> transactionsWithIds(int fromId, int count) {
+        List<TransactionDTO> transactions = new ArrayList<>();
+        for (int id = fromId; id > fromId - count; id--) {
+            TransactionDTO pageTransaction = new TransactionDTO();
+            pageTransaction.setId(id);
+            transactions.add(pageTransaction);
+        }
+        return transactions;
+    }
+
+    @Test
+    void getTransactionHistory_WithMoreTransactions_ShouldReturnPageAndNextCursor() {
+        // Arrange
+        when(userRepository.findById(sender.getId())).thenReturn(Optional.of(sender));
+        when(transactionRepository.findPageByUserId(sender.getId(), Integer.MAX_VALUE, TransactionRepository.HISTORY_START, TransactionRepository.HISTORY_END, 3))
+                .thenReturn(transactionsWithIds(50, 3));
+
+        // Act
+        TransactionPage result = transactionService.getTransactionHistory(sender.getId(), null, 2, null, null);
+
+        // Assert
+        assertEquals(2, result.transactions().size());
+        assertEquals(50, result.transactions().get(0).getId());
+        assertEquals(49, result.nextCursor());
+    }
+
+    @Test
+    void getTransactionHistory_OnLastPage_ShouldReturnNoCursor() {
+        // Arrange
+        when(userRepository.findById(sender.getId())).thenReturn(Optional.of(sender));
+        when(transactionRepository.findPageByUserId(sender.getId(), 49, TransactionRepository.HISTORY_START, TransactionRepository.HISTORY_END, TransactionService.DEFAULT_HISTORY_LIMIT + 1))
+                .thenReturn(transactionsWithIds(12, 2));
+
+        // Act
+        TransactionPage result = transactionService.getTransactionHistory(sender.getId(), 49, null, null, null);
+
+        // Assert
+        assertEquals(2, result.transactions().size());
+        assertNull(result.nextCursor());
+    }
+
+    @Test
+    void getTransactionHistory_WithLimitAboveMaximum_ShouldCapLimit() {
+        // Arrange
+        when(userRepository.findById(sender.getId())).thenReturn(Optional.of(sender));
+        when(transactionRepository.findPageByUserId(sender.getId(), Integer.MAX_VALUE, TransactionRepository.HISTORY_START, TransactionRepository.HISTORY_END, TransactionService.MAX_HISTORY_LIMIT + 1))
+                .thenReturn(List.of());
+
+        // Act
+        TransactionPage result = transactionService.getTransactionHistory(sender.getId(), null, 100_000, null, null);
+
+        // Assert
+        assertTrue(result.transactions().isEmpty());
+        assertNull(result.nextCursor());
     }
 
     @Test
-    void addTransaction_WithValidTransaction_ShouldAddTransaction() {
+    void getTransactionHistory_WithNonPositiveLimit_ShouldThrowException() {
+        // Act & Assert
+        RuntimeException exception = assertThrows(RuntimeException.class,
+            () -> transactionService.getTransactionHistory(sender.getId(), null, 0, null, null));
+        assertEquals("Limit must be positive", exception.getMessage());
+        verifyNoInteractions(transactionRepository);
+    }
+
+    @Test
+    void getTransactionHistory_WithDateRange_ShouldReadRangeFromDatabase() {
         // Arrange
-        double initialSenderBalance = sender.getBalance();
-        double initialReceiverBalance = receiver.getBalance();
-        double transactionAmount = 75.0;
+        Instant from = Instant.parse("2026-09-01T00:00:00Z");
+        Instant to = Instant.parse("2026-10-01T00:00:00Z");
+        when(userRepository.findById(sender.getId())).thenReturn(Optional.of(sender));
+        when(transactionRepository.findPageByUserId(sender.getId(), Integer.MAX_VALUE, from, to, TransactionService.DEFAULT_HISTORY_LIMIT + 1))
+                .thenReturn(transactionsWithIds(30, 1));
+
+        // Act
+        TransactionPage result = transactionService.getTransactionHistory(sender.getId(), null, null, from, to);
+
+        // Assert
+        assertEquals(1, result.transactions().size());
+        verifyNoInteractions(recentTransactionsCache);
+    }
+
+    @Test
+    void getTransactionHistory_WithArchivedTransactions_ShouldMergeThemIntoPage() {
+        // Arrange
+        List<TransactionDTO> hot = transactionsWithIds(50, 1);
+        List<TransactionDTO> merged = transactionsWithIds(50, 3);
+        when(userRepository.findById(sender.getId())).thenReturn(Optional.of(sender));
+        when(transactionRepository.findPageByUserId(sender.getId(), Integer.MAX_VALUE, TransactionRepository.HISTORY_START, TransactionRepository.HISTORY_END, 3))
+                .thenReturn(hot);
+        when(transactionArchive.mergePage(hot, sender.getId(), Integer.MAX_VALUE, TransactionRepository.HISTORY_START, TransactionRepository.HISTORY_END, 3))
+                .thenReturn(merged);
+
+        // Act
+        TransactionPage result = transactionService.getTransactionHistory(sender.getId(), null, 2, null, null);
+
+        // Assert
+        assertEquals(List.of(50, 49), result.transactions().stream().map(TransactionDTO::getId).toList());
+        assertEquals(49, result.nextCursor());
+    }
+
+    @Test
+    void getTransactionHistory_WithEmptyDateRange_ShouldThrowException() {
+        // Arrange
+        Instant instant = Instant.parse("2026-09-01T00:00:00Z");
+
+        // Act & Assert
+        RuntimeException exception = assertThrows(RuntimeException.class,
+            () -> transactionService.getTransactionHistory(sender.getId(), null, null, instant, instant));
+        assertEquals("from must be before to", exception.getMessage());
+        verifyNoInteractions(transactionRepository);
+    }
+
+    @Test
+    void searchTransactions_ShouldReadMatchingTransactions() {
+        // Arrange
+        List<TransactionDTO> matches = transactionsWithIds(8, 2);
+        when(transactionSearchIndex.search(sender.getId(), "pizza", TransactionService.DEFAULT_HISTORY_LIMIT)).thenReturn(List.of(8, 7));
+        when(transactionRepository.findDTOsByIds(List.of(8, 7))).thenReturn(matches);
+
+        // Act
+        List<TransactionDTO> result = transactionService.searchTransactions(sender.getId(), "pizza", null);
 
+        // Assert
+        assertEquals(matches, result);
+    }
+
+    @Test
+    void searchTransactions_WithoutWord_ShouldThrowException() {
+        // Act & Assert
+        RuntimeException exception = assertThrows(RuntimeException.class,
+            () -> transactionService.searchTransactions(sender.getId(), " ? ", null));
+        assertEquals("Search query must contain a word", exception.getMessage());
+        verifyNoInteractions(transactionSearchIndex, transactionRepository);
+    }
+
+    @Test
+    void getTransactionHistory_FirstPageCoveredByCache_ShouldBeServedFromCache() {
+        // Arrange
+        TransactionPage cachedPage = new TransactionPage(List.of(), null);
+        when(recentTransactionsCache.covers(TransactionService.DEFAULT_HISTORY_LIMIT)).thenReturn(true);
+        when(recentTransactionsCache.firstPage(sender.getId(), TransactionService.DEFAULT_HISTORY_LIMIT)).thenReturn(cachedPage);
+
+        // Act
+        TransactionPage result = transactionService.getTransactionHistory(sender.getId(), null, null, null, null);
+
+        // Assert
+        assertSame(cachedPage, result);
+        verifyNoInteractions(transactionRepository, userRepository);
+    }
+
+    @Test
+    void addTransaction_ShouldDelegateToTransferStrategy() {
+        // Arrange
         TransactionCreationDTO transactionCreationDTO = new TransactionCreationDTO();
         transactionCreationDTO.setDescription("Test transaction");
-        transactionCreationDTO.setAmount(transactionAmount);
+        transactionCreationDTO.setAmount(Money.of("75.00"));
         transactionCreationDTO.setSenderId(sender.getId());
         transactionCreationDTO.setReceiverId(receiver.getId());
 
-        when(userRepository.findById(sender.getId())).thenReturn(Optional.of(sender));
-        when(userRepository.findById(receiver.getId())).thenReturn(Optional.of(receiver));
-        when(transactionRepository.save(any(Transaction.class))).thenReturn(transaction);
+        when(transferStrategy.transfer(transactionCreationDTO)).thenReturn(transaction);
 
         // Act
         Transaction result = transactionService.addTransaction(transactionCreationDTO);
 
         // Assert
         assertEquals(transaction, result);
-        assertEquals(initialSenderBalance - transactionAmount, sender.getBalance(), "Sender balance should be decreased by transaction amount");
-        assertEquals(initialReceiverBalance + transactionAmount, receiver.getBalance(), "Receiver balance should be increased by transaction amount");
-        verify(userRepository).findById(sender.getId());
-        verify(userRepository).findById(receiver.getId());
-        verify(userRepository).save(sender);
-        verify(userRepository).save(receiver);
-        verify(transactionRepository).save(any(Transaction.class));
+        verify(transferStrategy).transfer(transactionCreationDTO);
+        verify(recentTransactionsCache).record(transaction);
+        verify(userStatsAccumulator).record(transaction);
+        verify(transactionSearchIndex).record(transaction);
     }
 
     @Test
-    void addTransaction_WithNonExistingSender_ShouldThrowException() {
+    void addTransaction_WithGroupCommitEnabled_ShouldGoThroughGroupCommitWriter() {
         // Arrange
         TransactionCreationDTO transactionCreationDTO = new TransactionCreationDTO();
-        transactionCreationDTO.setDescription("Test transaction");
-        transactionCreationDTO.setAmount(75.0);
-        transactionCreationDTO.setSenderId(999);
+        transactionCreationDTO.setAmount(Money.of("75.00"));
+        transactionCreationDTO.setSenderId(sender.getId());
         transactionCreationDTO.setReceiverId(receiver.getId());
-        when(userRepository.findById(999)).thenReturn(Optional.empty());
 
-        // Act & Assert
-        RuntimeException exception = assertThrows(RuntimeException.class, 
-            () -> transactionService.addTransaction(transactionCreationDTO));
-        assertEquals("Sender with ID : " + 999 + " not found", exception.getMessage());
-        verify(userRepository).findById(999);
-        verify(userRepository, never()).findById(receiver.getId());
-        verify(transactionRepository, never()).save(any(Transaction.class));
+        when(groupCommitWriter.isEnabled()).thenReturn(true);
+        when(groupCommitWriter.transfer(transactionCreationDTO)).thenReturn(transaction);
+
+        // Act
+        Transaction result = transactionService.addTransaction(transactionCreationDTO);
+
+        // Assert
+        assertEquals(transaction, result);
+        verify(transferStrategy, never()).transfer(any(TransactionCreationDTO.class));
     }
 
     @Test
-    void addTransaction_WithNonExistingReceiver_ShouldThrowException() {
+    void addTransaction_WithActionInTransaction_ShouldBypassGroupCommitWriter() {
         // Arrange
         TransactionCreationDTO transactionCreationDTO = new TransactionCreationDTO();
-        transactionCreationDTO.setDescription("Test transaction");
-        transactionCreationDTO.setAmount(75.0);
+        transactionCreationDTO.setAmount(Money.of("75.00"));
         transactionCreationDTO.setSenderId(sender.getId());
-        transactionCreationDTO.setReceiverId(999);
-        when(userRepository.findById(sender.getId())).thenReturn(Optional.of(sender));
-        when(userRepository.findById(999)).thenReturn(Optional.empty());
+        transactionCreationDTO.setReceiverId(receiver.getId());
+        Consumer<Transaction> inTransaction = saved -> {
+        };
 
-        // Act & Assert
-        RuntimeException exception = assertThrows(RuntimeException.class, 
-            () -> transactionService.addTransaction(transactionCreationDTO));
-        assertEquals("Receiver with ID : " + 999 + " not found", exception.getMessage());
-        verify(userRepository).findById(sender.getId());
-        verify(userRepository).findById(999);
-        verify(transactionRepository, never()).save(any(Transaction.class));
+        lenient().when(groupCommitWriter.isEnabled()).thenReturn(true);
+        when(transferStrategy.transfer(transactionCreationDTO, inTransaction)).thenReturn(transaction);
+
+        // Act
+        Transaction result = transactionService.addTransaction(transactionCreationDTO, inTransaction);
+
+        // Assert
+        assertEquals(transaction, result);
+        verify(groupCommitWriter, never()).transfer(any(TransactionCreationDTO.class));
+        verify(recentTransactionsCache).record(transaction);
     }
 
     @Test
-    void addTransaction_WithInsufficientBalance_ShouldThrowException() {
+    void addTransaction_WithFailingTransfer_ShouldPropagateException() {
         // Arrange
         TransactionCreationDTO transactionCreationDTO = new TransactionCreationDTO();
-        transactionCreationDTO.setDescription("Test transaction");
-        transactionCreationDTO.setAmount(1000.0); // Amount greater than sender's balance (500.0)
+        transactionCreationDTO.setAmount(Money.of("1000.00"));
         transactionCreationDTO.setSenderId(sender.getId());
         transactionCreationDTO.setReceiverId(receiver.getId());
 
-        when(userRepository.findById(sender.getId())).thenReturn(Optional.of(sender));
-        when(userRepository.findById(receiver.getId())).thenReturn(Optional.of(receiver));
+        when(transferStrategy.transfer(transactionCreationDTO)).thenThrow(new RuntimeException("Insufficient balance"));
 
         // Act & Assert
-        RuntimeException exception = assertThrows(RuntimeException.class, 
+        RuntimeException exception = assertThrows(RuntimeException.class,
             () -> transactionService.addTransaction(transactionCreationDTO));
         assertEquals("Insufficient balance", exception.getMessage());
+        verify(transactionRepository, never()).save(any(Transaction.class));
+    }
+
+    @Test
+    void addTransactions_ShouldDelegateToBatchTransferProcessor() {
+        // Arrange
+        TransactionCreationDTO transactionCreationDTO = new TransactionCreationDTO();
+        transactionCreationDTO.setAmount(Money.of("75.00"));
+        transactionCreationDTO.setSenderId(sender.getId());
+        transactionCreationDTO.setReceiverId(receiver.getId());
+        List<TransactionCreationDTO> batch = List.of(transactionCreationDTO);
+        List<TransferOutcome> outcomes = List.of(TransferOutcome.success(0, transaction));
 
-        // Verify that balances remain unchanged
-        assertEquals(500.0, sender.getBalance());
-        assertEquals(500.0, receiver.getBalance());
+        when(transferStrategy.storesBalanceOnUser()).thenReturn(true);
+        when(batchTransferProcessor.process(batch)).thenReturn(outcomes);
 
-        verify(userRepository).findById(sender.getId());
-        verify(userRepository).findById(receiver.getId());
-        verify(userRepository, never()).save(any(User.class));
-        verify(transactionRepository, never()).save(any(Transaction.class));
+        // Act
+        List<TransferOutcome> result = transactionService.addTransactions(batch);
+
+        // Assert
+        assertEquals(outcomes, result);
+        verify(transferStrategy, never()).transfer(any(TransactionCreationDTO.class));
+        verify(userStatsAccumulator).record(transaction);
+    }
+
+    @Test
+    void addTransactions_WhenStrategyDoesNotStoreBalanceOnUser_ShouldApplyEachWithStrategy() {
+        // Arrange
+        TransactionCreationDTO transactionCreationDTO = new TransactionCreationDTO();
+        transactionCreationDTO.setAmount(Money.of("75.00"));
+        transactionCreationDTO.setSenderId(sender.getId());
+        transactionCreationDTO.setReceiverId(receiver.getId());
+        List<TransactionCreationDTO> batch = List.of(transactionCreationDTO);
+        List<TransferOutcome> outcomes = List.of(TransferOutcome.success(0, transaction));
+
+        when(transferStrategy.storesBalanceOnUser()).thenReturn(false);
+        when(batchTransferProcessor.processEach(batch, transferStrategy)).thenReturn(outcomes);
+
+        // Act
+        List<TransferOutcome> result = transactionService.addTransactions(batch);
+
+        // Assert
+        assertEquals(outcomes, result);
+        verify(batchTransferProcessor, never()).process(any());
     }
 }
@@ -0,0 +1,95 @@
+package dev.nikkune.paymybuddy.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransferRetryExecutorTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private TransferRetryExecutor retryExecutor;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        retryExecutor = new TransferRetryExecutor(3, 0, 0, meterRegistry);
+    }
+
+    @Test
+    void constructor_WithInvalidBudget_ShouldThrowException() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> new TransferRetryExecutor(0, 0, 0, meterRegistry));
+        assertThrows(IllegalArgumentException.class, () -> new TransferRetryExecutor(3, 10, 5, meterRegistry));
+    }
+
+    @Test
+    void execute_WithoutConflict_ShouldRunOnce() {
+        // Act
+        String result = retryExecutor.execute(() -> "done");
+
+        // Assert
+        assertEquals("done", result);
+        assertEquals(1.0, meterRegistry.get("paymybuddy.transfer.retry.attempts").counter().count());
+        assertEquals(0.0, meterRegistry.get("paymybuddy.transfer.retry.conflicts").counter().count());
+        assertEquals(0.0, meterRegistry.get("paymybuddy.transfer.retry.retries").summary().totalAmount());
+        assertEquals(0, meterRegistry.get("paymybuddy.transfer.retry.latency").timer().count());
+    }
+
+    @Test
+    void execute_WithTransientConflicts_ShouldRetryUntilSuccess() {
+        // Arrange
+        AtomicInteger calls = new AtomicInteger();
+
+        // Act
+        String result = retryExecutor.execute(() -> {
+            if (calls.incrementAndGet() < 3)
+                throw new ObjectOptimisticLockingFailureException("User", 1);
+            return "done";
+        });
+
+        // Assert
+        assertEquals("done", result);
+        assertEquals(3, calls.get());
+        assertEquals(3.0, meterRegistry.get("paymybuddy.transfer.retry.attempts").counter().count());
+        assertEquals(2.0, meterRegistry.get("paymybuddy.transfer.retry.conflicts").counter().count());
+        assertEquals(2.0, meterRegistry.get("paymybuddy.transfer.retry.retries").summary().totalAmount());
+        assertEquals(1, meterRegistry.get("paymybuddy.transfer.retry.latency").timer().count());
+        assertEquals(0.0, meterRegistry.get("paymybuddy.transfer.retry.exhausted").counter().count());
+    }
+
+    @Test
+    void execute_WhenBudgetIsExhausted_ShouldRethrowLastConflict() {
+        // Arrange
+        AtomicInteger calls = new AtomicInteger();
+
+        // Act & Assert
+        assertThrows(PessimisticLockingFailureException.class, () -> retryExecutor.execute(() -> {
+            calls.incrementAndGet();
+            throw new PessimisticLockingFailureException("Deadlock");
+        }));
+        assertEquals(3, calls.get());
+        assertEquals(1.0, meterRegistry.get("paymybuddy.transfer.retry.exhausted").counter().count());
+        assertEquals(2.0, meterRegistry.get("paymybuddy.transfer.retry.retries").summary().totalAmount());
+    }
+
+    @Test
+    void execute_WithOtherException_ShouldNotRetry() {
+        // Arrange
+        AtomicInteger calls = new AtomicInteger();
+
+        // Act & Assert
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> retryExecutor.execute(() -> {
+            calls.incrementAndGet();
+            throw new RuntimeException("Insufficient balance");
+        }));
+        assertEquals("Insufficient balance", exception.getMessage());
+        assertEquals(1, calls.get());
+        assertEquals(0.0, meterRegistry.get("paymybuddy.transfer.retry.conflicts").counter().count());
+    }
+}
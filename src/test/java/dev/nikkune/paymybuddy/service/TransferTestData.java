@@ -0,0 +1,30 @@
+package dev.nikkune.paymybuddy.service;
+
+import dev.nikkune.paymybuddy.dto.TransactionCreationDTO;
+import dev.nikkune.paymybuddy.model.Money;
+
+/**
+ * Builds the transactions sent to the transfer strategies and processors in their tests.
+ */
+final class TransferTestData {
+
+    private TransferTestData() {
+    }
+
+    /**
+     * Builds a transaction to be added.
+     *
+     * @param senderId   the ID of the sender
+     * @param receiverId the ID of the receiver
+     * @param amount     the decimal amount, such as {@code "75.00"}
+     * @return the transaction
+     */
+    static TransactionCreationDTO creationDTO(int senderId, int receiverId, String amount) {
+        TransactionCreationDTO transactionCreationDTO = new TransactionCreationDTO();
+        transactionCreationDTO.setDescription("Test transaction");
+        transactionCreationDTO.setAmount(Money.of(amount));
+        transactionCreationDTO.setSenderId(senderId);
+        transactionCreationDTO.setReceiverId(receiverId);
+        return transactionCreationDTO;
+    }
+}
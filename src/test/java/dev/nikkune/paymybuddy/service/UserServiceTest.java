@@ -1,15 +1,20 @@
 package dev.nikkune.paymybuddy.service;
 
+import dev.nikkune.paymybuddy.dto.CounterpartyDTO;
+import dev.nikkune.paymybuddy.dto.UserStatsDTO;
+import dev.nikkune.paymybuddy.model.Money;
 import dev.nikkune.paymybuddy.model.User;
+import dev.nikkune.paymybuddy.model.UserStats;
+import dev.nikkune.paymybuddy.repository.CounterpartyStatsRepository;
 import dev.nikkune.paymybuddy.repository.UserRepository;
-import dev.nikkune.paymybuddy.utils.PasswordUtil;
+import dev.nikkune.paymybuddy.repository.UserStatsRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
-import org.mockito.MockedStatic;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -18,6 +23,7 @@ import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
@@ -27,6 +33,27 @@ class UserServiceTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private ITransferStrategy transferStrategy;
+
+    @Mock
+    private RecentTransactionsCache recentTransactionsCache;
+
+    @Mock
+    private UserStatsRepository userStatsRepository;
+
+    @Mock
+    private CounterpartyStatsRepository counterpartyStatsRepository;
+
+    @Mock
+    private UserVersions userVersions;
+
+    @Mock
+    private CredentialCache credentialCache;
+
+    @Mock
+    private PasswordHasher passwordHasher;
+
     @InjectMocks
     private UserService userService;
 
@@ -41,7 +68,7 @@ class UserServiceTest {
         testUser.setUsername("testuser");
         testUser.setEmail("test@example.com");
         testUser.setPassword("encodedPassword");
-        testUser.setBalance(500.0); // Initialize balance
+        testUser.setBalance(Money.of("500.00")); // Initialize balance
         testUser.setConnections(new ArrayList<>());
 
         // Create a connection user
@@ -50,7 +77,7 @@ class UserServiceTest {
         connectionUser.setUsername("connection");
         connectionUser.setEmail("connection@example.com");
         connectionUser.setPassword("encodedPassword");
-        connectionUser.setBalance(500.0); // Initialize balance
+        connectionUser.setBalance(Money.of("500.00")); // Initialize balance
         connectionUser.setConnections(new ArrayList<>());
     }
 
@@ -78,6 +105,18 @@ class UserServiceTest {
         verify(userRepository).findById(999);
     }
 
+    @Test
+    void getBalance_ShouldDelegateToTransferStrategy() {
+        // Arrange
+        when(transferStrategy.balanceOf(testUser)).thenReturn(Money.of("420.00"));
+
+        // Act
+        Money result = userService.getBalance(testUser);
+
+        // Assert
+        assertEquals(Money.of("420.00"), result);
+    }
+
     @Test
     void getUserByEmail_WithExistingEmail_ShouldReturnUser() {
         // Arrange
@@ -110,7 +149,8 @@ class UserServiceTest {
         newUser.setUsername("newuser");
         newUser.setEmail("new@example.com");
         newUser.setPassword("password123");
-        newUser.setBalance(0.0); // Initialize balance
+        newUser.setBalance(Money.of("0.00")); // Initialize balance
+        when(passwordHasher.encode("password123")).thenReturn("encodedPassword");
         when(userRepository.save(any(User.class))).thenReturn(newUser);
 
         // Act
@@ -119,8 +159,8 @@ class UserServiceTest {
         // Assert
         assertEquals(newUser.getUsername(), result.getUsername());
         assertEquals(newUser.getEmail(), result.getEmail());
-        assertEquals(newUser.getPassword(), result.getPassword());
-        assertEquals(0.0, result.getBalance(), "Balance should be initialized to 0.0");
+        assertEquals("encodedPassword", result.getPassword());
+        assertEquals(Money.of("0.00"), result.getBalance(), "Balance should be initialized to 0.0");
         verify(userRepository).save(any(User.class));
     }
 
@@ -163,6 +203,7 @@ class UserServiceTest {
         updatedUser.setId(testUser.getId());
         updatedUser.setUsername("updatedUsername");
         updatedUser.setEmail("updated@example.com");
+        String previousEmail = testUser.getEmail();
 
         when(userRepository.findById(testUser.getId())).thenReturn(Optional.of(testUser));
         when(userRepository.save(any(User.class))).thenReturn(testUser);
@@ -176,6 +217,27 @@ class UserServiceTest {
         assertEquals(updatedUser.getEmail(), testUser.getEmail());
         verify(userRepository).findById(testUser.getId());
         verify(userRepository).save(testUser);
+        verify(recentTransactionsCache).usernameChanged();
+        verify(userVersions).usernameChanged(testUser.getId());
+        verify(userVersions).connectionChanged(testUser.getId());
+        verify(credentialCache).invalidate(previousEmail);
+    }
+
+    @Test
+    void updateUser_WithUsernameOnly_ShouldKeepVerifiedCredentials() {
+        // Arrange
+        User updatedUser = new User();
+        updatedUser.setId(testUser.getId());
+        updatedUser.setUsername("updatedUsername");
+
+        when(userRepository.findById(testUser.getId())).thenReturn(Optional.of(testUser));
+        when(userRepository.save(any(User.class))).thenReturn(testUser);
+
+        // Act
+        userService.updateUser(updatedUser);
+
+        // Assert
+        verify(credentialCache, never()).invalidate(anyString());
     }
 
     @Test
@@ -185,17 +247,34 @@ class UserServiceTest {
 
         when(userRepository.findByEmail(testUser.getEmail())).thenReturn(Optional.of(testUser));
 
-        try (MockedStatic<PasswordUtil> passwordUtilMock = mockStatic(PasswordUtil.class)) {
-            passwordUtilMock.when(() -> PasswordUtil.matches(password, testUser.getPassword())).thenReturn(true);
+        when(passwordHasher.matches(password, testUser.getPassword())).thenReturn(true);
+
+        // Act
+        boolean result = userService.login(testUser.getEmail(), password);
+
+        // Assert
+        assertTrue(result);
+        verify(userRepository).findByEmail(testUser.getEmail());
+        verify(passwordHasher).matches(password, testUser.getPassword());
+    }
+
+    @Test
+    void login_WithHashOfAnotherCost_ShouldRehashPassword() {
+        // Arrange
+        String password = "password123";
+        String oldHash = testUser.getPassword();
 
-            // Act
-            boolean result = userService.login(testUser.getEmail(), password);
+        when(userRepository.findByEmail(testUser.getEmail())).thenReturn(Optional.of(testUser));
+        when(passwordHasher.matches(password, oldHash)).thenReturn(true);
+        when(passwordHasher.needsRehash(oldHash)).thenReturn(true);
+        when(passwordHasher.encode(password)).thenReturn("newHash");
+
+        // Act
+        boolean result = userService.login(testUser.getEmail(), password);
 
-            // Assert
-            assertTrue(result);
-            verify(userRepository).findByEmail(testUser.getEmail());
-            passwordUtilMock.verify(() -> PasswordUtil.matches(password, testUser.getPassword()));
-        }
+        // Assert
+        assertTrue(result);
+        verify(userRepository).replacePassword(testUser.getId(), oldHash, "newHash");
     }
 
     @Test
@@ -205,16 +284,14 @@ class UserServiceTest {
 
         when(userRepository.findByEmail(testUser.getEmail())).thenReturn(Optional.of(testUser));
 
-        try (MockedStatic<PasswordUtil> passwordUtilMock = mockStatic(PasswordUtil.class)) {
-            passwordUtilMock.when(() -> PasswordUtil.matches(password, testUser.getPassword())).thenReturn(false);
+        when(passwordHasher.matches(password, testUser.getPassword())).thenReturn(false);
 
-            // Act & Assert
-            RuntimeException exception = assertThrows(RuntimeException.class, 
-                () -> userService.login(testUser.getEmail(), password));
-            assertEquals("Invalid password", exception.getMessage());
-            verify(userRepository).findByEmail(testUser.getEmail());
-            passwordUtilMock.verify(() -> PasswordUtil.matches(password, testUser.getPassword()));
-        }
+        // Act & Assert
+        RuntimeException exception = assertThrows(RuntimeException.class,
+            () -> userService.login(testUser.getEmail(), password));
+        assertEquals("Invalid password", exception.getMessage());
+        verify(userRepository).findByEmail(testUser.getEmail());
+        verify(passwordHasher).matches(password, testUser.getPassword());
     }
 
     @Test
@@ -261,6 +338,7 @@ class UserServiceTest {
         assertEquals(connectionUser, result.get(0));
         verify(userRepository).findById(testUser.getId());
         verify(userRepository).findByEmail(connectionUser.getEmail());
+        verify(userVersions).connectionChanged(testUser.getId());
     }
 
     @Test
@@ -277,4 +355,56 @@ class UserServiceTest {
         verify(userRepository).findById(testUser.getId());
         verify(userRepository).findByEmail(connectionUser.getEmail());
     }
+
+    @Test
+    void getUserStats_ShouldReturnTotalsAndTopCounterparties() {
+        // Arrange
+        UserStats userStats = new UserStats();
+        userStats.setUserId(testUser.getId());
+        userStats.setTotalSent(Money.of("120.00"));
+        userStats.setTotalReceived(Money.of("30.50"));
+        userStats.setTransferCount(4);
+        List<CounterpartyDTO> counterparties = List.of(new CounterpartyDTO("connection", 3, Money.of("100.00")));
+        when(userRepository.findById(testUser.getId())).thenReturn(Optional.of(testUser));
+        when(userStatsRepository.findById(testUser.getId())).thenReturn(Optional.of(userStats));
+        when(counterpartyStatsRepository.findTopByUserId(testUser.getId(), Limit.of(UserService.TOP_COUNTERPARTIES))).thenReturn(counterparties);
+
+        // Act
+        UserStatsDTO result = userService.getUserStats(testUser.getId());
+
+        // Assert
+        assertEquals(testUser.getId(), result.getUserId());
+        assertEquals(Money.of("120.00"), result.getTotalSent());
+        assertEquals(Money.of("30.50"), result.getTotalReceived());
+        assertEquals(4, result.getTransferCount());
+        assertEquals(counterparties, result.getTopCounterparties());
+    }
+
+    @Test
+    void getUserStats_WithoutTransactions_ShouldReturnZeros() {
+        // Arrange
+        when(userRepository.findById(testUser.getId())).thenReturn(Optional.of(testUser));
+        when(userStatsRepository.findById(testUser.getId())).thenReturn(Optional.empty());
+        when(counterpartyStatsRepository.findTopByUserId(anyInt(), any(Limit.class))).thenReturn(List.of());
+
+        // Act
+        UserStatsDTO result = userService.getUserStats(testUser.getId());
+
+        // Assert
+        assertEquals(Money.ZERO, result.getTotalSent());
+        assertEquals(Money.ZERO, result.getTotalReceived());
+        assertEquals(0, result.getTransferCount());
+        assertTrue(result.getTopCounterparties().isEmpty());
+    }
+
+    @Test
+    void getUserStats_WithNonExistingUser_ShouldThrowException() {
+        // Arrange
+        when(userRepository.findById(999)).thenReturn(Optional.empty());
+
+        // Act & Assert
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> userService.getUserStats(999));
+        assertEquals("User with ID : 999 not found", exception.getMessage());
+        verifyNoInteractions(userStatsRepository, counterpartyStatsRepository);
+    }
 }
@@ -0,0 +1,129 @@
+package dev.nikkune.paymybuddy.service;
+
+import dev.nikkune.paymybuddy.model.Money;
+import dev.nikkune.paymybuddy.model.Transaction;
+import dev.nikkune.paymybuddy.model.User;
+import dev.nikkune.paymybuddy.repository.CounterpartyStatsRepository;
+import dev.nikkune.paymybuddy.repository.UserStatsRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserStatsAccumulatorTest {
+
+    @Mock
+    private UserStatsRepository userStatsRepository;
+
+    @Mock
+    private CounterpartyStatsRepository counterpartyStatsRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SimpleMeterRegistry meterRegistry;
+    private UserStatsAccumulator userStatsAccumulator;
+
+    private User alice;
+    private User bob;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        userStatsAccumulator = new UserStatsAccumulator(userStatsRepository, counterpartyStatsRepository, transactionManager, meterRegistry);
+
+        alice = new User();
+        alice.setId(1);
+        bob = new User();
+        bob.setId(2);
+    }
+
+    private Transaction transaction(User sender, User receiver, String amount) {
+        Transaction transaction = new Transaction();
+        transaction.setSender(sender);
+        transaction.setReceiver(receiver);
+        transaction.setAmount(Money.of(amount));
+        return transaction;
+    }
+
+    private double pending() {
+        return meterRegistry.get("paymybuddy.users.stats.pending").gauge().value();
+    }
+
+    @Test
+    void flush_ShouldWriteOneIncrementPerUserAndCounterparty() {
+        // Arrange
+        when(userStatsRepository.addStats(anyInt(), anyLong(), anyLong(), anyLong())).thenReturn(1);
+        when(counterpartyStatsRepository.addCounterparty(anyInt(), anyInt(), anyLong(), anyLong())).thenReturn(1);
+        userStatsAccumulator.record(transaction(bob, alice, "2.00"));
+        userStatsAccumulator.record(transaction(alice, bob, "10.00"));
+        userStatsAccumulator.record(transaction(alice, bob, "5.50"));
+
+        // Act
+        userStatsAccumulator.flush();
+
+        // Assert
+        InOrder inOrder = inOrder(userStatsRepository, counterpartyStatsRepository);
+        inOrder.verify(userStatsRepository).addStats(1, 1550, 200, 3);
+        inOrder.verify(counterpartyStatsRepository).addCounterparty(1, 2, 3, 1750);
+        inOrder.verify(userStatsRepository).addStats(2, 200, 1550, 3);
+        inOrder.verify(counterpartyStatsRepository).addCounterparty(2, 1, 3, 1750);
+        verify(userStatsRepository, never()).insertStats(anyInt(), anyLong(), anyLong(), anyLong());
+        assertEquals(0.0, pending());
+    }
+
+    @Test
+    void flush_WithNewUser_ShouldInsertStats() {
+        // Arrange
+        when(userStatsRepository.addStats(anyInt(), anyLong(), anyLong(), anyLong())).thenReturn(0);
+        when(counterpartyStatsRepository.addCounterparty(anyInt(), anyInt(), anyLong(), anyLong())).thenReturn(0);
+        userStatsAccumulator.record(transaction(alice, alice, "1.00"));
+
+        // Act
+        userStatsAccumulator.flush();
+
+        // Assert
+        verify(userStatsRepository).insertStats(1, 100, 100, 1);
+        verify(counterpartyStatsRepository).insertCounterparty(1, 1, 1, 100);
+    }
+
+    @Test
+    void flush_WhenWriteFails_ShouldKeepDeltasForNextFlush() {
+        // Arrange
+        when(userStatsRepository.addStats(anyInt(), anyLong(), anyLong(), anyLong()))
+                .thenThrow(new DataIntegrityViolationException("Duplicate key"))
+                .thenReturn(1);
+        when(counterpartyStatsRepository.addCounterparty(anyInt(), anyInt(), anyLong(), anyLong())).thenReturn(1);
+        userStatsAccumulator.record(transaction(alice, bob, "10.00"));
+        userStatsAccumulator.flush();
+        userStatsAccumulator.record(transaction(alice, bob, "1.00"));
+
+        // Act
+        userStatsAccumulator.flush();
+
+        // Assert
+        verify(userStatsRepository).addStats(1, 1000, 0, 1);
+        verify(userStatsRepository).addStats(1, 1100, 0, 2);
+        verify(counterpartyStatsRepository).addCounterparty(1, 2, 2, 1100);
+        assertEquals(0.0, pending());
+    }
+
+    @Test
+    void flush_WithoutTransactions_ShouldNotOpenTransaction() {
+        // Act
+        userStatsAccumulator.flush();
+
+        // Assert
+        verifyNoInteractions(transactionManager, userStatsRepository, counterpartyStatsRepository);
+    }
+}
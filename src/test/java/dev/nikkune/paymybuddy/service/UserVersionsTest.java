@@ -0,0 +1,102 @@
+package dev.nikkune.paymybuddy.service;
+
+import dev.nikkune.paymybuddy.repository.SharedVersionRepository;
+import dev.nikkune.paymybuddy.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserVersionsTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private SharedVersionRepository sharedVersionRepository;
+
+    @InjectMocks
+    private UserVersions userVersions;
+
+    @Test
+    void transactionsETag_ShouldCombineUsernamesAndUserVersions() {
+        // Arrange
+        when(userRepository.findVersionById(1)).thenReturn(Optional.of(12L));
+        when(sharedVersionRepository.findVersionByName("usernames")).thenReturn(Optional.of(3L));
+
+        // Act
+        String eTag = userVersions.transactionsETag(1);
+
+        // Assert
+        assertEquals("W/\"t-3-12\"", eTag);
+    }
+
+    @Test
+    void transactionsETag_WithoutUsernameChange_ShouldStartUsernamesVersionAtZero() {
+        // Arrange
+        when(userRepository.findVersionById(1)).thenReturn(Optional.of(12L));
+        when(sharedVersionRepository.findVersionByName("usernames")).thenReturn(Optional.empty());
+
+        // Act
+        String eTag = userVersions.transactionsETag(1);
+
+        // Assert
+        assertEquals("W/\"t-0-12\"", eTag);
+    }
+
+    @Test
+    void connectionsETag_WithUnknownUser_ShouldReturnNull() {
+        // Arrange
+        when(userRepository.findVersionById(99)).thenReturn(Optional.empty());
+
+        // Act
+        String eTag = userVersions.connectionsETag(99);
+
+        // Assert
+        assertNull(eTag);
+        assertNull(userVersions.transactionsETag(99));
+        verifyNoInteractions(sharedVersionRepository);
+    }
+
+    @Test
+    void connectionChanged_ShouldBumpVersionsOfConnectedUsers() {
+        // Act
+        userVersions.connectionChanged(1);
+
+        // Assert
+        verify(userRepository).incrementVersionsOfConnectedUsers(1);
+        verifyNoInteractions(sharedVersionRepository);
+    }
+
+    @Test
+    void usernameChanged_ShouldBumpUsernamesVersion() {
+        // Arrange
+        when(sharedVersionRepository.increment("usernames")).thenReturn(1);
+
+        // Act
+        userVersions.usernameChanged(1);
+
+        // Assert
+        verify(userRepository).incrementVersionsOfConnectedUsers(1);
+        verify(sharedVersionRepository, never()).insert(anyString(), anyLong());
+    }
+
+    @Test
+    void usernameChanged_WithoutUsernamesVersion_ShouldCreateIt() {
+        // Arrange
+        when(sharedVersionRepository.increment("usernames")).thenReturn(0);
+
+        // Act
+        userVersions.usernameChanged(1);
+
+        // Assert
+        verify(sharedVersionRepository).insert("usernames", 1);
+    }
+}
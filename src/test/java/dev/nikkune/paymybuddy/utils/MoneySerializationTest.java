@@ -0,0 +1,46 @@
+package dev.nikkune.paymybuddy.utils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.InvalidFormatException;
+import dev.nikkune.paymybuddy.dto.TransactionCreationDTO;
+import dev.nikkune.paymybuddy.model.Money;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MoneySerializationTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void serialize_ShouldWriteDecimalNumber() throws Exception {
+        // Assert
+        assertEquals("12.34", objectMapper.writeValueAsString(Money.of("12.34")));
+        assertEquals("0.10", objectMapper.writeValueAsString(Money.ofCents(10)));
+    }
+
+    @Test
+    void deserialize_ShouldReadNumbersAndStringsExactly() throws Exception {
+        // Assert
+        assertEquals(Money.of("0.10"), objectMapper.readValue("0.1", Money.class));
+        assertEquals(Money.of("75.00"), objectMapper.readValue("75", Money.class));
+        assertEquals(Money.of("12.34"), objectMapper.readValue("\"12.34\"", Money.class));
+    }
+
+    @Test
+    void deserialize_WithTooManyFractionDigits_ShouldThrowException() {
+        // Act & Assert
+        assertThrows(InvalidFormatException.class, () -> objectMapper.readValue("0.001", Money.class));
+        assertThrows(InvalidFormatException.class, () -> objectMapper.readValue("\"abc\"", Money.class));
+    }
+
+    @Test
+    void deserialize_ShouldReadAmountOfTransactionCreationDTO() throws Exception {
+        // Act
+        TransactionCreationDTO transactionCreationDTO = objectMapper.readValue(
+                "{\"senderId\":1,\"receiverId\":2,\"amount\":19.99}", TransactionCreationDTO.class);
+
+        // Assert
+        assertEquals(Money.ofCents(1999), transactionCreationDTO.getAmount());
+    }
+}
@@ -61,4 +61,15 @@ class PasswordUtilTest {
         // Assert
         assertFalse(result, "Any raw password should not match a null encoded password");
     }
-}
\ No newline at end of file
+
+    @Test
+    void testCostOfEncodedPassword() {
+        // Arrange
+        String encodedPassword = PasswordUtil.encodePassword("password123");
+
+        // Act & Assert
+        assertEquals(10, PasswordUtil.cost(encodedPassword));
+        assertEquals(-1, PasswordUtil.cost("plaintext"));
+        assertEquals(-1, PasswordUtil.cost(null));
+    }
+}
@@ -0,0 +1,69 @@
+package dev.nikkune.paymybuddy.utils;
+
+import dev.nikkune.paymybuddy.dto.TransactionCreationDTO;
+import dev.nikkune.paymybuddy.model.Money;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PositiveMoneyValidatorTest {
+
+    private ValidatorFactory validatorFactory;
+    private Validator validator;
+
+    @BeforeEach
+    void setUp() {
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+        validator = validatorFactory.getValidator();
+    }
+
+    @AfterEach
+    void tearDown() {
+        validatorFactory.close();
+    }
+
+    private TransactionCreationDTO creationDTO(Money amount) {
+        TransactionCreationDTO transactionCreationDTO = new TransactionCreationDTO();
+        transactionCreationDTO.setSenderId(1);
+        transactionCreationDTO.setReceiverId(2);
+        transactionCreationDTO.setAmount(amount);
+        return transactionCreationDTO;
+    }
+
+    @Test
+    void validate_WithPositiveAmount_ShouldHaveNoViolation() {
+        // Act
+        Set<ConstraintViolation<TransactionCreationDTO>> violations = validator.validate(creationDTO(Money.ofCents(1)));
+
+        // Assert
+        assertTrue(violations.isEmpty());
+    }
+
+    @Test
+    void validate_WithZeroAmount_ShouldReportPositiveViolation() {
+        // Act
+        Set<ConstraintViolation<TransactionCreationDTO>> violations = validator.validate(creationDTO(Money.ZERO));
+
+        // Assert
+        assertEquals(1, violations.size());
+        assertEquals("Amount must be positive", violations.iterator().next().getMessage());
+    }
+
+    @Test
+    void validate_WithMissingAmount_ShouldReportRequiredViolation() {
+        // Act
+        Set<ConstraintViolation<TransactionCreationDTO>> violations = validator.validate(creationDTO(null));
+
+        // Assert
+        assertEquals(1, violations.size());
+        assertEquals("Amount is required", violations.iterator().next().getMessage());
+    }
+}